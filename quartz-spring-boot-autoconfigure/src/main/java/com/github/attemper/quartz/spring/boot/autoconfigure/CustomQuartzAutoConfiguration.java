@@ -1,12 +1,21 @@
 package com.github.attemper.quartz.spring.boot.autoconfigure;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.attemper.quartz.spring.boot.autoconfigure.bulk.BulkJobImporter;
 import com.github.attemper.quartz.spring.boot.autoconfigure.constant.ConfigConst;
 import com.github.attemper.quartz.spring.boot.autoconfigure.db.DataSourceHolder;
 import com.github.attemper.quartz.spring.boot.autoconfigure.jobstore.CustomJobStoreCMT;
+import com.github.attemper.quartz.spring.boot.autoconfigure.lock.RedisSemaphore;
+import com.github.attemper.quartz.spring.boot.autoconfigure.metrics.QuartzMetricsBinder;
+import com.github.attemper.quartz.spring.boot.autoconfigure.properties.BulkImportProperties;
 import com.github.attemper.quartz.spring.boot.autoconfigure.properties.ExtraProperties;
+import com.github.attemper.quartz.spring.boot.autoconfigure.properties.LaneProperties;
+import com.github.attemper.quartz.spring.boot.autoconfigure.properties.PropertiesFlattener;
 import com.github.attemper.quartz.spring.boot.autoconfigure.properties.QuartzProperties;
+import com.github.attemper.quartz.spring.boot.autoconfigure.properties.ShardProperties;
 import com.github.attemper.quartz.spring.boot.autoconfigure.properties.plugin.PluginProperties;
+import com.github.attemper.quartz.spring.boot.autoconfigure.shard.ShardedSchedulerFactory;
+import com.github.attemper.quartz.spring.boot.autoconfigure.startup.DeferredSchedulerFactory;
+import com.github.attemper.quartz.spring.boot.autoconfigure.startup.QuartzHealthIndicator;
 import org.quartz.SchedulerException;
 import org.quartz.SchedulerFactory;
 import org.quartz.impl.StdSchedulerFactory;
@@ -14,18 +23,20 @@ import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.AutoConfigureAfter;
 import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
-import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
 import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
 import org.springframework.boot.autoconfigure.quartz.QuartzDataSource;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.util.ClassUtils;
 import org.springframework.util.StringUtils;
 
 import javax.sql.DataSource;
-import java.io.IOException;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Properties;
@@ -35,13 +46,9 @@ import java.util.Properties;
  */
 @Configuration
 @EnableConfigurationProperties({QuartzProperties.class, ExtraProperties.class})
-@AutoConfigureAfter({ JacksonAutoConfiguration.class, DataSourceAutoConfiguration.class,
-		HibernateJpaAutoConfiguration.class })
+@AutoConfigureAfter({ DataSourceAutoConfiguration.class, HibernateJpaAutoConfiguration.class })
 public class CustomQuartzAutoConfiguration {
 
-	@Autowired
-	private ObjectMapper objectMapper;
-
 	@Autowired
 	private ExtraProperties extraProperties;
 
@@ -50,14 +57,63 @@ public class CustomQuartzAutoConfiguration {
 	@ConditionalOnMissingBean
     public SchedulerFactory schedulerFactory(QuartzProperties quartzProperties, DataSource dataSource,
                                              @QuartzDataSource ObjectProvider<DataSource> quartzDataSource)
-            throws SchedulerException, IllegalAccessException, ClassNotFoundException, InstantiationException {
+            throws SchedulerException, ClassNotFoundException {
         preHandleParam();
-        StdSchedulerFactory factory = new StdSchedulerFactory();
         initDataSource(quartzProperties, dataSource, quartzDataSource); // init dataSource if needed
-        initQuartzProperties(factory, quartzProperties); // init properties
+        SchedulerFactory factory;
+        ShardProperties shardProperties = quartzProperties.getShard();
+        if (shardProperties.getCount() != null && shardProperties.getCount() > 1) {
+            factory = new ShardedSchedulerFactory(getQuartzProperties(quartzProperties), shardProperties.getCount(),
+                    shardProperties.getVirtualNodes() == null ? 160 : shardProperties.getVirtualNodes());
+        } else {
+            StdSchedulerFactory stdSchedulerFactory = new StdSchedulerFactory();
+            initQuartzProperties(stdSchedulerFactory, quartzProperties); // init properties
+            factory = stdSchedulerFactory;
+        }
+        if (Boolean.TRUE.equals(quartzProperties.getStartup().getDeferred())) {
+            return new DeferredSchedulerFactory(factory); // instantiated in the background, started when the application is ready
+        }
         return factory;
     }
 
+    @Bean
+    @ConditionalOnMissingBean
+    public BulkJobImporter bulkJobImporter(SchedulerFactory schedulerFactory, QuartzProperties quartzProperties) {
+        BulkImportProperties bulkImportProperties = quartzProperties.getBulkImport();
+        return new BulkJobImporter(schedulerFactory,
+                bulkImportProperties.getChunkSize() == null ? 1000 : bulkImportProperties.getChunkSize(),
+                bulkImportProperties.getPrecomputeThreads() == null ? 0 : bulkImportProperties.getPrecomputeThreads());
+    }
+
+    /**
+     * bound to the meter registries by spring-boot-actuator
+     */
+    @Configuration
+    @ConditionalOnClass(name = "io.micrometer.core.instrument.binder.MeterBinder")
+    static class QuartzMetricsConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean
+        public QuartzMetricsBinder quartzMetricsBinder(SchedulerFactory schedulerFactory) {
+            return new QuartzMetricsBinder(schedulerFactory);
+        }
+    }
+
+    /**
+     * readiness of the deferred scheduler, bound to the health endpoint by spring-boot-actuator
+     */
+    @Configuration
+    @ConditionalOnClass(name = "org.springframework.boot.actuate.health.HealthIndicator")
+    @ConditionalOnProperty(prefix = ConfigConst.ROOT_NAMESPACE_QUARTZ + ".startup", name = "deferred", havingValue = "true")
+    static class QuartzHealthConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean(name = "quartzHealthIndicator")
+        public QuartzHealthIndicator quartzHealthIndicator(SchedulerFactory schedulerFactory) {
+            return new QuartzHealthIndicator(schedulerFactory);
+        }
+    }
+
     /**
      * if the jobStore is not RAMJobStore and the dataSource is null, then try to set the dataSource by inject spring bean
      *
@@ -66,8 +122,8 @@ public class CustomQuartzAutoConfiguration {
      * @param quartzDataSource
      */
     private void initDataSource(QuartzProperties quartzProperties, DataSource dataSource, ObjectProvider<DataSource> quartzDataSource)
-            throws IllegalAccessException, InstantiationException, ClassNotFoundException {
-        if (Class.forName(extraProperties.getJobStoreClass()).newInstance() instanceof CustomJobStoreCMT
+            throws ClassNotFoundException {
+        if (CustomJobStoreCMT.class.isAssignableFrom(ClassUtils.forName(extraProperties.getJobStoreClass(), getClass().getClassLoader()))
                 && quartzProperties.getDataSource().isEmpty()) {
             //use spring-boot datasource
             DataSource dataSourceToUse = getDataSource(dataSource, quartzDataSource);
@@ -89,9 +145,13 @@ public class CustomQuartzAutoConfiguration {
     }
 
     private void initQuartzProperties(StdSchedulerFactory factory, QuartzProperties quartzProperties) throws SchedulerException {
+        factory.initialize(getQuartzProperties(quartzProperties));
+    }
+
+    private Properties getQuartzProperties(QuartzProperties quartzProperties) {
         Properties properties = new Properties();
         properties.putAll(asPropertiesMap(quartzProperties));
-        factory.initialize(properties);
+        return properties;
     }
 
     private void preHandleParam() {
@@ -104,7 +164,6 @@ public class CustomQuartzAutoConfiguration {
         Map<String, String> map = new HashMap<>();
 
         putObj2Map(map, quartzProperties.getScheduler(), "scheduler");
-        map.remove(ConfigConst.ROOT_NAMESPACE_QUARTZ + ".scheduler.rmi");
         if (quartzProperties.getScheduler().getRmi() != null) {
             putObj2Map(map, quartzProperties.getScheduler().getRmi(), "scheduler.rmi");
         }
@@ -112,6 +171,7 @@ public class CustomQuartzAutoConfiguration {
         putObj2Map(map, quartzProperties.getJobStore(), "jobStore");
 
         putObj2Map(map, quartzProperties.getThreadPool(), "threadPool");
+        putValue2Map(map, StdSchedulerFactory.PROP_THREAD_POOL_PREFIX + ".lanes", asLaneSpec(quartzProperties.getThreadPool().getLane()));
 
         putMapWithKey(map, quartzProperties.getDataSource(), "dataSource");
 
@@ -142,9 +202,74 @@ public class CustomQuartzAutoConfiguration {
 
 		addExtraProps(map);
 
+		moveRedisPropsToLockHandler(map);
+
 		return map;
 	}
 
+    /**
+     * the JDBC job stores have no redis properties, they belong to the lock handler if it is a RedisSemaphore.
+     * CustomJobStoreCMT keeps the connection ones for its wake-up channel.
+     *
+     * @param map
+     */
+    private void moveRedisPropsToLockHandler(Map<String, String> map) {
+        String lockHandlerClass = extraProperties.getLockHandlerClass();
+        if (StringUtils.isEmpty(lockHandlerClass)
+                || !ClassUtils.isPresent(lockHandlerClass, getClass().getClassLoader())
+                || !RedisSemaphore.class.isAssignableFrom(ClassUtils.resolveClassName(lockHandlerClass, getClass().getClassLoader()))) {
+            return;
+        }
+        String jobStoreClass = extraProperties.getJobStoreClass();
+        boolean keptByJobStore = ClassUtils.isPresent(jobStoreClass, getClass().getClassLoader())
+                && CustomJobStoreCMT.class.isAssignableFrom(ClassUtils.resolveClassName(jobStoreClass, getClass().getClassLoader()));
+        for (String propName : ConfigConst.REDIS_PROP_NAMES) {
+            String key = StdSchedulerFactory.PROP_JOB_STORE_PREFIX + "." + propName;
+            String value = keptByJobStore && Arrays.asList(ConfigConst.REDIS_CONNECTION_PROP_NAMES).contains(propName)
+                    ? map.get(key) : map.remove(key);
+            if (value != null) {
+                map.put(StdSchedulerFactory.PROP_JOB_STORE_LOCK_HANDLER_PREFIX + "." + propName, value);
+            }
+        }
+    }
+
+    /**
+     * the thread pool only takes simple properties, so the lanes are joined like
+     * <code>name:groups=a|b,minThreads=2;name2:minPriority=8</code>
+     *
+     * @param lanes
+     * @return
+     */
+    private String asLaneSpec(Map<String, LaneProperties> lanes) {
+        StringBuilder spec = new StringBuilder();
+        for (Map.Entry<String, LaneProperties> entry : lanes.entrySet()) {
+            LaneProperties lane = entry.getValue();
+            StringBuilder settings = new StringBuilder();
+            if (lane.getGroups() != null && !lane.getGroups().isEmpty()) {
+                settings.append(",groups=").append(StringUtils.collectionToDelimitedString(lane.getGroups(), "|"));
+            }
+            appendLaneSetting(settings, "minPriority", lane.getMinPriority());
+            appendLaneSetting(settings, "minThreads", lane.getMinThreads());
+            appendLaneSetting(settings, "maxThreads", lane.getMaxThreads());
+            appendLaneSetting(settings, "weight", lane.getWeight());
+            appendLaneSetting(settings, "maxQueued", lane.getMaxQueued());
+            if (spec.length() > 0) {
+                spec.append(';');
+            }
+            spec.append(entry.getKey());
+            if (settings.length() > 0) {
+                spec.append(':').append(settings, 1, settings.length());
+            }
+        }
+        return spec.toString();
+    }
+
+    private void appendLaneSetting(StringBuilder settings, String name, Integer value) {
+        if (value != null) {
+            settings.append(',').append(name).append('=').append(value);
+        }
+    }
+
 	private void addExtraProps(Map<String, String> map) {
 		putValue2Map(map, StdSchedulerFactory.PROP_SCHED_INSTANCE_ID_GENERATOR_CLASS, extraProperties.getInstanceIdGeneratorClass());
 		putValue2Map(map, StdSchedulerFactory.PROP_SCHED_CLASS_LOAD_HELPER_CLASS, extraProperties.getClassLoadHelperClass());
@@ -162,15 +287,7 @@ public class CustomQuartzAutoConfiguration {
 	}
 
 	private void putObj2Map(Map<String, String> map, Object sourceObject, String key) {
-		putMapWithKey(map, obj2Map(sourceObject), key);
-	}
-
-	private Map<String, String> obj2Map(Object sourceObject) {
-		try {
-			return objectMapper.readValue(objectMapper.writeValueAsString(sourceObject), Map.class);
-		} catch (IOException e) {
-			throw new RuntimeException(e.getMessage(), e);
-		}
+		putMapWithKey(map, PropertiesFlattener.flatten(sourceObject), key);
 	}
 
 	private void putMapWithKey(Map<String, String> map, Map<String, ?> tempMap, String key) {
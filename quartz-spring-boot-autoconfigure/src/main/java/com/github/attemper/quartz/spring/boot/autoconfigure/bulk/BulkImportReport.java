@@ -0,0 +1,105 @@
+package com.github.attemper.quartz.spring.boot.autoconfigure.bulk;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What a {@link BulkJobImporter#importJobs} did and how fast. <br>
+ *
+ * The store time is the time of the chunk transactions, waiting for TRIGGER_ACCESS included,
+ * the precompute time the time spent validating the triggers and computing their first fire times, summed over the threads.
+ */
+public class BulkImportReport {
+
+    private int jobCount;
+
+    private int triggerCount;
+
+    private int chunkCount;
+
+    private int storedOneByOneCount;
+
+    private long storeNanos;
+
+    private long maxChunkNanos;
+
+    private long precomputeNanos;
+
+    private long elapsedNanos;
+
+    void addChunk(int jobs, int triggers, int storedOneByOne, long nanos) {
+        jobCount += jobs;
+        triggerCount += triggers;
+        storedOneByOneCount += storedOneByOne;
+        chunkCount++;
+        storeNanos += nanos;
+        maxChunkNanos = Math.max(maxChunkNanos, nanos);
+    }
+
+    void addPrecomputeNanos(long nanos) {
+        precomputeNanos += nanos;
+    }
+
+    void setElapsedNanos(long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public int getJobCount() {
+        return jobCount;
+    }
+
+    public int getTriggerCount() {
+        return triggerCount;
+    }
+
+    public int getChunkCount() {
+        return chunkCount;
+    }
+
+    /**
+     * @return the jobs and triggers which existed or belong to an existing job, stored through JobStoreSupport one by one
+     */
+    public int getStoredOneByOneCount() {
+        return storedOneByOneCount;
+    }
+
+    public long getStoreMills() {
+        return TimeUnit.NANOSECONDS.toMillis(storeNanos);
+    }
+
+    /**
+     * @return the longest a chunk held TRIGGER_ACCESS
+     */
+    public long getMaxChunkMills() {
+        return TimeUnit.NANOSECONDS.toMillis(maxChunkNanos);
+    }
+
+    public long getPrecomputeMills() {
+        return TimeUnit.NANOSECONDS.toMillis(precomputeNanos);
+    }
+
+    public long getElapsedMills() {
+        return TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+    }
+
+    /**
+     * @return the triggers imported per second of the whole import
+     */
+    public double getTriggersPerSecond() {
+        return elapsedNanos == 0 ? 0 : triggerCount * 1e9 / elapsedNanos;
+    }
+
+    /**
+     * @return the rows of jobs and triggers written per second of the chunk transactions
+     */
+    public double getStoreRowsPerSecond() {
+        return storeNanos == 0 ? 0 : (jobCount + triggerCount) * 1e9 / storeNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d jobs and %d triggers in %d chunks (%d one by one) in %d ms, %.0f triggers/s;"
+                        + " stored in %d ms (%.0f rows/s, longest chunk %d ms), first fire times computed in %d ms",
+                jobCount, triggerCount, chunkCount, storedOneByOneCount, getElapsedMills(), getTriggersPerSecond(),
+                getStoreMills(), getStoreRowsPerSecond(), getMaxChunkMills(), getPrecomputeMills());
+    }
+}
@@ -0,0 +1,286 @@
+package com.github.attemper.quartz.spring.boot.autoconfigure.bulk;
+
+import com.github.attemper.quartz.spring.boot.autoconfigure.jobstore.CustomJobStoreCMT;
+import com.github.attemper.quartz.spring.boot.autoconfigure.jobstore.JobStoreHolder;
+import com.github.attemper.quartz.spring.boot.autoconfigure.shard.ShardedScheduler;
+import org.quartz.Calendar;
+import org.quartz.JobDetail;
+import org.quartz.JobKey;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
+import org.quartz.SchedulerFactory;
+import org.quartz.SchedulerListener;
+import org.quartz.Trigger;
+import org.quartz.spi.JobStore;
+import org.quartz.spi.OperableTrigger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Schedules many jobs at once, like {@link Scheduler#scheduleJobs} but in chunks of about <code>chunkSize</code> triggers,
+ * each stored by {@link CustomJobStoreCMT#storeJobsAndTriggersInBatch} within its own transaction and hold of TRIGGER_ACCESS,
+ * so the other triggers keep firing during a long import. A job is never split from its triggers. <br>
+ *
+ * The triggers are validated and their first fire times computed before the lock is taken, by <code>precomputeThreads</code>
+ * threads ahead of the chunk being stored, or by the importing thread if 0. The calendars are read once per import. <br>
+ *
+ * A failure stops the import, the chunks stored before it stay. Importing again with <code>replace</code> resumes it. <br>
+ *
+ * WriteBehindJobStore stores the chunks in memory, written behind as its other changes. With another job store, the chunks go through {@link Scheduler#scheduleJobs}. With shards, each shard imports its jobs,
+ * the existing ones being imported by the shard holding them.
+ */
+public class BulkJobImporter {
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private final SchedulerFactory schedulerFactory;
+
+    private final int chunkSize;
+
+    private final int precomputeThreads;
+
+    public BulkJobImporter(SchedulerFactory schedulerFactory, int chunkSize, int precomputeThreads) {
+        this.schedulerFactory = schedulerFactory;
+        this.chunkSize = Math.max(1, chunkSize);
+        this.precomputeThreads = Math.max(0, precomputeThreads);
+    }
+
+    /**
+     * An import is not atomic across chunks: each chunk is committed on its own, so when a chunk fails
+     * the chunks before it stay committed and the ones after it are not stored.
+     *
+     * @param triggersAndJobs the jobs and their triggers, no job being null
+     * @param replace         whether the existing jobs and triggers of the same keys are replaced
+     * @throws SchedulerException if the scheduler has been shutdown, or a chunk failed
+     */
+    public BulkImportReport importJobs(Map<JobDetail, Set<? extends Trigger>> triggersAndJobs, boolean replace) throws SchedulerException {
+        long start = System.nanoTime();
+        Scheduler scheduler = schedulerFactory.getScheduler();
+        validateState(scheduler);
+        BulkImportReport report = new BulkImportReport();
+        if (scheduler instanceof ShardedScheduler) {
+            List<JobKey> jobKeys = new ArrayList<>(triggersAndJobs.size());
+            for (JobDetail job : triggersAndJobs.keySet()) {
+                checkJob(job);
+                jobKeys.add(job.getKey());
+            }
+            Map<JobKey, Scheduler> located = ((ShardedScheduler) scheduler).getShards(jobKeys);
+            Map<Scheduler, Map<JobDetail, Set<? extends Trigger>>> byShard = new LinkedHashMap<>();
+            for (Map.Entry<JobDetail, Set<? extends Trigger>> entry : triggersAndJobs.entrySet()) {
+                byShard.computeIfAbsent(located.get(entry.getKey().getKey()), shard -> new LinkedHashMap<>())
+                        .put(entry.getKey(), entry.getValue());
+            }
+            for (Map.Entry<Scheduler, Map<JobDetail, Set<? extends Trigger>>> entry : byShard.entrySet()) {
+                importJobs(entry.getKey(), entry.getValue(), replace, report);
+            }
+        } else {
+            importJobs(scheduler, triggersAndJobs, replace, report);
+        }
+        report.setElapsedNanos(System.nanoTime() - start);
+        log.info("Imported {}", report);
+        return report;
+    }
+
+    private void importJobs(final Scheduler scheduler, Map<JobDetail, Set<? extends Trigger>> triggersAndJobs, boolean replace,
+                            BulkImportReport report) throws SchedulerException {
+        validateState(scheduler);
+        List<Map<JobDetail, Set<? extends Trigger>>> chunks = split(triggersAndJobs);
+        JobStore jobStore = JobStoreHolder.get(scheduler.getSchedulerName());
+        if (!(jobStore instanceof CustomJobStoreCMT)) {
+            for (Map<JobDetail, Set<? extends Trigger>> chunk : chunks) {
+                long chunkStart = System.nanoTime();
+                scheduler.scheduleJobs(chunk, replace);
+                report.addChunk(chunk.size(), countTriggers(chunk), 0, System.nanoTime() - chunkStart);
+            }
+            return;
+        }
+        CustomJobStoreCMT customJobStore = (CustomJobStoreCMT) jobStore;
+        final Map<String, Calendar> calendars = new ConcurrentHashMap<>();
+        final AtomicLong precomputeNanos = new AtomicLong();
+        ExecutorService executor = null;
+        List<Future<Map<JobDetail, List<OperableTrigger>>>> futures = new ArrayList<>();
+        try {
+            if (precomputeThreads > 0 && chunks.size() > 1) {
+                final String threadNamePrefix = scheduler.getSchedulerName() + "_BulkImport-";
+                final AtomicInteger threadCount = new AtomicInteger();
+                executor = Executors.newFixedThreadPool(Math.min(precomputeThreads, chunks.size()), new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        Thread thread = new Thread(r, threadNamePrefix + threadCount.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+                for (final Map<JobDetail, Set<? extends Trigger>> chunk : chunks) {
+                    futures.add(executor.submit(new Callable<Map<JobDetail, List<OperableTrigger>>>() {
+                        @Override
+                        public Map<JobDetail, List<OperableTrigger>> call() throws Exception {
+                            return precompute(scheduler, chunk, calendars, precomputeNanos);
+                        }
+                    }));
+                }
+            }
+            for (int i = 0; i < chunks.size(); i++) {
+                Map<JobDetail, List<OperableTrigger>> chunk = futures.isEmpty()
+                        ? precompute(scheduler, chunks.get(i), calendars, precomputeNanos) : get(futures.get(i));
+                long chunkStart = System.nanoTime();
+                int storedOneByOne = customJobStore.storeJobsAndTriggersInBatch(chunk, replace);
+                report.addChunk(chunk.size(), countTriggers(chunks.get(i)), storedOneByOne, System.nanoTime() - chunkStart);
+                notifySchedulerListeners(scheduler, chunk);
+            }
+        } finally {
+            if (executor != null) {
+                for (Future<?> future : futures) {
+                    future.cancel(false);
+                }
+                executor.shutdown();
+            }
+            report.addPrecomputeNanos(precomputeNanos.get());
+        }
+    }
+
+    /**
+     * what {@link Scheduler#scheduleJobs} does before storing them
+     */
+    private Map<JobDetail, List<OperableTrigger>> precompute(Scheduler scheduler, Map<JobDetail, Set<? extends Trigger>> chunk,
+                                                             Map<String, Calendar> calendars, AtomicLong precomputeNanos)
+            throws SchedulerException {
+        long start = System.nanoTime();
+        Map<JobDetail, List<OperableTrigger>> prepared = new LinkedHashMap<>();
+        for (Map.Entry<JobDetail, Set<? extends Trigger>> entry : chunk.entrySet()) {
+            JobDetail job = entry.getKey();
+            List<OperableTrigger> triggers = new ArrayList<>(entry.getValue() == null ? 0 : entry.getValue().size());
+            if (entry.getValue() != null) {
+                for (Trigger trigger : entry.getValue()) {
+                    OperableTrigger operableTrigger = (OperableTrigger) trigger;
+                    operableTrigger.setJobKey(job.getKey());
+                    operableTrigger.validate();
+                    Calendar calendar = null;
+                    if (trigger.getCalendarName() != null) {
+                        calendar = calendars.get(trigger.getCalendarName());
+                        if (calendar == null) {
+                            calendar = scheduler.getCalendar(trigger.getCalendarName());
+                            if (calendar == null) {
+                                throw new SchedulerException("Calendar '" + trigger.getCalendarName() + "' not found for trigger: " + trigger.getKey());
+                            }
+                            calendars.put(trigger.getCalendarName(), calendar);
+                        }
+                    }
+                    if (operableTrigger.computeFirstFireTime(calendar) == null) {
+                        throw new SchedulerException("Based on configured schedule, the given trigger '" + trigger.getKey() + "' will never fire.");
+                    }
+                    triggers.add(operableTrigger);
+                }
+            }
+            prepared.put(job, triggers);
+        }
+        precomputeNanos.addAndGet(System.nanoTime() - start);
+        return prepared;
+    }
+
+    /**
+     * the jobs in order, a chunk closed once it has chunkSize triggers or more
+     */
+    private List<Map<JobDetail, Set<? extends Trigger>>> split(Map<JobDetail, Set<? extends Trigger>> triggersAndJobs) throws SchedulerException {
+        List<Map<JobDetail, Set<? extends Trigger>>> chunks = new ArrayList<>();
+        Map<JobDetail, Set<? extends Trigger>> chunk = new LinkedHashMap<>();
+        int size = 0;
+        for (Map.Entry<JobDetail, Set<? extends Trigger>> entry : triggersAndJobs.entrySet()) {
+            checkJob(entry.getKey());
+            Set<? extends Trigger> triggers = entry.getValue() == null ? Collections.<Trigger>emptySet() : entry.getValue();
+            chunk.put(entry.getKey(), triggers);
+            size += Math.max(1, triggers.size());
+            if (size >= chunkSize) {
+                chunks.add(chunk);
+                chunk = new LinkedHashMap<>();
+                size = 0;
+            }
+        }
+        if (!chunk.isEmpty()) {
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+
+    /**
+     * the listeners of the scheduler are told as by {@link Scheduler#scheduleJobs}, once the chunk is committed
+     */
+    private void notifySchedulerListeners(Scheduler scheduler, Map<JobDetail, List<OperableTrigger>> chunk) throws SchedulerException {
+        List<SchedulerListener> listeners = scheduler.getListenerManager().getSchedulerListeners();
+        if (listeners.isEmpty()) {
+            return;
+        }
+        for (Map.Entry<JobDetail, List<OperableTrigger>> entry : chunk.entrySet()) {
+            for (SchedulerListener listener : listeners) {
+                try {
+                    listener.jobAdded(entry.getKey());
+                    for (OperableTrigger trigger : entry.getValue()) {
+                        listener.jobScheduled(trigger);
+                    }
+                } catch (Exception e) {
+                    log.error("Error while notifying SchedulerListener of a bulk import.", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * as QuartzScheduler#validateState, the chunks bypass the scheduler which would check it
+     */
+    private static void validateState(Scheduler scheduler) throws SchedulerException {
+        if (scheduler.isShutdown()) {
+            throw new SchedulerException("The Scheduler has been shutdown.");
+        }
+    }
+
+    private static void checkJob(JobDetail job) throws SchedulerException {
+        if (job == null) {
+            throw new SchedulerException("The jobs of a bulk import cannot be null");
+        }
+    }
+
+    private static int countTriggers(Map<JobDetail, Set<? extends Trigger>> chunk) {
+        int count = 0;
+        for (Set<? extends Trigger> triggers : chunk.values()) {
+            count += triggers.size();
+        }
+        return count;
+    }
+
+    private static <T> T get(Future<T> future) throws SchedulerException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SchedulerException("Interrupted while computing the first fire times", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof SchedulerException ? (SchedulerException) cause
+                    : new SchedulerException("Couldn't compute the first fire times: " + cause.getMessage(), cause);
+        }
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public int getPrecomputeThreads() {
+        return precomputeThreads;
+    }
+}
@@ -15,4 +15,14 @@ public interface ConfigConst {
     String PROP_PLUGIN_SHUTDOWNHOOK_CLASS = StdSchedulerFactory.PROP_PLUGIN_PREFIX + ".shutdownhook." + StdSchedulerFactory.PROP_PLUGIN_CLASS;
 
     String PROP_PLUGIN_JOB_INTERRUPT_MONITOR_CLASS = StdSchedulerFactory.PROP_PLUGIN_PREFIX + ".jobInterruptMonitor." + StdSchedulerFactory.PROP_PLUGIN_CLASS;
+
+    /**
+     * redis properties of org.quartz.jobStore, handed over to the lock handler if it is a RedisSemaphore
+     */
+    String[] REDIS_PROP_NAMES = {"host", "port", "password", "database", "ssl", "expireInMills"};
+
+    /**
+     * redis properties of org.quartz.jobStore also kept by CustomJobStoreCMT, for its wake-up channel
+     */
+    String[] REDIS_CONNECTION_PROP_NAMES = {"host", "port", "password", "database", "ssl"};
 }
@@ -4,7 +4,7 @@ import javax.sql.DataSource;
 
 public class DataSourceHolder {
 
-    private static final ThreadLocal<DataSource> contextHolder = new ThreadLocal();
+    private static final ThreadLocal<DataSource> contextHolder = new ThreadLocal<>();
 
     public static void set(DataSource Tenant) {
         contextHolder.set(Tenant);
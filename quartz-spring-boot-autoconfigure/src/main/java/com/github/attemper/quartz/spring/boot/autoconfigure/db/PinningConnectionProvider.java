@@ -0,0 +1,303 @@
+package com.github.attemper.quartz.spring.boot.autoconfigure.db;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link CustomConnectionProvider} which hands the same connection to a thread between {@link #pin()} and {@link #unpin()},
+ * so the acquire, fire and release transactions of the scheduler thread don't borrow one from the pool each. <br>
+ *
+ * The pinned connection keeps the statements it prepared, a statement closed by the driver delegate is cleared and
+ * handed out again the next time the same SQL is prepared. <br>
+ *
+ * The threads which don't pin, and the threads within a spring managed transaction, get their connections as usual.
+ */
+public class PinningConnectionProvider extends CustomConnectionProvider {
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private final DataSource dataSource;
+
+    private final int statementCacheSize;
+
+    private final ThreadLocal<PinnedConnection> pinned = new ThreadLocal<>();
+
+    private final Set<PinnedConnection> pinnedConnections = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder borrowedCount = new LongAdder();
+
+    private final LongAdder savedBorrowCount = new LongAdder();
+
+    private final LongAdder preparedStatementCount = new LongAdder();
+
+    private final LongAdder reusedStatementCount = new LongAdder();
+
+    public PinningConnectionProvider(DataSource dataSource, int statementCacheSize) {
+        super(dataSource);
+        this.dataSource = dataSource;
+        this.statementCacheSize = statementCacheSize;
+    }
+
+    /**
+     * the connections got by the current thread from now on are the same one, borrowed on first use
+     */
+    public void pin() {
+        if (pinned.get() == null) {
+            PinnedConnection connection = new PinnedConnection();
+            pinned.set(connection);
+            pinnedConnections.add(connection);
+        }
+    }
+
+    /**
+     * @return whether the current thread is pinned
+     */
+    public boolean isPinned() {
+        return pinned.get() != null;
+    }
+
+    /**
+     * gives the connection pinned to the current thread back to the pool
+     */
+    public void unpin() {
+        PinnedConnection connection = pinned.get();
+        if (connection != null) {
+            pinned.remove();
+            pinnedConnections.remove(connection);
+            connection.release();
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        PinnedConnection connection = pinned.get();
+        if (connection == null || TransactionSynchronizationManager.hasResource(dataSource)) {
+            borrowedCount.increment();
+            return super.getConnection();
+        }
+        return connection.get();
+    }
+
+    /**
+     * gives back the connections still pinned, those of the scheduler thread once it halted
+     */
+    @Override
+    public void shutdown() throws SQLException {
+        for (Iterator<PinnedConnection> iterator = pinnedConnections.iterator(); iterator.hasNext(); ) {
+            iterator.next().release();
+            iterator.remove();
+        }
+    }
+
+    /**
+     * @return the number of connections borrowed from the datasource
+     */
+    public long getBorrowedCount() {
+        return borrowedCount.sum();
+    }
+
+    /**
+     * @return the number of connections served by the pinned one instead of borrowing from the datasource
+     */
+    public long getSavedBorrowCount() {
+        return savedBorrowCount.sum();
+    }
+
+    /**
+     * @return the number of statements prepared on pinned connections
+     */
+    public long getPreparedStatementCount() {
+        return preparedStatementCount.sum();
+    }
+
+    /**
+     * @return the number of statements served from the cache of a pinned connection instead of being prepared again
+     */
+    public long getReusedStatementCount() {
+        return reusedStatementCount.sum();
+    }
+
+    private class PinnedConnection implements InvocationHandler {
+
+        private Connection target;
+
+        private Connection proxy;
+
+        private volatile boolean suspect;
+
+        private final Map<String, CachedStatement> statements = new LinkedHashMap<String, CachedStatement>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedStatement> eldest) {
+                if (size() > statementCacheSize && !eldest.getValue().inUse) {
+                    closeQuietly(eldest.getValue().target);
+                    return true;
+                }
+                return false;
+            }
+        };
+
+        synchronized Connection get() throws SQLException {
+            if (target != null && suspect) {
+                suspect = false;
+                if (!target.isValid(1)) {
+                    log.warn("Giving back the pinned connection {} which is no longer valid", target);
+                    release();
+                }
+            }
+            if (target == null) {
+                borrowedCount.increment();
+                target = DataSourceUtils.getConnection(dataSource);
+                proxy = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class}, this);
+            } else {
+                savedBorrowCount.increment();
+            }
+            return proxy;
+        }
+
+        synchronized void release() {
+            if (target == null) {
+                return;
+            }
+            for (CachedStatement statement : statements.values()) {
+                closeQuietly(statement.target);
+            }
+            statements.clear();
+            DataSourceUtils.releaseConnection(target, dataSource);
+            target = null;
+            proxy = null;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    // kept until unpinned
+                    return null;
+                case "isClosed":
+                    return target == null || target.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Pinned connection " + target;
+                case "prepareStatement":
+                    if (args.length == 1) {
+                        return prepareStatement((String) args[0]);
+                    }
+                    break;
+                default:
+                    break;
+            }
+            Connection target = this.target;
+            if (target == null) {
+                throw new SQLException("The pinned connection was given back");
+            }
+            return invokeTarget(target, method, args);
+        }
+
+        private synchronized PreparedStatement prepareStatement(String sql) throws Throwable {
+            if (target == null) {
+                throw new SQLException("The pinned connection was given back");
+            }
+            CachedStatement statement = statements.get(sql);
+            if (statement != null && !statement.inUse) {
+                reusedStatementCount.increment();
+            } else {
+                preparedStatementCount.increment();
+                PreparedStatement prepared = target.prepareStatement(sql);
+                if (statement != null) {
+                    // the cached one is open further up the stack, this one isn't kept
+                    return prepared;
+                }
+                statement = new CachedStatement(prepared);
+                statements.put(sql, statement);
+            }
+            statement.inUse = true;
+            return statement.proxy;
+        }
+
+        /**
+         * an error may have broken the connection, it is checked before it is handed out again
+         */
+        private Object invokeTarget(Object target, Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                if (e.getTargetException() instanceof SQLException) {
+                    suspect = true;
+                }
+                throw e.getTargetException();
+            }
+        }
+
+        private class CachedStatement implements InvocationHandler {
+
+            private final PreparedStatement target;
+
+            private final PreparedStatement proxy;
+
+            private boolean inUse;
+
+            CachedStatement(PreparedStatement target) {
+                this.target = target;
+                this.proxy = (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                        new Class<?>[]{PreparedStatement.class}, this);
+            }
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                switch (method.getName()) {
+                    case "close":
+                        synchronized (PinnedConnection.this) {
+                            if (inUse) {
+                                inUse = false;
+                                try {
+                                    target.clearParameters();
+                                    target.clearBatch();
+                                } catch (SQLException e) {
+                                    statements.values().remove(this);
+                                    closeQuietly(target);
+                                }
+                            }
+                        }
+                        return null;
+                    case "isClosed":
+                        return !inUse || target.isClosed();
+                    case "getConnection":
+                        return PinnedConnection.this.proxy;
+                    case "equals":
+                        return proxy == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    default:
+                        return invokeTarget(target, method, args);
+                }
+            }
+        }
+    }
+
+    private void closeQuietly(PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException ignore) {
+        }
+    }
+}
@@ -0,0 +1,411 @@
+package com.github.attemper.quartz.spring.boot.autoconfigure.delegate;
+
+import com.github.attemper.quartz.spring.boot.autoconfigure.serializer.CompactJobDataSerializer;
+import com.github.attemper.quartz.spring.boot.autoconfigure.serializer.JobDataSerializer;
+import org.quartz.CronTrigger;
+import org.quartz.JobDataMap;
+import org.quartz.JobDetail;
+import org.quartz.JobKey;
+import org.quartz.SimpleTrigger;
+import org.quartz.TriggerKey;
+import org.quartz.impl.jdbcjobstore.NoSuchDelegateException;
+import org.quartz.impl.jdbcjobstore.StdJDBCDelegate;
+import org.quartz.impl.jdbcjobstore.TriggerPersistenceDelegate;
+import org.quartz.spi.ClassLoadHelper;
+import org.quartz.spi.OperableTrigger;
+import org.slf4j.Logger;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.math.BigDecimal;
+import java.sql.Blob;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.quartz.TriggerKey.triggerKey;
+
+/**
+ * A StdJDBCDelegate bounding the query selecting the triggers to acquire by <code>LIMIT</code> where supported. <br>
+ *
+ * Its statements are prepared on each call like those of StdJDBCDelegate. They are reused across the acquisitions only on the connection
+ * pinned to the scheduler thread by the <code>pinConnection</code> setting of CustomJobStoreCMT, which keeps its prepared statements. <br>
+ *
+ * The subclasses of the databases supporting it select the triggers to acquire with <code>FOR UPDATE SKIP LOCKED</code>,
+ * the nodes of a cluster then acquire disjoint triggers without waiting for each other. <br>
+ *
+ * Settings of <code>driverDelegateInitString</code>, besides those of StdJDBCDelegate: <br>
+ * skipLocked - “false” to select the triggers to acquire without SKIP LOCKED even if the database supports it <br>
+ *
+ * The JobDataMaps are written by the {@link JobDataSerializer} set by CustomJobStoreCMT if any,
+ * the blobs of Java serialization are still read. <br>
+ *
+ * The jobs and triggers of a bulk import are inserted by JDBC batches, see {@link #insertJobDetails} and {@link #insertTriggers}.
+ */
+public class CustomJDBCDelegate extends StdJDBCDelegate {
+
+    protected static final String SELECT_NEXT_TRIGGER_TO_ACQUIRE_LIMIT = SELECT_NEXT_TRIGGER_TO_ACQUIRE + " LIMIT ?";
+
+    private static final JobDataSerializer COMPACT_JOB_DATA_SERIALIZER = new CompactJobDataSerializer();
+
+    /**
+     * the names per query of selectExistingJobKeys and selectExistingTriggerKeys
+     */
+    protected static final int MAX_IN_LIST = 500;
+
+    protected static final String SELECT_EXISTING_JOB_NAMES = "SELECT " + COL_JOB_NAME + " FROM " + TABLE_PREFIX_SUBST + TABLE_JOB_DETAILS
+            + " WHERE " + COL_SCHEDULER_NAME + " = " + SCHED_NAME_SUBST + " AND " + COL_JOB_GROUP + " = ? AND " + COL_JOB_NAME;
+
+    protected static final String SELECT_EXISTING_TRIGGER_NAMES = "SELECT " + COL_TRIGGER_NAME + " FROM " + TABLE_PREFIX_SUBST + TABLE_TRIGGERS
+            + " WHERE " + COL_SCHEDULER_NAME + " = " + SCHED_NAME_SUBST + " AND " + COL_TRIGGER_GROUP + " = ? AND " + COL_TRIGGER_NAME;
+
+    protected static final String SELECT_NEXT_TRIGGER_TO_ACQUIRE_SKIP_LOCKED = SELECT_NEXT_TRIGGER_TO_ACQUIRE_LIMIT
+            + " FOR UPDATE SKIP LOCKED";
+
+    private boolean skipLockedAllowed = true;
+
+    /**
+     * null until it is checked on the first acquisition
+     */
+    private volatile Boolean skipLocked;
+
+    /**
+     * null to write the JobDataMaps by Java serialization
+     */
+    private JobDataSerializer jobDataSerializer;
+
+    @Override
+    public void initialize(Logger logger, String tablePrefix, String schedName, String instanceId, ClassLoadHelper classLoadHelper,
+                           boolean useProperties, String initString) throws NoSuchDelegateException {
+        List<String> stdSettings = new ArrayList<>();
+        if (initString != null) {
+            for (String setting : initString.split("\\|")) {
+                String[] parts = setting.split("=", 2);
+                if (parts.length == 2 && "skipLocked".equals(parts[0])) {
+                    skipLockedAllowed = Boolean.parseBoolean(parts[1].trim());
+                } else {
+                    stdSettings.add(setting);
+                }
+            }
+        }
+        super.initialize(logger, tablePrefix, schedName, instanceId, classLoadHelper, useProperties,
+                stdSettings.isEmpty() ? null : String.join("|", stdSettings));
+    }
+
+    /**
+     * the stock query bounded by <code>LIMIT</code> instead of the max rows of the statement, so the database
+     * stops at maxCount rows, and locked by <code>FOR UPDATE SKIP LOCKED</code> if supported.
+     */
+    @Override
+    public List<TriggerKey> selectTriggerToAcquire(Connection conn, long noLaterThan, long noEarlierThan, int maxCount)
+            throws SQLException {
+        if (!supportsLimit()) {
+            return super.selectTriggerToAcquire(conn, noLaterThan, noEarlierThan, maxCount);
+        }
+        if (maxCount < 1) {
+            maxCount = 1;
+        }
+        String sql = rtp(isSkipLocked(conn) ? SELECT_NEXT_TRIGGER_TO_ACQUIRE_SKIP_LOCKED : SELECT_NEXT_TRIGGER_TO_ACQUIRE_LIMIT);
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+        List<TriggerKey> nextTriggers = new LinkedList<>();
+        try {
+            ps = conn.prepareStatement(sql);
+            ps.setFetchSize(maxCount);
+            ps.setString(1, STATE_WAITING);
+            ps.setBigDecimal(2, new BigDecimal(String.valueOf(noLaterThan)));
+            ps.setBigDecimal(3, new BigDecimal(String.valueOf(noEarlierThan)));
+            ps.setInt(4, maxCount);
+            rs = ps.executeQuery();
+            while (rs.next()) {
+                nextTriggers.add(triggerKey(rs.getString(COL_TRIGGER_NAME), rs.getString(COL_TRIGGER_GROUP)));
+            }
+            return nextTriggers;
+        } finally {
+            closeResultSet(rs);
+            closeStatement(ps);
+        }
+    }
+
+    /**
+     * inserts the rows of the jobs by one JDBC batch
+     */
+    public void insertJobDetails(Connection conn, List<JobDetail> jobs) throws IOException, SQLException {
+        if (jobs.isEmpty()) {
+            return;
+        }
+        PreparedStatement ps = null;
+        try {
+            ps = conn.prepareStatement(rtp(INSERT_JOB_DETAIL));
+            for (JobDetail job : jobs) {
+                ps.setString(1, job.getKey().getName());
+                ps.setString(2, job.getKey().getGroup());
+                ps.setString(3, job.getDescription());
+                ps.setString(4, job.getJobClass().getName());
+                setBoolean(ps, 5, job.isDurable());
+                setBoolean(ps, 6, job.isConcurrentExectionDisallowed());
+                setBoolean(ps, 7, job.isPersistJobDataAfterExecution());
+                setBoolean(ps, 8, job.requestsRecovery());
+                setBytes(ps, 9, serializeJobData(job.getJobDataMap()));
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        } finally {
+            closeStatement(ps);
+        }
+    }
+
+    /**
+     * inserts the rows of the triggers by one JDBC batch, then those of the simple and cron triggers by one batch each.
+     * The extended properties of the triggers of other types are inserted one by one, as insertTrigger does.
+     *
+     * @param states the states of the triggers, in the same order
+     */
+    public void insertTriggers(Connection conn, List<OperableTrigger> triggers, List<String> states, Map<JobKey, JobDetail> jobs)
+            throws IOException, SQLException {
+        if (triggers.isEmpty()) {
+            return;
+        }
+        List<SimpleTrigger> simpleTriggers = new ArrayList<>();
+        List<CronTrigger> cronTriggers = new ArrayList<>();
+        List<Integer> others = new ArrayList<>();
+        PreparedStatement ps = null;
+        try {
+            ps = conn.prepareStatement(rtp(INSERT_TRIGGER));
+            for (int i = 0; i < triggers.size(); i++) {
+                OperableTrigger trigger = triggers.get(i);
+                TriggerPersistenceDelegate tDel = findTriggerPersistenceDelegate(trigger);
+                String type = tDel == null ? TTYPE_BLOB : tDel.getHandledTriggerTypeDiscriminator();
+                ps.setString(1, trigger.getKey().getName());
+                ps.setString(2, trigger.getKey().getGroup());
+                ps.setString(3, trigger.getJobKey().getName());
+                ps.setString(4, trigger.getJobKey().getGroup());
+                ps.setString(5, trigger.getDescription());
+                ps.setBigDecimal(6, trigger.getNextFireTime() == null ? null : new BigDecimal(String.valueOf(trigger.getNextFireTime().getTime())));
+                ps.setBigDecimal(7, new BigDecimal(String.valueOf(trigger.getPreviousFireTime() == null ? -1L : trigger.getPreviousFireTime().getTime())));
+                ps.setString(8, states.get(i));
+                ps.setString(9, type);
+                ps.setBigDecimal(10, new BigDecimal(String.valueOf(trigger.getStartTime().getTime())));
+                ps.setBigDecimal(11, new BigDecimal(String.valueOf(trigger.getEndTime() == null ? 0L : trigger.getEndTime().getTime())));
+                ps.setString(12, trigger.getCalendarName());
+                ps.setInt(13, trigger.getMisfireInstruction());
+                setBytes(ps, 14, trigger.getJobDataMap().size() > 0 ? serializeJobData(trigger.getJobDataMap()) : null);
+                ps.setInt(15, trigger.getPriority());
+                ps.addBatch();
+                if (TTYPE_SIMPLE.equals(type) && trigger instanceof SimpleTrigger) {
+                    simpleTriggers.add((SimpleTrigger) trigger);
+                } else if (TTYPE_CRON.equals(type) && trigger instanceof CronTrigger) {
+                    cronTriggers.add((CronTrigger) trigger);
+                } else {
+                    others.add(i);
+                }
+            }
+            ps.executeBatch();
+            closeStatement(ps);
+            ps = null;
+            if (!simpleTriggers.isEmpty()) {
+                ps = conn.prepareStatement(rtp(INSERT_SIMPLE_TRIGGER));
+                for (SimpleTrigger trigger : simpleTriggers) {
+                    ps.setString(1, trigger.getKey().getName());
+                    ps.setString(2, trigger.getKey().getGroup());
+                    ps.setInt(3, trigger.getRepeatCount());
+                    ps.setBigDecimal(4, new BigDecimal(String.valueOf(trigger.getRepeatInterval())));
+                    ps.setInt(5, trigger.getTimesTriggered());
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                closeStatement(ps);
+                ps = null;
+            }
+            if (!cronTriggers.isEmpty()) {
+                ps = conn.prepareStatement(rtp(INSERT_CRON_TRIGGER));
+                for (CronTrigger trigger : cronTriggers) {
+                    ps.setString(1, trigger.getKey().getName());
+                    ps.setString(2, trigger.getKey().getGroup());
+                    ps.setString(3, trigger.getCronExpression());
+                    ps.setString(4, trigger.getTimeZone().getID());
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+        } finally {
+            closeStatement(ps);
+        }
+        for (int i : others) {
+            OperableTrigger trigger = triggers.get(i);
+            TriggerPersistenceDelegate tDel = findTriggerPersistenceDelegate(trigger);
+            if (tDel == null) {
+                insertBlobTrigger(conn, trigger);
+            } else {
+                tDel.insertExtendedTriggerProperties(conn, trigger, states.get(i), jobs.get(trigger.getJobKey()));
+            }
+        }
+    }
+
+    /**
+     * @return those of the keys having a row, selected by group with up to {@value #MAX_IN_LIST} names per query
+     */
+    public Set<JobKey> selectExistingJobKeys(Connection conn, Collection<JobKey> jobKeys) throws SQLException {
+        Map<String, List<String>> namesByGroup = new HashMap<>();
+        for (JobKey jobKey : jobKeys) {
+            namesByGroup.computeIfAbsent(jobKey.getGroup(), group -> new ArrayList<>()).add(jobKey.getName());
+        }
+        Set<JobKey> existing = new HashSet<>();
+        for (Map.Entry<String, List<String>> entry : namesByGroup.entrySet()) {
+            for (String name : selectExistingNames(conn, SELECT_EXISTING_JOB_NAMES, COL_JOB_NAME, entry.getKey(), entry.getValue())) {
+                existing.add(JobKey.jobKey(name, entry.getKey()));
+            }
+        }
+        return existing;
+    }
+
+    /**
+     * @return those of the keys having a row, selected by group with up to {@value #MAX_IN_LIST} names per query
+     */
+    public Set<TriggerKey> selectExistingTriggerKeys(Connection conn, Collection<TriggerKey> triggerKeys) throws SQLException {
+        Map<String, List<String>> namesByGroup = new HashMap<>();
+        for (TriggerKey key : triggerKeys) {
+            namesByGroup.computeIfAbsent(key.getGroup(), group -> new ArrayList<>()).add(key.getName());
+        }
+        Set<TriggerKey> existing = new HashSet<>();
+        for (Map.Entry<String, List<String>> entry : namesByGroup.entrySet()) {
+            for (String name : selectExistingNames(conn, SELECT_EXISTING_TRIGGER_NAMES, COL_TRIGGER_NAME, entry.getKey(), entry.getValue())) {
+                existing.add(triggerKey(name, entry.getKey()));
+            }
+        }
+        return existing;
+    }
+
+    private List<String> selectExistingNames(Connection conn, String query, String column, String group, List<String> names)
+            throws SQLException {
+        List<String> existing = new ArrayList<>();
+        PreparedStatement ps = null;
+        int prepared = 0;
+        try {
+            for (int from = 0; from < names.size(); from += MAX_IN_LIST) {
+                List<String> chunk = names.subList(from, Math.min(names.size(), from + MAX_IN_LIST));
+                if (chunk.size() != prepared) {
+                    closeStatement(ps);
+                    StringBuilder sql = new StringBuilder(rtp(query)).append(" IN (");
+                    for (int i = 0; i < chunk.size(); i++) {
+                        sql.append(i == 0 ? "?" : ", ?");
+                    }
+                    ps = conn.prepareStatement(sql.append(')').toString());
+                    prepared = chunk.size();
+                }
+                ps.setString(1, group);
+                for (int i = 0; i < chunk.size(); i++) {
+                    ps.setString(i + 2, chunk.get(i));
+                }
+                ResultSet rs = null;
+                try {
+                    rs = ps.executeQuery();
+                    while (rs.next()) {
+                        existing.add(rs.getString(column));
+                    }
+                } finally {
+                    closeResultSet(rs);
+                }
+            }
+        } finally {
+            closeStatement(ps);
+        }
+        return existing;
+    }
+
+    /**
+     * writes the JobDataMap by the jobDataSerializer if it is set and can write all of its values
+     */
+    @Override
+    protected ByteArrayOutputStream serializeJobData(JobDataMap data) throws IOException {
+        if (canUseProperties() || jobDataSerializer == null || data == null || !jobDataSerializer.canSerialize(data.getWrappedMap())) {
+            return super.serializeJobData(data);
+        }
+        byte[] bytes = jobDataSerializer.serialize(data.getWrappedMap());
+        ByteArrayOutputStream baos = new ByteArrayOutputStream(bytes.length);
+        baos.write(bytes, 0, bytes.length);
+        return baos;
+    }
+
+    /**
+     * reads the blobs of the jobDataSerializer (or of the CompactJobDataSerializer if none is set), the others by Java serialization
+     */
+    @Override
+    protected Object getObjectFromBlob(ResultSet rs, String colName) throws ClassNotFoundException, IOException, SQLException {
+        byte[] bytes = getBytesFromBlob(rs, colName);
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        JobDataSerializer serializer = jobDataSerializer != null ? jobDataSerializer : COMPACT_JOB_DATA_SERIALIZER;
+        if (serializer.canDeserialize(bytes)) {
+            return serializer.deserialize(bytes);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return in.readObject();
+        }
+    }
+
+    /**
+     * @return the content of the blob column, null if it is null
+     */
+    protected byte[] getBytesFromBlob(ResultSet rs, String colName) throws SQLException {
+        Blob blobLocator = rs.getBlob(colName);
+        if (blobLocator == null) {
+            return null;
+        }
+        long length = blobLocator.length();
+        return length == 0 ? new byte[0] : blobLocator.getBytes(1, (int) length);
+    }
+
+    /**
+     * @return whether selectTriggerToAcquire may bound its query by <code>LIMIT ?</code>
+     */
+    protected boolean supportsLimit() {
+        return false;
+    }
+
+    /**
+     * @param metaData of a connection of the database
+     * @return whether the database supports <code>FOR UPDATE SKIP LOCKED</code>
+     */
+    protected boolean supportsSkipLocked(DatabaseMetaData metaData) throws SQLException {
+        return false;
+    }
+
+    /**
+     * @return whether the triggers to acquire are selected with SKIP LOCKED, null if not known before the first acquisition
+     */
+    public Boolean getSkipLocked() {
+        return skipLocked;
+    }
+
+    private boolean isSkipLocked(Connection conn) throws SQLException {
+        Boolean skipLocked = this.skipLocked;
+        if (skipLocked == null) {
+            skipLocked = skipLockedAllowed && supportsLimit() && supportsSkipLocked(conn.getMetaData());
+            logger.info("Selecting the triggers to acquire {} SKIP LOCKED", skipLocked ? "with" : "without");
+            this.skipLocked = skipLocked;
+        }
+        return skipLocked;
+    }
+
+    public JobDataSerializer getJobDataSerializer() {
+        return jobDataSerializer;
+    }
+
+    public void setJobDataSerializer(JobDataSerializer jobDataSerializer) {
+        this.jobDataSerializer = jobDataSerializer;
+    }
+}
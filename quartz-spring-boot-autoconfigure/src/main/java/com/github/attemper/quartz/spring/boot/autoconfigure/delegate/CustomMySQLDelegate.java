@@ -0,0 +1,26 @@
+package com.github.attemper.quartz.spring.boot.autoconfigure.delegate;
+
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+
+/**
+ * The CustomJDBCDelegate of MySQL and MariaDB. SKIP LOCKED is supported from MySQL 8.0 and MariaDB 10.6.
+ */
+public class CustomMySQLDelegate extends CustomJDBCDelegate {
+
+    @Override
+    protected boolean supportsLimit() {
+        return true;
+    }
+
+    @Override
+    protected boolean supportsSkipLocked(DatabaseMetaData metaData) throws SQLException {
+        int major = metaData.getDatabaseMajorVersion();
+        int minor = metaData.getDatabaseMinorVersion();
+        if (metaData.getDatabaseProductName().toLowerCase().contains("mariadb")
+                || metaData.getDatabaseProductVersion().toLowerCase().contains("mariadb")) {
+            return major > 10 || (major == 10 && minor >= 6);
+        }
+        return major >= 8;
+    }
+}
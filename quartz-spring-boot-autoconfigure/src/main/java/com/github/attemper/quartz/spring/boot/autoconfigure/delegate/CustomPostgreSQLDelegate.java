@@ -0,0 +1,42 @@
+package com.github.attemper.quartz.spring.boot.autoconfigure.delegate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * The CustomJDBCDelegate of PostgreSQL, which reads the blobs as bytea like org.quartz.impl.jdbcjobstore.PostgreSQLDelegate.
+ * SKIP LOCKED is supported from 9.5.
+ */
+public class CustomPostgreSQLDelegate extends CustomJDBCDelegate {
+
+    @Override
+    protected boolean supportsLimit() {
+        return true;
+    }
+
+    @Override
+    protected boolean supportsSkipLocked(DatabaseMetaData metaData) throws SQLException {
+        int major = metaData.getDatabaseMajorVersion();
+        return major > 9 || (major == 9 && metaData.getDatabaseMinorVersion() >= 5);
+    }
+
+    @Override
+    protected byte[] getBytesFromBlob(ResultSet rs, String colName) throws SQLException {
+        return rs.getBytes(colName);
+    }
+
+    @Override
+    protected Object getJobDataFromBlob(ResultSet rs, String colName) throws ClassNotFoundException, IOException, SQLException {
+        if (canUseProperties()) {
+            byte[] bytes = rs.getBytes(colName);
+            if (bytes == null || bytes.length == 0) {
+                return null;
+            }
+            return new ByteArrayInputStream(bytes);
+        }
+        return getObjectFromBlob(rs, colName);
+    }
+}
@@ -0,0 +1,134 @@
+package com.github.attemper.quartz.spring.boot.autoconfigure.jobstore;
+
+/**
+ * Tunes the batch size and the fire-ahead time window of the trigger acquisitions, within the bounds of
+ * batchTriggerAcquisitionMaxCount and batchTriggerAcquisitionFireAheadTimeWindow of the scheduler, which QuartzSchedulerThread
+ * passes to every acquisition, the batch size further capped by the free workers of the thread pool. <br>
+ *
+ * The batch doubles while the acquisitions come back full and shrinks while they come back less than half full,
+ * it is never below the triggers coming due within one acquisition round trip. <br>
+ *
+ * The window is the time the observed trigger density takes to fill a batch. When even the largest window wouldn't,
+ * at night, it shrinks to one acquisition round trip: the triggers due within it would be late by the next acquisition anyway. <br>
+ *
+ * Only called by the scheduler thread, the fields are volatile for the metrics.
+ */
+public class AcquisitionController {
+
+    /**
+     * the weight of the last acquisition in the averages of the density and the round trip time
+     */
+    private static final double SMOOTHING = 0.2;
+
+    private final int minBatchSize;
+
+    private final long minTimeWindow;
+
+    private volatile int batchSize;
+
+    private volatile long timeWindow;
+
+    /**
+     * the triggers acquired per millisecond
+     */
+    private volatile double density;
+
+    private volatile double roundTripMills;
+
+    private int maxBatchSize = 1;
+
+    private long maxTimeWindow;
+
+    private long lastAcquisitionTime = -1L;
+
+    /**
+     * @param minBatchSize  the smallest batch, if the free workers allow
+     * @param minTimeWindow the smallest window in milliseconds, if the window of the scheduler allows
+     */
+    public AcquisitionController(int minBatchSize, long minTimeWindow) {
+        this.minBatchSize = Math.max(1, minBatchSize);
+        this.minTimeWindow = Math.max(0L, minTimeWindow);
+        this.batchSize = this.minBatchSize;
+        this.timeWindow = this.minTimeWindow;
+    }
+
+    /**
+     * @param maxCount the batch size asked for by QuartzSchedulerThread, the smaller of its maximum and the free workers
+     * @return the batch size to acquire
+     */
+    public int getBatchSize(int maxCount) {
+        maxBatchSize = Math.max(maxBatchSize, maxCount);
+        return Math.max(1, Math.min(maxCount, batchSize));
+    }
+
+    /**
+     * @param maxTimeWindow the window asked for by QuartzSchedulerThread
+     * @return the window to acquire with
+     */
+    public long getTimeWindow(long maxTimeWindow) {
+        this.maxTimeWindow = maxTimeWindow;
+        return Math.min(maxTimeWindow, timeWindow);
+    }
+
+    /**
+     * @param requested      the batch size of the acquisition
+     * @param acquired       the number of triggers acquired
+     * @param roundTripNanos the time the acquisition took
+     */
+    public void acquired(int requested, int acquired, long roundTripNanos) {
+        long now = System.currentTimeMillis();
+        if (lastAcquisitionTime >= 0) {
+            double sample = (double) acquired / Math.max(1L, now - lastAcquisitionTime);
+            density = density == 0 ? sample : SMOOTHING * sample + (1 - SMOOTHING) * density;
+        }
+        lastAcquisitionTime = now;
+        double roundTrip = roundTripNanos / 1000000.0;
+        roundTripMills = roundTripMills == 0 ? roundTrip : SMOOTHING * roundTrip + (1 - SMOOTHING) * roundTripMills;
+
+        int size = batchSize;
+        if (acquired >= requested) {
+            size = Math.max(size, requested * 2);
+        } else if (acquired * 2 < size) {
+            size -= Math.max(1, size / 4);
+        }
+        size = Math.max(size, (int) Math.ceil(density * roundTripMills));
+        batchSize = Math.max(minBatchSize, Math.min(maxBatchSize, size));
+
+        long window = (long) Math.ceil(roundTripMills);
+        if (density > 0) {
+            double fill = batchSize / density;
+            if (fill <= maxTimeWindow) {
+                window = Math.max(window, (long) Math.ceil(fill));
+            }
+        }
+        timeWindow = Math.max(minTimeWindow, Math.min(maxTimeWindow, window));
+    }
+
+    /**
+     * @return the batch size of the next acquisition, before the cap of the free workers
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * @return the window of the next acquisition in milliseconds
+     */
+    public long getTimeWindow() {
+        return timeWindow;
+    }
+
+    /**
+     * @return the triggers acquired per second
+     */
+    public double getDensity() {
+        return density * 1000;
+    }
+
+    /**
+     * @return the average time of an acquisition in milliseconds
+     */
+    public double getRoundTripMills() {
+        return roundTripMills;
+    }
+}
@@ -2,11 +2,42 @@ package com.github.attemper.quartz.spring.boot.autoconfigure.jobstore;
 
 import com.github.attemper.quartz.spring.boot.autoconfigure.db.CustomConnectionProvider;
 import com.github.attemper.quartz.spring.boot.autoconfigure.db.DataSourceHolder;
+import com.github.attemper.quartz.spring.boot.autoconfigure.db.PinningConnectionProvider;
+import com.github.attemper.quartz.spring.boot.autoconfigure.delegate.CustomJDBCDelegate;
+import com.github.attemper.quartz.spring.boot.autoconfigure.delegate.CustomMySQLDelegate;
+import com.github.attemper.quartz.spring.boot.autoconfigure.delegate.CustomPostgreSQLDelegate;
+import com.github.attemper.quartz.spring.boot.autoconfigure.lock.MeteredSemaphore;
+import com.github.attemper.quartz.spring.boot.autoconfigure.lock.RedisSemaphore;
+import com.github.attemper.quartz.spring.boot.autoconfigure.lock.ReentrantLockSemaphore;
+import com.github.attemper.quartz.spring.boot.autoconfigure.serializer.CompactJobDataSerializer;
+import com.github.attemper.quartz.spring.boot.autoconfigure.serializer.JobDataSerializer;
+import com.github.attemper.quartz.spring.boot.autoconfigure.wakeup.RedisWakeUpChannel;
+import com.github.attemper.quartz.spring.boot.autoconfigure.wakeup.WakeUpChannel;
+import org.quartz.Calendar;
+import org.quartz.JobDataMap;
 import org.quartz.JobDetail;
+import org.quartz.JobKey;
+import org.quartz.JobPersistenceException;
+import org.quartz.ObjectAlreadyExistsException;
+import org.quartz.Scheduler;
 import org.quartz.SchedulerConfigException;
+import org.quartz.SchedulerException;
+import org.quartz.SimpleTrigger;
 import org.quartz.Trigger;
+import org.quartz.TriggerKey;
+import org.quartz.impl.jdbcjobstore.DriverDelegate;
+import org.quartz.impl.jdbcjobstore.FiredTriggerRecord;
+import org.quartz.impl.jdbcjobstore.InvalidConfigurationException;
 import org.quartz.impl.jdbcjobstore.JobStoreCMT;
+import org.quartz.impl.jdbcjobstore.NoSuchDelegateException;
+import org.quartz.impl.jdbcjobstore.SchedulerStateRecord;
+import org.quartz.impl.jdbcjobstore.Semaphore;
 import org.quartz.impl.jdbcjobstore.SimpleSemaphore;
+import org.quartz.impl.jdbcjobstore.StdJDBCConstants;
+import org.quartz.impl.jdbcjobstore.StdJDBCDelegate;
+import org.quartz.impl.jdbcjobstore.Util;
+import org.quartz.impl.triggers.CronTriggerImpl;
+import org.quartz.impl.triggers.SimpleTriggerImpl;
 import org.quartz.spi.ClassLoadHelper;
 import org.quartz.spi.OperableTrigger;
 import org.quartz.spi.SchedulerSignaler;
@@ -15,64 +46,2021 @@ import org.springframework.jdbc.datasource.DataSourceUtils;
 import org.springframework.jdbc.support.JdbcUtils;
 import org.springframework.jdbc.support.MetaDataAccessException;
 import org.springframework.lang.Nullable;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import javax.sql.DataSource;
+import java.io.IOException;
+import java.math.BigDecimal;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
 
+// the raw override of executeInLock, as in JobStoreCMT, is reported unchecked on the class
+@SuppressWarnings("unchecked")
 public class CustomJobStoreCMT extends JobStoreCMT {
 
     protected boolean retainTriggerAfterExecutionCompleted = true;
 
+    /**
+     * buffer the completions of fired triggers and write them in batch
+     */
+    protected boolean batchTriggerCompletion = false;
+
+    protected int triggerCompletionBatchSize = 100;
+
+    protected long triggerCompletionFlushIntervalMills = 1000L;
+
+    /**
+     * the completions buffered at most, beyond which the threads completing a job write the buffer themselves
+     */
+    protected int triggerCompletionBufferSize = 10000;
+
+    /**
+     * the locks the jobs of the memory of WriteBehindJobStore are spread over
+     */
+    protected int lockStripes = 16;
+
+    protected boolean fairLocks = false;
+
+    /**
+     * keep one connection on the scheduler thread from the acquisition of triggers until it goes idle
+     */
+    protected boolean pinConnection = false;
+
+    protected int statementCacheSize = 32;
+
+    /**
+     * writes the JobDataMaps instead of Java serialization, with a CustomJDBCDelegate
+     */
+    protected String jobDataSerializerClass;
+
+    protected int jobDataCompressionThreshold = 0;
+
+    /**
+     * keep the JobDetails read by the fires, 0 for none. Clustered, it needs the table of tables_job_details_version.sql
+     */
+    protected int jobDetailCacheSize = 0;
+
+    protected long jobDetailCacheTtlMills = 60000L;
+
+    /**
+     * tune the batch size and the fire-ahead window of the acquisitions, bounded by the ones of the scheduler
+     */
+    protected boolean adaptiveAcquisition = false;
+
+    protected int acquisitionMinBatchSize = 1;
+
+    protected long acquisitionMinTimeWindowMills = 0L;
+
+    /**
+     * tells the other nodes of the triggers stored or resumed by this one
+     */
+    protected String wakeUpChannelClass;
+
+    /**
+     * the redis properties of org.quartz.jobStore, for a RedisWakeUpChannel
+     */
+    protected String host;
+
+    protected Integer port;
+
+    protected String password;
+
+    protected Integer database;
+
+    protected Boolean ssl;
+
+    /**
+     * load and update the misfired triggers by that many threads outside TRIGGER_ACCESS, 0 for the serial handling of JobStoreSupport
+     */
+    protected int misfireRecoveryThreads = 0;
+
+    protected int misfireRecoveryBatchSize = 500;
+
+    /**
+     * how long after its check-in interval a node is considered failed
+     */
+    protected long clusterFailureGracePeriodMills = 7500L;
+
+    /**
+     * recover the fired triggers of a failed node that many per transaction, 0 for all at once as JobStoreSupport does
+     */
+    protected int clusterRecoveryBatchSize = 0;
+
+    private static final String SELECT_JOB_DETAILS_VERSION = "SELECT VERSION_NO FROM {0}JOB_DETAILS_VERSION WHERE SCHED_NAME = {1}";
+    private static final String INSERT_JOB_DETAILS_VERSION = "INSERT INTO {0}JOB_DETAILS_VERSION (SCHED_NAME, VERSION_NO) VALUES({1}, 0)";
+    private static final String UPDATE_JOB_DETAILS_VERSION = "UPDATE {0}JOB_DETAILS_VERSION SET VERSION_NO = VERSION_NO + 1 WHERE SCHED_NAME = {1}";
+
+    /**
+     * the row of a misfired trigger is only updated if no fire nor other node changed it since it was loaded
+     */
+    private static final String UPDATE_MISFIRED_TRIGGER = "UPDATE {0}TRIGGERS SET NEXT_FIRE_TIME = ?, TRIGGER_STATE = ?, START_TIME = ?, END_TIME = ?"
+            + " WHERE SCHED_NAME = {1} AND TRIGGER_NAME = ? AND TRIGGER_GROUP = ? AND TRIGGER_STATE = ? AND NEXT_FIRE_TIME = ?";
+
+    /**
+     * the other nodes whose check-in is older than their interval and older than the one of this node, both plus the grace period
+     */
+    private static final String SELECT_FAILED_SCHEDULER_STATES = "SELECT INSTANCE_NAME, LAST_CHECKIN_TIME, CHECKIN_INTERVAL FROM {0}SCHEDULER_STATE"
+            + " WHERE SCHED_NAME = {1} AND INSTANCE_NAME <> ? AND LAST_CHECKIN_TIME + CHECKIN_INTERVAL < ? AND LAST_CHECKIN_TIME < ?";
+    private static final String SELECT_INSTANCES_FIRED_TRIGGERS = "SELECT ENTRY_ID, TRIGGER_NAME, TRIGGER_GROUP, INSTANCE_NAME, FIRED_TIME, SCHED_TIME,"
+            + " PRIORITY, STATE, JOB_NAME, JOB_GROUP, IS_NONCONCURRENT, REQUESTS_RECOVERY FROM {0}FIRED_TRIGGERS WHERE SCHED_NAME = {1} AND INSTANCE_NAME = ?";
+
     private static final String TX_DATA_SOURCE_PREFIX = "customTxDataSource";
     private static final String NON_TX_DATA_SOURCE_PREFIX = "customNonTxDataSource";
     @Nullable
     private DataSource dataSource;
 
+    private final Deque<CompletedTrigger> completedTriggers = new ConcurrentLinkedDeque<>();
+
+    private final AtomicInteger completedTriggerCount = new AtomicInteger();
+
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private ScheduledExecutorService completionFlusher;
+
+    private volatile boolean completionBufferClosed;
+
+    private final LongAdder droppedCompletionCount = new LongAdder();
+
+    private final LongAdder acquisitionCount = new LongAdder();
+
+    private final LongAdder acquisitionTimeNanos = new LongAdder();
+
+    private final LongAdder acquiredTriggerCount = new LongAdder();
+
+    @Nullable
+    private PinningConnectionProvider pinningConnectionProvider;
+
+    @Nullable
+    private JobDataSerializer jobDataSerializer;
+
+    private volatile DriverDelegate configuredDelegate;
+
+    @Nullable
+    private volatile JobDetailCache jobDetailCache;
+
+    /**
+     * the version of the job details of the cluster seen by the last acquisition
+     */
+    private volatile long jobDetailsVersion;
+
+    @Nullable
+    private AcquisitionController acquisitionController;
+
+    /**
+     * the lock handler if not clustered, released by the transactions managed by Spring once they complete
+     */
+    @Nullable
+    private ReentrantLockSemaphore inJvmLockHandler;
+
+    private SchedulerSignaler signaler;
+
+    @Nullable
+    private WakeUpChannel wakeUpChannel;
+
+    /**
+     * the earliest next fire time of the triggers stored by the current thread, published once they are committed
+     */
+    private final ThreadLocal<Long> pendingWakeUp = new ThreadLocal<>();
+
+    /**
+     * the latest fire time the last acquisition looked for
+     */
+    private volatile long acquisitionHorizon = Long.MAX_VALUE;
+
+    private final LongAdder publishedWakeUpCount = new LongAdder();
+
+    private final LongAdder receivedWakeUpCount = new LongAdder();
+
+    private ExecutorService misfireRecoveryExecutor;
+
+    private final LongAdder recoveredMisfireCount = new LongAdder();
+
+    private final LongAdder skippedMisfireCount = new LongAdder();
+
+    private final LongAdder misfireBatchCount = new LongAdder();
+
+    private final LongAdder misfireBatchTimeNanos = new LongAdder();
+
+    private volatile int misfireBacklog;
+
+    private final LongAdder recoveredFiredTriggerCount = new LongAdder();
+
+    private final LongAdder failedInstanceCount = new LongAdder();
+
+    private final LongAdder bulkChunkCount = new LongAdder();
+
+    private final LongAdder bulkChunkTimeNanos = new LongAdder();
+
+    private final LongAdder bulkStoredTriggerCount = new LongAdder();
+
+    /**
+     * the names of the recovery triggers of jobs requesting recovery
+     */
+    private long recoverIds = System.currentTimeMillis();
+
     public void initialize(ClassLoadHelper loadHelper, SchedulerSignaler signaler) throws SchedulerConfigException {
+        this.signaler = signaler;
         this.dataSource = DataSourceHolder.get();
         if (this.dataSource == null) {
             throw new SchedulerConfigException("No local DataSource found for configuration - 'dataSource' property must be set on SchedulerFactoryBean");
         } else {
-            this.setDataSource(TX_DATA_SOURCE_PREFIX);
+            // the connection managers are global, the names are kept apart per scheduler for the shards
+            String txDataSource = TX_DATA_SOURCE_PREFIX + "_" + getInstanceName();
+            String nonTxDataSource = NON_TX_DATA_SOURCE_PREFIX + "_" + getInstanceName();
+            this.setDataSource(txDataSource);
             this.setDontSetAutoCommitFalse(true);
-            DBConnectionManager.getInstance().addConnectionProvider(TX_DATA_SOURCE_PREFIX, new CustomConnectionProvider(this.dataSource));
-            this.setNonManagedTXDataSource(NON_TX_DATA_SOURCE_PREFIX);
-            DBConnectionManager.getInstance().addConnectionProvider(NON_TX_DATA_SOURCE_PREFIX, new CustomConnectionProvider(this.dataSource));
+            this.setNonManagedTXDataSource(nonTxDataSource);
+            if (pinConnection) {
+                // one provider for both, so the pinned connection serves the transactions of either
+                this.pinningConnectionProvider = new PinningConnectionProvider(this.dataSource, statementCacheSize);
+                DBConnectionManager.getInstance().addConnectionProvider(txDataSource, pinningConnectionProvider);
+                DBConnectionManager.getInstance().addConnectionProvider(nonTxDataSource, pinningConnectionProvider);
+            } else {
+                DBConnectionManager.getInstance().addConnectionProvider(txDataSource, new CustomConnectionProvider(this.dataSource));
+                DBConnectionManager.getInstance().addConnectionProvider(nonTxDataSource, new CustomConnectionProvider(this.dataSource));
+            }
+            if (jobDataSerializerClass != null && !jobDataSerializerClass.isEmpty()) {
+                try {
+                    jobDataSerializer = loadHelper.loadClass(jobDataSerializerClass, JobDataSerializer.class).getDeclaredConstructor().newInstance();
+                } catch (Exception e) {
+                    throw new SchedulerConfigException("Could not instantiate the JobDataSerializer " + jobDataSerializerClass, e);
+                }
+                if (jobDataSerializer instanceof CompactJobDataSerializer) {
+                    ((CompactJobDataSerializer) jobDataSerializer).setCompressionThreshold(jobDataCompressionThreshold);
+                }
+            }
+            if (this.getLockHandler() == null && !this.isClustered() && !this.getUseDBLocks()) {
+                // a single node has no need of the row locks JobStoreCMT forces, held by a Spring transaction until it completes
+                this.getLog().info("Using in-JVM data access locking (synchronization), held by Spring transactions until they complete.");
+                this.inJvmLockHandler = new ReentrantLockSemaphore(fairLocks);
+                this.setLockHandler(inJvmLockHandler);
+            }
             try {
                 String productName = JdbcUtils.extractDatabaseMetaData(this.dataSource, "getDatabaseProductName");
                 productName = JdbcUtils.commonDatabaseName(productName);
-                if (productName.toLowerCase().contains("hsql")) {
+                if (productName.toLowerCase().contains("hsql") && this.getLockHandler() == null) {
                     this.setUseDBLocks(false);
                     this.setLockHandler(new SimpleSemaphore());
                 }
+                selectDriverDelegate(productName);
             } catch (MetaDataAccessException var6) {
                 this.logWarnIfNonZero(1, "Could not detect database type. Assuming locks can be taken.");
             }
 
             super.initialize(loadHelper, signaler);
+            if (!pinConnection) {
+                // the statement cache is the one of the pinned connection
+                this.getLog().info("Without pinConnection, the statements of the acquisitions and fires are prepared again on each call by "
+                        + getDriverDelegateClass() + ".");
+            }
+            this.setLockHandler(new MeteredSemaphore(this.getLockHandler()));
+            if (jobDetailCacheSize > 0) {
+                initializeJobDetailCache();
+            }
+            if (adaptiveAcquisition) {
+                acquisitionController = new AcquisitionController(acquisitionMinBatchSize, acquisitionMinTimeWindowMills);
+            }
+            if (wakeUpChannelClass != null && !wakeUpChannelClass.isEmpty()) {
+                initializeWakeUpChannel(loadHelper);
+            }
+            JobStoreHolder.set(getInstanceName(), this);
         }
     }
 
+    /**
+     * hands the jobDataSerializer over to the delegate, created by JobStoreSupport on first use
+     */
     @Override
-    public void triggeredJobComplete(OperableTrigger trigger, JobDetail jobDetail, Trigger.CompletedExecutionInstruction triggerInstCode) {
-        if (retainTriggerAfterExecutionCompleted && triggerInstCode == Trigger.CompletedExecutionInstruction.DELETE_TRIGGER) {
+    protected DriverDelegate getDelegate() throws NoSuchDelegateException {
+        DriverDelegate delegate = super.getDelegate();
+        if (delegate != configuredDelegate) {
+            if (delegate instanceof CustomJDBCDelegate) {
+                ((CustomJDBCDelegate) delegate).setJobDataSerializer(jobDataSerializer);
+            } else if (jobDataSerializer != null) {
+                getLog().warn("The JobDataMaps are written by Java serialization, " + delegate.getClass().getName()
+                        + " is not a CustomJDBCDelegate");
+            }
+            configuredDelegate = delegate;
+        }
+        return delegate;
+    }
+
+    /**
+     * replaces the default StdJDBCDelegate by the CustomJDBCDelegate of the database, the generic one if there is none
+     *
+     * @param productName
+     */
+    protected void selectDriverDelegate(String productName) {
+        String delegateClass = getDriverDelegateClass();
+        if (delegateClass != null && !delegateClass.isEmpty() && !StdJDBCDelegate.class.getName().equals(delegateClass)) {
             return;
         }
-        super.triggeredJobComplete(trigger, jobDetail, triggerInstCode);
+        String name = productName.toLowerCase();
+        if (name.contains("postgres")) {
+            delegateClass = CustomPostgreSQLDelegate.class.getName();
+        } else if (name.contains("mysql") || name.contains("mariadb")) {
+            delegateClass = CustomMySQLDelegate.class.getName();
+        } else {
+            delegateClass = CustomJDBCDelegate.class.getName();
+        }
+        try {
+            setDriverDelegateClass(delegateClass);
+            getLog().info("Using driver delegate " + delegateClass + " for " + productName);
+        } catch (InvalidConfigurationException e) {
+            getLog().warn("Could not use driver delegate " + delegateClass + ": " + e.getMessage());
+        }
     }
 
-    public boolean isRetainTriggerAfterExecutionCompleted() {
-        return retainTriggerAfterExecutionCompleted;
+    protected void initializeWakeUpChannel(ClassLoadHelper loadHelper) throws SchedulerConfigException {
+        try {
+            wakeUpChannel = loadHelper.loadClass(wakeUpChannelClass, WakeUpChannel.class).getDeclaredConstructor().newInstance();
+        } catch (Exception e) {
+            throw new SchedulerConfigException("Could not instantiate the WakeUpChannel " + wakeUpChannelClass, e);
+        }
+        if (wakeUpChannel instanceof RedisWakeUpChannel) {
+            RedisWakeUpChannel redisWakeUpChannel = (RedisWakeUpChannel) wakeUpChannel;
+            redisWakeUpChannel.setHost(host);
+            redisWakeUpChannel.setPort(port);
+            redisWakeUpChannel.setPassword(password);
+            redisWakeUpChannel.setDatabase(database);
+            redisWakeUpChannel.setSsl(ssl);
+        }
+        wakeUpChannel.start(getTablePrefix() + "WAKE_UP:" + getInstanceName(), getInstanceId(), new WakeUpChannel.Listener() {
+            @Override
+            public void wakeUp(long candidateNewNextFireTime) {
+                receivedWakeUpCount.increment();
+                // a trigger due after the horizon is found by the next acquisition in time
+                if (candidateNewNextFireTime <= 0 || candidateNewNextFireTime < acquisitionHorizon) {
+                    signaler.signalSchedulingChange(candidateNewNextFireTime);
+                }
+            }
+        });
     }
 
-    public void setRetainTriggerAfterExecutionCompleted(String retainTriggerAfterExecutionCompleted) {
-        if (retainTriggerAfterExecutionCompleted == null) {
-            this.retainTriggerAfterExecutionCompleted = true;
+    /**
+     * Clustered, the other nodes tell a change of their job details by the version in JOB_DETAILS_VERSION,
+     * without the table the cache is left off.
+     */
+    protected void initializeJobDetailCache() {
+        // a second attempt reads the row another node inserted meanwhile
+        for (int attempt = 1; isClustered(); attempt++) {
+            try {
+                jobDetailsVersion = executeInNonManagedTXLock(null,
+                        new TransactionCallback<Long>() {
+                            public Long execute(Connection conn) throws JobPersistenceException {
+                                try {
+                                    Long version = selectJobDetailsVersion(conn);
+                                    if (version == null) {
+                                        insertJobDetailsVersion(conn);
+                                        version = 0L;
+                                    }
+                                    return version;
+                                } catch (SQLException e) {
+                                    throw new JobPersistenceException("Couldn't read the version of job details: " + e.getMessage(), e);
+                                }
+                            }
+                        }, null);
+                break;
+            } catch (JobPersistenceException e) {
+                if (attempt == 2) {
+                    getLog().warn("The JobDetails are not cached, the table " + getTablePrefix()
+                            + "JOB_DETAILS_VERSION can't be used by the cluster: " + e.getMessage());
+                    return;
+                }
+            }
         }
-        this.retainTriggerAfterExecutionCompleted = Boolean.valueOf(retainTriggerAfterExecutionCompleted);
+        jobDetailCache = new JobDetailCache(jobDetailCacheSize, jobDetailCacheTtlMills);
     }
 
-    protected void closeConnection(Connection con) {
-        DataSourceUtils.releaseConnection(con, this.dataSource);
+    /**
+     * served from the jobDetailCache, which saves the select and the deserialization of the JobDataMap to the acquisition
+     * and the fire of a trigger. The jobs persisting their JobDataMap after execution change with every fire and are not kept.
+     */
+    @Override
+    protected JobDetail retrieveJob(Connection conn, JobKey key) throws JobPersistenceException {
+        JobDetailCache cache = jobDetailCache;
+        if (cache == null) {
+            return super.retrieveJob(conn, key);
+        }
+        JobDetail jobDetail = cache.get(key);
+        if (jobDetail != null) {
+            return jobDetail;
+        }
+        long generation = cache.getGeneration();
+        jobDetail = super.retrieveJob(conn, key);
+        if (jobDetail != null && !jobDetail.isPersistJobDataAfterExecution()) {
+            cache.put(jobDetail, generation);
+        }
+        return jobDetail;
+    }
+
+    /**
+     * read from the database, the jobDetailCache may not yet know a change made by another node of the cluster
+     */
+    @Override
+    public JobDetail retrieveJob(final JobKey jobKey) throws JobPersistenceException {
+        if (jobDetailCache == null) {
+            return super.retrieveJob(jobKey);
+        }
+        return executeWithoutLock(
+                new TransactionCallback<JobDetail>() {
+                    public JobDetail execute(Connection conn) throws JobPersistenceException {
+                        return CustomJobStoreCMT.super.retrieveJob(conn, jobKey);
+                    }
+                });
+    }
+
+    @Override
+    protected void storeJob(Connection conn, JobDetail newJob, boolean replaceExisting) throws JobPersistenceException {
+        super.storeJob(conn, newJob, replaceExisting);
+        jobDetailChanged(conn, newJob.getKey());
+    }
+
+    @Override
+    protected boolean removeJob(Connection conn, JobKey jobKey) throws JobPersistenceException {
+        boolean removed = super.removeJob(conn, jobKey);
+        if (removed) {
+            jobDetailChanged(conn, jobKey);
+        }
+        return removed;
+    }
+
+    /**
+     * the one of JobStoreSupport, which also deletes the non-durable job left without trigger,
+     * here dropping it from the jobDetailCache
+     */
+    @Override
+    protected boolean removeTrigger(Connection conn, TriggerKey key) throws JobPersistenceException {
+        if (jobDetailCache == null) {
+            return super.removeTrigger(conn, key);
+        }
+        try {
+            JobDetail job = getDelegate().selectJobForTrigger(conn, getClassLoadHelper(), key, false);
+            boolean removedTrigger = getDelegate().deleteTrigger(conn, key) > 0;
+            if (job != null && !job.isDurable() && getDelegate().selectNumTriggersForJob(conn, job.getKey()) == 0) {
+                getDelegate().deleteJobDetail(conn, job.getKey());
+                jobDetailChanged(conn, job.getKey());
+            }
+            return removedTrigger;
+        } catch (ClassNotFoundException e) {
+            throw new JobPersistenceException("Couldn't remove trigger: " + e.getMessage(), e);
+        } catch (SQLException e) {
+            throw new JobPersistenceException("Couldn't remove trigger: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    protected void storeTrigger(Connection conn, OperableTrigger newTrigger, JobDetail job, boolean replaceExisting,
+                                String state, boolean forceState, boolean recovering) throws JobPersistenceException {
+        super.storeTrigger(conn, newTrigger, job, replaceExisting, state, forceState, recovering);
+        if (!recovering && newTrigger.getNextFireTime() != null) {
+            wakeUpOnCommit(newTrigger.getNextFireTime().getTime());
+        }
+    }
+
+    @Override
+    public void resumeTrigger(Connection conn, TriggerKey key) throws JobPersistenceException {
+        super.resumeTrigger(conn, key);
+        wakeUpOnCommit(0L);
+    }
+
+    /**
+     * the triggers stored or resumed through the scheduler are published once committed,
+     * one wake-up for all those of a call. <br>
+     * The in-JVM lock is kept until the Spring transaction of the call completes, as a row lock would be.
+     */
+    @Override
+    @SuppressWarnings("rawtypes")
+    protected Object executeInLock(final String lockName, TransactionCallback txCallback) throws JobPersistenceException {
+        // raw as in JobStoreCMT, whose raw override of the generic method of JobStoreSupport a generic one would clash with
+        if (inJvmLockHandler != null && lockName != null) {
+            final TransactionCallback callback = txCallback;
+            txCallback = conn -> {
+                inJvmLockHandler.releaseOnCompletion(lockName);
+                return callback.execute(conn);
+            };
+        }
+        if (wakeUpChannel == null) {
+            return super.executeInLock(lockName, txCallback);
+        }
+        try {
+            Object result = super.executeInLock(lockName, txCallback);
+            publishWakeUp();
+            return result;
+        } finally {
+            pendingWakeUp.remove();
+        }
+    }
+
+    /**
+     * the triggers stored by the fires, the misfires and the recoveries of this node are not published
+     */
+    @Override
+    protected <T> T executeInNonManagedTXLock(String lockName, TransactionCallback<T> txCallback, TransactionValidator<T> txValidator)
+            throws JobPersistenceException {
+        try {
+            return super.executeInNonManagedTXLock(lockName, txCallback, txValidator);
+        } finally {
+            pendingWakeUp.remove();
+        }
+    }
+
+    private void wakeUpOnCommit(long candidateNewNextFireTime) {
+        if (wakeUpChannel == null) {
+            return;
+        }
+        Long pending = pendingWakeUp.get();
+        if (pending == null || candidateNewNextFireTime < pending) {
+            pendingWakeUp.set(candidateNewNextFireTime);
+        }
+    }
+
+    /**
+     * within a spring managed transaction after its commit, otherwise now, the connections of the scheduler being auto-commit
+     */
+    private void publishWakeUp() {
+        final Long pending = pendingWakeUp.get();
+        final WakeUpChannel channel = wakeUpChannel;
+        if (pending == null || channel == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == TransactionSynchronization.STATUS_COMMITTED) {
+                        publishedWakeUpCount.increment();
+                        channel.publish(pending);
+                    }
+                }
+            });
+        } else {
+            publishedWakeUpCount.increment();
+            channel.publish(pending);
+        }
+    }
+
+    @Override
+    protected void clearAllSchedulingData(Connection conn) throws JobPersistenceException {
+        super.clearAllSchedulingData(conn);
+        jobDetailChanged(conn, null);
+    }
+
+    /**
+     * Before the acquisition reads the triggers, the job details changed by the other nodes of the cluster are dropped,
+     * so a fire is at most one acquisition late to see a change.
+     */
+    @Override
+    protected List<OperableTrigger> acquireNextTrigger(Connection conn, long noLaterThan, int maxCount, long timeWindow)
+            throws JobPersistenceException {
+        JobDetailCache cache = jobDetailCache;
+        if (cache != null && isClustered()) {
+            try {
+                Long version = selectJobDetailsVersion(conn);
+                if (version != null && version != jobDetailsVersion) {
+                    cache.invalidateAll();
+                    jobDetailsVersion = version;
+                }
+            } catch (SQLException e) {
+                throw new JobPersistenceException("Couldn't read the version of job details: " + e.getMessage(), e);
+            }
+        }
+        return super.acquireNextTrigger(conn, noLaterThan, maxCount, timeWindow);
+    }
+
+    /**
+     * Drops the job from the jobDetailCache, again once the spring managed transaction is completed, and moves the version
+     * of the cluster on within the transaction of the change.
+     *
+     * @param conn
+     * @param jobKey null for all
+     */
+    protected void jobDetailChanged(Connection conn, @Nullable final JobKey jobKey) throws JobPersistenceException {
+        final JobDetailCache cache = jobDetailCache;
+        if (cache == null) {
+            return;
+        }
+        invalidate(cache, jobKey);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(int status) {
+                    invalidate(cache, jobKey);
+                }
+            });
+        }
+        if (isClustered()) {
+            PreparedStatement ps = null;
+            try {
+                ps = conn.prepareStatement(rtp(UPDATE_JOB_DETAILS_VERSION));
+                if (ps.executeUpdate() == 0) {
+                    insertJobDetailsVersion(conn);
+                }
+            } catch (SQLException e) {
+                throw new JobPersistenceException("Couldn't update the version of job details: " + e.getMessage(), e);
+            } finally {
+                Util.closeStatement(ps);
+            }
+        }
+    }
+
+    private void invalidate(JobDetailCache cache, @Nullable JobKey jobKey) {
+        if (jobKey == null) {
+            cache.invalidateAll();
+        } else {
+            cache.invalidate(jobKey);
+        }
+    }
+
+    @Nullable
+    private Long selectJobDetailsVersion(Connection conn) throws SQLException {
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+        try {
+            ps = conn.prepareStatement(rtp(SELECT_JOB_DETAILS_VERSION));
+            rs = ps.executeQuery();
+            return rs.next() ? rs.getLong(1) : null;
+        } finally {
+            Util.closeResultSet(rs);
+            Util.closeStatement(ps);
+        }
+    }
+
+    private void insertJobDetailsVersion(Connection conn) throws SQLException {
+        PreparedStatement ps = null;
+        try {
+            ps = conn.prepareStatement(rtp(INSERT_JOB_DETAILS_VERSION));
+            ps.executeUpdate();
+        } finally {
+            Util.closeStatement(ps);
+        }
+    }
+
+    /**
+     * With misfireRecoveryThreads, a batch of misfireRecoveryBatchSize misfired triggers is loaded and updated after misfire
+     * by that many threads outside TRIGGER_ACCESS, then written by JDBC batches within one short lock and transaction.
+     * The MisfireHandler comes back for the next batch, the acquisitions go on in between. <br>
+     *
+     * A trigger fired or changed by another node since it was loaded is left to the next round.
+     * The trigger listeners are told of the misfires once the batch is committed.
+     */
+    @Override
+    protected RecoverMisfiredJobsResult doRecoverMisfires() throws JobPersistenceException {
+        if (misfireRecoveryThreads <= 0) {
+            return super.doRecoverMisfires();
+        }
+        List<TriggerKey> triggerKeys = new ArrayList<>();
+        boolean hasMore;
+        Connection conn = getNonManagedTXConnection();
+        try {
+            long misfireTime = getMisfireTime();
+            misfireBacklog = getDelegate().countMisfiredTriggersInState(conn, STATE_WAITING, misfireTime);
+            if (misfireBacklog == 0) {
+                return RecoverMisfiredJobsResult.NO_OP;
+            }
+            hasMore = getDelegate().hasMisfiredTriggersInState(conn, STATE_WAITING, misfireTime, misfireRecoveryBatchSize, triggerKeys);
+        } catch (SQLException e) {
+            throw new JobPersistenceException("Couldn't select misfired triggers: " + e.getMessage(), e);
+        } finally {
+            cleanupConnection(conn);
+        }
+        if (triggerKeys.isEmpty()) {
+            return RecoverMisfiredJobsResult.NO_OP;
+        }
+
+        final List<MisfiredTrigger> misfiredTriggers = updateAfterMisfire(triggerKeys);
+        long start = System.nanoTime();
+        List<MisfiredTrigger> recovered = executeInNonManagedTXLock(LOCK_TRIGGER_ACCESS,
+                new TransactionCallback<List<MisfiredTrigger>>() {
+                    public List<MisfiredTrigger> execute(Connection conn) throws JobPersistenceException {
+                        return storeMisfiredTriggers(conn, misfiredTriggers);
+                    }
+                }, null);
+        misfireBatchCount.increment();
+        misfireBatchTimeNanos.add(System.nanoTime() - start);
+
+        long earliestNewTime = Long.MAX_VALUE;
+        for (MisfiredTrigger misfiredTrigger : recovered) {
+            if (!misfiredTrigger.notified) {
+                signaler.notifyTriggerListenersMisfired(misfiredTrigger.original);
+                if (misfiredTrigger.trigger.getNextFireTime() == null) {
+                    signaler.notifySchedulerListenersFinalized(misfiredTrigger.trigger);
+                }
+            }
+            if (misfiredTrigger.trigger.getNextFireTime() != null) {
+                earliestNewTime = Math.min(earliestNewTime, misfiredTrigger.trigger.getNextFireTime().getTime());
+            }
+        }
+        recoveredMisfireCount.add(recovered.size());
+        skippedMisfireCount.add(misfiredTriggers.size() - recovered.size());
+        misfireBacklog = Math.max(0, misfireBacklog - recovered.size());
+        getLog().info("Handled " + recovered.size() + " of " + triggerKeys.size() + " triggers that missed their scheduled fire-time"
+                + (hasMore ? ", more remain to be processed." : "."));
+        return new RecoverMisfiredJobsResult(hasMore, recovered.size(), earliestNewTime);
+    }
+
+    /**
+     * With misfireRecoveryThreads, the misfires found by the recovery at startup are left to the batches of the MisfireHandler,
+     * rather than handled all at once within the transaction of the recovery.
+     */
+    @Override
+    protected RecoverMisfiredJobsResult recoverMisfiredJobs(Connection conn, boolean recovering) throws JobPersistenceException, SQLException {
+        if (recovering && misfireRecoveryThreads > 0) {
+            return RecoverMisfiredJobsResult.NO_OP;
+        }
+        return super.recoverMisfiredJobs(conn, recovering);
+    }
+
+    /**
+     * loads the triggers, split among the misfireRecoveryThreads each with a connection of its own, and updates them after misfire
+     */
+    protected List<MisfiredTrigger> updateAfterMisfire(List<TriggerKey> triggerKeys) throws JobPersistenceException {
+        if (misfireRecoveryExecutor == null) {
+            final AtomicInteger threadCount = new AtomicInteger();
+            misfireRecoveryExecutor = Executors.newFixedThreadPool(misfireRecoveryThreads, new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, getInstanceName() + "_MisfireRecovery-" + threadCount.incrementAndGet());
+                    thread.setDaemon(getMakeThreadsDaemons());
+                    return thread;
+                }
+            });
+        }
+        int chunkSize = (triggerKeys.size() + misfireRecoveryThreads - 1) / misfireRecoveryThreads;
+        List<Future<List<MisfiredTrigger>>> futures = new ArrayList<>();
+        for (int from = 0; from < triggerKeys.size(); from += chunkSize) {
+            final List<TriggerKey> chunk = triggerKeys.subList(from, Math.min(triggerKeys.size(), from + chunkSize));
+            futures.add(misfireRecoveryExecutor.submit(new Callable<List<MisfiredTrigger>>() {
+                @Override
+                public List<MisfiredTrigger> call() throws Exception {
+                    return updateAfterMisfire(chunk, new HashMap<String, Calendar>());
+                }
+            }));
+        }
+        List<MisfiredTrigger> misfiredTriggers = new ArrayList<>(triggerKeys.size());
+        try {
+            for (Future<List<MisfiredTrigger>> future : futures) {
+                misfiredTriggers.addAll(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new JobPersistenceException("Interrupted while loading misfired triggers", e);
+        } catch (ExecutionException e) {
+            for (Future<List<MisfiredTrigger>> future : futures) {
+                future.cancel(false);
+            }
+            Throwable cause = e.getCause();
+            throw cause instanceof JobPersistenceException ? (JobPersistenceException) cause
+                    : new JobPersistenceException("Couldn't load misfired triggers: " + cause.getMessage(), cause);
+        }
+        return misfiredTriggers;
+    }
+
+    private List<MisfiredTrigger> updateAfterMisfire(List<TriggerKey> triggerKeys, Map<String, Calendar> calendars) throws JobPersistenceException {
+        List<MisfiredTrigger> misfiredTriggers = new ArrayList<>(triggerKeys.size());
+        Connection conn = getNonManagedTXConnection();
+        try {
+            for (TriggerKey triggerKey : triggerKeys) {
+                OperableTrigger trigger = retrieveTrigger(conn, triggerKey);
+                if (trigger == null || trigger.getNextFireTime() == null) {
+                    continue;
+                }
+                Calendar calendar = null;
+                String calendarName = trigger.getCalendarName();
+                if (calendarName != null) {
+                    calendar = calendars.get(calendarName);
+                    if (calendar == null) {
+                        calendar = retrieveCalendar(conn, calendarName);
+                        calendars.put(calendarName, calendar);
+                    }
+                }
+                OperableTrigger original = (OperableTrigger) trigger.clone();
+                trigger.updateAfterMisfire(calendar);
+                misfiredTriggers.add(new MisfiredTrigger(original, trigger));
+            }
+        } finally {
+            cleanupConnection(conn);
+        }
+        return misfiredTriggers;
+    }
+
+    /**
+     * The simple and cron triggers are written by one conditional update of their rows in a JDBC batch,
+     * plus one of the simple triggers' rows. The triggers of other types go through JobStoreSupport, one by one.
+     *
+     * @return the triggers stored
+     */
+    protected List<MisfiredTrigger> storeMisfiredTriggers(Connection conn, List<MisfiredTrigger> misfiredTriggers) throws JobPersistenceException {
+        List<MisfiredTrigger> recovered = new ArrayList<>(misfiredTriggers.size());
+        List<MisfiredTrigger> batched = new ArrayList<>(misfiredTriggers.size());
+        PreparedStatement ps = null;
+        try {
+            ps = conn.prepareStatement(rtp(UPDATE_MISFIRED_TRIGGER));
+            for (MisfiredTrigger misfiredTrigger : misfiredTriggers) {
+                OperableTrigger trigger = misfiredTrigger.trigger;
+                if (!(trigger instanceof SimpleTriggerImpl) && !(trigger instanceof CronTriggerImpl)) {
+                    if (updateMisfiredTrigger(conn, trigger.getKey(), STATE_WAITING, false)) {
+                        misfiredTrigger.notified = true;
+                        recovered.add(misfiredTrigger);
+                    }
+                    continue;
+                }
+                ps.setBigDecimal(1, new BigDecimal(String.valueOf(trigger.getNextFireTime() == null ? -1L : trigger.getNextFireTime().getTime())));
+                ps.setString(2, trigger.getNextFireTime() == null ? STATE_COMPLETE : STATE_WAITING);
+                ps.setBigDecimal(3, new BigDecimal(String.valueOf(trigger.getStartTime().getTime())));
+                ps.setBigDecimal(4, new BigDecimal(String.valueOf(trigger.getEndTime() == null ? 0L : trigger.getEndTime().getTime())));
+                ps.setString(5, trigger.getKey().getName());
+                ps.setString(6, trigger.getKey().getGroup());
+                ps.setString(7, STATE_WAITING);
+                ps.setBigDecimal(8, new BigDecimal(String.valueOf(misfiredTrigger.original.getNextFireTime().getTime())));
+                ps.addBatch();
+                batched.add(misfiredTrigger);
+            }
+            if (batched.isEmpty()) {
+                return recovered;
+            }
+            int[] counts = ps.executeBatch();
+            Util.closeStatement(ps);
+            ps = conn.prepareStatement(rtp(StdJDBCConstants.UPDATE_SIMPLE_TRIGGER));
+            boolean simpleTriggers = false;
+            for (int i = 0; i < batched.size(); i++) {
+                // a driver not telling the rows of each statement says SUCCESS_NO_INFO
+                if (counts[i] <= 0 && counts[i] != Statement.SUCCESS_NO_INFO) {
+                    continue;
+                }
+                MisfiredTrigger misfiredTrigger = batched.get(i);
+                recovered.add(misfiredTrigger);
+                if (misfiredTrigger.trigger instanceof SimpleTriggerImpl) {
+                    SimpleTriggerImpl trigger = (SimpleTriggerImpl) misfiredTrigger.trigger;
+                    ps.setInt(1, trigger.getRepeatCount());
+                    ps.setBigDecimal(2, new BigDecimal(String.valueOf(trigger.getRepeatInterval())));
+                    ps.setInt(3, trigger.getTimesTriggered());
+                    ps.setString(4, trigger.getKey().getName());
+                    ps.setString(5, trigger.getKey().getGroup());
+                    ps.addBatch();
+                    simpleTriggers = true;
+                }
+            }
+            if (simpleTriggers) {
+                ps.executeBatch();
+            }
+            return recovered;
+        } catch (SQLException e) {
+            throw new JobPersistenceException("Couldn't store misfired triggers: " + e.getMessage(), e);
+        } finally {
+            Util.closeStatement(ps);
+        }
+    }
+
+    /**
+     * Stores a chunk of a bulk import within one transaction under TRIGGER_ACCESS, committed before the lock is released,
+     * so the triggers keep firing between the chunks. The triggers must have their first fire time computed. <br>
+     *
+     * The new jobs and their triggers are inserted by JDBC batches of the CustomJDBCDelegate. Without <code>replace</code>
+     * they are inserted straight away, the keys being looked up only if the insertion fails, otherwise by a few queries before.
+     * The existing ones, replaced or given new triggers, go through JobStoreSupport one by one, as everything does with another delegate.
+     * A failure rolls back the chunk, not the ones committed before it.
+     *
+     * @return the number of jobs and triggers stored one by one
+     */
+    public int storeJobsAndTriggersInBatch(final Map<JobDetail, List<OperableTrigger>> triggersAndJobs, final boolean replace)
+            throws JobPersistenceException {
+        long start = System.nanoTime();
+        int storedOneByOne = storeChunk(triggersAndJobs, replace);
+        long earliestNewTime = Long.MAX_VALUE;
+        int triggerCount = 0;
+        for (List<OperableTrigger> triggers : triggersAndJobs.values()) {
+            for (OperableTrigger trigger : triggers) {
+                if (trigger.getNextFireTime() != null) {
+                    earliestNewTime = Math.min(earliestNewTime, trigger.getNextFireTime().getTime());
+                }
+            }
+            triggerCount += triggers.size();
+        }
+        bulkChunkCount.increment();
+        bulkChunkTimeNanos.add(System.nanoTime() - start);
+        bulkStoredTriggerCount.add(triggerCount);
+        if (earliestNewTime != Long.MAX_VALUE) {
+            signaler.signalSchedulingChange(earliestNewTime);
+            if (wakeUpChannel != null) {
+                publishedWakeUpCount.increment();
+                wakeUpChannel.publish(earliestNewTime);
+            }
+        }
+        return storedOneByOne;
+    }
+
+    /**
+     * stores the chunk within one transaction under TRIGGER_ACCESS
+     *
+     * @return the number of jobs and triggers stored one by one
+     */
+    protected int storeChunk(final Map<JobDetail, List<OperableTrigger>> triggersAndJobs, final boolean replace)
+            throws JobPersistenceException {
+        return executeInNonManagedTXLock(LOCK_TRIGGER_ACCESS,
+                new TransactionCallback<Integer>() {
+                    public Integer execute(Connection conn) throws JobPersistenceException {
+                        return storeJobsAndTriggersInBatch(conn, triggersAndJobs, replace);
+                    }
+                }, null);
+    }
+
+    protected int storeJobsAndTriggersInBatch(Connection conn, Map<JobDetail, List<OperableTrigger>> triggersAndJobs, boolean replace)
+            throws JobPersistenceException {
+        int storedOneByOne = 0;
+        DriverDelegate delegate = getDelegate();
+        if (!(delegate instanceof CustomJDBCDelegate)) {
+            for (Map.Entry<JobDetail, List<OperableTrigger>> entry : triggersAndJobs.entrySet()) {
+                storeJob(conn, entry.getKey(), replace);
+                for (OperableTrigger trigger : entry.getValue()) {
+                    storeTrigger(conn, trigger, entry.getKey(), replace, STATE_WAITING, false, false);
+                }
+                storedOneByOne += 1 + entry.getValue().size();
+            }
+            return storedOneByOne;
+        }
+        CustomJDBCDelegate batchDelegate = (CustomJDBCDelegate) delegate;
+        try {
+            Map<JobKey, JobDetail> jobs = new HashMap<>();
+            Map<TriggerKey, OperableTrigger> triggers = new HashMap<>();
+            for (Map.Entry<JobDetail, List<OperableTrigger>> entry : triggersAndJobs.entrySet()) {
+                jobs.put(entry.getKey().getKey(), entry.getKey());
+                for (OperableTrigger trigger : entry.getValue()) {
+                    triggers.put(trigger.getKey(), trigger);
+                }
+            }
+            if (!replace) {
+                // all of them are new unless the insertion fails, the keys are only looked up then to tell which one exists
+                Savepoint savepoint = setSavepoint(conn);
+                if (savepoint != null) {
+                    try {
+                        return storeJobsAndTriggersInBatch(conn, batchDelegate, triggersAndJobs, jobs,
+                                Collections.<JobKey>emptySet(), Collections.<TriggerKey>emptySet());
+                    } catch (SQLException e) {
+                        conn.rollback(savepoint);
+                    }
+                }
+            }
+            Set<JobKey> existingJobs = batchDelegate.selectExistingJobKeys(conn, jobs.keySet());
+            Set<TriggerKey> existingTriggers = batchDelegate.selectExistingTriggerKeys(conn, triggers.keySet());
+            if (!replace && !existingJobs.isEmpty()) {
+                throw new ObjectAlreadyExistsException(jobs.get(existingJobs.iterator().next()));
+            }
+            if (!replace && !existingTriggers.isEmpty()) {
+                throw new ObjectAlreadyExistsException(triggers.get(existingTriggers.iterator().next()));
+            }
+            return storeJobsAndTriggersInBatch(conn, batchDelegate, triggersAndJobs, jobs, existingJobs, existingTriggers);
+        } catch (SQLException | IOException e) {
+            throw new JobPersistenceException("Couldn't store jobs and triggers: " + e.getMessage(), e);
+        }
+    }
+
+    private int storeJobsAndTriggersInBatch(Connection conn, CustomJDBCDelegate batchDelegate, Map<JobDetail, List<OperableTrigger>> triggersAndJobs,
+                                            Map<JobKey, JobDetail> jobs, Set<JobKey> existingJobs, Set<TriggerKey> existingTriggers)
+            throws JobPersistenceException, SQLException, IOException {
+        int storedOneByOne = 0;
+        Set<String> pausedGroups = new HashSet<>(batchDelegate.selectPausedTriggerGroups(conn));
+        boolean allGroupsPaused = pausedGroups.contains(ALL_GROUPS_PAUSED);
+        List<JobDetail> newJobs = new ArrayList<>(jobs.size());
+        List<OperableTrigger> newTriggers = new ArrayList<>();
+        List<String> states = new ArrayList<>();
+        List<OperableTrigger> oneByOne = new ArrayList<>();
+        for (Map.Entry<JobDetail, List<OperableTrigger>> entry : triggersAndJobs.entrySet()) {
+            JobDetail job = entry.getKey();
+            boolean existingJob = existingJobs.contains(job.getKey());
+            if (existingJob) {
+                storeJob(conn, job, true);
+                storedOneByOne++;
+            } else {
+                newJobs.add(job);
+            }
+            for (OperableTrigger trigger : entry.getValue()) {
+                // the state of the triggers of an existing job depends on its executions
+                if (existingJob || existingTriggers.contains(trigger.getKey())) {
+                    oneByOne.add(trigger);
+                    continue;
+                }
+                String group = trigger.getKey().getGroup();
+                if (allGroupsPaused && !pausedGroups.contains(group)) {
+                    batchDelegate.insertPausedTriggerGroup(conn, group);
+                    pausedGroups.add(group);
+                }
+                newTriggers.add(trigger);
+                states.add(pausedGroups.contains(group) ? STATE_PAUSED : STATE_WAITING);
+            }
+        }
+        batchDelegate.insertJobDetails(conn, newJobs);
+        batchDelegate.insertTriggers(conn, newTriggers, states, jobs);
+        for (OperableTrigger trigger : oneByOne) {
+            storeTrigger(conn, trigger, jobs.get(trigger.getJobKey()), true, STATE_WAITING, false, false);
+            storedOneByOne++;
+        }
+        return storedOneByOne;
+    }
+
+    /**
+     * @return null if the driver doesn't support savepoints
+     */
+    @Nullable
+    private Savepoint setSavepoint(Connection conn) {
+        try {
+            return conn.getMetaData().supportsSavepoints() ? conn.setSavepoint() : null;
+        } catch (SQLException e) {
+            return null;
+        }
+    }
+
+    /**
+     * The failure grace period of clusterFailureGracePeriodMills instead of 7.5 seconds.
+     */
+    @Override
+    protected long calcFailedIfAfter(SchedulerStateRecord rec) {
+        return rec.getCheckinTimestamp() + Math.max(rec.getCheckinInterval(), System.currentTimeMillis() - lastCheckin)
+                + clusterFailureGracePeriodMills;
+    }
+
+    /**
+     * After the first one, a check-in updates the row of this node, inserting it only if another node recovered this one,
+     * and selects the failed nodes by their check-in time rather than all the rows of the cluster.
+     */
+    @Override
+    protected List<SchedulerStateRecord> clusterCheckIn(Connection conn) throws JobPersistenceException {
+        if (firstCheckIn) {
+            return super.clusterCheckIn(conn);
+        }
+        List<SchedulerStateRecord> failedInstances = findFailedInstances(conn);
+        try {
+            lastCheckin = System.currentTimeMillis();
+            if (getDelegate().updateSchedulerState(conn, getInstanceId(), lastCheckin) == 0) {
+                getLog().warn("This scheduler instance (" + getInstanceId() + ") is still active but was recovered by another instance in the cluster."
+                        + "  This may cause inconsistent behavior.");
+                getDelegate().insertSchedulerState(conn, getInstanceId(), lastCheckin, getClusterCheckinInterval());
+            }
+        } catch (SQLException e) {
+            throw new JobPersistenceException("Failure updating scheduler state when checking-in: " + e.getMessage(), e);
+        }
+        return failedInstances;
+    }
+
+    @Override
+    protected List<SchedulerStateRecord> findFailedInstances(Connection conn) throws JobPersistenceException {
+        if (firstCheckIn) {
+            return super.findFailedInstances(conn);
+        }
+        long now = System.currentTimeMillis();
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+        try {
+            ps = conn.prepareStatement(rtp(SELECT_FAILED_SCHEDULER_STATES));
+            ps.setString(1, getInstanceId());
+            ps.setLong(2, now - clusterFailureGracePeriodMills);
+            ps.setLong(3, lastCheckin - clusterFailureGracePeriodMills);
+            rs = ps.executeQuery();
+            List<SchedulerStateRecord> failedInstances = new ArrayList<>();
+            while (rs.next()) {
+                SchedulerStateRecord rec = new SchedulerStateRecord();
+                rec.setSchedulerInstanceId(rs.getString(1));
+                rec.setCheckinTimestamp(rs.getLong(2));
+                rec.setCheckinInterval(rs.getLong(3));
+                failedInstances.add(rec);
+            }
+            return failedInstances;
+        } catch (SQLException e) {
+            lastCheckin = System.currentTimeMillis();
+            throw new JobPersistenceException("Failure identifying failed instances when checking-in: " + e.getMessage(), e);
+        } finally {
+            Util.closeResultSet(rs);
+            Util.closeStatement(ps);
+        }
+    }
+
+    /**
+     * With clusterRecoveryBatchSize, the failed nodes are claimed under STATE_ACCESS by checking them in on their behalf,
+     * then their fired triggers are recovered clusterRecoveryBatchSize at a time, each batch in a transaction of its own
+     * under TRIGGER_ACCESS, so the other nodes keep acquiring and firing in between. <br>
+     *
+     * Every batch renews the claim. The row of a failed node is deleted once a batch comes back smaller than clusterRecoveryBatchSize:
+     * if this node fails or shuts down meanwhile, the row is kept, the claim expires and another node goes on with the fired triggers left.
+     */
+    @Override
+    protected boolean doCheckin() throws JobPersistenceException {
+        if (clusterRecoveryBatchSize <= 0) {
+            return super.doCheckin();
+        }
+        if (!firstCheckIn) {
+            List<SchedulerStateRecord> failedInstances = executeInNonManagedTXLock(null, new TransactionCallback<List<SchedulerStateRecord>>() {
+                public List<SchedulerStateRecord> execute(Connection conn) throws JobPersistenceException {
+                    return clusterCheckIn(conn);
+                }
+            }, null);
+            if (failedInstances.isEmpty()) {
+                return false;
+            }
+        }
+        List<SchedulerStateRecord> failedInstances = executeInNonManagedTXLock(LOCK_STATE_ACCESS, new TransactionCallback<List<SchedulerStateRecord>>() {
+            public List<SchedulerStateRecord> execute(Connection conn) throws JobPersistenceException {
+                List<SchedulerStateRecord> failedInstances = firstCheckIn ? clusterCheckIn(conn) : findFailedInstances(conn);
+                for (SchedulerStateRecord rec : failedInstances) {
+                    claimFailedInstance(conn, rec.getSchedulerInstanceId());
+                }
+                return failedInstances;
+            }
+        }, null);
+        firstCheckIn = false;
+        if (failedInstances.isEmpty()) {
+            return false;
+        }
+
+        getLog().warn("ClusterManager: detected " + failedInstances.size() + " failed or restarted instances.");
+        for (SchedulerStateRecord rec : failedInstances) {
+            final String instanceId = rec.getSchedulerInstanceId();
+            getLog().info("ClusterManager: Scanning for instance \"" + instanceId + "\"'s failed in-progress jobs.");
+            int total = 0;
+            boolean recoveredAll;
+            do {
+                int recovered = executeInNonManagedTXLock(LOCK_TRIGGER_ACCESS, new TransactionCallback<Integer>() {
+                    public Integer execute(Connection conn) throws JobPersistenceException {
+                        claimFailedInstance(conn, instanceId);
+                        return recoverFiredTriggers(conn, instanceId);
+                    }
+                }, null);
+                total += recovered;
+                if (recovered > 0) {
+                    signalSchedulingChangeImmediately(0L);
+                }
+                recoveredAll = recovered < clusterRecoveryBatchSize;
+            } while (!recoveredAll && yieldLock());
+            if (!recoveredAll) {
+                // interrupted by the shutdown, the row is kept for the claim to expire and another node to go on
+                getLog().info("ClusterManager: ......Recovered " + total + " fired trigger(s) of instance \"" + instanceId
+                        + "\", the others left to the next check-in.");
+                break;
+            }
+            if (!instanceId.equals(getInstanceId())) {
+                executeInNonManagedTXLock(LOCK_STATE_ACCESS, new TransactionCallback<Void>() {
+                    public Void execute(Connection conn) throws JobPersistenceException {
+                        try {
+                            getDelegate().deleteSchedulerState(conn, instanceId);
+                            return null;
+                        } catch (SQLException e) {
+                            throw new JobPersistenceException("Failure recovering jobs: " + e.getMessage(), e);
+                        }
+                    }
+                }, null);
+            }
+            failedInstanceCount.increment();
+            getLog().info("ClusterManager: ......Recovered " + total + " fired trigger(s) of instance \"" + instanceId + "\".");
+        }
+        return true;
+    }
+
+    /**
+     * leaves TRIGGER_ACCESS to the scheduler thread between two batches, as the MisfireHandler does
+     *
+     * @return false if interrupted by the shutdown
+     */
+    private boolean yieldLock() {
+        try {
+            Thread.sleep(50L);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * checks in the failed node on its behalf, for the other nodes to leave it to this one
+     */
+    private void claimFailedInstance(Connection conn, String instanceId) throws JobPersistenceException {
+        if (instanceId.equals(getInstanceId())) {
+            return;
+        }
+        try {
+            // the orphaned fired triggers have no row
+            if (getDelegate().updateSchedulerState(conn, instanceId, System.currentTimeMillis()) == 0) {
+                getDelegate().insertSchedulerState(conn, instanceId, System.currentTimeMillis(), getClusterCheckinInterval());
+            }
+        } catch (SQLException e) {
+            throw new JobPersistenceException("Failure claiming failed instance " + instanceId + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Recovers at most clusterRecoveryBatchSize fired triggers of a failed node the way JobStoreSupport does:
+     * the acquired triggers are freed, the jobs requesting recovery get a recovery trigger, the blocked triggers are released,
+     * the complete triggers without fired triggers left are deleted.
+     *
+     * @return the number of fired triggers recovered
+     */
+    protected int recoverFiredTriggers(Connection conn, String instanceId) throws JobPersistenceException {
+        List<FiredTriggerRecord> firedTriggerRecs = new ArrayList<>(clusterRecoveryBatchSize);
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+        try {
+            ps = conn.prepareStatement(rtp(SELECT_INSTANCES_FIRED_TRIGGERS));
+            ps.setMaxRows(clusterRecoveryBatchSize);
+            ps.setFetchSize(Math.min(clusterRecoveryBatchSize, 1000));
+            ps.setString(1, instanceId);
+            rs = ps.executeQuery();
+            while (rs.next()) {
+                FiredTriggerRecord rec = new FiredTriggerRecord();
+                rec.setFireInstanceId(rs.getString(1));
+                rec.setTriggerKey(new TriggerKey(rs.getString(2), rs.getString(3)));
+                rec.setSchedulerInstanceId(rs.getString(4));
+                rec.setFireTimestamp(rs.getLong(5));
+                rec.setScheduleTimestamp(rs.getLong(6));
+                rec.setPriority(rs.getInt(7));
+                rec.setFireInstanceState(rs.getString(8));
+                if (!STATE_ACQUIRED.equals(rec.getFireInstanceState())) {
+                    rec.setJobKey(new JobKey(rs.getString(9), rs.getString(10)));
+                    rec.setJobDisallowsConcurrentExecution(rs.getBoolean(11));
+                    rec.setJobRequestsRecovery(rs.getBoolean(12));
+                }
+                firedTriggerRecs.add(rec);
+            }
+        } catch (SQLException e) {
+            throw new JobPersistenceException("Failure recovering jobs: " + e.getMessage(), e);
+        } finally {
+            Util.closeResultSet(rs);
+            Util.closeStatement(ps);
+        }
+
+        try {
+            Set<TriggerKey> triggerKeys = new HashSet<>();
+            for (FiredTriggerRecord ftRec : firedTriggerRecs) {
+                TriggerKey tKey = ftRec.getTriggerKey();
+                JobKey jKey = ftRec.getJobKey();
+                triggerKeys.add(tKey);
+                if (STATE_BLOCKED.equals(ftRec.getFireInstanceState())) {
+                    getDelegate().updateTriggerStatesForJobFromOtherState(conn, jKey, STATE_WAITING, STATE_BLOCKED);
+                } else if (STATE_PAUSED_BLOCKED.equals(ftRec.getFireInstanceState())) {
+                    getDelegate().updateTriggerStatesForJobFromOtherState(conn, jKey, STATE_PAUSED, STATE_PAUSED_BLOCKED);
+                }
+                if (STATE_ACQUIRED.equals(ftRec.getFireInstanceState())) {
+                    getDelegate().updateTriggerStateFromOtherState(conn, tKey, STATE_WAITING, STATE_ACQUIRED);
+                } else if (ftRec.isJobRequestsRecovery()) {
+                    if (jobExists(conn, jKey)) {
+                        SimpleTriggerImpl recoveryTrigger = new SimpleTriggerImpl();
+                        recoveryTrigger.setName("recover_" + instanceId + "_" + (recoverIds++));
+                        recoveryTrigger.setGroup(Scheduler.DEFAULT_RECOVERY_GROUP);
+                        recoveryTrigger.setStartTime(new Date(ftRec.getScheduleTimestamp()));
+                        recoveryTrigger.setJobKey(jKey);
+                        recoveryTrigger.setMisfireInstruction(SimpleTrigger.MISFIRE_INSTRUCTION_IGNORE_MISFIRE_POLICY);
+                        recoveryTrigger.setPriority(ftRec.getPriority());
+                        JobDataMap jd = getDelegate().selectTriggerJobDataMap(conn, tKey.getName(), tKey.getGroup());
+                        jd.put(Scheduler.FAILED_JOB_ORIGINAL_TRIGGER_NAME, tKey.getName());
+                        jd.put(Scheduler.FAILED_JOB_ORIGINAL_TRIGGER_GROUP, tKey.getGroup());
+                        jd.put(Scheduler.FAILED_JOB_ORIGINAL_TRIGGER_FIRETIME_IN_MILLISECONDS, String.valueOf(ftRec.getFireTimestamp()));
+                        jd.put(Scheduler.FAILED_JOB_ORIGINAL_TRIGGER_SCHEDULED_FIRETIME_IN_MILLISECONDS, String.valueOf(ftRec.getScheduleTimestamp()));
+                        recoveryTrigger.setJobDataMap(jd);
+                        recoveryTrigger.computeFirstFireTime(null);
+                        storeTrigger(conn, recoveryTrigger, null, false, STATE_WAITING, false, true);
+                    } else {
+                        getLog().warn("ClusterManager: failed job '" + jKey + "' no longer exists, cannot schedule recovery.");
+                    }
+                }
+                if (ftRec.isJobDisallowsConcurrentExecution()) {
+                    getDelegate().updateTriggerStatesForJobFromOtherState(conn, jKey, STATE_WAITING, STATE_BLOCKED);
+                    getDelegate().updateTriggerStatesForJobFromOtherState(conn, jKey, STATE_PAUSED, STATE_PAUSED_BLOCKED);
+                }
+            }
+            ps = conn.prepareStatement(rtp(StdJDBCConstants.DELETE_FIRED_TRIGGER));
+            for (FiredTriggerRecord ftRec : firedTriggerRecs) {
+                ps.setString(1, ftRec.getFireInstanceId());
+                ps.addBatch();
+            }
+            ps.executeBatch();
+            Util.closeStatement(ps);
+            ps = null;
+            for (TriggerKey triggerKey : triggerKeys) {
+                if (STATE_COMPLETE.equals(getDelegate().selectTriggerState(conn, triggerKey))
+                        && getDelegate().selectFiredTriggerRecords(conn, triggerKey.getName(), triggerKey.getGroup()).isEmpty()) {
+                    removeTrigger(conn, triggerKey);
+                }
+            }
+        } catch (SQLException | ClassNotFoundException | IOException e) {
+            throw new JobPersistenceException("Failure recovering jobs: " + e.getMessage(), e);
+        } finally {
+            Util.closeStatement(ps);
+        }
+        recoveredFiredTriggerCount.add(firedTriggerRecs.size());
+        return firedTriggerRecs.size();
+    }
+
+    @Override
+    public void schedulerStarted() throws SchedulerException {
+        super.schedulerStarted();
+        if (batchTriggerCompletion && completionFlusher == null) {
+            completionFlusher = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, getInstanceName() + "_TriggerCompletionFlusher");
+                    thread.setDaemon(getMakeThreadsDaemons());
+                    return thread;
+                }
+            });
+            completionFlusher.scheduleWithFixedDelay(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        flushCompletedTriggers(true);
+                    } catch (RuntimeException e) {
+                        getLog().error("Failed to flush completed triggers: " + e.getMessage(), e);
+                    }
+                }
+            }, triggerCompletionFlushIntervalMills, triggerCompletionFlushIntervalMills, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        if (completionFlusher != null) {
+            completionFlusher.shutdown();
+            try {
+                completionFlusher.awaitTermination(getDbRetryInterval(), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException ignore) {
+            }
+        }
+        // completions arriving from now on are written one by one
+        completionBufferClosed = true;
+        flushCompletedTriggers(true);
+        if (!completedTriggers.isEmpty()) {
+            getLog().error(completedTriggers.size() + " completed triggers could not be written on shutdown,"
+                    + " their fired trigger records are left to the recovery of this node");
+        }
+        super.shutdown();
+        Semaphore lockHandler = getLockHandler();
+        if (lockHandler instanceof MeteredSemaphore) {
+            lockHandler = ((MeteredSemaphore) lockHandler).getDelegate();
+        }
+        if (lockHandler instanceof RedisSemaphore) {
+            ((RedisSemaphore) lockHandler).shutdown();
+        }
+        if (wakeUpChannel != null) {
+            wakeUpChannel.shutdown();
+        }
+        if (misfireRecoveryExecutor != null) {
+            misfireRecoveryExecutor.shutdownNow();
+        }
+        JobStoreHolder.remove(getInstanceName(), this);
+    }
+
+    /**
+     * With pinConnection, the scheduler thread keeps the connection of the acquisition for triggersFired / releaseAcquiredTrigger
+     * and for the next acquisitions, until one of them finds no trigger and the thread waits idle. <br>
+     *
+     * With adaptiveAcquisition, maxCount and timeWindow are the bounds of the AcquisitionController.
+     */
+    @Override
+    public List<OperableTrigger> acquireNextTriggers(long noLaterThan, int maxCount, long timeWindow) throws JobPersistenceException {
+        long start = System.nanoTime();
+        AcquisitionController controller = acquisitionController;
+        if (controller != null) {
+            maxCount = controller.getBatchSize(maxCount);
+            timeWindow = controller.getTimeWindow(timeWindow);
+        }
+        acquisitionHorizon = noLaterThan + timeWindow;
+        if (pinningConnectionProvider != null) {
+            pinningConnectionProvider.pin();
+        }
+        List<OperableTrigger> triggers = null;
+        try {
+            triggers = isAcquiringWithoutLock()
+                    ? acquireNextTriggersWithoutLock(noLaterThan, maxCount, timeWindow)
+                    : super.acquireNextTriggers(noLaterThan, maxCount, timeWindow);
+            acquiredTriggerCount.add(triggers.size());
+            return triggers;
+        } finally {
+            if (pinningConnectionProvider != null && (triggers == null || triggers.isEmpty())) {
+                pinningConnectionProvider.unpin();
+            }
+            long elapsed = System.nanoTime() - start;
+            if (controller != null && triggers != null) {
+                controller.acquired(maxCount, triggers.size(), elapsed);
+            }
+            acquisitionCount.increment();
+            acquisitionTimeNanos.add(elapsed);
+        }
+    }
+
+    /**
+     * The rows selected with SKIP LOCKED stay locked by the transaction of the acquisition, so the nodes acquire
+     * disjoint triggers without TRIGGER_ACCESS, which JobStoreSupport takes for batches. Only if acquireTriggersWithinLock is not set.
+     */
+    protected boolean isAcquiringWithoutLock() throws JobPersistenceException {
+        if (isAcquireTriggersWithinLock()) {
+            return false;
+        }
+        DriverDelegate delegate = getDelegate();
+        return delegate instanceof CustomJDBCDelegate && Boolean.TRUE.equals(((CustomJDBCDelegate) delegate).getSkipLocked());
+    }
+
+    /**
+     * the acquisition of JobStoreSupport, without lock
+     */
+    protected List<OperableTrigger> acquireNextTriggersWithoutLock(final long noLaterThan, final int maxCount, final long timeWindow)
+            throws JobPersistenceException {
+        return executeInNonManagedTXLock(null,
+                new TransactionCallback<List<OperableTrigger>>() {
+                    public List<OperableTrigger> execute(Connection conn) throws JobPersistenceException {
+                        return acquireNextTrigger(conn, noLaterThan, maxCount, timeWindow);
+                    }
+                },
+                new TransactionValidator<List<OperableTrigger>>() {
+                    public Boolean validate(Connection conn, List<OperableTrigger> result) throws JobPersistenceException {
+                        try {
+                            Set<String> fireInstanceIds = new HashSet<>();
+                            for (FiredTriggerRecord firedTrigger : getDelegate().selectInstancesFiredTriggerRecords(conn, getInstanceId())) {
+                                fireInstanceIds.add(firedTrigger.getFireInstanceId());
+                            }
+                            for (OperableTrigger trigger : result) {
+                                if (fireInstanceIds.contains(trigger.getFireInstanceId())) {
+                                    return true;
+                                }
+                            }
+                            return false;
+                        } catch (SQLException e) {
+                            throw new JobPersistenceException("error validating trigger acquisition", e);
+                        }
+                    }
+                });
+    }
+
+    @Override
+    public void triggeredJobComplete(OperableTrigger trigger, JobDetail jobDetail, Trigger.CompletedExecutionInstruction triggerInstCode) {
+        if (retainTriggerAfterExecutionCompleted && triggerInstCode == Trigger.CompletedExecutionInstruction.DELETE_TRIGGER) {
+            return;
+        }
+        if (!batchTriggerCompletion || completionBufferClosed) {
+            super.triggeredJobComplete(trigger, jobDetail, triggerInstCode);
+            return;
+        }
+        completedTriggers.add(new CompletedTrigger(trigger, jobDetail, triggerInstCode));
+        int buffered = completedTriggerCount.incrementAndGet();
+        if (buffered >= triggerCompletionBufferSize) {
+            awaitCompletionBufferNotFull();
+        } else if (buffered >= triggerCompletionBatchSize) {
+            flushCompletedTriggers(false);
+        }
+    }
+
+    /**
+     * The backpressure of a full buffer: the thread which completed a job writes the buffer, or waits for the flush running,
+     * so it takes no other job until the buffer is below triggerCompletionBufferSize.
+     * While nothing can be written, it retries every dbRetryInterval as JobStoreSupport does.
+     */
+    private void awaitCompletionBufferNotFull() {
+        while (!completionBufferClosed) {
+            int buffered = completedTriggerCount.get();
+            if (buffered < triggerCompletionBufferSize) {
+                return;
+            }
+            flushCompletedTriggers(true);
+            if (completedTriggerCount.get() >= buffered) {
+                try {
+                    Thread.sleep(getDbRetryInterval());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes all buffered completions within one lock acquisition and one transaction. <br>
+     *
+     * If the batch fails, its completions are written one by one, each within a transaction of its own.
+     * Those still failing while others were written fail by themselves and would fail again: they are dropped, logged and counted,
+     * their fired trigger records being left to the recovery of the node. If none could be written, the database is likely unavailable,
+     * all of them go back to the head of the buffer for the next flush.
+     *
+     * @param wait whether to wait for a flush running on another thread, or give up and leave the buffer to it
+     */
+    protected void flushCompletedTriggers(boolean wait) {
+        if (wait) {
+            flushLock.lock();
+        } else if (!flushLock.tryLock()) {
+            return;
+        }
+        try {
+            List<CompletedTrigger> batch = new ArrayList<>();
+            CompletedTrigger completedTrigger;
+            while ((completedTrigger = completedTriggers.poll()) != null) {
+                completedTriggerCount.decrementAndGet();
+                batch.add(completedTrigger);
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+            try {
+                completeTriggers(batch);
+                return;
+            } catch (JobPersistenceException e) {
+                if (batch.size() == 1) {
+                    requeueCompletedTriggers(batch, e);
+                    return;
+                }
+                getLog().warn("Couldn't write a batch of " + batch.size() + " completed triggers, writing them one by one: " + e.getMessage(), e);
+            }
+            List<CompletedTrigger> failed = new ArrayList<>();
+            JobPersistenceException failure = null;
+            for (CompletedTrigger single : batch) {
+                try {
+                    completeTriggers(Collections.singletonList(single));
+                } catch (JobPersistenceException e) {
+                    failed.add(single);
+                    failure = e;
+                }
+            }
+            if (failed.size() == batch.size()) {
+                requeueCompletedTriggers(failed, failure);
+                return;
+            }
+            for (CompletedTrigger dropped : failed) {
+                droppedCompletionCount.increment();
+                getLog().error("Dropped the completion " + dropped.triggerInstCode + " of trigger " + dropped.trigger.getKey()
+                        + " (fire instance " + dropped.trigger.getFireInstanceId() + "), it could not be written on its own: "
+                        + failure.getMessage(), failure);
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void completeTriggers(final List<CompletedTrigger> completedTriggers) throws JobPersistenceException {
+        executeInNonManagedTXLock(
+                LOCK_TRIGGER_ACCESS,
+                new TransactionCallback<Void>() {
+                    public Void execute(Connection conn) throws JobPersistenceException {
+                        triggeredJobsComplete(conn, completedTriggers);
+                        return null;
+                    }
+                }, null);
+    }
+
+    private void requeueCompletedTriggers(List<CompletedTrigger> failed, JobPersistenceException e) {
+        getLog().error("Couldn't write any of " + failed.size() + " completed triggers, keeping them for the next flush: " + e.getMessage(), e);
+        for (int i = failed.size() - 1; i >= 0; i--) {
+            completedTriggers.addFirst(failed.get(i));
+            completedTriggerCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * Completions which only remove the fired trigger record (the usual case of a repeating trigger) are sent as one JDBC batch,
+     * the others fall back to the per-trigger handling of JobStoreSupport within the same transaction.
+     *
+     * @param conn
+     * @param batch
+     * @throws JobPersistenceException
+     */
+    protected void triggeredJobsComplete(Connection conn, List<CompletedTrigger> batch) throws JobPersistenceException {
+        PreparedStatement ps = null;
+        try {
+            ps = conn.prepareStatement(rtp(StdJDBCConstants.DELETE_FIRED_TRIGGER));
+            for (CompletedTrigger completedTrigger : batch) {
+                if (completedTrigger.isFiredRecordOnly()) {
+                    ps.setString(1, completedTrigger.trigger.getFireInstanceId());
+                    ps.addBatch();
+                } else {
+                    triggeredJobComplete(conn, completedTrigger.trigger, completedTrigger.jobDetail, completedTrigger.triggerInstCode);
+                }
+            }
+            ps.executeBatch();
+        } catch (SQLException e) {
+            throw new JobPersistenceException("Couldn't delete fired triggers: " + e.getMessage(), e);
+        } finally {
+            Util.closeStatement(ps);
+        }
+    }
+
+    protected String rtp(String query) {
+        return Util.rtp(query, getTablePrefix(), "'" + getInstanceName() + "'");
+    }
+
+    public boolean isRetainTriggerAfterExecutionCompleted() {
+        return retainTriggerAfterExecutionCompleted;
+    }
+
+    /**
+     * the type must match the one of the getter, otherwise the property can't be set by StdSchedulerFactory
+     *
+     * @param retainTriggerAfterExecutionCompleted
+     */
+    public void setRetainTriggerAfterExecutionCompleted(boolean retainTriggerAfterExecutionCompleted) {
+        this.retainTriggerAfterExecutionCompleted = retainTriggerAfterExecutionCompleted;
+    }
+
+    public boolean isBatchTriggerCompletion() {
+        return batchTriggerCompletion;
+    }
+
+    public void setBatchTriggerCompletion(boolean batchTriggerCompletion) {
+        this.batchTriggerCompletion = batchTriggerCompletion;
+    }
+
+    public int getTriggerCompletionBatchSize() {
+        return triggerCompletionBatchSize;
+    }
+
+    public void setTriggerCompletionBatchSize(int triggerCompletionBatchSize) {
+        this.triggerCompletionBatchSize = triggerCompletionBatchSize;
+    }
+
+    public int getTriggerCompletionBufferSize() {
+        return triggerCompletionBufferSize;
+    }
+
+    public void setTriggerCompletionBufferSize(int triggerCompletionBufferSize) {
+        this.triggerCompletionBufferSize = triggerCompletionBufferSize;
+    }
+
+    public long getTriggerCompletionFlushIntervalMills() {
+        return triggerCompletionFlushIntervalMills;
+    }
+
+    public void setTriggerCompletionFlushIntervalMills(long triggerCompletionFlushIntervalMills) {
+        this.triggerCompletionFlushIntervalMills = triggerCompletionFlushIntervalMills;
+    }
+
+    public int getLockStripes() {
+        return lockStripes;
+    }
+
+    public void setLockStripes(int lockStripes) {
+        this.lockStripes = lockStripes;
+    }
+
+    public boolean isFairLocks() {
+        return fairLocks;
+    }
+
+    public void setFairLocks(boolean fairLocks) {
+        this.fairLocks = fairLocks;
+    }
+
+    public boolean isPinConnection() {
+        return pinConnection;
+    }
+
+    public void setPinConnection(boolean pinConnection) {
+        this.pinConnection = pinConnection;
+    }
+
+    public int getStatementCacheSize() {
+        return statementCacheSize;
+    }
+
+    public void setStatementCacheSize(int statementCacheSize) {
+        this.statementCacheSize = statementCacheSize;
+    }
+
+    public String getJobDataSerializerClass() {
+        return jobDataSerializerClass;
+    }
+
+    public void setJobDataSerializerClass(String jobDataSerializerClass) {
+        this.jobDataSerializerClass = jobDataSerializerClass;
+    }
+
+    public int getJobDataCompressionThreshold() {
+        return jobDataCompressionThreshold;
+    }
+
+    public void setJobDataCompressionThreshold(int jobDataCompressionThreshold) {
+        this.jobDataCompressionThreshold = jobDataCompressionThreshold;
+    }
+
+    public int getJobDetailCacheSize() {
+        return jobDetailCacheSize;
+    }
+
+    public void setJobDetailCacheSize(int jobDetailCacheSize) {
+        this.jobDetailCacheSize = jobDetailCacheSize;
+    }
+
+    public long getJobDetailCacheTtlMills() {
+        return jobDetailCacheTtlMills;
+    }
+
+    public void setJobDetailCacheTtlMills(long jobDetailCacheTtlMills) {
+        this.jobDetailCacheTtlMills = jobDetailCacheTtlMills;
+    }
+
+    public boolean isAdaptiveAcquisition() {
+        return adaptiveAcquisition;
+    }
+
+    public void setAdaptiveAcquisition(boolean adaptiveAcquisition) {
+        this.adaptiveAcquisition = adaptiveAcquisition;
+    }
+
+    public int getAcquisitionMinBatchSize() {
+        return acquisitionMinBatchSize;
+    }
+
+    public void setAcquisitionMinBatchSize(int acquisitionMinBatchSize) {
+        this.acquisitionMinBatchSize = acquisitionMinBatchSize;
+    }
+
+    public long getAcquisitionMinTimeWindowMills() {
+        return acquisitionMinTimeWindowMills;
+    }
+
+    public void setAcquisitionMinTimeWindowMills(long acquisitionMinTimeWindowMills) {
+        this.acquisitionMinTimeWindowMills = acquisitionMinTimeWindowMills;
+    }
+
+    public String getWakeUpChannelClass() {
+        return wakeUpChannelClass;
+    }
+
+    public void setWakeUpChannelClass(String wakeUpChannelClass) {
+        this.wakeUpChannelClass = wakeUpChannelClass;
+    }
+
+    public void setHost(String host) {
+        this.host = host;
+    }
+
+    public void setPort(int port) {
+        this.port = port;
+    }
+
+    public void setPassword(String password) {
+        this.password = password;
+    }
+
+    public void setDatabase(int database) {
+        this.database = database;
+    }
+
+    public void setSsl(boolean ssl) {
+        this.ssl = ssl;
+    }
+
+    public int getMisfireRecoveryThreads() {
+        return misfireRecoveryThreads;
+    }
+
+    public void setMisfireRecoveryThreads(int misfireRecoveryThreads) {
+        this.misfireRecoveryThreads = misfireRecoveryThreads;
+    }
+
+    public int getMisfireRecoveryBatchSize() {
+        return misfireRecoveryBatchSize;
+    }
+
+    public void setMisfireRecoveryBatchSize(int misfireRecoveryBatchSize) {
+        this.misfireRecoveryBatchSize = misfireRecoveryBatchSize;
+    }
+
+    /**
+     * @return the number of misfired triggers stored by the batches of misfireRecoveryThreads
+     */
+    public long getRecoveredMisfireCount() {
+        return recoveredMisfireCount.sum();
+    }
+
+    /**
+     * @return the buffered completions which failed on their own and were dropped
+     */
+    public long getDroppedCompletionCount() {
+        return droppedCompletionCount.sum();
+    }
+
+    /**
+     * @return the completions buffered, with batchTriggerCompletion
+     */
+    public int getBufferedCompletionCount() {
+        return completedTriggerCount.get();
+    }
+
+    /**
+     * @return the number of misfired triggers left to the next batch, having changed since they were loaded
+     */
+    public long getSkippedMisfireCount() {
+        return skippedMisfireCount.sum();
+    }
+
+    /**
+     * @return the number of batches of misfired triggers stored
+     */
+    public long getMisfireBatchCount() {
+        return misfireBatchCount.sum();
+    }
+
+    /**
+     * @return the total time of the batches of misfired triggers within TRIGGER_ACCESS, including the lock wait
+     */
+    public long getMisfireBatchTimeNanos() {
+        return misfireBatchTimeNanos.sum();
+    }
+
+    /**
+     * @return the number of misfired triggers left as counted by the last batch
+     */
+    public int getMisfireBacklog() {
+        return misfireBacklog;
+    }
+
+    public long getClusterFailureGracePeriodMills() {
+        return clusterFailureGracePeriodMills;
+    }
+
+    public void setClusterFailureGracePeriodMills(long clusterFailureGracePeriodMills) {
+        this.clusterFailureGracePeriodMills = clusterFailureGracePeriodMills;
+    }
+
+    public int getClusterRecoveryBatchSize() {
+        return clusterRecoveryBatchSize;
+    }
+
+    public void setClusterRecoveryBatchSize(int clusterRecoveryBatchSize) {
+        this.clusterRecoveryBatchSize = clusterRecoveryBatchSize;
+    }
+
+    /**
+     * @return the number of fired triggers of failed nodes recovered by the batches of clusterRecoveryBatchSize
+     */
+    public long getRecoveredFiredTriggerCount() {
+        return recoveredFiredTriggerCount.sum();
+    }
+
+    /**
+     * @return the number of failed or restarted nodes recovered by the batches of clusterRecoveryBatchSize
+     */
+    public long getFailedInstanceCount() {
+        return failedInstanceCount.sum();
+    }
+
+    /**
+     * @return the channel telling the other nodes of the triggers stored by this one, null if not set
+     */
+    @Nullable
+    public WakeUpChannel getWakeUpChannel() {
+        return wakeUpChannel;
+    }
+
+    /**
+     * @return the number of wake-ups published to the other nodes
+     */
+    public long getPublishedWakeUpCount() {
+        return publishedWakeUpCount.sum();
+    }
+
+    /**
+     * @return the number of wake-ups received from the other nodes
+     */
+    public long getReceivedWakeUpCount() {
+        return receivedWakeUpCount.sum();
+    }
+
+    /**
+     * @return the controller of the acquisitions if adaptiveAcquisition, null otherwise
+     */
+    @Nullable
+    public AcquisitionController getAcquisitionController() {
+        return acquisitionController;
+    }
+
+    /**
+     * @return the cache of job details if jobDetailCacheSize > 0, null otherwise
+     */
+    @Nullable
+    public JobDetailCache getJobDetailCache() {
+        return jobDetailCache;
+    }
+
+    /**
+     * @return the provider of the connections if pinConnection, null otherwise
+     */
+    @Nullable
+    public PinningConnectionProvider getPinningConnectionProvider() {
+        return pinningConnectionProvider;
+    }
+
+    /**
+     * @return the lock handler, a MeteredSemaphore wrapping the actual one once initialized
+     */
+    @Override
+    public Semaphore getLockHandler() {
+        return super.getLockHandler();
+    }
+
+    /**
+     * @return the number of calls of acquireNextTriggers
+     */
+    public long getAcquisitionCount() {
+        return acquisitionCount.sum();
+    }
+
+    /**
+     * @return the total time spent in acquireNextTriggers, including the lock wait if acquireTriggersWithinLock
+     */
+    public long getAcquisitionTimeNanos() {
+        return acquisitionTimeNanos.sum();
+    }
+
+    /**
+     * @return the number of triggers acquired
+     */
+    public long getAcquiredTriggerCount() {
+        return acquiredTriggerCount.sum();
+    }
+
+    /**
+     * @return the number of chunks stored by {@link #storeJobsAndTriggersInBatch(Map, boolean)}
+     */
+    public long getBulkChunkCount() {
+        return bulkChunkCount.sum();
+    }
+
+    /**
+     * @return the time spent storing the chunks, waiting for the lock included
+     */
+    public long getBulkChunkTimeNanos() {
+        return bulkChunkTimeNanos.sum();
+    }
+
+    /**
+     * @return the number of triggers stored by the chunks
+     */
+    public long getBulkStoredTriggerCount() {
+        return bulkStoredTriggerCount.sum();
+    }
+
+    protected void closeConnection(Connection con) {
+        DataSourceUtils.releaseConnection(con, this.dataSource);
+    }
+
+    protected static class MisfiredTrigger {
+
+        private final OperableTrigger original;
+
+        private final OperableTrigger trigger;
+
+        /**
+         * stored through JobStoreSupport, which told the listeners
+         */
+        private boolean notified;
+
+        MisfiredTrigger(OperableTrigger original, OperableTrigger trigger) {
+            this.original = original;
+            this.trigger = trigger;
+        }
+    }
+
+    protected static class CompletedTrigger {
+
+        private final OperableTrigger trigger;
+
+        private final JobDetail jobDetail;
+
+        private final Trigger.CompletedExecutionInstruction triggerInstCode;
+
+        CompletedTrigger(OperableTrigger trigger, JobDetail jobDetail, Trigger.CompletedExecutionInstruction triggerInstCode) {
+            this.trigger = trigger;
+            this.jobDetail = jobDetail;
+            this.triggerInstCode = triggerInstCode;
+        }
+
+        /**
+         * @return true if nothing but the row of fired trigger needs to be deleted
+         */
+        boolean isFiredRecordOnly() {
+            return triggerInstCode == Trigger.CompletedExecutionInstruction.NOOP
+                    && !jobDetail.isConcurrentExectionDisallowed()
+                    && !(jobDetail.isPersistJobDataAfterExecution() && jobDetail.getJobDataMap().isDirty());
+        }
     }
 }
@@ -0,0 +1,133 @@
+package com.github.attemper.quartz.spring.boot.autoconfigure.jobstore;
+
+import org.quartz.JobDetail;
+import org.quartz.JobKey;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded LRU of JobDetails which expire some time after they were loaded. <br>
+ *
+ * The details are kept and handed out as copies, a job can't change the cached one through its JobDataMap. <br>
+ *
+ * Every invalidation moves the generation on, a detail loaded from the database before an invalidation isn't put,
+ * it may be the row as it was before the change.
+ */
+public class JobDetailCache {
+
+    private final int maxSize;
+
+    private final long ttlMills;
+
+    private final Map<JobKey, Entry> entries;
+
+    private long generation;
+
+    private final LongAdder hitCount = new LongAdder();
+
+    private final LongAdder missCount = new LongAdder();
+
+    /**
+     * @param maxSize  the number of details kept
+     * @param ttlMills how long a detail is kept after it was loaded, 0 for as long as it is not invalidated
+     */
+    public JobDetailCache(final int maxSize, long ttlMills) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Size must be > 0");
+        }
+        this.maxSize = maxSize;
+        this.ttlMills = ttlMills;
+        this.entries = new LinkedHashMap<JobKey, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<JobKey, Entry> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * @return a copy of the cached detail, null if not cached or expired
+     */
+    public JobDetail get(JobKey key) {
+        JobDetail jobDetail;
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null && ttlMills > 0 && System.currentTimeMillis() - entry.loadedTime >= ttlMills) {
+                entries.remove(key);
+                entry = null;
+            }
+            jobDetail = entry == null ? null : entry.jobDetail;
+        }
+        if (jobDetail == null) {
+            missCount.increment();
+            return null;
+        }
+        hitCount.increment();
+        return (JobDetail) jobDetail.clone();
+    }
+
+    /**
+     * @return the generation to pass to {@link #put(JobDetail, long)} for a detail about to be loaded
+     */
+    public synchronized long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * @param jobDetail  copied
+     * @param generation the one got before loading the detail
+     */
+    public void put(JobDetail jobDetail, long generation) {
+        Entry entry = new Entry((JobDetail) jobDetail.clone());
+        synchronized (this) {
+            if (generation == this.generation) {
+                entries.put(jobDetail.getKey(), entry);
+            }
+        }
+    }
+
+    public synchronized void invalidate(JobKey key) {
+        generation++;
+        entries.remove(key);
+    }
+
+    public synchronized void invalidateAll() {
+        generation++;
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * @return the number of details served from the cache
+     */
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    /**
+     * @return the number of details loaded from the database
+     */
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    private static class Entry {
+
+        private final JobDetail jobDetail;
+
+        private final long loadedTime = System.currentTimeMillis();
+
+        Entry(JobDetail jobDetail) {
+            this.jobDetail = jobDetail;
+        }
+    }
+}
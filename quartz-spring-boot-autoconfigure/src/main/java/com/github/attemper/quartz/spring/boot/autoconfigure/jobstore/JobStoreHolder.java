@@ -0,0 +1,26 @@
+package com.github.attemper.quartz.spring.boot.autoconfigure.jobstore;
+
+import org.quartz.spi.JobStore;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The scheduler doesn't expose its job store, so the job stores of this package register themselves by scheduler name
+ */
+public class JobStoreHolder {
+
+    private static final Map<String, JobStore> jobStores = new ConcurrentHashMap<>();
+
+    public static void set(String schedName, JobStore jobStore) {
+        jobStores.put(schedName, jobStore);
+    }
+
+    public static JobStore get(String schedName) {
+        return jobStores.get(schedName);
+    }
+
+    public static void remove(String schedName, JobStore jobStore) {
+        jobStores.remove(schedName, jobStore);
+    }
+}
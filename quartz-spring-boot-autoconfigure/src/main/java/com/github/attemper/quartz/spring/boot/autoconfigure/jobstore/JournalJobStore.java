@@ -0,0 +1,518 @@
+package com.github.attemper.quartz.spring.boot.autoconfigure.jobstore;
+
+import org.quartz.Calendar;
+import org.quartz.JobDetail;
+import org.quartz.JobKey;
+import org.quartz.JobPersistenceException;
+import org.quartz.SchedulerConfigException;
+import org.quartz.Trigger.TriggerState;
+import org.quartz.TriggerKey;
+import org.quartz.impl.matchers.GroupMatcher;
+import org.quartz.spi.ClassLoadHelper;
+import org.quartz.spi.OperableTrigger;
+import org.quartz.spi.SchedulerSignaler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A JobStore of a single node without a database, the {@link TimeWheelJobStore} in memory made durable by a {@link SegmentLog}
+ * in <code>journalDirectory</code>/instanceName. <br>
+ *
+ * Every change of a trigger, job, calendar or the paused trigger groups is appended as the whole object as it is now,
+ * before the call changing it returns, so replaying the log in order leaves the last of each.
+ * The log is compacted into a snapshot of the store once <code>journalCompactionSegments</code> segments are written after the last one,
+ * and on shutdown. <br>
+ *
+ * journalFsync: <br>
+ * always - forces the segment after each change, no change is lost <br>
+ * interval - forces the segments every <code>journalFsyncIntervalMills</code>, the changes of the last interval are lost
+ * if the machine dies, none if only the process does <br>
+ * never - leaves the segments to the operating system <br>
+ *
+ * On startup the triggers blocked by a job executing when the node died are released, no fired trigger is recorded,
+ * so nothing is recovered. Can't be clustered.
+ */
+public class JournalJobStore extends TimeWheelJobStore {
+
+    public static final String FSYNC_ALWAYS = "always";
+
+    public static final String FSYNC_INTERVAL = "interval";
+
+    public static final String FSYNC_NEVER = "never";
+
+    private static final byte JOB = 1;
+
+    private static final byte JOB_REMOVED = 2;
+
+    private static final byte TRIGGER = 3;
+
+    private static final byte TRIGGER_REMOVED = 4;
+
+    private static final byte CALENDAR = 5;
+
+    private static final byte CALENDAR_REMOVED = 6;
+
+    private static final byte PAUSED_TRIGGER_GROUPS = 7;
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private String journalDirectory = "quartz-journal";
+
+    private int journalSegmentSize = 64 * 1024 * 1024;
+
+    private String journalFsync = FSYNC_INTERVAL;
+
+    private long journalFsyncIntervalMills = 1000L;
+
+    private int journalCompactionSegments = 4;
+
+    private SegmentLog segmentLog;
+
+    private ClassLoadHelper loadHelper;
+
+    /**
+     * the changes made while replaying are already in the log
+     */
+    private volatile boolean replaying;
+
+    private final AtomicBoolean compactionRequested = new AtomicBoolean();
+
+    private final LongAdder journalFailedCount = new LongAdder();
+
+    private final LongAdder snapshotCount = new LongAdder();
+
+    private final LongAdder snapshotTimeNanos = new LongAdder();
+
+    private volatile ScheduledExecutorService journalExecutor;
+
+    @Override
+    public void initialize(ClassLoadHelper loadHelper, SchedulerSignaler signaler) throws SchedulerConfigException {
+        if (!FSYNC_ALWAYS.equals(journalFsync) && !FSYNC_INTERVAL.equals(journalFsync) && !FSYNC_NEVER.equals(journalFsync)) {
+            throw new SchedulerConfigException("journalFsync must be one of always, interval and never");
+        }
+        if (journalSegmentSize < 65536) {
+            throw new SchedulerConfigException("journalSegmentSize must be >= 65536");
+        }
+        if (FSYNC_INTERVAL.equals(journalFsync) && journalFsyncIntervalMills <= 0) {
+            throw new SchedulerConfigException("journalFsyncIntervalMills must be > 0");
+        }
+        if (journalCompactionSegments <= 0) {
+            throw new SchedulerConfigException("journalCompactionSegments must be > 0");
+        }
+        super.initialize(loadHelper, signaler);
+        this.loadHelper = loadHelper;
+        File directory = new File(journalDirectory, getInstanceName() == null ? "default" : getInstanceName());
+        segmentLog = new SegmentLog(directory, journalSegmentSize);
+        Replay replay = new Replay();
+        try {
+            segmentLog.open(replay);
+        } catch (IOException e) {
+            throw new SchedulerConfigException("Could not replay the journal in " + directory + ": " + e.getMessage(), e);
+        }
+        replaying = true;
+        try {
+            replay.restore();
+        } catch (JobPersistenceException e) {
+            throw new SchedulerConfigException("Could not restore the journal in " + directory + ": " + e.getMessage(), e);
+        } finally {
+            replaying = false;
+        }
+        log.info("Replayed {} jobs and {} triggers from the journal in {}, fsync {}",
+                replay.jobs.size(), replay.triggers.size(), directory.getAbsolutePath(), journalFsync);
+        journalExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, (getInstanceName() == null ? "" : getInstanceName()) + "_Journal");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (FSYNC_INTERVAL.equals(journalFsync)) {
+            journalExecutor.scheduleWithFixedDelay(() -> segmentLog.force(),
+                    journalFsyncIntervalMills, journalFsyncIntervalMills, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public boolean supportsPersistence() {
+        return true;
+    }
+
+    @Override
+    public void shutdown() {
+        ScheduledExecutorService executor = journalExecutor;
+        if (executor != null) {
+            journalExecutor = null;
+            executor.shutdown();
+            try {
+                executor.awaitTermination(journalFsyncIntervalMills, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException ignore) {
+            }
+            compact();
+            segmentLog.close();
+        }
+        super.shutdown();
+    }
+
+    //---------------------------------------------------------------------------
+    // journal
+    //---------------------------------------------------------------------------
+
+    @Override
+    protected void triggerChanged(TriggerKey triggerKey) {
+        if (replaying) {
+            return;
+        }
+        OperableTrigger trigger = retrieveTrigger(triggerKey);
+        TriggerState state = getTriggerState(triggerKey);
+        try {
+            if (trigger == null || state == TriggerState.NONE) {
+                append(TRIGGER_REMOVED, serialize(null, triggerKey));
+            } else {
+                append(TRIGGER, serialize(restoredState(state), trigger));
+            }
+        } catch (IOException e) {
+            appendFailed(triggerKey, e);
+        }
+    }
+
+    @Override
+    protected void jobChanged(JobKey jobKey) {
+        if (replaying) {
+            return;
+        }
+        JobDetail jobDetail = retrieveJob(jobKey);
+        try {
+            append(jobDetail == null ? JOB_REMOVED : JOB, serialize(null, jobDetail == null ? jobKey : jobDetail));
+        } catch (IOException e) {
+            appendFailed(jobKey, e);
+        }
+    }
+
+    @Override
+    protected void calendarChanged(String calName) {
+        if (replaying) {
+            return;
+        }
+        Calendar calendar = retrieveCalendar(calName);
+        try {
+            append(calendar == null ? CALENDAR_REMOVED : CALENDAR, serialize(calName, calendar));
+        } catch (IOException e) {
+            appendFailed(calName, e);
+        }
+    }
+
+    @Override
+    protected void pausedTriggerGroupsChanged() {
+        if (replaying) {
+            return;
+        }
+        try {
+            append(PAUSED_TRIGGER_GROUPS, serializeGroups(getPausedTriggerGroups()));
+        } catch (IOException e) {
+            appendFailed("the paused trigger groups", e);
+        }
+    }
+
+    private void append(byte type, byte[] payload) throws IOException {
+        segmentLog.append(type, payload);
+        if (FSYNC_ALWAYS.equals(journalFsync)) {
+            segmentLog.force();
+        }
+        if (segmentLog.getSegmentSeq() - segmentLog.getSnapshotSeq() >= journalCompactionSegments) {
+            requestCompaction();
+        }
+    }
+
+    /**
+     * the change is in memory only, a snapshot taken as soon as possible writes it along with the rest
+     */
+    private void appendFailed(Object key, IOException e) {
+        journalFailedCount.increment();
+        log.error("Could not append the change of " + key + " to the journal", e);
+        requestCompaction();
+    }
+
+    private void requestCompaction() {
+        ScheduledExecutorService executor = journalExecutor;
+        if (executor != null && compactionRequested.compareAndSet(false, true)) {
+            executor.execute(() -> {
+                compactionRequested.set(false);
+                compact();
+            });
+        }
+    }
+
+    /**
+     * Rolls the log over and writes a snapshot of the store as it is from then on, replacing the segments before.
+     * The changes made meanwhile are appended to the new segment, replayed over the snapshot.
+     */
+    protected void compact() {
+        long start = System.nanoTime();
+        try {
+            long seq = segmentLog.roll();
+            segmentLog.snapshot(seq, this::writeSnapshot);
+            snapshotCount.increment();
+            log.debug("Wrote the snapshot {} of the journal in {} ms", seq, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (IOException | RuntimeException e) {
+            journalFailedCount.increment();
+            log.error("Could not write a snapshot of the journal", e);
+        } finally {
+            snapshotTimeNanos.add(System.nanoTime() - start);
+        }
+    }
+
+    private void writeSnapshot(SegmentLog.RecordHandler out) throws IOException {
+        out.handle(PAUSED_TRIGGER_GROUPS, serializeGroups(getPausedTriggerGroups()));
+        for (JobKey jobKey : getJobKeys(GroupMatcher.anyJobGroup())) {
+            JobDetail jobDetail = retrieveJob(jobKey);
+            if (jobDetail != null) {
+                out.handle(JOB, serialize(null, jobDetail));
+            }
+        }
+        for (String calName : getCalendarNames()) {
+            Calendar calendar = retrieveCalendar(calName);
+            if (calendar != null) {
+                out.handle(CALENDAR, serialize(calName, calendar));
+            }
+        }
+        for (TriggerKey triggerKey : getTriggerKeys(GroupMatcher.anyTriggerGroup())) {
+            OperableTrigger trigger = retrieveTrigger(triggerKey);
+            TriggerState state = getTriggerState(triggerKey);
+            if (trigger != null && state != TriggerState.NONE) {
+                out.handle(TRIGGER, serialize(restoredState(state), trigger));
+            }
+        }
+    }
+
+    /**
+     * the state a trigger is replayed in, a job blocking it not executing anymore
+     */
+    private static int restoredState(TriggerState state) {
+        switch (state) {
+            case PAUSED:
+                return TriggerWrapper.STATE_PAUSED;
+            case COMPLETE:
+                return TriggerWrapper.STATE_COMPLETE;
+            case ERROR:
+                return TriggerWrapper.STATE_ERROR;
+            default:
+                return TriggerWrapper.STATE_WAITING;
+        }
+    }
+
+    /**
+     * @param header a state, a calendar name or nothing written before the object
+     */
+    private static byte[] serialize(Object header, Object object) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            if (header instanceof Integer) {
+                out.writeByte((Integer) header);
+            } else if (header instanceof String) {
+                out.writeUTF((String) header);
+            }
+            if (object != null) {
+                out.writeObject(object);
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] serializeGroups(Set<String> groups) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(groups.size());
+            for (String group : groups) {
+                out.writeUTF(group);
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * The last of each trigger, job and calendar in the log, stored once it's all read.
+     */
+    private class Replay implements SegmentLog.RecordHandler {
+
+        private final Map<JobKey, JobDetail> jobs = new LinkedHashMap<>();
+
+        private final Map<String, Calendar> calendars = new LinkedHashMap<>();
+
+        private final Map<TriggerKey, OperableTrigger> triggers = new LinkedHashMap<>();
+
+        private final Map<TriggerKey, Integer> states = new LinkedHashMap<>();
+
+        private final Set<String> pausedTriggerGroups = new HashSet<>();
+
+        @Override
+        public void handle(byte type, byte[] payload) throws IOException {
+            if (type == PAUSED_TRIGGER_GROUPS) {
+                pausedTriggerGroups.clear();
+                try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+                    for (int i = in.readInt(); i > 0; i--) {
+                        pausedTriggerGroups.add(in.readUTF());
+                    }
+                }
+                return;
+            }
+            try (ObjectInputStream in = new LoaderObjectInputStream(new ByteArrayInputStream(payload))) {
+                switch (type) {
+                    case JOB:
+                        JobDetail jobDetail = (JobDetail) in.readObject();
+                        jobs.put(jobDetail.getKey(), jobDetail);
+                        break;
+                    case JOB_REMOVED:
+                        jobs.remove((JobKey) in.readObject());
+                        break;
+                    case TRIGGER:
+                        int state = in.readByte();
+                        OperableTrigger trigger = (OperableTrigger) in.readObject();
+                        triggers.put(trigger.getKey(), trigger);
+                        states.put(trigger.getKey(), state);
+                        break;
+                    case TRIGGER_REMOVED:
+                        TriggerKey triggerKey = (TriggerKey) in.readObject();
+                        triggers.remove(triggerKey);
+                        states.remove(triggerKey);
+                        break;
+                    case CALENDAR:
+                        String calName = in.readUTF();
+                        calendars.put(calName, (Calendar) in.readObject());
+                        break;
+                    case CALENDAR_REMOVED:
+                        calendars.remove(in.readUTF());
+                        break;
+                    default:
+                        throw new IOException("Unknown record type " + type);
+                }
+            } catch (ClassNotFoundException e) {
+                throw new IOException("Could not load a class of the journal: " + e.getMessage(), e);
+            }
+        }
+
+        private void restore() throws JobPersistenceException {
+            restorePausedTriggerGroups(pausedTriggerGroups);
+            for (JobDetail jobDetail : jobs.values()) {
+                storeJob(jobDetail, true);
+            }
+            for (Map.Entry<String, Calendar> entry : calendars.entrySet()) {
+                storeCalendar(entry.getKey(), entry.getValue(), true, false);
+            }
+            for (OperableTrigger trigger : triggers.values()) {
+                try {
+                    restoreTrigger(trigger, states.get(trigger.getKey()));
+                } catch (JobPersistenceException e) {
+                    log.warn("Dropped the trigger " + trigger.getKey() + " of the journal: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * resolves the classes of the jobs and calendars by the ClassLoadHelper of the scheduler
+     */
+    private class LoaderObjectInputStream extends ObjectInputStream {
+
+        private LoaderObjectInputStream(InputStream in) throws IOException {
+            super(in);
+        }
+
+        @Override
+        protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+            try {
+                return loadHelper.loadClass(desc.getName());
+            } catch (ClassNotFoundException e) {
+                return super.resolveClass(desc);
+            }
+        }
+    }
+
+    //---------------------------------------------------------------------------
+    // metrics
+    //---------------------------------------------------------------------------
+
+    public long getJournalAppendedCount() {
+        return segmentLog == null ? 0L : segmentLog.getAppendedCount();
+    }
+
+    public long getJournalAppendedBytes() {
+        return segmentLog == null ? 0L : segmentLog.getAppendedBytes();
+    }
+
+    /**
+     * @return the number of changes and snapshots that could not be written
+     */
+    public long getJournalFailedCount() {
+        return journalFailedCount.sum();
+    }
+
+    public int getJournalSegmentCount() {
+        return segmentLog == null ? 0 : segmentLog.getSegmentCount();
+    }
+
+    public long getSnapshotCount() {
+        return snapshotCount.sum();
+    }
+
+    public long getSnapshotTimeNanos() {
+        return snapshotTimeNanos.sum();
+    }
+
+    public String getJournalDirectory() {
+        return journalDirectory;
+    }
+
+    public void setJournalDirectory(String journalDirectory) {
+        this.journalDirectory = journalDirectory;
+    }
+
+    public int getJournalSegmentSize() {
+        return journalSegmentSize;
+    }
+
+    public void setJournalSegmentSize(int journalSegmentSize) {
+        this.journalSegmentSize = journalSegmentSize;
+    }
+
+    public String getJournalFsync() {
+        return journalFsync;
+    }
+
+    public void setJournalFsync(String journalFsync) {
+        this.journalFsync = journalFsync;
+    }
+
+    public long getJournalFsyncIntervalMills() {
+        return journalFsyncIntervalMills;
+    }
+
+    public void setJournalFsyncIntervalMills(long journalFsyncIntervalMills) {
+        this.journalFsyncIntervalMills = journalFsyncIntervalMills;
+    }
+
+    public int getJournalCompactionSegments() {
+        return journalCompactionSegments;
+    }
+
+    public void setJournalCompactionSegments(int journalCompactionSegments) {
+        this.journalCompactionSegments = journalCompactionSegments;
+    }
+}
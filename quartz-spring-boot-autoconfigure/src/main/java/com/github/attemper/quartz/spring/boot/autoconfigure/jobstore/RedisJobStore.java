@@ -0,0 +1,1341 @@
+package com.github.attemper.quartz.spring.boot.autoconfigure.jobstore;
+
+import com.github.attemper.quartz.spring.boot.autoconfigure.redis.RedisClientFactory;
+import com.github.attemper.quartz.spring.boot.autoconfigure.redis.RedisLock;
+import com.github.attemper.quartz.spring.boot.autoconfigure.redis.RedisTransaction;
+import io.lettuce.core.KeyScanCursor;
+import io.lettuce.core.KeyValue;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisException;
+import io.lettuce.core.ScanArgs;
+import io.lettuce.core.ScanCursor;
+import io.lettuce.core.ScriptOutputType;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.sync.RedisCommands;
+import org.quartz.Calendar;
+import org.quartz.JobDataMap;
+import org.quartz.JobDetail;
+import org.quartz.JobKey;
+import org.quartz.JobPersistenceException;
+import org.quartz.ObjectAlreadyExistsException;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerConfigException;
+import org.quartz.SchedulerException;
+import org.quartz.SimpleTrigger;
+import org.quartz.Trigger;
+import org.quartz.Trigger.CompletedExecutionInstruction;
+import org.quartz.Trigger.TriggerState;
+import org.quartz.TriggerKey;
+import org.quartz.impl.jdbcjobstore.FiredTriggerRecord;
+import org.quartz.impl.matchers.GroupMatcher;
+import org.quartz.impl.matchers.StringMatcher;
+import org.quartz.impl.triggers.SimpleTriggerImpl;
+import org.quartz.spi.ClassLoadHelper;
+import org.quartz.spi.JobStore;
+import org.quartz.spi.OperableTrigger;
+import org.quartz.spi.SchedulerSignaler;
+import org.quartz.spi.TriggerFiredBundle;
+import org.quartz.spi.TriggerFiredResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.quartz.impl.jdbcjobstore.Constants.STATE_ACQUIRED;
+import static org.quartz.impl.jdbcjobstore.Constants.STATE_BLOCKED;
+import static org.quartz.impl.jdbcjobstore.Constants.STATE_COMPLETE;
+import static org.quartz.impl.jdbcjobstore.Constants.STATE_ERROR;
+import static org.quartz.impl.jdbcjobstore.Constants.STATE_PAUSED;
+import static org.quartz.impl.jdbcjobstore.Constants.STATE_PAUSED_BLOCKED;
+import static org.quartz.impl.jdbcjobstore.Constants.STATE_WAITING;
+
+/**
+ * A JobStore keeping jobs, triggers and calendars in redis, configured by the redis properties of org.quartz.jobStore. <br>
+ *
+ * Jobs, triggers, trigger states and calendars are hashes, the triggers waiting to fire are a sorted set scored by next fire time.
+ * Acquisition of a batch of triggers is a single lua script moving them from the sorted set to the ACQUIRED state,
+ * so no lock is taken on that path. The other mutations run under a {@link RedisLock} with a lease of <code>expireInMills</code>,
+ * renewed while it is held. Their writes are buffered by a {@link RedisTransaction} and applied at once by a lua script,
+ * provided the lease is still held, so a failing or interrupted mutation leaves nothing half written. <br>
+ *
+ * All keys share the hash tag <code>{keyPrefix:instanceName}</code>, so the store works with a clustered redis as well.
+ */
+public class RedisJobStore implements JobStore {
+
+    /**
+     * KEYS: waiting, trigger states, trigger jobs, non-concurrent jobs, acquired triggers of this instance <br>
+     * ARGV: max next fire time, max count
+     */
+    private static final String ACQUIRE_SCRIPT =
+            "local ids = redis.call('zrangebyscore', KEYS[1], '-inf', ARGV[1], 'LIMIT', 0, tonumber(ARGV[2]) * 2)\n" +
+            "local acquired = {}\n" +
+            "local jobs = {}\n" +
+            "for _, id in ipairs(ids) do\n" +
+            "  if #acquired >= tonumber(ARGV[2]) then break end\n" +
+            "  local job = redis.call('hget', KEYS[3], id)\n" +
+            "  local skip = false\n" +
+            "  if job and redis.call('sismember', KEYS[4], job) == 1 then\n" +
+            "    if jobs[job] then skip = true else jobs[job] = true end\n" +
+            "  end\n" +
+            "  if not skip then\n" +
+            "    redis.call('zrem', KEYS[1], id)\n" +
+            "    redis.call('hset', KEYS[2], id, '" + STATE_ACQUIRED + "')\n" +
+            "    redis.call('sadd', KEYS[5], id)\n" +
+            "    acquired[#acquired + 1] = id\n" +
+            "  end\n" +
+            "end\n" +
+            "return acquired";
+
+    private static final AtomicLong firedTriggerCounter = new AtomicLong(System.currentTimeMillis());
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private String host;
+
+    private Integer port;
+
+    private String password;
+
+    private Integer database;
+
+    private Boolean ssl;
+
+    private long expireInMills = 30000L;
+
+    private long lockRetryIntervalMills = 10L;
+
+    private String keyPrefix = "quartz";
+
+    private long misfireThreshold = 60000L;
+
+    private boolean isClustered = false;
+
+    private long clusterCheckinInterval = 7500L;
+
+    private long clusterFailureGracePeriodMills = 7500L;
+
+    protected boolean retainTriggerAfterExecutionCompleted = true;
+
+    private String instanceId;
+
+    private String instanceName;
+
+    private ClassLoadHelper classLoadHelper;
+
+    private SchedulerSignaler signaler;
+
+    private RedisClient redisClient;
+
+    private StatefulRedisConnection<String, String> connection;
+
+    private RedisCommands<String, String> commands;
+
+    private RedisLock lock;
+
+    private final ThreadLocal<RedisTransaction> transaction = new ThreadLocal<>();
+
+    private String acquireScriptSha;
+
+    private String prefix;
+
+    private ScheduledExecutorService clusterManager;
+
+    private ScheduledExecutorService lockWatchdog;
+
+    private volatile boolean shutdown;
+
+    public RedisJobStore() {
+    }
+
+    public void initialize(ClassLoadHelper loadHelper, SchedulerSignaler signaler) throws SchedulerConfigException {
+        this.classLoadHelper = loadHelper;
+        this.signaler = signaler;
+        this.prefix = "{" + keyPrefix + ":" + instanceName + "}:";
+        try {
+            redisClient = RedisClientFactory.create(host, port, password, database, ssl);
+            connection = redisClient.connect();
+            commands = connection.sync();
+            acquireScriptSha = commands.scriptLoad(ACQUIRE_SCRIPT);
+        } catch (RedisException e) {
+            throw new SchedulerConfigException("Could not connect to redis: " + e.getMessage(), e);
+        }
+        lockWatchdog = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, instanceName + "_RedisLockWatchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        lock = new RedisLock(commands, key("lock"), expireInMills, lockRetryIntervalMills, lockWatchdog);
+        log.info("Using redis job store with key prefix {}", prefix);
+    }
+
+    public void schedulerStarted() throws SchedulerException {
+        recoverInstance(instanceId);
+        if (isClustered) {
+            clusterManager = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, instanceName + "_RedisClusterManager");
+                thread.setDaemon(true);
+                return thread;
+            });
+            clusterManager.scheduleWithFixedDelay(this::checkIn, 0L, clusterCheckinInterval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public void schedulerPaused() {
+    }
+
+    public void schedulerResumed() {
+    }
+
+    public void shutdown() {
+        shutdown = true;
+        if (clusterManager != null) {
+            clusterManager.shutdownNow();
+        }
+        if (lockWatchdog != null) {
+            lockWatchdog.shutdownNow();
+        }
+        if (connection != null) {
+            connection.close();
+        }
+        if (redisClient != null) {
+            redisClient.shutdown();
+        }
+    }
+
+    public boolean supportsPersistence() {
+        return true;
+    }
+
+    public long getEstimatedTimeToReleaseAndAcquireTrigger() {
+        return 20L;
+    }
+
+    public boolean isClustered() {
+        return isClustered;
+    }
+
+    //---------------------------------------------------------------------------
+    // jobs
+    //---------------------------------------------------------------------------
+
+    public void storeJobAndTrigger(final JobDetail newJob, final OperableTrigger newTrigger) throws JobPersistenceException {
+        executeInLock(() -> {
+            storeJobInternal(newJob, false);
+            storeTriggerInternal(newTrigger, false);
+            return null;
+        });
+    }
+
+    public void storeJob(final JobDetail newJob, final boolean replaceExisting) throws JobPersistenceException {
+        executeInLock(() -> {
+            storeJobInternal(newJob, replaceExisting);
+            return null;
+        });
+    }
+
+    public void storeJobsAndTriggers(final Map<JobDetail, Set<? extends Trigger>> triggersAndJobs, final boolean replace)
+            throws JobPersistenceException {
+        executeInLock(() -> {
+            if (!replace) {
+                for (Map.Entry<JobDetail, Set<? extends Trigger>> entry : triggersAndJobs.entrySet()) {
+                    if (checkExistsInternal(entry.getKey().getKey())) {
+                        throw new ObjectAlreadyExistsException(entry.getKey());
+                    }
+                    for (Trigger trigger : entry.getValue()) {
+                        if (checkExistsInternal(trigger.getKey())) {
+                            throw new ObjectAlreadyExistsException(trigger);
+                        }
+                    }
+                }
+            }
+            for (Map.Entry<JobDetail, Set<? extends Trigger>> entry : triggersAndJobs.entrySet()) {
+                storeJobInternal(entry.getKey(), true);
+                for (Trigger trigger : entry.getValue()) {
+                    storeTriggerInternal((OperableTrigger) trigger, true);
+                }
+            }
+            return null;
+        });
+    }
+
+    public boolean removeJob(final JobKey jobKey) throws JobPersistenceException {
+        return executeInLock(() -> removeJobInternal(jobKey));
+    }
+
+    public boolean removeJobs(final List<JobKey> jobKeys) throws JobPersistenceException {
+        return executeInLock(() -> {
+            boolean allFound = true;
+            for (JobKey jobKey : jobKeys) {
+                allFound = removeJobInternal(jobKey) && allFound;
+            }
+            return allFound;
+        });
+    }
+
+    public JobDetail retrieveJob(final JobKey jobKey) throws JobPersistenceException {
+        return execute(() -> retrieveJobInternal(jobKey));
+    }
+
+    public boolean checkExists(final JobKey jobKey) throws JobPersistenceException {
+        return execute(() -> checkExistsInternal(jobKey));
+    }
+
+    public int getNumberOfJobs() throws JobPersistenceException {
+        return execute(() -> commands.hlen(key("jobs")).intValue());
+    }
+
+    public Set<JobKey> getJobKeys(final GroupMatcher<JobKey> matcher) throws JobPersistenceException {
+        return execute(() -> {
+            Set<JobKey> jobKeys = new HashSet<>();
+            for (String group : matchGroups(key("job_groups"), matcher)) {
+                for (String name : redis().smembers(key("job_group", group))) {
+                    jobKeys.add(new JobKey(name, group));
+                }
+            }
+            return jobKeys;
+        });
+    }
+
+    public List<String> getJobGroupNames() throws JobPersistenceException {
+        return execute(() -> new ArrayList<>(redis().smembers(key("job_groups"))));
+    }
+
+    private void storeJobInternal(JobDetail job, boolean replaceExisting) throws JobPersistenceException {
+        String jobId = id(job.getKey());
+        if (!replaceExisting && redis().hexists(key("jobs"), jobId)) {
+            throw new ObjectAlreadyExistsException(job);
+        }
+        redis().hset(key("jobs"), jobId, serialize(job));
+        redis().sadd(key("job_groups"), job.getKey().getGroup());
+        redis().sadd(key("job_group", job.getKey().getGroup()), job.getKey().getName());
+        if (job.isConcurrentExectionDisallowed()) {
+            redis().sadd(key("non_concurrent_jobs"), jobId);
+        } else {
+            redis().srem(key("non_concurrent_jobs"), jobId);
+        }
+    }
+
+    private boolean removeJobInternal(JobKey jobKey) throws JobPersistenceException {
+        String jobId = id(jobKey);
+        for (OperableTrigger trigger : loadTriggers(redis().smembers(key("job_triggers", jobId)))) {
+            removeTriggerInternal(trigger.getKey(), false);
+        }
+        boolean found = redis().hdel(key("jobs"), jobId) > 0;
+        redis().srem(key("job_group", jobKey.getGroup()), jobKey.getName());
+        if (redis().scard(key("job_group", jobKey.getGroup())) == 0) {
+            redis().srem(key("job_groups"), jobKey.getGroup());
+        }
+        redis().srem(key("non_concurrent_jobs"), jobId);
+        redis().srem(key("blocked_jobs"), jobId);
+        redis().del(key("job_triggers", jobId));
+        return found;
+    }
+
+    private JobDetail retrieveJobInternal(JobKey jobKey) throws JobPersistenceException {
+        String value = redis().hget(key("jobs"), id(jobKey));
+        if (value == null) {
+            return null;
+        }
+        JobDetail jobDetail = deserialize(value, JobDetail.class);
+        jobDetail.getJobDataMap().clearDirtyFlag();
+        return jobDetail;
+    }
+
+    private boolean checkExistsInternal(JobKey jobKey) {
+        return redis().hexists(key("jobs"), id(jobKey));
+    }
+
+    //---------------------------------------------------------------------------
+    // triggers
+    //---------------------------------------------------------------------------
+
+    public void storeTrigger(final OperableTrigger newTrigger, final boolean replaceExisting) throws JobPersistenceException {
+        executeInLock(() -> {
+            storeTriggerInternal(newTrigger, replaceExisting);
+            return null;
+        });
+    }
+
+    public boolean removeTrigger(final TriggerKey triggerKey) throws JobPersistenceException {
+        return executeInLock(() -> removeTriggerInternal(triggerKey, true));
+    }
+
+    public boolean removeTriggers(final List<TriggerKey> triggerKeys) throws JobPersistenceException {
+        return executeInLock(() -> {
+            boolean allFound = true;
+            for (TriggerKey triggerKey : triggerKeys) {
+                allFound = removeTriggerInternal(triggerKey, true) && allFound;
+            }
+            return allFound;
+        });
+    }
+
+    public boolean replaceTrigger(final TriggerKey triggerKey, final OperableTrigger newTrigger) throws JobPersistenceException {
+        return executeInLock(() -> {
+            OperableTrigger oldTrigger = retrieveTriggerInternal(triggerKey);
+            if (oldTrigger == null) {
+                return false;
+            }
+            if (!oldTrigger.getJobKey().equals(newTrigger.getJobKey())) {
+                throw new JobPersistenceException("New trigger is not related to the same job as the old trigger.");
+            }
+            removeTriggerInternal(triggerKey, false);
+            storeTriggerInternal(newTrigger, false);
+            return true;
+        });
+    }
+
+    public OperableTrigger retrieveTrigger(final TriggerKey triggerKey) throws JobPersistenceException {
+        return execute(() -> retrieveTriggerInternal(triggerKey));
+    }
+
+    public boolean checkExists(final TriggerKey triggerKey) throws JobPersistenceException {
+        return execute(() -> checkExistsInternal(triggerKey));
+    }
+
+    public int getNumberOfTriggers() throws JobPersistenceException {
+        return execute(() -> commands.hlen(key("triggers")).intValue());
+    }
+
+    public Set<TriggerKey> getTriggerKeys(final GroupMatcher<TriggerKey> matcher) throws JobPersistenceException {
+        return execute(() -> {
+            Set<TriggerKey> triggerKeys = new HashSet<>();
+            for (String group : matchGroups(key("trigger_groups"), matcher)) {
+                for (String name : redis().smembers(key("trigger_group", group))) {
+                    triggerKeys.add(new TriggerKey(name, group));
+                }
+            }
+            return triggerKeys;
+        });
+    }
+
+    public List<String> getTriggerGroupNames() throws JobPersistenceException {
+        return execute(() -> new ArrayList<>(redis().smembers(key("trigger_groups"))));
+    }
+
+    public List<OperableTrigger> getTriggersForJob(final JobKey jobKey) throws JobPersistenceException {
+        return execute(() -> loadTriggers(redis().smembers(key("job_triggers", id(jobKey)))));
+    }
+
+    public TriggerState getTriggerState(final TriggerKey triggerKey) throws JobPersistenceException {
+        return execute(() -> {
+            String state = redis().hget(key("trigger_states"), id(triggerKey));
+            if (state == null) {
+                return TriggerState.NONE;
+            }
+            switch (state) {
+                case STATE_COMPLETE:
+                    return TriggerState.COMPLETE;
+                case STATE_PAUSED:
+                case STATE_PAUSED_BLOCKED:
+                    return TriggerState.PAUSED;
+                case STATE_ERROR:
+                    return TriggerState.ERROR;
+                case STATE_BLOCKED:
+                    return TriggerState.BLOCKED;
+                default:
+                    return TriggerState.NORMAL;
+            }
+        });
+    }
+
+    public void resetTriggerFromErrorState(final TriggerKey triggerKey) throws JobPersistenceException {
+        executeInLock(() -> {
+            String triggerId = id(triggerKey);
+            if (!STATE_ERROR.equals(redis().hget(key("trigger_states"), triggerId))) {
+                return null;
+            }
+            OperableTrigger trigger = retrieveTriggerInternal(triggerKey);
+            updateState(triggerId, initialState(trigger), trigger.getNextFireTime());
+            return null;
+        });
+    }
+
+    private void storeTriggerInternal(OperableTrigger trigger, boolean replaceExisting) throws JobPersistenceException {
+        String triggerId = id(trigger.getKey());
+        OperableTrigger oldTrigger = retrieveTriggerInternal(trigger.getKey());
+        if (oldTrigger != null) {
+            if (!replaceExisting) {
+                throw new ObjectAlreadyExistsException(trigger);
+            }
+            removeTriggerInternal(oldTrigger.getKey(), false);
+        }
+        String jobId = id(trigger.getJobKey());
+        if (!redis().hexists(key("jobs"), jobId)) {
+            throw new JobPersistenceException("The job (" + trigger.getJobKey() + ") referenced by the trigger does not exist.");
+        }
+        redis().hset(key("triggers"), triggerId, serialize(trigger));
+        redis().hset(key("trigger_jobs"), triggerId, jobId);
+        redis().sadd(key("job_triggers", jobId), triggerId);
+        redis().sadd(key("trigger_groups"), trigger.getKey().getGroup());
+        redis().sadd(key("trigger_group", trigger.getKey().getGroup()), trigger.getKey().getName());
+        if (trigger.getCalendarName() != null) {
+            redis().sadd(key("calendar_triggers", trigger.getCalendarName()), triggerId);
+        }
+        updateState(triggerId, initialState(trigger), trigger.getNextFireTime());
+    }
+
+    private String initialState(OperableTrigger trigger) {
+        boolean blocked = redis().sismember(key("blocked_jobs"), id(trigger.getJobKey()));
+        if (redis().sismember(key("paused_trigger_groups"), trigger.getKey().getGroup())
+                || redis().sismember(key("paused_job_groups"), trigger.getJobKey().getGroup())) {
+            return blocked ? STATE_PAUSED_BLOCKED : STATE_PAUSED;
+        }
+        return blocked ? STATE_BLOCKED : STATE_WAITING;
+    }
+
+    private boolean removeTriggerInternal(TriggerKey triggerKey, boolean removeOrphanedJob) throws JobPersistenceException {
+        String triggerId = id(triggerKey);
+        OperableTrigger trigger = retrieveTriggerInternal(triggerKey);
+        if (trigger == null) {
+            return false;
+        }
+        String jobId = id(trigger.getJobKey());
+        redis().hdel(key("triggers"), triggerId);
+        redis().hdel(key("trigger_states"), triggerId);
+        redis().hdel(key("trigger_jobs"), triggerId);
+        redis().zrem(key("waiting"), triggerId);
+        redis().srem(key("job_triggers", jobId), triggerId);
+        redis().srem(key("trigger_group", triggerKey.getGroup()), triggerKey.getName());
+        if (redis().scard(key("trigger_group", triggerKey.getGroup())) == 0) {
+            redis().srem(key("trigger_groups"), triggerKey.getGroup());
+        }
+        if (trigger.getCalendarName() != null) {
+            redis().srem(key("calendar_triggers", trigger.getCalendarName()), triggerId);
+        }
+        if (removeOrphanedJob && redis().scard(key("job_triggers", jobId)) == 0) {
+            JobDetail job = retrieveJobInternal(trigger.getJobKey());
+            if (job != null && !job.isDurable()) {
+                removeJobInternal(job.getKey());
+                signaler.notifySchedulerListenersJobDeleted(job.getKey());
+            }
+        }
+        return true;
+    }
+
+    private OperableTrigger retrieveTriggerInternal(TriggerKey triggerKey) throws JobPersistenceException {
+        String value = redis().hget(key("triggers"), id(triggerKey));
+        return value == null ? null : deserialize(value, OperableTrigger.class);
+    }
+
+    private boolean checkExistsInternal(TriggerKey triggerKey) {
+        return redis().hexists(key("triggers"), id(triggerKey));
+    }
+
+    private List<OperableTrigger> loadTriggers(Collection<String> triggerIds) throws JobPersistenceException {
+        List<OperableTrigger> triggers = new ArrayList<>();
+        if (triggerIds.isEmpty()) {
+            return triggers;
+        }
+        for (KeyValue<String, String> keyValue : redis().hmget(key("triggers"), triggerIds.toArray(new String[0]))) {
+            if (keyValue.hasValue()) {
+                triggers.add(deserialize(keyValue.getValue(), OperableTrigger.class));
+            }
+        }
+        return triggers;
+    }
+
+    /**
+     * a trigger is in the sorted set of waiting triggers if and only if its state is WAITING
+     */
+    private void updateState(String triggerId, String state, Date nextFireTime) {
+        if (STATE_WAITING.equals(state) && nextFireTime == null) {
+            state = STATE_COMPLETE;
+        }
+        redis().hset(key("trigger_states"), triggerId, state);
+        if (STATE_WAITING.equals(state)) {
+            redis().zadd(key("waiting"), nextFireTime.getTime(), triggerId);
+        } else {
+            redis().zrem(key("waiting"), triggerId);
+        }
+    }
+
+    //---------------------------------------------------------------------------
+    // calendars
+    //---------------------------------------------------------------------------
+
+    public void storeCalendar(final String name, final Calendar calendar, final boolean replaceExisting, final boolean updateTriggers)
+            throws JobPersistenceException {
+        executeInLock(() -> {
+            if (!replaceExisting && redis().hexists(key("calendars"), name)) {
+                throw new ObjectAlreadyExistsException("Calendar with name '" + name + "' already exists.");
+            }
+            redis().hset(key("calendars"), name, serialize(calendar));
+            if (updateTriggers) {
+                for (OperableTrigger trigger : loadTriggers(redis().smembers(key("calendar_triggers", name)))) {
+                    String triggerId = id(trigger.getKey());
+                    trigger.updateWithNewCalendar(calendar, misfireThreshold);
+                    redis().hset(key("triggers"), triggerId, serialize(trigger));
+                    if (STATE_WAITING.equals(redis().hget(key("trigger_states"), triggerId))) {
+                        updateState(triggerId, STATE_WAITING, trigger.getNextFireTime());
+                    }
+                }
+            }
+            return null;
+        });
+    }
+
+    public boolean removeCalendar(final String calName) throws JobPersistenceException {
+        return executeInLock(() -> {
+            if (redis().scard(key("calendar_triggers", calName)) > 0) {
+                throw new JobPersistenceException("Calender cannot be removed if it referenced by a trigger!");
+            }
+            return redis().hdel(key("calendars"), calName) > 0;
+        });
+    }
+
+    public Calendar retrieveCalendar(final String calName) throws JobPersistenceException {
+        return execute(() -> retrieveCalendarInternal(calName));
+    }
+
+    public int getNumberOfCalendars() throws JobPersistenceException {
+        return execute(() -> commands.hlen(key("calendars")).intValue());
+    }
+
+    public List<String> getCalendarNames() throws JobPersistenceException {
+        return execute(() -> commands.hkeys(key("calendars")));
+    }
+
+    private Calendar retrieveCalendarInternal(String calName) throws JobPersistenceException {
+        String value = redis().hget(key("calendars"), calName);
+        return value == null ? null : deserialize(value, Calendar.class);
+    }
+
+    public void clearAllSchedulingData() throws JobPersistenceException {
+        executeInLock(() -> {
+            ScanArgs scanArgs = ScanArgs.Builder.matches(prefix.replaceAll("([\\[\\]*?\\\\])", "\\\\$1") + "*").limit(1000L);
+            KeyScanCursor<String> cursor = commands.scan(scanArgs);
+            while (true) {
+                List<String> keys = new ArrayList<>(cursor.getKeys());
+                keys.remove(lock.getKey());
+                if (!keys.isEmpty()) {
+                    redis().del(keys.toArray(new String[0]));
+                }
+                if (cursor.isFinished()) {
+                    return null;
+                }
+                cursor = commands.scan(ScanCursor.of(cursor.getCursor()), scanArgs);
+            }
+        });
+    }
+
+    //---------------------------------------------------------------------------
+    // pause & resume
+    //---------------------------------------------------------------------------
+
+    public void pauseTrigger(final TriggerKey triggerKey) throws JobPersistenceException {
+        executeInLock(() -> {
+            pauseTriggerInternal(id(triggerKey));
+            return null;
+        });
+    }
+
+    public Collection<String> pauseTriggers(final GroupMatcher<TriggerKey> matcher) throws JobPersistenceException {
+        return executeInLock(() -> {
+            Set<String> groups = matchGroups(key("trigger_groups"), matcher);
+            if (matcher.getCompareWithOperator() == StringMatcher.StringOperatorName.EQUALS) {
+                groups.add(matcher.getCompareToValue());
+            }
+            for (String group : groups) {
+                redis().sadd(key("paused_trigger_groups"), group);
+                for (String name : redis().smembers(key("trigger_group", group))) {
+                    pauseTriggerInternal(id(new TriggerKey(name, group)));
+                }
+            }
+            return groups;
+        });
+    }
+
+    public void pauseJob(final JobKey jobKey) throws JobPersistenceException {
+        executeInLock(() -> {
+            for (String triggerId : redis().smembers(key("job_triggers", id(jobKey)))) {
+                pauseTriggerInternal(triggerId);
+            }
+            return null;
+        });
+    }
+
+    public Collection<String> pauseJobs(final GroupMatcher<JobKey> matcher) throws JobPersistenceException {
+        return executeInLock(() -> {
+            Set<String> groups = matchGroups(key("job_groups"), matcher);
+            if (matcher.getCompareWithOperator() == StringMatcher.StringOperatorName.EQUALS) {
+                groups.add(matcher.getCompareToValue());
+            }
+            for (String group : groups) {
+                redis().sadd(key("paused_job_groups"), group);
+                for (String name : redis().smembers(key("job_group", group))) {
+                    pauseJob(new JobKey(name, group));
+                }
+            }
+            return groups;
+        });
+    }
+
+    public void resumeTrigger(final TriggerKey triggerKey) throws JobPersistenceException {
+        executeInLock(() -> {
+            resumeTriggerInternal(id(triggerKey));
+            return null;
+        });
+    }
+
+    public Collection<String> resumeTriggers(final GroupMatcher<TriggerKey> matcher) throws JobPersistenceException {
+        return executeInLock(() -> {
+            Set<String> groups = matchGroups(key("trigger_groups"), matcher);
+            groups.addAll(matchGroups(key("paused_trigger_groups"), matcher));
+            for (String group : groups) {
+                redis().srem(key("paused_trigger_groups"), group);
+                for (OperableTrigger trigger : loadTriggers(redis().smembers(key("trigger_group", group)))) {
+                    if (!redis().sismember(key("paused_job_groups"), trigger.getJobKey().getGroup())) {
+                        resumeTriggerInternal(id(trigger.getKey()));
+                    }
+                }
+            }
+            return groups;
+        });
+    }
+
+    public Set<String> getPausedTriggerGroups() throws JobPersistenceException {
+        return execute(() -> redis().smembers(key("paused_trigger_groups")));
+    }
+
+    public void resumeJob(final JobKey jobKey) throws JobPersistenceException {
+        executeInLock(() -> {
+            for (String triggerId : redis().smembers(key("job_triggers", id(jobKey)))) {
+                resumeTriggerInternal(triggerId);
+            }
+            return null;
+        });
+    }
+
+    public Collection<String> resumeJobs(final GroupMatcher<JobKey> matcher) throws JobPersistenceException {
+        return executeInLock(() -> {
+            Set<String> groups = matchGroups(key("job_groups"), matcher);
+            groups.addAll(matchGroups(key("paused_job_groups"), matcher));
+            for (String group : groups) {
+                redis().srem(key("paused_job_groups"), group);
+                for (String name : redis().smembers(key("job_group", group))) {
+                    resumeJob(new JobKey(name, group));
+                }
+            }
+            return groups;
+        });
+    }
+
+    public void pauseAll() throws JobPersistenceException {
+        executeInLock(() -> {
+            for (String group : redis().smembers(key("trigger_groups"))) {
+                pauseTriggers(GroupMatcher.triggerGroupEquals(group));
+            }
+            return null;
+        });
+    }
+
+    public void resumeAll() throws JobPersistenceException {
+        executeInLock(() -> {
+            redis().del(key("paused_job_groups"));
+            resumeTriggers(GroupMatcher.anyTriggerGroup());
+            return null;
+        });
+    }
+
+    private void pauseTriggerInternal(String triggerId) {
+        String state = redis().hget(key("trigger_states"), triggerId);
+        if (state == null || STATE_COMPLETE.equals(state) || STATE_PAUSED.equals(state) || STATE_PAUSED_BLOCKED.equals(state)) {
+            return;
+        }
+        updateState(triggerId, STATE_BLOCKED.equals(state) ? STATE_PAUSED_BLOCKED : STATE_PAUSED, null);
+    }
+
+    private void resumeTriggerInternal(String triggerId) throws JobPersistenceException {
+        String state = redis().hget(key("trigger_states"), triggerId);
+        if (!STATE_PAUSED.equals(state) && !STATE_PAUSED_BLOCKED.equals(state)) {
+            return;
+        }
+        String value = redis().hget(key("triggers"), triggerId);
+        if (value == null) {
+            return;
+        }
+        OperableTrigger trigger = deserialize(value, OperableTrigger.class);
+        if (applyMisfire(trigger)) {
+            redis().hset(key("triggers"), triggerId, serialize(trigger));
+        }
+        boolean blocked = STATE_PAUSED_BLOCKED.equals(state) || redis().sismember(key("blocked_jobs"), id(trigger.getJobKey()));
+        updateState(triggerId, blocked ? STATE_BLOCKED : STATE_WAITING, trigger.getNextFireTime());
+    }
+
+    private Set<String> matchGroups(String groupsKey, GroupMatcher<?> matcher) {
+        Set<String> groups = new HashSet<>();
+        StringMatcher.StringOperatorName operator = matcher.getCompareWithOperator();
+        if (operator == StringMatcher.StringOperatorName.EQUALS) {
+            if (redis().sismember(groupsKey, matcher.getCompareToValue())) {
+                groups.add(matcher.getCompareToValue());
+            }
+            return groups;
+        }
+        for (String group : redis().smembers(groupsKey)) {
+            if (operator.evaluate(group, matcher.getCompareToValue())) {
+                groups.add(group);
+            }
+        }
+        return groups;
+    }
+
+    //---------------------------------------------------------------------------
+    // firing
+    //---------------------------------------------------------------------------
+
+    public List<OperableTrigger> acquireNextTriggers(final long noLaterThan, final int maxCount, final long timeWindow)
+            throws JobPersistenceException {
+        final long maxFireTime = noLaterThan + timeWindow;
+        List<String> triggerIds = execute(() -> acquire(maxFireTime, maxCount));
+        if (triggerIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<OperableTrigger> acquiredTriggers = new ArrayList<>();
+        for (OperableTrigger trigger : execute(() -> loadTriggers(triggerIds))) {
+            if (isMisfired(trigger) && !handleMisfiredAcquiredTrigger(trigger, maxFireTime)) {
+                continue;
+            }
+            trigger.setFireInstanceId(String.valueOf(firedTriggerCounter.incrementAndGet()));
+            acquiredTriggers.add(trigger);
+        }
+        return acquiredTriggers;
+    }
+
+    private List<String> acquire(long maxFireTime, int maxCount) {
+        String[] keys = {key("waiting"), key("trigger_states"), key("trigger_jobs"), key("non_concurrent_jobs"), key("acquired", instanceId)};
+        try {
+            return commands.evalsha(acquireScriptSha, ScriptOutputType.MULTI, keys, String.valueOf(maxFireTime), String.valueOf(maxCount));
+        } catch (RedisException e) {
+            if (e.getMessage() == null || !e.getMessage().startsWith("NOSCRIPT")) {
+                throw e;
+            }
+            // the script cache is gone after a restart or failover of redis
+            acquireScriptSha = commands.scriptLoad(ACQUIRE_SCRIPT);
+            return commands.evalsha(acquireScriptSha, ScriptOutputType.MULTI, keys, String.valueOf(maxFireTime), String.valueOf(maxCount));
+        }
+    }
+
+    /**
+     * @return true if the trigger is still to be fired within this batch
+     */
+    private boolean handleMisfiredAcquiredTrigger(final OperableTrigger trigger, final long maxFireTime) throws JobPersistenceException {
+        return executeInLock(() -> {
+            String triggerId = id(trigger.getKey());
+            if (!STATE_ACQUIRED.equals(redis().hget(key("trigger_states"), triggerId))) {
+                return false;
+            }
+            applyMisfire(trigger);
+            redis().hset(key("triggers"), triggerId, serialize(trigger));
+            if (trigger.getNextFireTime() != null && trigger.getNextFireTime().getTime() <= maxFireTime) {
+                return true;
+            }
+            redis().srem(key("acquired", instanceId), triggerId);
+            updateState(triggerId, STATE_WAITING, trigger.getNextFireTime());
+            return false;
+        });
+    }
+
+    private boolean isMisfired(OperableTrigger trigger) {
+        long misfireTime = System.currentTimeMillis();
+        if (misfireThreshold > 0) {
+            misfireTime -= misfireThreshold;
+        }
+        Date nextFireTime = trigger.getNextFireTime();
+        return nextFireTime != null && nextFireTime.getTime() <= misfireTime
+                && trigger.getMisfireInstruction() != Trigger.MISFIRE_INSTRUCTION_IGNORE_MISFIRE_POLICY;
+    }
+
+    /**
+     * same as RAMJobStore
+     *
+     * @return true if the next fire time of the trigger was changed
+     */
+    private boolean applyMisfire(OperableTrigger trigger) throws JobPersistenceException {
+        if (!isMisfired(trigger)) {
+            return false;
+        }
+        Date nextFireTime = trigger.getNextFireTime();
+        Calendar cal = null;
+        if (trigger.getCalendarName() != null) {
+            cal = retrieveCalendarInternal(trigger.getCalendarName());
+        }
+        signaler.notifyTriggerListenersMisfired((OperableTrigger) trigger.clone());
+        trigger.updateAfterMisfire(cal);
+        if (trigger.getNextFireTime() == null) {
+            signaler.notifySchedulerListenersFinalized(trigger);
+        }
+        return !nextFireTime.equals(trigger.getNextFireTime());
+    }
+
+    public void releaseAcquiredTrigger(final OperableTrigger trigger) {
+        try {
+            executeInLock(() -> {
+                String triggerId = id(trigger.getKey());
+                redis().srem(key("acquired", instanceId), triggerId);
+                if (STATE_ACQUIRED.equals(redis().hget(key("trigger_states"), triggerId))) {
+                    OperableTrigger stored = retrieveTriggerInternal(trigger.getKey());
+                    updateState(triggerId, initialState(stored), stored.getNextFireTime());
+                }
+                return null;
+            });
+        } catch (JobPersistenceException e) {
+            log.error("Couldn't release acquired trigger " + trigger.getKey() + ": " + e.getMessage(), e);
+        }
+    }
+
+    public List<TriggerFiredResult> triggersFired(final List<OperableTrigger> triggers) throws JobPersistenceException {
+        return executeInLock(() -> {
+            List<TriggerFiredResult> results = new ArrayList<>();
+            for (OperableTrigger trigger : triggers) {
+                String triggerId = id(trigger.getKey());
+                redis().srem(key("acquired", instanceId), triggerId);
+                // was the trigger deleted, completed, paused, blocked, etc. since being acquired?
+                if (!STATE_ACQUIRED.equals(redis().hget(key("trigger_states"), triggerId))) {
+                    continue;
+                }
+                OperableTrigger stored = retrieveTriggerInternal(trigger.getKey());
+                JobDetail job = retrieveJobInternal(trigger.getJobKey());
+                if (stored == null || job == null) {
+                    continue;
+                }
+                String jobId = id(job.getKey());
+                if (job.isConcurrentExectionDisallowed() && redis().sismember(key("blocked_jobs"), jobId)) {
+                    // another trigger of the job fired since this one was acquired, it waits until the job completes
+                    updateState(triggerId, STATE_BLOCKED, null);
+                    continue;
+                }
+                Calendar cal = null;
+                if (stored.getCalendarName() != null) {
+                    cal = retrieveCalendarInternal(stored.getCalendarName());
+                    if (cal == null) {
+                        continue;
+                    }
+                }
+                Date prevFireTime = trigger.getPreviousFireTime();
+                Date fireTime = new Date();
+                stored.triggered(cal);
+                trigger.triggered(cal);
+                redis().hset(key("triggers"), triggerId, serialize(stored));
+
+                if (job.isConcurrentExectionDisallowed()) {
+                    // as JobStoreSupport, the siblings acquired by this or another node are blocked as well
+                    for (String otherId : redis().smembers(key("job_triggers", jobId))) {
+                        String state = redis().hget(key("trigger_states"), otherId);
+                        if (STATE_WAITING.equals(state) || STATE_ACQUIRED.equals(state)) {
+                            updateState(otherId, STATE_BLOCKED, null);
+                        } else if (STATE_PAUSED.equals(state)) {
+                            updateState(otherId, STATE_PAUSED_BLOCKED, null);
+                        }
+                    }
+                    redis().sadd(key("blocked_jobs"), jobId);
+                    updateState(triggerId, stored.getNextFireTime() == null ? STATE_COMPLETE : STATE_BLOCKED, null);
+                } else {
+                    updateState(triggerId, STATE_WAITING, stored.getNextFireTime());
+                }
+                FiredTriggerRecord firedRec = new FiredTriggerRecord();
+                firedRec.setFireInstanceId(trigger.getFireInstanceId());
+                firedRec.setTriggerKey(trigger.getKey());
+                firedRec.setJobKey(job.getKey());
+                firedRec.setFireTimestamp(fireTime.getTime());
+                firedRec.setScheduleTimestamp(trigger.getPreviousFireTime().getTime());
+                firedRec.setPriority(trigger.getPriority());
+                redis().hset(key("fired", instanceId), trigger.getFireInstanceId(), serialize(firedRec));
+
+                results.add(new TriggerFiredResult(new TriggerFiredBundle(job, trigger, cal,
+                        trigger.getKey().getGroup().equals(Scheduler.DEFAULT_RECOVERY_GROUP), fireTime,
+                        trigger.getPreviousFireTime(), prevFireTime, trigger.getNextFireTime())));
+            }
+            return results;
+        });
+    }
+
+    public void triggeredJobComplete(final OperableTrigger trigger, final JobDetail jobDetail,
+                                     final CompletedExecutionInstruction triggerInstCode) {
+        try {
+            boolean schedulingChanged = executeInLock(() -> {
+                boolean changed = false;
+                String jobId = id(jobDetail.getKey());
+                JobDetail storedJob = retrieveJobInternal(jobDetail.getKey());
+                if (storedJob != null) {
+                    JobDataMap jobDataMap = jobDetail.getJobDataMap();
+                    if (jobDetail.isPersistJobDataAfterExecution() && jobDataMap != null && jobDataMap.isDirty()) {
+                        storedJob = storedJob.getJobBuilder().setJobData(jobDataMap).build();
+                        redis().hset(key("jobs"), jobId, serialize(storedJob));
+                        jobDataMap.clearDirtyFlag();
+                    }
+                    if (jobDetail.isConcurrentExectionDisallowed()) {
+                        unblockJob(jobId);
+                        changed = true;
+                    }
+                } else {
+                    redis().srem(key("blocked_jobs"), jobId);
+                }
+                changed |= completeTrigger(trigger, triggerInstCode);
+                redis().hdel(key("fired", instanceId), trigger.getFireInstanceId());
+                return changed;
+            });
+            // once the lock is released, for the scheduler thread to acquire without waiting for it
+            if (schedulingChanged) {
+                signaler.signalSchedulingChange(0L);
+            }
+        } catch (JobPersistenceException e) {
+            signaler.notifySchedulerListenersError("Couldn't complete trigger " + trigger.getKey(), e);
+        }
+    }
+
+    /**
+     * @return true if the scheduling changed
+     */
+    private boolean completeTrigger(OperableTrigger trigger, CompletedExecutionInstruction triggerInstCode) throws JobPersistenceException {
+        String triggerId = id(trigger.getKey());
+        OperableTrigger stored = retrieveTriggerInternal(trigger.getKey());
+        if (stored == null) {
+            return false;
+        }
+        switch (triggerInstCode) {
+            case DELETE_TRIGGER:
+                if (trigger.getNextFireTime() == null && stored.getNextFireTime() != null) {
+                    // rescheduled within the job execution
+                    return false;
+                }
+                if (retainTriggerAfterExecutionCompleted) {
+                    updateState(triggerId, STATE_COMPLETE, null);
+                } else {
+                    removeTriggerInternal(trigger.getKey(), true);
+                }
+                return true;
+            case SET_TRIGGER_COMPLETE:
+                updateState(triggerId, STATE_COMPLETE, null);
+                return true;
+            case SET_TRIGGER_ERROR:
+                log.info("Trigger {} set to ERROR state.", trigger.getKey());
+                updateState(triggerId, STATE_ERROR, null);
+                return true;
+            case SET_ALL_JOB_TRIGGERS_COMPLETE:
+            case SET_ALL_JOB_TRIGGERS_ERROR:
+                String state = triggerInstCode == CompletedExecutionInstruction.SET_ALL_JOB_TRIGGERS_ERROR ? STATE_ERROR : STATE_COMPLETE;
+                log.info("All triggers of Job {} set to {} state.", trigger.getJobKey(), state);
+                for (String otherId : redis().smembers(key("job_triggers", id(trigger.getJobKey())))) {
+                    updateState(otherId, state, null);
+                }
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private void unblockJob(String jobId) throws JobPersistenceException {
+        redis().srem(key("blocked_jobs"), jobId);
+        for (OperableTrigger trigger : loadTriggers(redis().smembers(key("job_triggers", jobId)))) {
+            String triggerId = id(trigger.getKey());
+            String state = redis().hget(key("trigger_states"), triggerId);
+            if (STATE_BLOCKED.equals(state)) {
+                updateState(triggerId, STATE_WAITING, trigger.getNextFireTime());
+            } else if (STATE_PAUSED_BLOCKED.equals(state)) {
+                updateState(triggerId, STATE_PAUSED, null);
+            }
+        }
+    }
+
+    //---------------------------------------------------------------------------
+    // recovery
+    //---------------------------------------------------------------------------
+
+    private void checkIn() {
+        if (shutdown) {
+            return;
+        }
+        try {
+            long now = System.currentTimeMillis();
+            commands.hset(key("instances"), instanceId, String.valueOf(now));
+            for (Map.Entry<String, String> entry : commands.hgetall(key("instances")).entrySet()) {
+                if (!entry.getKey().equals(instanceId)
+                        && Long.parseLong(entry.getValue()) + clusterCheckinInterval + clusterFailureGracePeriodMills < now) {
+                    log.info("Instance {} of the cluster has failed, recovering its triggers", entry.getKey());
+                    recoverInstance(entry.getKey());
+                }
+            }
+        } catch (SchedulerException | RedisException e) {
+            log.error("Cluster check-in failed: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * release the triggers acquired by the instance, unblock the jobs it was executing and rerun the ones requesting recovery
+     * at the time they were scheduled, with the priority and the original trigger in the job data as JobStoreSupport does
+     *
+     * @param failedInstanceId
+     * @throws JobPersistenceException
+     */
+    protected void recoverInstance(final String failedInstanceId) throws JobPersistenceException {
+        int recovered = executeInLock(() -> {
+            for (OperableTrigger trigger : loadTriggers(redis().smembers(key("acquired", failedInstanceId)))) {
+                String triggerId = id(trigger.getKey());
+                if (STATE_ACQUIRED.equals(redis().hget(key("trigger_states"), triggerId))) {
+                    updateState(triggerId, initialState(trigger), trigger.getNextFireTime());
+                }
+            }
+            int recoveryCount = 0;
+            for (String value : redis().hgetall(key("fired", failedInstanceId)).values()) {
+                FiredTriggerRecord firedRec = deserialize(value, FiredTriggerRecord.class);
+                String jobId = id(firedRec.getJobKey());
+                if (redis().sismember(key("blocked_jobs"), jobId)) {
+                    unblockJob(jobId);
+                }
+                JobDetail job = retrieveJobInternal(firedRec.getJobKey());
+                if (job != null && job.requestsRecovery()) {
+                    TriggerKey triggerKey = firedRec.getTriggerKey();
+                    SimpleTriggerImpl recoveryTrigger = new SimpleTriggerImpl();
+                    recoveryTrigger.setName("recover_" + failedInstanceId + "_" + firedTriggerCounter.incrementAndGet());
+                    recoveryTrigger.setGroup(Scheduler.DEFAULT_RECOVERY_GROUP);
+                    recoveryTrigger.setStartTime(new Date(firedRec.getScheduleTimestamp()));
+                    recoveryTrigger.setJobKey(job.getKey());
+                    recoveryTrigger.setMisfireInstruction(SimpleTrigger.MISFIRE_INSTRUCTION_IGNORE_MISFIRE_POLICY);
+                    recoveryTrigger.setPriority(firedRec.getPriority());
+                    OperableTrigger original = retrieveTriggerInternal(triggerKey);
+                    JobDataMap jd = original == null ? new JobDataMap() : original.getJobDataMap();
+                    jd.put(Scheduler.FAILED_JOB_ORIGINAL_TRIGGER_NAME, triggerKey.getName());
+                    jd.put(Scheduler.FAILED_JOB_ORIGINAL_TRIGGER_GROUP, triggerKey.getGroup());
+                    jd.put(Scheduler.FAILED_JOB_ORIGINAL_TRIGGER_FIRETIME_IN_MILLISECONDS, String.valueOf(firedRec.getFireTimestamp()));
+                    jd.put(Scheduler.FAILED_JOB_ORIGINAL_TRIGGER_SCHEDULED_FIRETIME_IN_MILLISECONDS, String.valueOf(firedRec.getScheduleTimestamp()));
+                    recoveryTrigger.setJobDataMap(jd);
+                    recoveryTrigger.computeFirstFireTime(null);
+                    storeTriggerInternal(recoveryTrigger, false);
+                    recoveryCount++;
+                }
+            }
+            redis().del(key("acquired", failedInstanceId), key("fired", failedInstanceId));
+            redis().hdel(key("instances"), failedInstanceId);
+            return recoveryCount;
+        });
+        if (recovered > 0) {
+            log.info("Recovered {} jobs of instance {}", recovered, failedInstanceId);
+        }
+        // once the lock is released, for the scheduler thread to acquire without waiting for it
+        signaler.signalSchedulingChange(0L);
+    }
+
+    //---------------------------------------------------------------------------
+    // helper methods
+    //---------------------------------------------------------------------------
+
+    protected interface RedisCallback<T> {
+        T doInRedis() throws JobPersistenceException;
+    }
+
+    protected <T> T execute(RedisCallback<T> callback) throws JobPersistenceException {
+        try {
+            return callback.doInRedis();
+        } catch (RedisException e) {
+            throw new JobPersistenceException("Redis failure: " + e.getMessage(), e);
+        }
+    }
+
+    protected <T> T executeInLock(RedisCallback<T> callback) throws JobPersistenceException {
+        try {
+            lock.lock();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new JobPersistenceException("Interrupted while waiting for lock " + lock.getKey(), e);
+        } catch (RedisException e) {
+            throw new JobPersistenceException("Couldn't obtain lock " + lock.getKey() + ": " + e.getMessage(), e);
+        }
+        try {
+            if (transaction.get() != null) {
+                // nested within a mutation of this thread, written along with it
+                return execute(callback);
+            }
+            RedisTransaction redis = new RedisTransaction(commands);
+            transaction.set(redis);
+            try {
+                T result = execute(callback);
+                execute(() -> {
+                    redis.commit(lock);
+                    return null;
+                });
+                return result;
+            } finally {
+                transaction.remove();
+            }
+        } finally {
+            try {
+                if (!lock.unlock()) {
+                    log.error("Lease of lock {} was lost before it was released, another node may have written meanwhile", lock.getKey());
+                }
+            } catch (RedisException e) {
+                log.warn("Couldn't release lock " + lock.getKey() + ", it will expire after " + expireInMills + " ms", e);
+            }
+        }
+    }
+
+    /**
+     * @return the transaction of the mutation running on the current thread, or a new one only read outside of a mutation
+     */
+    protected RedisTransaction redis() {
+        RedisTransaction redis = transaction.get();
+        return redis != null ? redis : new RedisTransaction(commands);
+    }
+
+    protected String key(String... parts) {
+        StringBuilder sb = new StringBuilder(prefix);
+        for (int i = 0; i < parts.length; i++) {
+            if (i > 0) {
+                sb.append(':');
+            }
+            sb.append(parts[i]);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * group and name joined by ':', the colons within the group are escaped so that the id stays unique
+     */
+    protected String id(org.quartz.utils.Key<?> key) {
+        return key.getGroup().replace("\\", "\\\\").replace(":", "\\:") + ":" + key.getName();
+    }
+
+    private String serialize(Object object) throws JobPersistenceException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(baos)) {
+            out.writeObject(object);
+        } catch (IOException e) {
+            throw new JobPersistenceException("Couldn't serialize " + object + ": " + e.getMessage(), e);
+        }
+        return Base64.getEncoder().encodeToString(baos.toByteArray());
+    }
+
+    private <T> T deserialize(String value, Class<T> type) throws JobPersistenceException {
+        try (ObjectInputStream in = new ClassLoadHelperObjectInputStream(new ByteArrayInputStream(Base64.getDecoder().decode(value)))) {
+            return type.cast(in.readObject());
+        } catch (IOException | ClassNotFoundException e) {
+            throw new JobPersistenceException("Couldn't deserialize " + type.getSimpleName() + ": " + e.getMessage(), e);
+        }
+    }
+
+    private class ClassLoadHelperObjectInputStream extends ObjectInputStream {
+
+        ClassLoadHelperObjectInputStream(InputStream in) throws IOException {
+            super(in);
+        }
+
+        @Override
+        protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+            try {
+                return classLoadHelper.loadClass(desc.getName());
+            } catch (ClassNotFoundException e) {
+                return super.resolveClass(desc);
+            }
+        }
+    }
+
+    public void setInstanceId(String schedInstId) {
+        this.instanceId = schedInstId;
+    }
+
+    public void setInstanceName(String schedName) {
+        this.instanceName = schedName;
+    }
+
+    public void setThreadPoolSize(int poolSize) {
+    }
+
+    public long getAcquireRetryDelay(int failureCount) {
+        return Math.min(15000L, 100L << Math.min(failureCount, 10));
+    }
+
+    public void setHost(String host) {
+        this.host = host;
+    }
+
+    public void setPort(int port) {
+        this.port = port;
+    }
+
+    public void setPassword(String password) {
+        this.password = password;
+    }
+
+    public void setDatabase(int database) {
+        this.database = database;
+    }
+
+    public void setSsl(boolean ssl) {
+        this.ssl = ssl;
+    }
+
+    public long getExpireInMills() {
+        return expireInMills;
+    }
+
+    public void setExpireInMills(long expireInMills) {
+        this.expireInMills = expireInMills;
+    }
+
+    public void setLockRetryIntervalMills(long lockRetryIntervalMills) {
+        this.lockRetryIntervalMills = lockRetryIntervalMills;
+    }
+
+    public String getKeyPrefix() {
+        return keyPrefix;
+    }
+
+    public void setKeyPrefix(String keyPrefix) {
+        this.keyPrefix = keyPrefix;
+    }
+
+    public long getMisfireThreshold() {
+        return misfireThreshold;
+    }
+
+    public void setMisfireThreshold(long misfireThreshold) {
+        if (misfireThreshold < 1) {
+            throw new IllegalArgumentException("Misfirethreshold must be larger than 0");
+        }
+        this.misfireThreshold = misfireThreshold;
+    }
+
+    public void setIsClustered(boolean isClustered) {
+        this.isClustered = isClustered;
+    }
+
+    public void setClusterCheckinInterval(long clusterCheckinInterval) {
+        this.clusterCheckinInterval = clusterCheckinInterval;
+    }
+
+    public long getClusterFailureGracePeriodMills() {
+        return clusterFailureGracePeriodMills;
+    }
+
+    public void setClusterFailureGracePeriodMills(long clusterFailureGracePeriodMills) {
+        this.clusterFailureGracePeriodMills = clusterFailureGracePeriodMills;
+    }
+
+    public boolean isRetainTriggerAfterExecutionCompleted() {
+        return retainTriggerAfterExecutionCompleted;
+    }
+
+    public void setRetainTriggerAfterExecutionCompleted(boolean retainTriggerAfterExecutionCompleted) {
+        this.retainTriggerAfterExecutionCompleted = retainTriggerAfterExecutionCompleted;
+    }
+}
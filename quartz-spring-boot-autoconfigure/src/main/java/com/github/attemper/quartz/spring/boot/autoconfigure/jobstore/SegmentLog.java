@@ -0,0 +1,367 @@
+package com.github.attemper.quartz.spring.boot.autoconfigure.jobstore;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only log of records in memory-mapped segment files of a fixed size, compacted into snapshots. <br>
+ *
+ * A record is <code>{length}{type}{payload}{crc32}</code>, the length written last, so a record torn by a crash is told by its checksum
+ * and dropped along with the rest of its segment. A snapshot holds records the same way, written to a temporary file renamed once synced,
+ * the segments older than it deleted afterwards. A snapshot <code>n</code> followed by the segments from <code>n</code> on replays the whole log. <br>
+ *
+ * The records land in the page cache as soon as appended, so they survive the death of the process, {@link #force()} writes them to the device.
+ * Appending is synchronized.
+ */
+public class SegmentLog {
+
+    private static final String SEGMENT_PREFIX = "segment-";
+
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+
+    private static final String SNAPSHOT_SUFFIX = ".snap";
+
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private static final int SNAPSHOT_MAGIC = 0x51534e31;
+
+    /**
+     * length and type before the payload, checksum after
+     */
+    private static final int OVERHEAD = 4 + 1 + 4;
+
+    private final File directory;
+
+    private final int segmentSize;
+
+    private MappedByteBuffer segment;
+
+    private long segmentSeq;
+
+    private long snapshotSeq;
+
+    private int segmentCount;
+
+    /**
+     * the segments rolled over since the last force
+     */
+    private final List<MappedByteBuffer> unforcedSegments = new ArrayList<>();
+
+    private long appendedCount;
+
+    private long appendedBytes;
+
+    public SegmentLog(File directory, int segmentSize) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+    }
+
+    public interface RecordHandler {
+
+        void handle(byte type, byte[] payload) throws IOException;
+    }
+
+    public interface SnapshotSource {
+
+        void writeTo(RecordHandler out) throws IOException;
+    }
+
+    /**
+     * Replays the latest snapshot and the segments following it, then appends after the last complete record.
+     */
+    public synchronized void open(RecordHandler handler) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Could not create the directory " + directory);
+        }
+        TreeMap<Long, File> snapshots = list(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX);
+        TreeMap<Long, File> segments = list(SEGMENT_PREFIX, SEGMENT_SUFFIX);
+        if (!snapshots.isEmpty()) {
+            snapshotSeq = snapshots.lastKey();
+            replaySnapshot(snapshots.lastEntry().getValue(), handler);
+        }
+        deleteBefore(snapshotSeq);
+        segments = new TreeMap<>(segments.tailMap(snapshotSeq, true));
+        segmentSeq = snapshotSeq;
+        for (File file : segments.values()) {
+            segmentSeq = seqOf(file, SEGMENT_PREFIX, SEGMENT_SUFFIX);
+            segment = map(file);
+            int end = replaySegment(segment, handler);
+            if (end < 0) {
+                // torn by a crash, appended over
+                end = -end - 1;
+                for (int i = end; i < segmentSize; i++) {
+                    segment.put(i, (byte) 0);
+                }
+            }
+            segment.position(end);
+        }
+        segmentCount = segments.size();
+        if (segment == null) {
+            segment = map(segmentFile(segmentSeq));
+            segmentCount = 1;
+        }
+    }
+
+    public synchronized void append(byte type, byte[] payload) throws IOException {
+        int size = OVERHEAD + payload.length;
+        if (size > segmentSize) {
+            throw new IOException("A record of " + size + " bytes doesn't fit in a segment of " + segmentSize);
+        }
+        if (segment.remaining() < size) {
+            roll();
+        }
+        CRC32 crc = new CRC32();
+        crc.update(type);
+        crc.update(payload);
+        int start = segment.position();
+        segment.position(start + 4);
+        segment.put(type);
+        segment.put(payload);
+        segment.putInt((int) crc.getValue());
+        segment.putInt(start, 1 + payload.length);
+        appendedCount++;
+        appendedBytes += size;
+    }
+
+    /**
+     * Starts a new segment, the records appended from now on replayed after a snapshot taken now.
+     *
+     * @return the sequence of the new segment
+     */
+    public synchronized long roll() throws IOException {
+        unforcedSegments.add(segment);
+        segment = map(segmentFile(segmentSeq + 1));
+        segmentSeq++;
+        segmentCount++;
+        return segmentSeq;
+    }
+
+    public void force() {
+        List<MappedByteBuffer> segments;
+        synchronized (this) {
+            if (segment == null) {
+                return;
+            }
+            segments = new ArrayList<>(unforcedSegments);
+            unforcedSegments.clear();
+            segments.add(segment);
+        }
+        for (MappedByteBuffer buffer : segments) {
+            buffer.force();
+        }
+    }
+
+    /**
+     * Writes the snapshot replacing the segments before <code>seq</code>, then deletes them.
+     */
+    public void snapshot(long seq, SnapshotSource source) throws IOException {
+        File temp = new File(directory, SNAPSHOT_PREFIX + format(seq) + TEMP_SUFFIX);
+        try (FileOutputStream fileOut = new FileOutputStream(temp)) {
+            final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut, 65536));
+            out.writeInt(SNAPSHOT_MAGIC);
+            source.writeTo(new RecordHandler() {
+                @Override
+                public void handle(byte type, byte[] payload) throws IOException {
+                    CRC32 crc = new CRC32();
+                    crc.update(type);
+                    crc.update(payload);
+                    out.writeInt(1 + payload.length);
+                    out.writeByte(type);
+                    out.write(payload);
+                    out.writeInt((int) crc.getValue());
+                }
+            });
+            out.writeInt(0);
+            out.flush();
+            fileOut.getFD().sync();
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp.toPath());
+            throw e;
+        }
+        // the segments are forced before being replaced
+        force();
+        Files.move(temp.toPath(), new File(directory, SNAPSHOT_PREFIX + format(seq) + SNAPSHOT_SUFFIX).toPath(), StandardCopyOption.ATOMIC_MOVE);
+        // the rename is durable only once the directory is, else a crash could lose the snapshot after its segments are deleted
+        forceDirectory();
+        synchronized (this) {
+            snapshotSeq = seq;
+            segmentCount -= deleteBefore(seq);
+        }
+    }
+
+    public synchronized void close() {
+        force();
+        segment = null;
+        unforcedSegments.clear();
+    }
+
+    public synchronized long getSegmentSeq() {
+        return segmentSeq;
+    }
+
+    public synchronized long getSnapshotSeq() {
+        return snapshotSeq;
+    }
+
+    /**
+     * @return the segments on disk, the one appended to included
+     */
+    public synchronized int getSegmentCount() {
+        return segmentCount;
+    }
+
+    public synchronized long getAppendedCount() {
+        return appendedCount;
+    }
+
+    public synchronized long getAppendedBytes() {
+        return appendedBytes;
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    private void replaySnapshot(File file, RecordHandler handler) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 65536))) {
+            if (in.readInt() != SNAPSHOT_MAGIC) {
+                throw new IOException("Not a snapshot: " + file);
+            }
+            int length;
+            while ((length = in.readInt()) > 0) {
+                byte type = in.readByte();
+                byte[] payload = new byte[length - 1];
+                in.readFully(payload);
+                CRC32 crc = new CRC32();
+                crc.update(type);
+                crc.update(payload);
+                if (in.readInt() != (int) crc.getValue()) {
+                    throw new IOException("Corrupted snapshot: " + file);
+                }
+                handler.handle(type, payload);
+            }
+        } catch (EOFException e) {
+            throw new IOException("Truncated snapshot: " + file, e);
+        }
+    }
+
+    /**
+     * @return the end of the records, or <code>-end - 1</code> if a torn record follows them
+     */
+    private int replaySegment(MappedByteBuffer buffer, RecordHandler handler) throws IOException {
+        int position = 0;
+        while (position + OVERHEAD <= segmentSize) {
+            int length = buffer.getInt(position);
+            if (length == 0) {
+                return position;
+            }
+            if (length < 0 || position + OVERHEAD - 1 + length > segmentSize) {
+                return -position - 1;
+            }
+            byte type = buffer.get(position + 4);
+            byte[] payload = new byte[length - 1];
+            for (int i = 0; i < payload.length; i++) {
+                payload[i] = buffer.get(position + 5 + i);
+            }
+            CRC32 crc = new CRC32();
+            crc.update(type);
+            crc.update(payload);
+            if (buffer.getInt(position + 4 + length) != (int) crc.getValue()) {
+                return -position - 1;
+            }
+            handler.handle(type, payload);
+            position += OVERHEAD - 1 + length;
+        }
+        return position;
+    }
+
+    private MappedByteBuffer map(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(segmentSize);
+            return raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        }
+    }
+
+    private void forceDirectory() throws IOException {
+        // windows does not let a directory be opened as a channel, there the rename is left to the file system
+        if (File.separatorChar == '\\') {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(directory.toPath(), StandardOpenOption.READ)) {
+            channel.force(true);
+        }
+    }
+
+    /**
+     * deletes the segments and snapshots before <code>seq</code>, and the temporary files
+     *
+     * @return the number of segments deleted
+     */
+    private int deleteBefore(long seq) throws IOException {
+        int deleted = 0;
+        for (File file : list(SEGMENT_PREFIX, SEGMENT_SUFFIX).headMap(seq, false).values()) {
+            Files.deleteIfExists(file.toPath());
+            deleted++;
+        }
+        for (File file : list(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX).headMap(seq, false).values()) {
+            Files.deleteIfExists(file.toPath());
+        }
+        File[] temps = directory.listFiles((dir, name) -> name.endsWith(TEMP_SUFFIX));
+        if (temps != null) {
+            for (File file : temps) {
+                Files.deleteIfExists(file.toPath());
+            }
+        }
+        return deleted;
+    }
+
+    private TreeMap<Long, File> list(String prefix, String suffix) {
+        TreeMap<Long, File> files = new TreeMap<>();
+        File[] found = directory.listFiles((dir, name) -> name.startsWith(prefix) && name.endsWith(suffix));
+        if (found != null) {
+            for (File file : found) {
+                long seq = seqOf(file, prefix, suffix);
+                if (seq >= 0) {
+                    files.put(seq, file);
+                }
+            }
+        }
+        return files;
+    }
+
+    private File segmentFile(long seq) {
+        return new File(directory, SEGMENT_PREFIX + format(seq) + SEGMENT_SUFFIX);
+    }
+
+    private static long seqOf(File file, String prefix, String suffix) {
+        String name = file.getName();
+        try {
+            return Long.parseLong(name.substring(prefix.length(), name.length() - suffix.length()));
+        } catch (NumberFormatException e) {
+            return -1L;
+        }
+    }
+
+    private static String format(long seq) {
+        return String.format("%020d", seq);
+    }
+}
@@ -0,0 +1,1392 @@
+package com.github.attemper.quartz.spring.boot.autoconfigure.jobstore;
+
+import org.quartz.Calendar;
+import org.quartz.JobDataMap;
+import org.quartz.JobDetail;
+import org.quartz.JobKey;
+import org.quartz.JobPersistenceException;
+import org.quartz.ObjectAlreadyExistsException;
+import org.quartz.SchedulerConfigException;
+import org.quartz.SchedulerException;
+import org.quartz.Trigger;
+import org.quartz.Trigger.CompletedExecutionInstruction;
+import org.quartz.Trigger.TriggerState;
+import org.quartz.TriggerKey;
+import org.quartz.impl.matchers.GroupMatcher;
+import org.quartz.impl.matchers.StringMatcher;
+import org.quartz.spi.ClassLoadHelper;
+import org.quartz.spi.JobStore;
+import org.quartz.spi.OperableTrigger;
+import org.quartz.spi.SchedulerSignaler;
+import org.quartz.spi.TriggerFiredBundle;
+import org.quartz.spi.TriggerFiredResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * An in-memory JobStore with the semantics of RAMJobStore, the triggers waiting to fire kept in a {@link TimingWheel} instead of a TreeSet. <br>
+ *
+ * Acquisition polls the wheel slot by slot, a due trigger costs O(1) instead of O(log n) and the triggers due within the same millisecond
+ * are handed over together. A trigger leaving the WAITING state moves its version on instead of being removed from the wheel,
+ * the stale entries are dropped when they are polled, or all at once when they outnumber the live ones. <br>
+ *
+ * Instead of the single monitor of RAMJobStore, a trigger is changed under the lock of its job, one of <code>lockStripes</code> locks,
+ * so firing and completing the triggers of different jobs don't wait for each other. Only the operations on whole groups and calendars
+ * take the store exclusively. The wheel belongs to the thread acquiring, a thread finding it busy leaves its trigger in a queue drained by the next acquisition. <br>
+ *
+ * The indexes are keyed by the JobKey and TriggerKey the JobStore is called with, not by primitive ids: every call but acquisition
+ * names its job or trigger by key, so an id would only add a lookup from the key to the id. Acquisition doesn't look anything up,
+ * the entries of the wheel hold their trigger and its version, the slots and times are kept in primitive arrays.
+ */
+public class TimeWheelJobStore implements JobStore {
+
+    private static final AtomicLong firedTriggerCounter = new AtomicLong(System.currentTimeMillis());
+
+    /**
+     * earlier first, then higher priority first
+     */
+    private static final TimingWheel.EntryComparator<TriggerWrapper> FIRE_ORDER = (tw1, time1, tw2, time2) -> {
+        if (time1 != time2) {
+            return time1 < time2 ? -1 : 1;
+        }
+        return Integer.compare(tw2.trigger.getPriority(), tw1.trigger.getPriority());
+    };
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private final ConcurrentHashMap<JobKey, JobDetail> jobsByKey = new ConcurrentHashMap<>(1000);
+
+    private final ConcurrentHashMap<TriggerKey, TriggerWrapper> triggersByKey = new ConcurrentHashMap<>(1000);
+
+    /**
+     * the lists are only read and changed under the lock of the job
+     */
+    private final ConcurrentHashMap<JobKey, List<TriggerWrapper>> triggersByJob = new ConcurrentHashMap<>(1000);
+
+    private final ConcurrentHashMap<String, Set<JobKey>> jobsByGroup = new ConcurrentHashMap<>(25);
+
+    private final ConcurrentHashMap<String, Set<TriggerKey>> triggersByGroup = new ConcurrentHashMap<>(25);
+
+    private final ConcurrentHashMap<String, Calendar> calendarsByName = new ConcurrentHashMap<>(25);
+
+    private final Set<String> pausedTriggerGroups = ConcurrentHashMap.newKeySet();
+
+    private final Set<String> pausedJobGroups = ConcurrentHashMap.newKeySet();
+
+    private final Set<JobKey> blockedJobs = ConcurrentHashMap.newKeySet();
+
+    /**
+     * shared by the operations on a job or a trigger, exclusive for the ones on groups and calendars
+     */
+    private final ReentrantReadWriteLock groupLock = new ReentrantReadWriteLock();
+
+    private final ReentrantLock wheelLock = new ReentrantLock();
+
+    private final Queue<WheelEntry> pendingEntries = new ConcurrentLinkedQueue<>();
+
+    private final TimingWheel.Bucket<TriggerWrapper> dueEntries = new TimingWheel.Bucket<>();
+
+    private final LongAdder staleEntryCount = new LongAdder();
+
+    private final LongAdder acquisitionCount = new LongAdder();
+
+    private final LongAdder acquisitionTimeNanos = new LongAdder();
+
+    private final LongAdder acquiredTriggerCount = new LongAdder();
+
+    private ReentrantLock[] stripes;
+
+    private TimingWheel<TriggerWrapper> wheel;
+
+    private long misfireThreshold = 5000L;
+
+    private int lockStripes = 16;
+
+    private String instanceName;
+
+    private SchedulerSignaler signaler;
+
+    public TimeWheelJobStore() {
+    }
+
+    public void initialize(ClassLoadHelper loadHelper, SchedulerSignaler signaler) throws SchedulerConfigException {
+        if (lockStripes <= 0) {
+            throw new SchedulerConfigException("lockStripes must be > 0");
+        }
+        this.signaler = signaler;
+        this.stripes = new ReentrantLock[lockStripes];
+        for (int i = 0; i < lockStripes; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.wheel = new TimingWheel<>(System.currentTimeMillis());
+        if (instanceName != null) {
+            JobStoreHolder.set(instanceName, this);
+        }
+        log.info("Using time wheel job store with {} lock stripes", lockStripes);
+    }
+
+    public void schedulerStarted() throws SchedulerException {
+    }
+
+    public void schedulerPaused() {
+    }
+
+    public void schedulerResumed() {
+    }
+
+    public void shutdown() {
+        if (instanceName != null) {
+            JobStoreHolder.remove(instanceName, this);
+        }
+    }
+
+    public boolean supportsPersistence() {
+        return false;
+    }
+
+    public long getEstimatedTimeToReleaseAndAcquireTrigger() {
+        return 5L;
+    }
+
+    public boolean isClustered() {
+        return false;
+    }
+
+    //---------------------------------------------------------------------------
+    // jobs
+    //---------------------------------------------------------------------------
+
+    public void storeJobAndTrigger(final JobDetail newJob, final OperableTrigger newTrigger) throws JobPersistenceException {
+        storeJob(newJob, false);
+        storeTrigger(newTrigger, false);
+    }
+
+    public void storeJob(final JobDetail newJob, final boolean replaceExisting) throws JobPersistenceException {
+        executeInStripe(newJob.getKey(), () -> {
+            storeJobInternal(newJob, replaceExisting);
+            return null;
+        });
+    }
+
+    public void storeJobsAndTriggers(final Map<JobDetail, Set<? extends Trigger>> triggersAndJobs, final boolean replace)
+            throws JobPersistenceException {
+        executeExclusively(() -> {
+            if (!replace) {
+                for (Map.Entry<JobDetail, Set<? extends Trigger>> entry : triggersAndJobs.entrySet()) {
+                    if (jobsByKey.containsKey(entry.getKey().getKey())) {
+                        throw new ObjectAlreadyExistsException(entry.getKey());
+                    }
+                    for (Trigger trigger : entry.getValue()) {
+                        if (triggersByKey.containsKey(trigger.getKey())) {
+                            throw new ObjectAlreadyExistsException(trigger);
+                        }
+                    }
+                }
+            }
+            for (Map.Entry<JobDetail, Set<? extends Trigger>> entry : triggersAndJobs.entrySet()) {
+                executeInStripe(entry.getKey().getKey(), () -> {
+                    storeJobInternal(entry.getKey(), true);
+                    return null;
+                });
+                for (Trigger trigger : entry.getValue()) {
+                    storeTrigger((OperableTrigger) trigger, true);
+                }
+            }
+            return null;
+        });
+    }
+
+    public boolean removeJob(final JobKey jobKey) throws JobPersistenceException {
+        return executeInStripe(jobKey, () -> removeJobInternal(jobKey));
+    }
+
+    public boolean removeJobs(final List<JobKey> jobKeys) throws JobPersistenceException {
+        boolean allFound = true;
+        for (JobKey jobKey : jobKeys) {
+            allFound = removeJob(jobKey) && allFound;
+        }
+        return allFound;
+    }
+
+    public JobDetail retrieveJob(final JobKey jobKey) {
+        JobDetail jobDetail = jobsByKey.get(jobKey);
+        return jobDetail == null ? null : (JobDetail) jobDetail.clone();
+    }
+
+    public boolean checkExists(final JobKey jobKey) {
+        return jobsByKey.containsKey(jobKey);
+    }
+
+    public int getNumberOfJobs() {
+        return jobsByKey.size();
+    }
+
+    public Set<JobKey> getJobKeys(final GroupMatcher<JobKey> matcher) {
+        Set<JobKey> jobKeys = new HashSet<>();
+        for (String group : matchGroups(jobsByGroup.keySet(), matcher)) {
+            Set<JobKey> keys = jobsByGroup.get(group);
+            if (keys != null) {
+                jobKeys.addAll(keys);
+            }
+        }
+        return jobKeys;
+    }
+
+    public List<String> getJobGroupNames() {
+        return new ArrayList<>(jobsByGroup.keySet());
+    }
+
+    /**
+     * the lock of the job is held
+     */
+    private void storeJobInternal(JobDetail newJob, boolean replaceExisting) throws ObjectAlreadyExistsException {
+        JobKey jobKey = newJob.getKey();
+        JobDetail jobDetail = (JobDetail) newJob.clone();
+        if (jobsByKey.containsKey(jobKey)) {
+            if (!replaceExisting) {
+                throw new ObjectAlreadyExistsException(newJob);
+            }
+            jobsByKey.put(jobKey, jobDetail);
+        } else {
+            jobsByKey.put(jobKey, jobDetail);
+            addToGroup(jobsByGroup, jobKey.getGroup(), jobKey);
+        }
+        jobChanged(jobKey);
+    }
+
+    /**
+     * the lock of the job is held
+     */
+    private boolean removeJobInternal(JobKey jobKey) {
+        boolean found = false;
+        List<TriggerWrapper> triggersOfJob = triggersByJob.get(jobKey);
+        if (triggersOfJob != null) {
+            for (TriggerWrapper tw : new ArrayList<>(triggersOfJob)) {
+                found = removeTriggerInternal(tw.key, false) || found;
+            }
+        }
+        if (jobsByKey.remove(jobKey) != null) {
+            removeFromGroup(jobsByGroup, jobKey.getGroup(), jobKey);
+            jobChanged(jobKey);
+            found = true;
+        }
+        return found;
+    }
+
+    //---------------------------------------------------------------------------
+    // triggers
+    //---------------------------------------------------------------------------
+
+    public void storeTrigger(final OperableTrigger newTrigger, final boolean replaceExisting) throws JobPersistenceException {
+        TriggerWrapper existing = triggersByKey.get(newTrigger.getKey());
+        if (replaceExisting && existing != null && !existing.jobKey.equals(newTrigger.getJobKey())) {
+            // moved to another job, both jobs are locked
+            executeExclusively(() -> {
+                removeTrigger(newTrigger.getKey(), false);
+                storeTrigger(newTrigger, true);
+                return null;
+            });
+            return;
+        }
+        executeInStripe(newTrigger.getJobKey(), () -> {
+            storeTriggerInternal(newTrigger, replaceExisting);
+            return null;
+        });
+    }
+
+    public boolean removeTrigger(final TriggerKey triggerKey) throws JobPersistenceException {
+        return removeTrigger(triggerKey, true);
+    }
+
+    public boolean removeTriggers(final List<TriggerKey> triggerKeys) throws JobPersistenceException {
+        boolean allFound = true;
+        for (TriggerKey triggerKey : triggerKeys) {
+            allFound = removeTrigger(triggerKey) && allFound;
+        }
+        return allFound;
+    }
+
+    public boolean replaceTrigger(final TriggerKey triggerKey, final OperableTrigger newTrigger) throws JobPersistenceException {
+        return executeForTrigger(triggerKey, tw -> {
+            if (tw == null) {
+                return false;
+            }
+            if (!tw.jobKey.equals(newTrigger.getJobKey())) {
+                throw new JobPersistenceException("New trigger is not related to the same job as the old trigger.");
+            }
+            removeTriggerInternal(triggerKey, false);
+            try {
+                storeTriggerInternal(newTrigger, false);
+            } catch (JobPersistenceException e) {
+                storeTriggerInternal(tw.trigger, false); // put the previous trigger back
+                throw e;
+            }
+            return true;
+        });
+    }
+
+    public OperableTrigger retrieveTrigger(final TriggerKey triggerKey) {
+        TriggerWrapper tw = lockTrigger(triggerKey);
+        if (tw == null) {
+            return null;
+        }
+        try {
+            return (OperableTrigger) tw.trigger.clone();
+        } finally {
+            unlock(tw);
+        }
+    }
+
+    public boolean checkExists(final TriggerKey triggerKey) {
+        return triggersByKey.containsKey(triggerKey);
+    }
+
+    public int getNumberOfTriggers() {
+        return triggersByKey.size();
+    }
+
+    public Set<TriggerKey> getTriggerKeys(final GroupMatcher<TriggerKey> matcher) {
+        Set<TriggerKey> triggerKeys = new HashSet<>();
+        for (String group : matchGroups(triggersByGroup.keySet(), matcher)) {
+            Set<TriggerKey> keys = triggersByGroup.get(group);
+            if (keys != null) {
+                triggerKeys.addAll(keys);
+            }
+        }
+        return triggerKeys;
+    }
+
+    public List<String> getTriggerGroupNames() {
+        return new ArrayList<>(triggersByGroup.keySet());
+    }
+
+    public List<OperableTrigger> getTriggersForJob(final JobKey jobKey) {
+        ReentrantLock stripe = stripeOf(jobKey);
+        stripe.lock();
+        try {
+            List<OperableTrigger> triggers = new ArrayList<>();
+            List<TriggerWrapper> triggersOfJob = triggersByJob.get(jobKey);
+            if (triggersOfJob != null) {
+                for (TriggerWrapper tw : triggersOfJob) {
+                    triggers.add((OperableTrigger) tw.trigger.clone());
+                }
+            }
+            return triggers;
+        } finally {
+            stripe.unlock();
+        }
+    }
+
+    public TriggerState getTriggerState(final TriggerKey triggerKey) {
+        TriggerWrapper tw = triggersByKey.get(triggerKey);
+        if (tw == null) {
+            return TriggerState.NONE;
+        }
+        switch (tw.state) {
+            case TriggerWrapper.STATE_COMPLETE:
+                return TriggerState.COMPLETE;
+            case TriggerWrapper.STATE_PAUSED:
+            case TriggerWrapper.STATE_PAUSED_BLOCKED:
+                return TriggerState.PAUSED;
+            case TriggerWrapper.STATE_BLOCKED:
+                return TriggerState.BLOCKED;
+            case TriggerWrapper.STATE_ERROR:
+                return TriggerState.ERROR;
+            default:
+                return TriggerState.NORMAL;
+        }
+    }
+
+    public void resetTriggerFromErrorState(final TriggerKey triggerKey) throws JobPersistenceException {
+        executeForTrigger(triggerKey, tw -> {
+            if (tw == null || tw.state != TriggerWrapper.STATE_ERROR) {
+                return null;
+            }
+            if (pausedTriggerGroups.contains(triggerKey.getGroup())) {
+                tw.state = TriggerWrapper.STATE_PAUSED;
+            } else {
+                tw.state = TriggerWrapper.STATE_WAITING;
+                schedule(tw);
+            }
+            triggerChanged(triggerKey);
+            return null;
+        });
+    }
+
+    private boolean removeTrigger(TriggerKey triggerKey, boolean removeOrphanedJob) throws JobPersistenceException {
+        return executeForTrigger(triggerKey, tw -> tw != null && removeTriggerInternal(triggerKey, removeOrphanedJob));
+    }
+
+    /**
+     * the lock of the job of the trigger is held
+     */
+    private void storeTriggerInternal(OperableTrigger newTrigger, boolean replaceExisting) throws JobPersistenceException {
+        TriggerKey triggerKey = newTrigger.getKey();
+        JobKey jobKey = newTrigger.getJobKey();
+        if (triggersByKey.containsKey(triggerKey)) {
+            if (!replaceExisting) {
+                throw new ObjectAlreadyExistsException(newTrigger);
+            }
+            removeTrigger(triggerKey, false);
+        }
+        if (!jobsByKey.containsKey(jobKey)) {
+            throw new JobPersistenceException("The job (" + jobKey + ") referenced by the trigger does not exist.");
+        }
+        TriggerWrapper tw = new TriggerWrapper((OperableTrigger) newTrigger.clone());
+        triggersByKey.put(triggerKey, tw);
+        triggersByJob.computeIfAbsent(jobKey, key -> new ArrayList<>(1)).add(tw);
+        addToGroup(triggersByGroup, triggerKey.getGroup(), triggerKey);
+        boolean blocked = blockedJobs.contains(jobKey);
+        if (pausedTriggerGroups.contains(triggerKey.getGroup()) || pausedJobGroups.contains(jobKey.getGroup())) {
+            tw.state = blocked ? TriggerWrapper.STATE_PAUSED_BLOCKED : TriggerWrapper.STATE_PAUSED;
+        } else if (blocked) {
+            tw.state = TriggerWrapper.STATE_BLOCKED;
+        } else {
+            schedule(tw);
+        }
+        triggerChanged(triggerKey);
+    }
+
+    /**
+     * the lock of the job of the trigger is held
+     */
+    private boolean removeTriggerInternal(TriggerKey triggerKey, boolean removeOrphanedJob) {
+        TriggerWrapper tw = triggersByKey.remove(triggerKey);
+        if (tw == null) {
+            return false;
+        }
+        removeFromGroup(triggersByGroup, triggerKey.getGroup(), triggerKey);
+        List<TriggerWrapper> triggersOfJob = triggersByJob.get(tw.jobKey);
+        if (triggersOfJob != null) {
+            triggersOfJob.remove(tw);
+            if (triggersOfJob.isEmpty()) {
+                triggersByJob.remove(tw.jobKey);
+            }
+        }
+        unschedule(tw);
+        triggerChanged(triggerKey);
+        if (removeOrphanedJob) {
+            JobDetail jobDetail = jobsByKey.get(tw.jobKey);
+            if (jobDetail != null && !jobDetail.isDurable() && !triggersByJob.containsKey(tw.jobKey)
+                    && removeJobInternal(tw.jobKey)) {
+                signaler.notifySchedulerListenersJobDeleted(tw.jobKey);
+            }
+        }
+        return true;
+    }
+
+    //---------------------------------------------------------------------------
+    // calendars
+    //---------------------------------------------------------------------------
+
+    public void storeCalendar(final String name, final Calendar calendar, final boolean replaceExisting, final boolean updateTriggers)
+            throws JobPersistenceException {
+        final Calendar copy = (Calendar) calendar.clone();
+        executeExclusively(() -> {
+            Calendar existing = calendarsByName.get(name);
+            if (existing != null && !replaceExisting) {
+                throw new ObjectAlreadyExistsException("Calendar with name '" + name + "' already exists.");
+            }
+            calendarsByName.put(name, copy);
+            calendarChanged(name);
+            if (existing != null && updateTriggers) {
+                for (TriggerWrapper tw : triggersByKey.values()) {
+                    if (!name.equals(tw.trigger.getCalendarName())) {
+                        continue;
+                    }
+                    executeForTrigger(tw.key, locked -> {
+                        if (locked != null) {
+                            locked.trigger.updateWithNewCalendar(copy, misfireThreshold);
+                            if (locked.state == TriggerWrapper.STATE_WAITING) {
+                                schedule(locked);
+                            }
+                            triggerChanged(locked.key);
+                        }
+                        return null;
+                    });
+                }
+            }
+            return null;
+        });
+    }
+
+    public boolean removeCalendar(final String calName) throws JobPersistenceException {
+        return executeExclusively(() -> {
+            for (TriggerWrapper tw : triggersByKey.values()) {
+                if (calName.equals(tw.trigger.getCalendarName())) {
+                    throw new JobPersistenceException("Calender cannot be removed if it referenced by a Trigger!");
+                }
+            }
+            if (calendarsByName.remove(calName) == null) {
+                return false;
+            }
+            calendarChanged(calName);
+            return true;
+        });
+    }
+
+    public Calendar retrieveCalendar(final String calName) {
+        Calendar calendar = calendarsByName.get(calName);
+        return calendar == null ? null : (Calendar) calendar.clone();
+    }
+
+    public int getNumberOfCalendars() {
+        return calendarsByName.size();
+    }
+
+    public List<String> getCalendarNames() {
+        return new ArrayList<>(calendarsByName.keySet());
+    }
+
+    public void clearAllSchedulingData() throws JobPersistenceException {
+        executeExclusively(() -> {
+            for (TriggerKey triggerKey : new ArrayList<>(triggersByKey.keySet())) {
+                removeTrigger(triggerKey, true);
+            }
+            for (JobKey jobKey : new ArrayList<>(jobsByKey.keySet())) {
+                removeJob(jobKey);
+            }
+            for (String calName : new ArrayList<>(calendarsByName.keySet())) {
+                calendarsByName.remove(calName);
+                calendarChanged(calName);
+            }
+            wheelLock.lock();
+            try {
+                wheel.clear();
+                pendingEntries.clear();
+                staleEntryCount.reset();
+            } finally {
+                wheelLock.unlock();
+            }
+            return null;
+        });
+    }
+
+    //---------------------------------------------------------------------------
+    // pause & resume
+    //---------------------------------------------------------------------------
+
+    public void pauseTrigger(final TriggerKey triggerKey) throws JobPersistenceException {
+        executeForTrigger(triggerKey, tw -> {
+            if (tw != null) {
+                pauseTriggerInternal(tw);
+            }
+            return null;
+        });
+    }
+
+    public Collection<String> pauseTriggers(final GroupMatcher<TriggerKey> matcher) throws JobPersistenceException {
+        return executeExclusively(() -> {
+            List<String> pausedGroups = new ArrayList<>();
+            Set<String> groups = matchGroups(triggersByGroup.keySet(), matcher);
+            if (matcher.getCompareWithOperator() == StringMatcher.StringOperatorName.EQUALS) {
+                groups.add(matcher.getCompareToValue());
+            }
+            for (String group : groups) {
+                if (pausedTriggerGroups.add(group)) {
+                    pausedGroups.add(group);
+                }
+            }
+            if (!pausedGroups.isEmpty()) {
+                pausedTriggerGroupsChanged();
+            }
+            for (String group : pausedGroups) {
+                for (TriggerKey triggerKey : getTriggerKeys(GroupMatcher.triggerGroupEquals(group))) {
+                    pauseTrigger(triggerKey);
+                }
+            }
+            return pausedGroups;
+        });
+    }
+
+    public void pauseJob(final JobKey jobKey) throws JobPersistenceException {
+        executeInStripe(jobKey, () -> {
+            List<TriggerWrapper> triggersOfJob = triggersByJob.get(jobKey);
+            if (triggersOfJob != null) {
+                for (TriggerWrapper tw : triggersOfJob) {
+                    pauseTriggerInternal(tw);
+                }
+            }
+            return null;
+        });
+    }
+
+    public Collection<String> pauseJobs(final GroupMatcher<JobKey> matcher) throws JobPersistenceException {
+        return executeExclusively(() -> {
+            List<String> pausedGroups = new ArrayList<>();
+            Set<String> groups = matchGroups(jobsByGroup.keySet(), matcher);
+            if (matcher.getCompareWithOperator() == StringMatcher.StringOperatorName.EQUALS) {
+                groups.add(matcher.getCompareToValue());
+            }
+            for (String group : groups) {
+                if (pausedJobGroups.add(group)) {
+                    pausedGroups.add(group);
+                }
+            }
+            for (String group : pausedGroups) {
+                for (JobKey jobKey : getJobKeys(GroupMatcher.jobGroupEquals(group))) {
+                    pauseJob(jobKey);
+                }
+            }
+            return pausedGroups;
+        });
+    }
+
+    public void resumeTrigger(final TriggerKey triggerKey) throws JobPersistenceException {
+        executeForTrigger(triggerKey, tw -> {
+            if (tw != null) {
+                resumeTriggerInternal(tw);
+            }
+            return null;
+        });
+    }
+
+    public Collection<String> resumeTriggers(final GroupMatcher<TriggerKey> matcher) throws JobPersistenceException {
+        return executeExclusively(() -> {
+            Set<String> groups = new HashSet<>();
+            for (TriggerKey triggerKey : getTriggerKeys(matcher)) {
+                groups.add(triggerKey.getGroup());
+                TriggerWrapper tw = triggersByKey.get(triggerKey);
+                if (tw != null && pausedJobGroups.contains(tw.jobKey.getGroup())) {
+                    continue;
+                }
+                resumeTrigger(triggerKey);
+            }
+            if (pausedTriggerGroups.removeAll(matchGroups(pausedTriggerGroups, matcher))) {
+                pausedTriggerGroupsChanged();
+            }
+            return new ArrayList<>(groups);
+        });
+    }
+
+    public Set<String> getPausedTriggerGroups() {
+        return new HashSet<>(pausedTriggerGroups);
+    }
+
+    public void resumeJob(final JobKey jobKey) throws JobPersistenceException {
+        executeInStripe(jobKey, () -> {
+            List<TriggerWrapper> triggersOfJob = triggersByJob.get(jobKey);
+            if (triggersOfJob != null) {
+                for (TriggerWrapper tw : triggersOfJob) {
+                    resumeTriggerInternal(tw);
+                }
+            }
+            return null;
+        });
+    }
+
+    public Collection<String> resumeJobs(final GroupMatcher<JobKey> matcher) throws JobPersistenceException {
+        return executeExclusively(() -> {
+            Set<String> resumedGroups = matchGroups(pausedJobGroups, matcher);
+            pausedJobGroups.removeAll(resumedGroups);
+            for (JobKey jobKey : getJobKeys(matcher)) {
+                resumeJob(jobKey);
+            }
+            return resumedGroups;
+        });
+    }
+
+    public void pauseAll() throws JobPersistenceException {
+        executeExclusively(() -> {
+            for (String group : getTriggerGroupNames()) {
+                pauseTriggers(GroupMatcher.triggerGroupEquals(group));
+            }
+            return null;
+        });
+    }
+
+    public void resumeAll() throws JobPersistenceException {
+        executeExclusively(() -> {
+            pausedJobGroups.clear();
+            resumeTriggers(GroupMatcher.anyTriggerGroup());
+            return null;
+        });
+    }
+
+    /**
+     * the lock of the job of the trigger is held
+     */
+    private void pauseTriggerInternal(TriggerWrapper tw) {
+        if (tw.state == TriggerWrapper.STATE_COMPLETE) {
+            return;
+        }
+        tw.state = tw.state == TriggerWrapper.STATE_BLOCKED ? TriggerWrapper.STATE_PAUSED_BLOCKED : TriggerWrapper.STATE_PAUSED;
+        unschedule(tw);
+        triggerChanged(tw.key);
+    }
+
+    /**
+     * the lock of the job of the trigger is held
+     */
+    private void resumeTriggerInternal(TriggerWrapper tw) {
+        if (tw.state != TriggerWrapper.STATE_PAUSED && tw.state != TriggerWrapper.STATE_PAUSED_BLOCKED) {
+            return;
+        }
+        tw.state = blockedJobs.contains(tw.jobKey) ? TriggerWrapper.STATE_BLOCKED : TriggerWrapper.STATE_WAITING;
+        applyMisfire(tw);
+        if (tw.state == TriggerWrapper.STATE_WAITING) {
+            schedule(tw);
+        }
+        triggerChanged(tw.key);
+    }
+
+    private Set<String> matchGroups(Set<String> groups, GroupMatcher<?> matcher) {
+        Set<String> matched = new HashSet<>();
+        StringMatcher.StringOperatorName operator = matcher.getCompareWithOperator();
+        if (operator == StringMatcher.StringOperatorName.EQUALS) {
+            if (groups.contains(matcher.getCompareToValue())) {
+                matched.add(matcher.getCompareToValue());
+            }
+            return matched;
+        }
+        for (String group : groups) {
+            if (operator.evaluate(group, matcher.getCompareToValue())) {
+                matched.add(group);
+            }
+        }
+        return matched;
+    }
+
+    //---------------------------------------------------------------------------
+    // firing
+    //---------------------------------------------------------------------------
+
+    public List<OperableTrigger> acquireNextTriggers(final long noLaterThan, final int maxCount, final long timeWindow) {
+        long start = System.nanoTime();
+        List<OperableTrigger> acquiredTriggers = new ArrayList<>(Math.min(maxCount, 64));
+        Set<JobKey> acquiredJobKeysForNoConcurrentExec = null;
+        TimingWheel.Bucket<TriggerWrapper> excluded = null;
+        long batchEnd = noLaterThan;
+        TimingWheel.Bucket<TriggerWrapper> due = dueEntries;
+        wheelLock.lock();
+        try {
+            drainPendingEntries();
+            purgeStaleEntries();
+            polling:
+            while (acquiredTriggers.size() < maxCount && wheel.poll(batchEnd, due)) {
+                due.sort(FIRE_ORDER);
+                for (int i = 0; i < due.size(); i++) {
+                    TriggerWrapper tw = due.element(i);
+                    long stamp = due.stamp(i);
+                    if (tw.version != stamp) {
+                        staleEntryCount.decrement();
+                        continue;
+                    }
+                    if (due.time(i) > batchEnd || acquiredTriggers.size() == maxCount) {
+                        for (int j = i; j < due.size(); j++) {
+                            wheel.add(due.element(j), due.time(j), due.stamp(j));
+                        }
+                        break polling;
+                    }
+                    ReentrantLock stripe = stripeOf(tw.jobKey);
+                    stripe.lock();
+                    try {
+                        if (tw.version != stamp) {
+                            staleEntryCount.decrement();
+                            continue;
+                        }
+                        if (tw.state != TriggerWrapper.STATE_WAITING) {
+                            tw.scheduled = false;
+                            continue;
+                        }
+                        JobDetail jobDetail = jobsByKey.get(tw.jobKey);
+                        if (jobDetail != null && jobDetail.isConcurrentExectionDisallowed()) {
+                            if (acquiredJobKeysForNoConcurrentExec == null) {
+                                acquiredJobKeysForNoConcurrentExec = new HashSet<>();
+                            }
+                            if (!acquiredJobKeysForNoConcurrentExec.add(tw.jobKey)) {
+                                if (excluded == null) {
+                                    excluded = new TimingWheel.Bucket<>();
+                                }
+                                excluded.add(tw, due.time(i), stamp);
+                                continue;
+                            }
+                        }
+                        tw.scheduled = false;
+                        if (applyMisfire(tw)) {
+                            if (tw.state == TriggerWrapper.STATE_WAITING) {
+                                schedule(tw);
+                            }
+                            if (acquiredJobKeysForNoConcurrentExec != null) {
+                                acquiredJobKeysForNoConcurrentExec.remove(tw.jobKey);
+                            }
+                            continue;
+                        }
+                        tw.state = TriggerWrapper.STATE_ACQUIRED;
+                        tw.trigger.setFireInstanceId(getFiredTriggerRecordId());
+                        if (acquiredTriggers.isEmpty()) {
+                            batchEnd = Math.max(due.time(i), System.currentTimeMillis()) + timeWindow;
+                        }
+                        acquiredTriggers.add((OperableTrigger) tw.trigger.clone());
+                    } finally {
+                        stripe.unlock();
+                    }
+                }
+                due.clear();
+            }
+            if (excluded != null) {
+                for (int i = 0; i < excluded.size(); i++) {
+                    wheel.add(excluded.element(i), excluded.time(i), excluded.stamp(i));
+                }
+            }
+        } finally {
+            due.clear();
+            wheelLock.unlock();
+        }
+        acquisitionCount.increment();
+        acquisitionTimeNanos.add(System.nanoTime() - start);
+        acquiredTriggerCount.add(acquiredTriggers.size());
+        return acquiredTriggers;
+    }
+
+    public void releaseAcquiredTrigger(final OperableTrigger trigger) {
+        TriggerWrapper tw = lockTrigger(trigger.getKey());
+        if (tw == null) {
+            return;
+        }
+        try {
+            if (tw.state == TriggerWrapper.STATE_ACQUIRED) {
+                tw.state = TriggerWrapper.STATE_WAITING;
+                schedule(tw);
+            }
+        } finally {
+            unlock(tw);
+        }
+    }
+
+    public List<TriggerFiredResult> triggersFired(final List<OperableTrigger> firedTriggers) {
+        List<TriggerFiredResult> results = new ArrayList<>(firedTriggers.size());
+        for (OperableTrigger trigger : firedTriggers) {
+            TriggerWrapper tw = lockTrigger(trigger.getKey());
+            // was the trigger deleted since being acquired?
+            if (tw == null) {
+                continue;
+            }
+            try {
+                // was the trigger completed, paused, blocked, etc. since being acquired?
+                if (tw.state != TriggerWrapper.STATE_ACQUIRED) {
+                    continue;
+                }
+                Calendar cal = null;
+                if (tw.trigger.getCalendarName() != null) {
+                    cal = retrieveCalendar(tw.trigger.getCalendarName());
+                    if (cal == null) {
+                        continue;
+                    }
+                }
+                JobDetail jobDetail = retrieveJob(tw.jobKey);
+                if (jobDetail == null) {
+                    continue;
+                }
+                Date prevFireTime = trigger.getPreviousFireTime();
+                tw.trigger.triggered(cal);
+                trigger.triggered(cal);
+                tw.state = TriggerWrapper.STATE_WAITING;
+                triggerChanged(tw.key);
+
+                TriggerFiredBundle bundle = new TriggerFiredBundle(jobDetail, trigger, cal, false, new Date(),
+                        trigger.getPreviousFireTime(), prevFireTime, trigger.getNextFireTime());
+                if (jobDetail.isConcurrentExectionDisallowed()) {
+                    for (TriggerWrapper ttw : triggersByJob.get(tw.jobKey)) {
+                        if (ttw.state == TriggerWrapper.STATE_WAITING) {
+                            ttw.state = TriggerWrapper.STATE_BLOCKED;
+                        } else if (ttw.state == TriggerWrapper.STATE_PAUSED) {
+                            ttw.state = TriggerWrapper.STATE_PAUSED_BLOCKED;
+                        }
+                        unschedule(ttw);
+                        triggerChanged(ttw.key);
+                    }
+                    blockedJobs.add(tw.jobKey);
+                } else {
+                    schedule(tw);
+                }
+                results.add(new TriggerFiredResult(bundle));
+            } finally {
+                unlock(tw);
+            }
+        }
+        return results;
+    }
+
+    public void triggeredJobComplete(final OperableTrigger trigger, final JobDetail jobDetail,
+                                     final CompletedExecutionInstruction triggerInstCode) {
+        ReentrantLock stripe = stripeOf(jobDetail.getKey());
+        stripe.lock();
+        try {
+            JobDetail storedJob = jobsByKey.get(jobDetail.getKey());
+            // the job may have been deleted during its execution
+            if (storedJob != null) {
+                if (storedJob.isPersistJobDataAfterExecution()) {
+                    JobDataMap newData = jobDetail.getJobDataMap();
+                    if (newData != null) {
+                        newData = (JobDataMap) newData.clone();
+                        newData.clearDirtyFlag();
+                    }
+                    storedJob = storedJob.getJobBuilder().setJobData(newData).build();
+                    jobsByKey.put(storedJob.getKey(), storedJob);
+                    jobChanged(storedJob.getKey());
+                }
+                if (storedJob.isConcurrentExectionDisallowed()) {
+                    blockedJobs.remove(storedJob.getKey());
+                    List<TriggerWrapper> triggersOfJob = triggersByJob.get(storedJob.getKey());
+                    if (triggersOfJob != null) {
+                        for (TriggerWrapper ttw : triggersOfJob) {
+                            if (ttw.state == TriggerWrapper.STATE_BLOCKED) {
+                                ttw.state = TriggerWrapper.STATE_WAITING;
+                                schedule(ttw);
+                                triggerChanged(ttw.key);
+                            } else if (ttw.state == TriggerWrapper.STATE_PAUSED_BLOCKED) {
+                                ttw.state = TriggerWrapper.STATE_PAUSED;
+                                triggerChanged(ttw.key);
+                            }
+                        }
+                    }
+                    signaler.signalSchedulingChange(0L);
+                }
+            } else {
+                blockedJobs.remove(jobDetail.getKey());
+            }
+
+            // the trigger may have been deleted during the execution
+            TriggerWrapper tw = triggersByKey.get(trigger.getKey());
+            if (tw == null || !tw.jobKey.equals(jobDetail.getKey())) {
+                return;
+            }
+            if (triggerInstCode == CompletedExecutionInstruction.DELETE_TRIGGER) {
+                if (trigger.getNextFireTime() == null) {
+                    // rescheduled within the job execution
+                    if (tw.trigger.getNextFireTime() == null) {
+                        removeTriggerInternal(trigger.getKey(), true);
+                    }
+                } else {
+                    removeTriggerInternal(trigger.getKey(), true);
+                    signaler.signalSchedulingChange(0L);
+                }
+            } else if (triggerInstCode == CompletedExecutionInstruction.SET_TRIGGER_COMPLETE) {
+                tw.state = TriggerWrapper.STATE_COMPLETE;
+                unschedule(tw);
+                triggerChanged(tw.key);
+                signaler.signalSchedulingChange(0L);
+            } else if (triggerInstCode == CompletedExecutionInstruction.SET_TRIGGER_ERROR) {
+                log.info("Trigger {} set to ERROR state.", trigger.getKey());
+                tw.state = TriggerWrapper.STATE_ERROR;
+                unschedule(tw);
+                triggerChanged(tw.key);
+                signaler.signalSchedulingChange(0L);
+            } else if (triggerInstCode == CompletedExecutionInstruction.SET_ALL_JOB_TRIGGERS_ERROR) {
+                log.info("All triggers of Job {} set to ERROR state.", trigger.getJobKey());
+                setAllTriggersOfJobToState(trigger.getJobKey(), TriggerWrapper.STATE_ERROR);
+                signaler.signalSchedulingChange(0L);
+            } else if (triggerInstCode == CompletedExecutionInstruction.SET_ALL_JOB_TRIGGERS_COMPLETE) {
+                setAllTriggersOfJobToState(trigger.getJobKey(), TriggerWrapper.STATE_COMPLETE);
+                signaler.signalSchedulingChange(0L);
+            }
+        } finally {
+            stripe.unlock();
+        }
+    }
+
+    /**
+     * the lock of the job is held
+     */
+    private void setAllTriggersOfJobToState(JobKey jobKey, int state) {
+        List<TriggerWrapper> triggersOfJob = triggersByJob.get(jobKey);
+        if (triggersOfJob == null) {
+            return;
+        }
+        for (TriggerWrapper tw : triggersOfJob) {
+            tw.state = state;
+            unschedule(tw);
+            triggerChanged(tw.key);
+        }
+    }
+
+    /**
+     * the lock of the job of the trigger is held
+     *
+     * @return whether the next fire time of the trigger changed
+     */
+    private boolean applyMisfire(TriggerWrapper tw) {
+        long misfireTime = System.currentTimeMillis();
+        if (misfireThreshold > 0) {
+            misfireTime -= misfireThreshold;
+        }
+        Date nextFireTime = tw.trigger.getNextFireTime();
+        if (nextFireTime == null || nextFireTime.getTime() > misfireTime
+                || tw.trigger.getMisfireInstruction() == Trigger.MISFIRE_INSTRUCTION_IGNORE_MISFIRE_POLICY) {
+            return false;
+        }
+        Calendar cal = null;
+        if (tw.trigger.getCalendarName() != null) {
+            cal = retrieveCalendar(tw.trigger.getCalendarName());
+        }
+        signaler.notifyTriggerListenersMisfired((OperableTrigger) tw.trigger.clone());
+        tw.trigger.updateAfterMisfire(cal);
+        triggerChanged(tw.key);
+        if (tw.trigger.getNextFireTime() == null) {
+            tw.state = TriggerWrapper.STATE_COMPLETE;
+            unschedule(tw);
+            signaler.notifySchedulerListenersFinalized(tw.trigger);
+        } else if (nextFireTime.equals(tw.trigger.getNextFireTime())) {
+            return false;
+        }
+        return true;
+    }
+
+    protected String getFiredTriggerRecordId() {
+        return String.valueOf(firedTriggerCounter.incrementAndGet());
+    }
+
+    //---------------------------------------------------------------------------
+    // changes
+    //---------------------------------------------------------------------------
+
+    /**
+     * Called when a trigger is stored, removed, fired, misfired or changes its state, the lock of its job held.
+     * Nothing is done here, a subclass keeping the store elsewhere as well finds the trigger as it is now by {@link #executeForTrigger}.
+     */
+    protected void triggerChanged(TriggerKey triggerKey) {
+    }
+
+    /**
+     * Called when a job is stored or removed, or its data is kept after an execution, the lock of the job held.
+     */
+    protected void jobChanged(JobKey jobKey) {
+    }
+
+    /**
+     * Called when a calendar is stored or removed, the store held exclusively.
+     */
+    protected void calendarChanged(String calName) {
+    }
+
+    /**
+     * Called when trigger groups are paused or resumed, the store held exclusively.
+     */
+    protected void pausedTriggerGroupsChanged() {
+    }
+
+    /**
+     * Stores a trigger in the given state, as a subclass keeping the store elsewhere as well had it,
+     * instead of the one following from the paused groups and blocked jobs.
+     *
+     * @param state one of the states of {@link TriggerWrapper}
+     */
+    protected void restoreTrigger(final OperableTrigger trigger, final int state) throws JobPersistenceException {
+        executeInStripe(trigger.getJobKey(), () -> {
+            storeTriggerInternal(trigger, true);
+            TriggerWrapper tw = triggersByKey.get(trigger.getKey());
+            if (tw.state != state) {
+                tw.state = state;
+                if (state == TriggerWrapper.STATE_WAITING) {
+                    schedule(tw);
+                } else {
+                    unschedule(tw);
+                }
+            }
+            return null;
+        });
+    }
+
+    protected void restorePausedTriggerGroups(final Collection<String> groups) throws JobPersistenceException {
+        executeExclusively(() -> pausedTriggerGroups.addAll(groups));
+    }
+
+    //---------------------------------------------------------------------------
+    // wheel
+    //---------------------------------------------------------------------------
+
+    /**
+     * Puts the trigger in the wheel by its next fire time, the entry it had becoming stale.
+     * The lock of the job of the trigger is held.
+     */
+    private void schedule(TriggerWrapper tw) {
+        unschedule(tw);
+        Date nextFireTime = tw.trigger.getNextFireTime();
+        if (nextFireTime == null) {
+            return;
+        }
+        long stamp = ++tw.version;
+        tw.scheduled = true;
+        if (wheelLock.tryLock()) {
+            try {
+                wheel.add(tw, nextFireTime.getTime(), stamp);
+            } finally {
+                wheelLock.unlock();
+            }
+        } else {
+            // acquiring, which takes the lock of the job after the one of the wheel
+            pendingEntries.add(new WheelEntry(tw, nextFireTime.getTime(), stamp));
+        }
+    }
+
+    /**
+     * the lock of the job of the trigger is held
+     */
+    private void unschedule(TriggerWrapper tw) {
+        if (tw.scheduled) {
+            tw.scheduled = false;
+            tw.version++;
+            staleEntryCount.increment();
+        }
+    }
+
+    /**
+     * the lock of the wheel is held
+     */
+    private void drainPendingEntries() {
+        WheelEntry entry;
+        while ((entry = pendingEntries.poll()) != null) {
+            wheel.add(entry.trigger, entry.time, entry.stamp);
+        }
+    }
+
+    /**
+     * the lock of the wheel is held
+     */
+    private void purgeStaleEntries() {
+        long stale = staleEntryCount.sum();
+        if (stale > 1024 && stale * 2 > wheel.size()) {
+            int dropped = wheel.purge((tw, stamp) -> tw.version == stamp);
+            staleEntryCount.add(-dropped);
+            log.debug("Dropped {} stale entries of the time wheel", dropped);
+        }
+    }
+
+    //---------------------------------------------------------------------------
+    // helper methods
+    //---------------------------------------------------------------------------
+
+    protected interface StoreCallback<T> {
+
+        T execute() throws JobPersistenceException;
+    }
+
+    protected interface TriggerCallback<T> {
+
+        /**
+         * @param tw the trigger, null if there is none
+         */
+        T execute(TriggerWrapper tw) throws JobPersistenceException;
+    }
+
+    protected <T> T executeInStripe(JobKey jobKey, StoreCallback<T> callback) throws JobPersistenceException {
+        ReentrantReadWriteLock.ReadLock shared = groupLock.readLock();
+        shared.lock();
+        ReentrantLock stripe = stripeOf(jobKey);
+        stripe.lock();
+        try {
+            return callback.execute();
+        } finally {
+            stripe.unlock();
+            shared.unlock();
+        }
+    }
+
+    protected <T> T executeForTrigger(TriggerKey triggerKey, TriggerCallback<T> callback) throws JobPersistenceException {
+        ReentrantReadWriteLock.ReadLock shared = groupLock.readLock();
+        shared.lock();
+        try {
+            TriggerWrapper tw = lockTrigger(triggerKey);
+            if (tw == null) {
+                return callback.execute(null);
+            }
+            try {
+                return callback.execute(tw);
+            } finally {
+                unlock(tw);
+            }
+        } finally {
+            shared.unlock();
+        }
+    }
+
+    protected <T> T executeExclusively(StoreCallback<T> callback) throws JobPersistenceException {
+        ReentrantReadWriteLock.WriteLock exclusive = groupLock.writeLock();
+        exclusive.lock();
+        try {
+            return callback.execute();
+        } finally {
+            exclusive.unlock();
+        }
+    }
+
+    /**
+     * @return the trigger with the lock of its job held, null if there is none
+     */
+    private TriggerWrapper lockTrigger(TriggerKey triggerKey) {
+        while (true) {
+            TriggerWrapper tw = triggersByKey.get(triggerKey);
+            if (tw == null) {
+                return null;
+            }
+            ReentrantLock stripe = stripeOf(tw.jobKey);
+            stripe.lock();
+            if (triggersByKey.get(triggerKey) == tw) {
+                return tw;
+            }
+            stripe.unlock();
+        }
+    }
+
+    private void unlock(TriggerWrapper tw) {
+        stripeOf(tw.jobKey).unlock();
+    }
+
+    private ReentrantLock stripeOf(JobKey jobKey) {
+        return stripes[(jobKey.hashCode() & Integer.MAX_VALUE) % stripes.length];
+    }
+
+    private static <K> void addToGroup(ConcurrentHashMap<String, Set<K>> groups, String group, K key) {
+        groups.compute(group, (name, keys) -> {
+            if (keys == null) {
+                keys = ConcurrentHashMap.newKeySet();
+            }
+            keys.add(key);
+            return keys;
+        });
+    }
+
+    private static <K> void removeFromGroup(ConcurrentHashMap<String, Set<K>> groups, String group, K key) {
+        groups.computeIfPresent(group, (name, keys) -> {
+            keys.remove(key);
+            return keys.isEmpty() ? null : keys;
+        });
+    }
+
+    protected static class TriggerWrapper {
+
+        static final int STATE_WAITING = 0;
+
+        static final int STATE_ACQUIRED = 1;
+
+        static final int STATE_COMPLETE = 2;
+
+        static final int STATE_PAUSED = 3;
+
+        static final int STATE_BLOCKED = 4;
+
+        static final int STATE_PAUSED_BLOCKED = 5;
+
+        static final int STATE_ERROR = 6;
+
+        final TriggerKey key;
+
+        final JobKey jobKey;
+
+        final OperableTrigger trigger;
+
+        volatile int state = STATE_WAITING;
+
+        /**
+         * moved on whenever the trigger leaves the wheel or is put back, the entries of an older version are stale
+         */
+        volatile long version;
+
+        /**
+         * whether the entry of the current version is in the wheel
+         */
+        boolean scheduled;
+
+        TriggerWrapper(OperableTrigger trigger) {
+            this.key = trigger.getKey();
+            this.jobKey = trigger.getJobKey();
+            this.trigger = trigger;
+        }
+    }
+
+    private static class WheelEntry {
+
+        final TriggerWrapper trigger;
+
+        final long time;
+
+        final long stamp;
+
+        WheelEntry(TriggerWrapper trigger, long time, long stamp) {
+            this.trigger = trigger;
+            this.time = time;
+            this.stamp = stamp;
+        }
+    }
+
+    /**
+     * @return the entries of the wheel, the stale ones included
+     */
+    public int getWheelSize() {
+        wheelLock.lock();
+        try {
+            return wheel.size() + pendingEntries.size();
+        } finally {
+            wheelLock.unlock();
+        }
+    }
+
+    public long getStaleEntryCount() {
+        return Math.max(0L, staleEntryCount.sum());
+    }
+
+    public long getAcquisitionCount() {
+        return acquisitionCount.sum();
+    }
+
+    public long getAcquisitionTimeNanos() {
+        return acquisitionTimeNanos.sum();
+    }
+
+    public long getAcquiredTriggerCount() {
+        return acquiredTriggerCount.sum();
+    }
+
+    public void setInstanceId(String schedInstId) {
+    }
+
+    public String getInstanceName() {
+        return instanceName;
+    }
+
+    public void setInstanceName(String schedName) {
+        this.instanceName = schedName;
+    }
+
+    public void setThreadPoolSize(int poolSize) {
+    }
+
+    public long getAcquireRetryDelay(int failureCount) {
+        return 20L;
+    }
+
+    public long getMisfireThreshold() {
+        return misfireThreshold;
+    }
+
+    public void setMisfireThreshold(long misfireThreshold) {
+        if (misfireThreshold < 1) {
+            throw new IllegalArgumentException("Misfirethreshold must be larger than 0");
+        }
+        this.misfireThreshold = misfireThreshold;
+    }
+
+    public int getLockStripes() {
+        return lockStripes;
+    }
+
+    public void setLockStripes(int lockStripes) {
+        this.lockStripes = lockStripes;
+    }
+}
@@ -0,0 +1,263 @@
+package com.github.attemper.quartz.spring.boot.autoconfigure.jobstore;
+
+import java.util.Arrays;
+
+/**
+ * A hierarchical timing wheel of millisecond ticks, 8 levels of 64 slots, each slot of a level spanning a whole turn of the level below. <br>
+ *
+ * An entry goes to the level of the highest 6 bits its time differs from the cursor in, so the lowest level holding entries holds the earliest ones,
+ * and a bitmap per level finds its earliest slot by a single <code>numberOfTrailingZeros</code>.
+ * Polling a slot above level 0 moves the cursor to the start of the slot and spreads its entries over the levels below,
+ * so an entry is moved at most once per level whatever the number of entries. <br>
+ *
+ * The entries of a slot are parallel arrays of the elements, their times and a stamp given by the caller, nothing is allocated per entry.
+ * Entries not later than the cursor are kept in the slot of the cursor, polled first. <br>
+ *
+ * Not thread-safe.
+ */
+public class TimingWheel<E> {
+
+    private static final int BITS = 6;
+
+    private static final int SLOTS = 1 << BITS;
+
+    private static final int LEVELS = 8;
+
+    /**
+     * the times beyond the top level are kept in its last slot
+     */
+    private static final long SPAN = (1L << (BITS * LEVELS)) - 1;
+
+    private final Bucket<E>[][] buckets;
+
+    private final long[] occupancy = new long[LEVELS];
+
+    private long cursor;
+
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    public TimingWheel(long startTime) {
+        this.cursor = startTime;
+        this.buckets = (Bucket<E>[][]) new Bucket<?>[LEVELS][SLOTS];
+    }
+
+    public void add(E element, long time, long stamp) {
+        place(element, time, stamp);
+        size++;
+    }
+
+    /**
+     * Moves the cursor to the earliest slot of level 0 holding entries, if it starts by <code>noLaterThan</code>,
+     * and hands its entries over to <code>into</code>, which must be empty.
+     *
+     * @return false if there is no such slot
+     */
+    public boolean poll(long noLaterThan, Bucket<E> into) {
+        while (true) {
+            int level = 0;
+            while (level < LEVELS && occupancy[level] == 0) {
+                level++;
+            }
+            if (level == LEVELS) {
+                return false;
+            }
+            int slot = Long.numberOfTrailingZeros(occupancy[level]);
+            long start = (cursor & ~((1L << (BITS * (level + 1))) - 1)) | ((long) slot << (BITS * level));
+            if (start > noLaterThan && (level > 0 || start > cursor)) {
+                return false;
+            }
+            Bucket<E> bucket = buckets[level][slot];
+            occupancy[level] &= ~(1L << slot);
+            if (level == 0) {
+                cursor = Math.max(cursor, start);
+                size -= bucket.size;
+                bucket.swap(into);
+                return true;
+            }
+            cursor = start;
+            for (int i = 0; i < bucket.size; i++) {
+                place(bucket.element(i), bucket.times[i], bucket.stamps[i]);
+            }
+            bucket.clear();
+        }
+    }
+
+    /**
+     * Drops the entries the filter rejects.
+     *
+     * @return the number of entries dropped
+     */
+    public int purge(EntryFilter<? super E> keep) {
+        int dropped = 0;
+        for (int level = 0; level < LEVELS; level++) {
+            long slots = occupancy[level];
+            while (slots != 0) {
+                int slot = Long.numberOfTrailingZeros(slots);
+                slots &= slots - 1;
+                Bucket<E> bucket = buckets[level][slot];
+                dropped += bucket.retain(keep);
+                if (bucket.size == 0) {
+                    occupancy[level] &= ~(1L << slot);
+                }
+            }
+        }
+        size -= dropped;
+        return dropped;
+    }
+
+    public void clear() {
+        for (int level = 0; level < LEVELS; level++) {
+            for (Bucket<E> bucket : buckets[level]) {
+                if (bucket != null) {
+                    bucket.clear();
+                }
+            }
+            occupancy[level] = 0;
+        }
+        size = 0;
+    }
+
+    /**
+     * @return the number of entries, the stale ones included
+     */
+    public int size() {
+        return size;
+    }
+
+    public long getCursor() {
+        return cursor;
+    }
+
+    private void place(E element, long time, long stamp) {
+        long tick = Math.min(Math.max(time, cursor), cursor | SPAN);
+        int level = tick == cursor ? 0 : (63 - Long.numberOfLeadingZeros(tick ^ cursor)) / BITS;
+        int slot = (int) (tick >>> (BITS * level)) & (SLOTS - 1);
+        Bucket<E> bucket = buckets[level][slot];
+        if (bucket == null) {
+            bucket = new Bucket<>();
+            buckets[level][slot] = bucket;
+        }
+        bucket.add(element, time, stamp);
+        occupancy[level] |= 1L << slot;
+    }
+
+    /**
+     * The entries of a slot, or of a poll.
+     */
+    public static final class Bucket<E> {
+
+        private Object[] elements = new Object[4];
+
+        private long[] times = new long[4];
+
+        private long[] stamps = new long[4];
+
+        private int size;
+
+        public int size() {
+            return size;
+        }
+
+        @SuppressWarnings("unchecked")
+        public E element(int index) {
+            return (E) elements[index];
+        }
+
+        public long time(int index) {
+            return times[index];
+        }
+
+        public long stamp(int index) {
+            return stamps[index];
+        }
+
+        public void add(E element, long time, long stamp) {
+            if (size == elements.length) {
+                int capacity = size << 1;
+                elements = Arrays.copyOf(elements, capacity);
+                times = Arrays.copyOf(times, capacity);
+                stamps = Arrays.copyOf(stamps, capacity);
+            }
+            elements[size] = element;
+            times[size] = time;
+            stamps[size] = stamp;
+            size++;
+        }
+
+        public void clear() {
+            Arrays.fill(elements, 0, size, null);
+            size = 0;
+        }
+
+        /**
+         * Orders the entries, left as they are if already in order, which they are when they share a tick and a priority.
+         */
+        public void sort(EntryComparator<? super E> comparator) {
+            int i = 1;
+            while (i < size && comparator.compare(element(i - 1), times[i - 1], element(i), times[i]) <= 0) {
+                i++;
+            }
+            if (i >= size) {
+                return;
+            }
+            Integer[] order = new Integer[size];
+            for (int j = 0; j < size; j++) {
+                order[j] = j;
+            }
+            Arrays.sort(order, (a, b) -> comparator.compare(element(a), times[a], element(b), times[b]));
+            Object[] sortedElements = new Object[elements.length];
+            long[] sortedTimes = new long[times.length];
+            long[] sortedStamps = new long[stamps.length];
+            for (int j = 0; j < size; j++) {
+                sortedElements[j] = elements[order[j]];
+                sortedTimes[j] = times[order[j]];
+                sortedStamps[j] = stamps[order[j]];
+            }
+            elements = sortedElements;
+            times = sortedTimes;
+            stamps = sortedStamps;
+        }
+
+        private int retain(EntryFilter<? super E> keep) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                if (keep.accept(element(i), stamps[i])) {
+                    elements[kept] = elements[i];
+                    times[kept] = times[i];
+                    stamps[kept] = stamps[i];
+                    kept++;
+                }
+            }
+            Arrays.fill(elements, kept, size, null);
+            int dropped = size - kept;
+            size = kept;
+            return dropped;
+        }
+
+        private void swap(Bucket<E> empty) {
+            Object[] elements = this.elements;
+            long[] times = this.times;
+            long[] stamps = this.stamps;
+            int size = this.size;
+            this.elements = empty.elements;
+            this.times = empty.times;
+            this.stamps = empty.stamps;
+            this.size = 0;
+            empty.elements = elements;
+            empty.times = times;
+            empty.stamps = stamps;
+            empty.size = size;
+        }
+    }
+
+    public interface EntryComparator<E> {
+
+        int compare(E element1, long time1, E element2, long time2);
+    }
+
+    public interface EntryFilter<E> {
+
+        boolean accept(E element, long stamp);
+    }
+}
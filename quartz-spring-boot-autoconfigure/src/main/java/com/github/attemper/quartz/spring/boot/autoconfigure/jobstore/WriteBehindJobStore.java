@@ -0,0 +1,849 @@
+package com.github.attemper.quartz.spring.boot.autoconfigure.jobstore;
+
+import org.quartz.Calendar;
+import org.quartz.JobDetail;
+import org.quartz.JobKey;
+import org.quartz.JobPersistenceException;
+import org.quartz.SchedulerConfigException;
+import org.quartz.SchedulerException;
+import org.quartz.Trigger;
+import org.quartz.Trigger.CompletedExecutionInstruction;
+import org.quartz.Trigger.TriggerState;
+import org.quartz.TriggerKey;
+import org.quartz.impl.matchers.GroupMatcher;
+import org.quartz.spi.ClassLoadHelper;
+import org.quartz.spi.OperableTrigger;
+import org.quartz.spi.SchedulerSignaler;
+import org.quartz.spi.TriggerFiredResult;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A JobStore of a single node acquiring, firing and completing the triggers in memory, by a {@link TimeWheelJobStore},
+ * the changes being written behind to the tables of CustomJobStoreCMT, whose properties it takes. <br>
+ *
+ * The journal only holds the keys of the triggers, jobs and calendars changed since the last flush, so the changes of a trigger firing
+ * many times in between are written once, as the trigger is when flushed. The journal is flushed every <code>writeBehindIntervalMills</code>,
+ * as soon as it holds <code>writeBehindBatchSize</code> triggers, and on shutdown, within one transaction under TRIGGER_ACCESS.
+ * A failed flush is retried by the next one, the changes failing on their own being dropped. <br>
+ *
+ * On startup the store is rebuilt from the tables, the triggers blocked by a job still executing being released as by the recovery of JobStoreSupport.
+ * The changes of the last interval are lost if the node dies, no fired trigger is recorded, so nothing is recovered either. Can't be clustered.
+ */
+// the unchecked override of executeInLock inherited from CustomJobStoreCMT is reported on every subclass
+@SuppressWarnings("unchecked")
+public class WriteBehindJobStore extends CustomJobStoreCMT {
+
+    protected long writeBehindIntervalMills = 1000L;
+
+    protected int writeBehindBatchSize = 1000;
+
+    private final MemoryStore memoryStore = new MemoryStore();
+
+    private final Set<TriggerKey> dirtyTriggers = ConcurrentHashMap.newKeySet();
+
+    private final Set<JobKey> dirtyJobs = ConcurrentHashMap.newKeySet();
+
+    private final Set<String> dirtyCalendars = ConcurrentHashMap.newKeySet();
+
+    private final AtomicBoolean dirtyPausedTriggerGroups = new AtomicBoolean();
+
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+
+    private final ReentrantLock journalLock = new ReentrantLock();
+
+    private final LongAdder journalFlushCount = new LongAdder();
+
+    private final LongAdder journalFlushTimeNanos = new LongAdder();
+
+    private final LongAdder journalWrittenCount = new LongAdder();
+
+    private final LongAdder journalCoalescedCount = new LongAdder();
+
+    private final LongAdder journalFailedCount = new LongAdder();
+
+    private final LongAdder journalDroppedCount = new LongAdder();
+
+    private volatile ScheduledExecutorService journalFlusher;
+
+    @Override
+    public void initialize(ClassLoadHelper loadHelper, SchedulerSignaler signaler) throws SchedulerConfigException {
+        if (isClustered()) {
+            throw new SchedulerConfigException("WriteBehindJobStore can't be clustered, the triggers are acquired in memory");
+        }
+        if (writeBehindIntervalMills <= 0) {
+            throw new SchedulerConfigException("writeBehindIntervalMills must be > 0");
+        }
+        super.initialize(loadHelper, signaler);
+        memoryStore.setMisfireThreshold(getMisfireThreshold());
+        memoryStore.setLockStripes(lockStripes);
+        memoryStore.initialize(loadHelper, signaler);
+        try {
+            int count = rebuild();
+            getLog().info("Rebuilt the in-memory store with " + count + " triggers, written behind every " + writeBehindIntervalMills + " ms");
+        } catch (JobPersistenceException e) {
+            throw new SchedulerConfigException("Could not rebuild the in-memory store: " + e.getMessage(), e);
+        }
+        journalFlusher = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, getInstanceName() + "_WriteBehind");
+                thread.setDaemon(getMakeThreadsDaemons());
+                return thread;
+            }
+        });
+        journalFlusher.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                flushJournal();
+            }
+        }, writeBehindIntervalMills, writeBehindIntervalMills, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * neither the misfire handler nor the recovery of JobStoreSupport, the misfires are handled by the in-memory store
+     */
+    @Override
+    public void schedulerStarted() throws SchedulerException {
+        memoryStore.schedulerStarted();
+    }
+
+    @Override
+    public void shutdown() {
+        ScheduledExecutorService flusher = journalFlusher;
+        if (flusher != null) {
+            journalFlusher = null;
+            flusher.shutdown();
+            try {
+                flusher.awaitTermination(getDbRetryInterval(), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException ignore) {
+            }
+            flushJournal();
+        }
+        memoryStore.shutdown();
+        super.shutdown();
+    }
+
+    //---------------------------------------------------------------------------
+    // journal
+    //---------------------------------------------------------------------------
+
+    /**
+     * Loads the paused trigger groups, the jobs, the calendars and the triggers with their states.
+     * A job or trigger which can't be loaded is left in the tables as it is.
+     *
+     * @return the number of triggers loaded
+     */
+    protected int rebuild() throws JobPersistenceException {
+        int count = executeInNonManagedTXLock(LOCK_TRIGGER_ACCESS, new TransactionCallback<Integer>() {
+            @Override
+            public Integer execute(Connection conn) throws JobPersistenceException {
+                try {
+                    memoryStore.restorePausedTriggerGroups(getDelegate().selectPausedTriggerGroups(conn));
+                    for (JobKey jobKey : getJobNames(conn, GroupMatcher.anyJobGroup())) {
+                        try {
+                            JobDetail job = retrieveJob(conn, jobKey);
+                            if (job != null) {
+                                memoryStore.storeJob(job, true);
+                            }
+                        } catch (JobPersistenceException e) {
+                            getLog().warn("Could not load job " + jobKey + ", left out of the in-memory store: " + e.getMessage());
+                        }
+                    }
+                    for (String calName : getCalendarNames(conn)) {
+                        Calendar calendar = retrieveCalendar(conn, calName);
+                        if (calendar != null) {
+                            memoryStore.storeCalendar(calName, calendar, true, false);
+                        }
+                    }
+                    int count = 0;
+                    for (TriggerKey triggerKey : getTriggerNames(conn, GroupMatcher.anyTriggerGroup())) {
+                        try {
+                            OperableTrigger trigger = retrieveTrigger(conn, triggerKey);
+                            if (trigger != null) {
+                                memoryStore.restoreTrigger(trigger, toMemoryState(getDelegate().selectTriggerState(conn, triggerKey)));
+                                count++;
+                            }
+                        } catch (JobPersistenceException e) {
+                            getLog().warn("Could not load trigger " + triggerKey + ", left out of the in-memory store: " + e.getMessage());
+                        }
+                    }
+                    return count;
+                } catch (SQLException e) {
+                    throw new JobPersistenceException("Couldn't rebuild the in-memory store: " + e.getMessage(), e);
+                }
+            }
+        }, null);
+        // what was loaded needs no writing
+        dirtyTriggers.clear();
+        dirtyJobs.clear();
+        dirtyCalendars.clear();
+        dirtyPausedTriggerGroups.set(false);
+        return count;
+    }
+
+    /**
+     * Writes what changed since the last flush as it is now. The jobs are read before the triggers,
+     * so a trigger found in memory has its job written before or along with it. <br>
+     *
+     * If the transaction fails, the changes are written one by one, each within a transaction of its own.
+     * Those still failing while others were written fail by themselves and would fail again: they are dropped, logged and counted,
+     * and written again only once changed again. If none could be written, the database is likely unavailable,
+     * all of them are retried by the next flush.
+     */
+    protected void flushJournal() {
+        journalLock.lock();
+        try {
+            flushRequested.set(false);
+            List<TriggerKey> triggerKeys = drain(dirtyTriggers);
+            List<JobKey> jobKeys = drain(dirtyJobs);
+            List<String> calNames = drain(dirtyCalendars);
+            boolean pausedTriggerGroupsChanged = dirtyPausedTriggerGroups.getAndSet(false);
+            if (triggerKeys.isEmpty() && jobKeys.isEmpty() && calNames.isEmpty() && !pausedTriggerGroupsChanged) {
+                return;
+            }
+            long start = System.nanoTime();
+            final Map<JobKey, JobDetail> jobs = new LinkedHashMap<>();
+            final Map<String, Calendar> calendars = new LinkedHashMap<>();
+            final Map<TriggerKey, TriggerSnapshot> triggers = new LinkedHashMap<>();
+            Set<String> pausedTriggerGroups = null;
+            try {
+                for (JobKey jobKey : jobKeys) {
+                    jobs.put(jobKey, memoryStore.retrieveJob(jobKey));
+                }
+                for (String calName : calNames) {
+                    calendars.put(calName, memoryStore.retrieveCalendar(calName));
+                }
+                for (TriggerKey triggerKey : triggerKeys) {
+                    TriggerSnapshot snapshot = memoryStore.snapshot(triggerKey);
+                    if (snapshot != null) {
+                        // the job was removed and stored again meanwhile, stored rather than removed with the trigger
+                        jobs.replace(snapshot.job.getKey(), null, snapshot.job);
+                    }
+                    triggers.put(triggerKey, snapshot);
+                }
+                if (pausedTriggerGroupsChanged) {
+                    pausedTriggerGroups = memoryStore.getPausedTriggerGroups();
+                }
+            } catch (JobPersistenceException | RuntimeException e) {
+                journalFailedCount.increment();
+                getLog().warn("Failed to read " + (triggerKeys.size() + jobKeys.size() + calNames.size())
+                        + " changes to write behind, retried by the next flush: " + e.getMessage(), e);
+                requeue(triggerKeys, jobKeys, calNames, pausedTriggerGroupsChanged);
+                journalFlushCount.increment();
+                journalFlushTimeNanos.add(System.nanoTime() - start);
+                return;
+            }
+            try {
+                journalWrittenCount.add(writeJournal(jobs, calendars, triggers, pausedTriggerGroups));
+            } catch (JobPersistenceException | RuntimeException e) {
+                journalFailedCount.increment();
+                getLog().warn("Failed to write " + (triggerKeys.size() + jobKeys.size() + calNames.size())
+                        + " changes behind, writing them one by one: " + e.getMessage(), e);
+                writeJournalOneByOne(jobs, calendars, triggers, pausedTriggerGroups);
+            } finally {
+                journalFlushCount.increment();
+                journalFlushTimeNanos.add(System.nanoTime() - start);
+            }
+        } finally {
+            journalLock.unlock();
+        }
+    }
+
+    private int writeJournal(final Map<JobKey, JobDetail> jobs, final Map<String, Calendar> calendars,
+                             final Map<TriggerKey, TriggerSnapshot> triggers, final Set<String> pausedTriggerGroups)
+            throws JobPersistenceException {
+        return executeInNonManagedTXLock(LOCK_TRIGGER_ACCESS, new TransactionCallback<Integer>() {
+            @Override
+            public Integer execute(Connection conn) throws JobPersistenceException {
+                return writeJournal(conn, jobs, calendars, triggers, pausedTriggerGroups);
+            }
+        }, null);
+    }
+
+    /**
+     * in the order of {@link #writeJournal(Connection, Map, Map, Map, Set)}, so a trigger is written after its job
+     */
+    private void writeJournalOneByOne(Map<JobKey, JobDetail> jobs, Map<String, Calendar> calendars,
+                                      Map<TriggerKey, TriggerSnapshot> triggers, Set<String> pausedTriggerGroups) {
+        Map<JobKey, JobDetail> noJobs = Collections.emptyMap();
+        Map<String, Calendar> noCalendars = Collections.emptyMap();
+        Map<TriggerKey, TriggerSnapshot> noTriggers = Collections.emptyMap();
+        List<TriggerKey> failedTriggers = new ArrayList<>();
+        List<JobKey> failedJobs = new ArrayList<>();
+        List<String> failedCalendars = new ArrayList<>();
+        boolean pausedTriggerGroupsFailed = false;
+        Exception failure = null;
+        int succeeded = 0;
+        for (boolean removed : new boolean[]{false, true}) {
+            for (Map.Entry<JobKey, JobDetail> entry : jobs.entrySet()) {
+                if ((entry.getValue() == null) != removed) {
+                    continue;
+                }
+                try {
+                    journalWrittenCount.add(writeJournal(Collections.singletonMap(entry.getKey(), entry.getValue()), noCalendars, noTriggers, null));
+                    succeeded++;
+                } catch (JobPersistenceException | RuntimeException e) {
+                    failedJobs.add(entry.getKey());
+                    failure = e;
+                }
+            }
+            for (Map.Entry<String, Calendar> entry : calendars.entrySet()) {
+                if ((entry.getValue() == null) != removed) {
+                    continue;
+                }
+                try {
+                    journalWrittenCount.add(writeJournal(noJobs, Collections.singletonMap(entry.getKey(), entry.getValue()), noTriggers, null));
+                    succeeded++;
+                } catch (JobPersistenceException | RuntimeException e) {
+                    failedCalendars.add(entry.getKey());
+                    failure = e;
+                }
+            }
+            if (removed) {
+                continue;
+            }
+            for (Map.Entry<TriggerKey, TriggerSnapshot> entry : triggers.entrySet()) {
+                try {
+                    journalWrittenCount.add(writeJournal(noJobs, noCalendars, Collections.singletonMap(entry.getKey(), entry.getValue()), null));
+                    succeeded++;
+                } catch (JobPersistenceException | RuntimeException e) {
+                    failedTriggers.add(entry.getKey());
+                    failure = e;
+                }
+            }
+        }
+        if (pausedTriggerGroups != null) {
+            try {
+                journalWrittenCount.add(writeJournal(noJobs, noCalendars, noTriggers, pausedTriggerGroups));
+                succeeded++;
+            } catch (JobPersistenceException | RuntimeException e) {
+                pausedTriggerGroupsFailed = true;
+                failure = e;
+            }
+        }
+        int failed = failedTriggers.size() + failedJobs.size() + failedCalendars.size() + (pausedTriggerGroupsFailed ? 1 : 0);
+        if (failed == 0) {
+            return;
+        }
+        if (succeeded == 0) {
+            getLog().error("Couldn't write any of " + failed + " changes behind, retried by the next flush: " + failure.getMessage(), failure);
+            requeue(failedTriggers, failedJobs, failedCalendars, pausedTriggerGroupsFailed);
+            return;
+        }
+        journalDroppedCount.add(failed);
+        getLog().error("Dropped " + failed + " changes which could not be written behind on their own, written again once changed again:"
+                + (failedJobs.isEmpty() ? "" : " jobs " + failedJobs)
+                + (failedCalendars.isEmpty() ? "" : " calendars " + failedCalendars)
+                + (failedTriggers.isEmpty() ? "" : " triggers " + failedTriggers)
+                + (pausedTriggerGroupsFailed ? " paused trigger groups" : "") + ": " + failure.getMessage(), failure);
+    }
+
+    private void requeue(List<TriggerKey> triggerKeys, List<JobKey> jobKeys, List<String> calNames, boolean pausedTriggerGroupsChanged) {
+        dirtyTriggers.addAll(triggerKeys);
+        dirtyJobs.addAll(jobKeys);
+        dirtyCalendars.addAll(calNames);
+        if (pausedTriggerGroupsChanged) {
+            dirtyPausedTriggerGroups.set(true);
+        }
+    }
+
+    /**
+     * the stored before the removed, a job being removed with its triggers and a calendar only if no trigger refers to it
+     *
+     * @return the number of rows stored or removed
+     */
+    protected int writeJournal(Connection conn, Map<JobKey, JobDetail> jobs, Map<String, Calendar> calendars,
+                               Map<TriggerKey, TriggerSnapshot> triggers, Set<String> pausedTriggerGroups) throws JobPersistenceException {
+        int written = 0;
+        for (JobDetail job : jobs.values()) {
+            if (job != null) {
+                storeJob(conn, job, true);
+                written++;
+            }
+        }
+        for (Map.Entry<String, Calendar> entry : calendars.entrySet()) {
+            if (entry.getValue() != null) {
+                storeCalendar(conn, entry.getKey(), entry.getValue(), true, false);
+                written++;
+            }
+        }
+        for (Map.Entry<TriggerKey, TriggerSnapshot> entry : triggers.entrySet()) {
+            TriggerSnapshot snapshot = entry.getValue();
+            if (snapshot != null) {
+                storeTrigger(conn, snapshot.trigger, snapshot.job, true, snapshot.state, true, true);
+                written++;
+            } else if (removeTrigger(conn, entry.getKey())) {
+                written++;
+            }
+        }
+        for (Map.Entry<JobKey, JobDetail> entry : jobs.entrySet()) {
+            if (entry.getValue() == null && removeJob(conn, entry.getKey())) {
+                written++;
+            }
+        }
+        try {
+            for (Map.Entry<String, Calendar> entry : calendars.entrySet()) {
+                // a trigger stored after the removal refers to it again, left in the tables
+                if (entry.getValue() == null && !getDelegate().calendarIsReferenced(conn, entry.getKey())
+                        && removeCalendar(conn, entry.getKey())) {
+                    written++;
+                }
+            }
+            if (pausedTriggerGroups != null) {
+                Set<String> storedGroups = getDelegate().selectPausedTriggerGroups(conn);
+                for (String group : pausedTriggerGroups) {
+                    if (!storedGroups.contains(group)) {
+                        written += getDelegate().insertPausedTriggerGroup(conn, group);
+                    }
+                }
+                for (String group : storedGroups) {
+                    if (!pausedTriggerGroups.contains(group)) {
+                        written += getDelegate().deletePausedTriggerGroup(conn, group);
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new JobPersistenceException("Couldn't write the journal: " + e.getMessage(), e);
+        }
+        return written;
+    }
+
+    private void requestFlush(int pending) {
+        ScheduledExecutorService flusher = journalFlusher;
+        if (pending >= writeBehindBatchSize && flusher != null && flushRequested.compareAndSet(false, true)) {
+            flusher.execute(new Runnable() {
+                @Override
+                public void run() {
+                    flushJournal();
+                }
+            });
+        }
+    }
+
+    private static <K> List<K> drain(Set<K> dirty) {
+        List<K> keys = new ArrayList<>(dirty.size());
+        for (K key : dirty) {
+            if (dirty.remove(key)) {
+                keys.add(key);
+            }
+        }
+        return keys;
+    }
+
+    private static int toMemoryState(String state) {
+        if (STATE_PAUSED.equals(state) || STATE_PAUSED_BLOCKED.equals(state)) {
+            return TimeWheelJobStore.TriggerWrapper.STATE_PAUSED;
+        } else if (STATE_COMPLETE.equals(state)) {
+            return TimeWheelJobStore.TriggerWrapper.STATE_COMPLETE;
+        } else if (STATE_ERROR.equals(state)) {
+            return TimeWheelJobStore.TriggerWrapper.STATE_ERROR;
+        }
+        // the jobs blocking their triggers no longer execute
+        return TimeWheelJobStore.TriggerWrapper.STATE_WAITING;
+    }
+
+    private static String toStoredState(int state) {
+        switch (state) {
+            case TimeWheelJobStore.TriggerWrapper.STATE_PAUSED:
+                return STATE_PAUSED;
+            case TimeWheelJobStore.TriggerWrapper.STATE_BLOCKED:
+                return STATE_BLOCKED;
+            case TimeWheelJobStore.TriggerWrapper.STATE_PAUSED_BLOCKED:
+                return STATE_PAUSED_BLOCKED;
+            case TimeWheelJobStore.TriggerWrapper.STATE_COMPLETE:
+                return STATE_COMPLETE;
+            case TimeWheelJobStore.TriggerWrapper.STATE_ERROR:
+                return STATE_ERROR;
+            default:
+                // an acquired trigger is written as waiting, it is acquired again after a restart
+                return STATE_WAITING;
+        }
+    }
+
+    protected static class TriggerSnapshot {
+
+        final OperableTrigger trigger;
+
+        final JobDetail job;
+
+        final String state;
+
+        TriggerSnapshot(OperableTrigger trigger, JobDetail job, String state) {
+            this.trigger = trigger;
+            this.job = job;
+            this.state = state;
+        }
+    }
+
+    /**
+     * the in-memory store, journaling its changes
+     */
+    private class MemoryStore extends TimeWheelJobStore {
+
+        @Override
+        protected void triggerChanged(TriggerKey triggerKey) {
+            if (dirtyTriggers.add(triggerKey)) {
+                requestFlush(dirtyTriggers.size());
+            } else {
+                journalCoalescedCount.increment();
+            }
+        }
+
+        @Override
+        protected void jobChanged(JobKey jobKey) {
+            if (!dirtyJobs.add(jobKey)) {
+                journalCoalescedCount.increment();
+            }
+        }
+
+        @Override
+        protected void calendarChanged(String calName) {
+            dirtyCalendars.add(calName);
+        }
+
+        @Override
+        protected void pausedTriggerGroupsChanged() {
+            dirtyPausedTriggerGroups.set(true);
+        }
+
+        /**
+         * @return the trigger as it is now, with its job, null if there is none
+         */
+        TriggerSnapshot snapshot(TriggerKey triggerKey) throws JobPersistenceException {
+            return executeForTrigger(triggerKey, tw -> tw == null ? null
+                    : new TriggerSnapshot((OperableTrigger) tw.trigger.clone(), retrieveJob(tw.jobKey), toStoredState(tw.state)));
+        }
+    }
+
+    //---------------------------------------------------------------------------
+    // the in-memory store
+    //---------------------------------------------------------------------------
+
+    @Override
+    public void storeJobAndTrigger(JobDetail newJob, OperableTrigger newTrigger) throws JobPersistenceException {
+        memoryStore.storeJobAndTrigger(newJob, newTrigger);
+    }
+
+    @Override
+    public void storeJob(JobDetail newJob, boolean replaceExisting) throws JobPersistenceException {
+        memoryStore.storeJob(newJob, replaceExisting);
+    }
+
+    @Override
+    public void storeJobsAndTriggers(Map<JobDetail, Set<? extends Trigger>> triggersAndJobs, boolean replace) throws JobPersistenceException {
+        memoryStore.storeJobsAndTriggers(triggersAndJobs, replace);
+    }
+
+    /**
+     * The chunks of a bulk import are stored in memory, as {@link #storeJobsAndTriggers}, and written behind by the journal.
+     *
+     * @return 0, nothing being stored one by one in the tables
+     */
+    @Override
+    protected int storeChunk(Map<JobDetail, List<OperableTrigger>> triggersAndJobs, boolean replace) throws JobPersistenceException {
+        Map<JobDetail, Set<? extends Trigger>> chunk = new LinkedHashMap<>();
+        for (Map.Entry<JobDetail, List<OperableTrigger>> entry : triggersAndJobs.entrySet()) {
+            chunk.put(entry.getKey(), new LinkedHashSet<>(entry.getValue()));
+        }
+        memoryStore.storeJobsAndTriggers(chunk, replace);
+        return 0;
+    }
+
+    @Override
+    public boolean removeJob(JobKey jobKey) throws JobPersistenceException {
+        return memoryStore.removeJob(jobKey);
+    }
+
+    @Override
+    public boolean removeJobs(List<JobKey> jobKeys) throws JobPersistenceException {
+        return memoryStore.removeJobs(jobKeys);
+    }
+
+    @Override
+    public JobDetail retrieveJob(JobKey jobKey) {
+        return memoryStore.retrieveJob(jobKey);
+    }
+
+    @Override
+    public void storeTrigger(OperableTrigger newTrigger, boolean replaceExisting) throws JobPersistenceException {
+        memoryStore.storeTrigger(newTrigger, replaceExisting);
+    }
+
+    @Override
+    public boolean removeTrigger(TriggerKey triggerKey) throws JobPersistenceException {
+        return memoryStore.removeTrigger(triggerKey);
+    }
+
+    @Override
+    public boolean removeTriggers(List<TriggerKey> triggerKeys) throws JobPersistenceException {
+        return memoryStore.removeTriggers(triggerKeys);
+    }
+
+    @Override
+    public boolean replaceTrigger(TriggerKey triggerKey, OperableTrigger newTrigger) throws JobPersistenceException {
+        return memoryStore.replaceTrigger(triggerKey, newTrigger);
+    }
+
+    @Override
+    public OperableTrigger retrieveTrigger(TriggerKey triggerKey) {
+        return memoryStore.retrieveTrigger(triggerKey);
+    }
+
+    @Override
+    public boolean checkExists(JobKey jobKey) {
+        return memoryStore.checkExists(jobKey);
+    }
+
+    @Override
+    public boolean checkExists(TriggerKey triggerKey) {
+        return memoryStore.checkExists(triggerKey);
+    }
+
+    @Override
+    public void clearAllSchedulingData() throws JobPersistenceException {
+        memoryStore.clearAllSchedulingData();
+    }
+
+    @Override
+    public void storeCalendar(String name, Calendar calendar, boolean replaceExisting, boolean updateTriggers) throws JobPersistenceException {
+        memoryStore.storeCalendar(name, calendar, replaceExisting, updateTriggers);
+    }
+
+    @Override
+    public boolean removeCalendar(String calName) throws JobPersistenceException {
+        return memoryStore.removeCalendar(calName);
+    }
+
+    @Override
+    public Calendar retrieveCalendar(String calName) {
+        return memoryStore.retrieveCalendar(calName);
+    }
+
+    @Override
+    public int getNumberOfJobs() {
+        return memoryStore.getNumberOfJobs();
+    }
+
+    @Override
+    public int getNumberOfTriggers() {
+        return memoryStore.getNumberOfTriggers();
+    }
+
+    @Override
+    public int getNumberOfCalendars() {
+        return memoryStore.getNumberOfCalendars();
+    }
+
+    @Override
+    public Set<JobKey> getJobKeys(GroupMatcher<JobKey> matcher) {
+        return memoryStore.getJobKeys(matcher);
+    }
+
+    @Override
+    public Set<TriggerKey> getTriggerKeys(GroupMatcher<TriggerKey> matcher) {
+        return memoryStore.getTriggerKeys(matcher);
+    }
+
+    @Override
+    public List<String> getJobGroupNames() {
+        return memoryStore.getJobGroupNames();
+    }
+
+    @Override
+    public List<String> getTriggerGroupNames() {
+        return memoryStore.getTriggerGroupNames();
+    }
+
+    @Override
+    public List<String> getCalendarNames() {
+        return memoryStore.getCalendarNames();
+    }
+
+    @Override
+    public List<OperableTrigger> getTriggersForJob(JobKey jobKey) {
+        return memoryStore.getTriggersForJob(jobKey);
+    }
+
+    @Override
+    public TriggerState getTriggerState(TriggerKey triggerKey) {
+        return memoryStore.getTriggerState(triggerKey);
+    }
+
+    @Override
+    public void resetTriggerFromErrorState(TriggerKey triggerKey) throws JobPersistenceException {
+        memoryStore.resetTriggerFromErrorState(triggerKey);
+    }
+
+    @Override
+    public void pauseTrigger(TriggerKey triggerKey) throws JobPersistenceException {
+        memoryStore.pauseTrigger(triggerKey);
+    }
+
+    @Override
+    public Set<String> pauseTriggers(GroupMatcher<TriggerKey> matcher) throws JobPersistenceException {
+        return new HashSet<>(memoryStore.pauseTriggers(matcher));
+    }
+
+    @Override
+    public void pauseJob(JobKey jobKey) throws JobPersistenceException {
+        memoryStore.pauseJob(jobKey);
+    }
+
+    @Override
+    public Set<String> pauseJobs(GroupMatcher<JobKey> matcher) throws JobPersistenceException {
+        return new HashSet<>(memoryStore.pauseJobs(matcher));
+    }
+
+    @Override
+    public void resumeTrigger(TriggerKey triggerKey) throws JobPersistenceException {
+        memoryStore.resumeTrigger(triggerKey);
+    }
+
+    @Override
+    public Set<String> resumeTriggers(GroupMatcher<TriggerKey> matcher) throws JobPersistenceException {
+        return new HashSet<>(memoryStore.resumeTriggers(matcher));
+    }
+
+    @Override
+    public Set<String> getPausedTriggerGroups() {
+        return memoryStore.getPausedTriggerGroups();
+    }
+
+    @Override
+    public void resumeJob(JobKey jobKey) throws JobPersistenceException {
+        memoryStore.resumeJob(jobKey);
+    }
+
+    @Override
+    public Set<String> resumeJobs(GroupMatcher<JobKey> matcher) throws JobPersistenceException {
+        return new HashSet<>(memoryStore.resumeJobs(matcher));
+    }
+
+    @Override
+    public void pauseAll() throws JobPersistenceException {
+        memoryStore.pauseAll();
+    }
+
+    @Override
+    public void resumeAll() throws JobPersistenceException {
+        memoryStore.resumeAll();
+    }
+
+    @Override
+    public List<OperableTrigger> acquireNextTriggers(long noLaterThan, int maxCount, long timeWindow) {
+        return memoryStore.acquireNextTriggers(noLaterThan, maxCount, timeWindow);
+    }
+
+    @Override
+    public void releaseAcquiredTrigger(OperableTrigger trigger) {
+        memoryStore.releaseAcquiredTrigger(trigger);
+    }
+
+    @Override
+    public List<TriggerFiredResult> triggersFired(List<OperableTrigger> triggers) {
+        return memoryStore.triggersFired(triggers);
+    }
+
+    @Override
+    public void triggeredJobComplete(OperableTrigger trigger, JobDetail jobDetail, CompletedExecutionInstruction triggerInstCode) {
+        memoryStore.triggeredJobComplete(trigger, jobDetail, triggerInstCode);
+    }
+
+    @Override
+    public void schedulerPaused() {
+        memoryStore.schedulerPaused();
+    }
+
+    @Override
+    public void schedulerResumed() {
+        memoryStore.schedulerResumed();
+    }
+
+    @Override
+    public long getEstimatedTimeToReleaseAndAcquireTrigger() {
+        return memoryStore.getEstimatedTimeToReleaseAndAcquireTrigger();
+    }
+
+    @Override
+    public long getAcquireRetryDelay(int failureCount) {
+        return memoryStore.getAcquireRetryDelay(failureCount);
+    }
+
+    public TimeWheelJobStore getMemoryStore() {
+        return memoryStore;
+    }
+
+    /**
+     * @return the triggers, jobs and calendars changed since the last flush
+     */
+    public int getJournalPendingCount() {
+        return dirtyTriggers.size() + dirtyJobs.size() + dirtyCalendars.size();
+    }
+
+    public long getJournalFlushCount() {
+        return journalFlushCount.sum();
+    }
+
+    public long getJournalFlushTimeNanos() {
+        return journalFlushTimeNanos.sum();
+    }
+
+    /**
+     * @return the number of rows stored or removed by the flushes
+     */
+    public long getJournalWrittenCount() {
+        return journalWrittenCount.sum();
+    }
+
+    /**
+     * @return the number of changes of a trigger or job already in the journal, written once for all
+     */
+    public long getJournalCoalescedCount() {
+        return journalCoalescedCount.sum();
+    }
+
+    public long getJournalFailedCount() {
+        return journalFailedCount.sum();
+    }
+
+    /**
+     * @return the changes which failed on their own and were dropped
+     */
+    public long getJournalDroppedCount() {
+        return journalDroppedCount.sum();
+    }
+
+    public long getWriteBehindIntervalMills() {
+        return writeBehindIntervalMills;
+    }
+
+    public void setWriteBehindIntervalMills(long writeBehindIntervalMills) {
+        this.writeBehindIntervalMills = writeBehindIntervalMills;
+    }
+
+    public int getWriteBehindBatchSize() {
+        return writeBehindBatchSize;
+    }
+
+    public void setWriteBehindBatchSize(int writeBehindBatchSize) {
+        this.writeBehindBatchSize = writeBehindBatchSize;
+    }
+}
@@ -0,0 +1,70 @@
+package com.github.attemper.quartz.spring.boot.autoconfigure.lock;
+
+import org.quartz.impl.jdbcjobstore.LockException;
+import org.quartz.impl.jdbcjobstore.Semaphore;
+
+import java.sql.Connection;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * wrap the lock handler of a job store to measure how long obtaining the locks takes,
+ * which is the row lock wait of <code>SELECT ... FOR UPDATE</code> with the default lock handler of a clustered JDBC job store
+ */
+public class MeteredSemaphore implements Semaphore {
+
+    private final Semaphore delegate;
+
+    private final LongAdder obtainCount = new LongAdder();
+
+    private final LongAdder waitTimeNanos = new LongAdder();
+
+    private final AtomicLong maxWaitTimeNanos = new AtomicLong();
+
+    public MeteredSemaphore(Semaphore delegate) {
+        this.delegate = delegate;
+    }
+
+    public boolean obtainLock(Connection conn, String lockName) throws LockException {
+        long start = System.nanoTime();
+        boolean obtained = delegate.obtainLock(conn, lockName);
+        long waited = System.nanoTime() - start;
+        obtainCount.increment();
+        waitTimeNanos.add(waited);
+        maxWaitTimeNanos.accumulateAndGet(waited, Math::max);
+        return obtained;
+    }
+
+    public void releaseLock(String lockName) throws LockException {
+        delegate.releaseLock(lockName);
+    }
+
+    public boolean requiresConnection() {
+        return delegate.requiresConnection();
+    }
+
+    public Semaphore getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * @return the number of times a lock was obtained
+     */
+    public long getObtainCount() {
+        return obtainCount.sum();
+    }
+
+    /**
+     * @return the total time spent obtaining locks
+     */
+    public long getWaitTimeNanos() {
+        return waitTimeNanos.sum();
+    }
+
+    /**
+     * @return the longest time spent obtaining a lock
+     */
+    public long getMaxWaitTimeNanos() {
+        return maxWaitTimeNanos.get();
+    }
+}
@@ -0,0 +1,204 @@
+package com.github.attemper.quartz.spring.boot.autoconfigure.lock;
+
+import com.github.attemper.quartz.spring.boot.autoconfigure.redis.RedisClientFactory;
+import com.github.attemper.quartz.spring.boot.autoconfigure.redis.RedisLock;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisException;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.sync.RedisCommands;
+import org.quartz.impl.jdbcjobstore.LockException;
+import org.quartz.impl.jdbcjobstore.Semaphore;
+import org.quartz.impl.jdbcjobstore.TablePrefixAware;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * A Semaphore for the JDBC job stores which takes TRIGGER_ACCESS and STATE_ACCESS in redis instead of
+ * <code>SELECT ... FOR UPDATE</code> on the LOCKS table. <br>
+ *
+ * Each lock is a redis key set with a lease of <code>expireInMills</code>, named like the row it replaces:
+ * <code>{tablePrefix}LOCKS:{schedName}:{lockName}</code>. The lease is renewed while the lock is held, so a transaction
+ * longer than it keeps the lock, it only has to outlast the pauses of the holding node. <br>
+ *
+ * The redis properties of org.quartz.jobStore are handed over to this class when it is set as
+ * <code>org.quartz.jobStore.lockHandler.class</code>.
+ */
+public class RedisSemaphore implements Semaphore, TablePrefixAware {
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private final Map<String, RedisLock> locks = new ConcurrentHashMap<>();
+
+    private String host;
+
+    private Integer port;
+
+    private String password;
+
+    private Integer database;
+
+    private Boolean ssl;
+
+    private long expireInMills = 30000L;
+
+    private long lockRetryIntervalMills = 10L;
+
+    private String tablePrefix = "QRTZ_";
+
+    private String schedName;
+
+    private RedisClient redisClient;
+
+    private StatefulRedisConnection<String, String> connection;
+
+    private ScheduledExecutorService watchdog;
+
+    public boolean obtainLock(Connection conn, String lockName) throws LockException {
+        RedisLock lock = getLock(lockName);
+        if (lock.isHeldByCurrentThread()) {
+            if (log.isDebugEnabled()) {
+                log.debug("Lock '{}' already owned by: {}", lockName, Thread.currentThread().getName());
+            }
+            return true;
+        }
+        try {
+            lock.lock();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new LockException("Interrupted while waiting for lock '" + lockName + "'", e);
+        } catch (RedisException e) {
+            throw new LockException("Failure obtaining lock '" + lockName + "': " + e.getMessage(), e);
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Lock '{}' given to: {}", lockName, Thread.currentThread().getName());
+        }
+        return true;
+    }
+
+    public void releaseLock(String lockName) throws LockException {
+        RedisLock lock = locks.get(lockName);
+        if (lock == null || !lock.isHeldByCurrentThread()) {
+            if (log.isDebugEnabled()) {
+                log.debug("Lock '{}' attempt to return by: {} -- but not owner!", lockName, Thread.currentThread().getName());
+            }
+            return;
+        }
+        try {
+            if (!lock.unlock()) {
+                log.error("Lease of lock '{}' was lost before it was returned, another node may have entered meanwhile", lockName);
+            }
+        } catch (RedisException e) {
+            throw new LockException("Failure releasing lock '" + lockName + "', it will expire after "
+                    + expireInMills + " ms: " + e.getMessage(), e);
+        }
+    }
+
+    public boolean requiresConnection() {
+        return false;
+    }
+
+    /**
+     * close the redis connection, the locks may not be used anymore
+     */
+    public synchronized void shutdown() {
+        if (connection != null) {
+            connection.close();
+            connection = null;
+        }
+        if (redisClient != null) {
+            redisClient.shutdown();
+            redisClient = null;
+        }
+        if (watchdog != null) {
+            watchdog.shutdownNow();
+            watchdog = null;
+        }
+        locks.clear();
+    }
+
+    private RedisLock getLock(String lockName) throws LockException {
+        RedisLock lock = locks.get(lockName);
+        if (lock == null) {
+            RedisCommands<String, String> commands = getCommands();
+            ScheduledExecutorService watchdog = getWatchdog();
+            lock = locks.computeIfAbsent(lockName, name -> new RedisLock(commands, tablePrefix + "LOCKS:" + schedName + ":" + name,
+                    expireInMills, lockRetryIntervalMills, watchdog));
+        }
+        return lock;
+    }
+
+    private synchronized RedisCommands<String, String> getCommands() throws LockException {
+        if (connection == null) {
+            try {
+                redisClient = RedisClientFactory.create(host, port, password, database, ssl);
+                connection = redisClient.connect();
+            } catch (RedisException e) {
+                if (redisClient != null) {
+                    redisClient.shutdown();
+                    redisClient = null;
+                }
+                throw new LockException("Could not connect to redis: " + e.getMessage(), e);
+            }
+        }
+        return connection.sync();
+    }
+
+    private synchronized ScheduledExecutorService getWatchdog() {
+        if (watchdog == null) {
+            watchdog = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, schedName + "_RedisLockWatchdog");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return watchdog;
+    }
+
+    public void setTablePrefix(String tablePrefix) {
+        if (tablePrefix != null) {
+            this.tablePrefix = tablePrefix;
+        }
+    }
+
+    public void setSchedName(String schedName) {
+        this.schedName = schedName;
+    }
+
+    public void setHost(String host) {
+        this.host = host;
+    }
+
+    public void setPort(int port) {
+        this.port = port;
+    }
+
+    public void setPassword(String password) {
+        this.password = password;
+    }
+
+    public void setDatabase(int database) {
+        this.database = database;
+    }
+
+    public void setSsl(boolean ssl) {
+        this.ssl = ssl;
+    }
+
+    public long getExpireInMills() {
+        return expireInMills;
+    }
+
+    public void setExpireInMills(long expireInMills) {
+        this.expireInMills = expireInMills;
+    }
+
+    public void setLockRetryIntervalMills(long lockRetryIntervalMills) {
+        this.lockRetryIntervalMills = lockRetryIntervalMills;
+    }
+}
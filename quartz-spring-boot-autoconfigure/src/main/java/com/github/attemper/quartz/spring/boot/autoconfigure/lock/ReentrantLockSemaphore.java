@@ -0,0 +1,175 @@
+package com.github.attemper.quartz.spring.boot.autoconfigure.lock;
+
+import org.quartz.impl.jdbcjobstore.LockException;
+import org.quartz.impl.jdbcjobstore.Semaphore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Connection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * An in-JVM Semaphore for non-clustered JDBC job stores, used instead of the database row locks JobStoreCMT forces. <br>
+ *
+ * Each lock name has its own ReentrantLock, so TRIGGER_ACCESS and STATE_ACCESS never wait for each other,
+ * whereas the single monitor of SimpleSemaphore serializes them. <br>
+ *
+ * A row lock is held until the transaction commits, this lock until the job store releases it. That is the same within the transactions
+ * of the job store itself, committed before the lock is released, but not within a transaction managed by Spring, committed later:
+ * another thread would get the lock before the changes are committed. The job store calls {@link #releaseOnCompletion(String)}
+ * within such a transaction, so that the lock is kept until the transaction completes. <br>
+ *
+ * Contention is counted and can be read by {@link #getAcquiredCount()}, {@link #getContendedCount()},
+ * {@link #getWaitTimeNanos()} and {@link #getMaxWaitTimeNanos()}.
+ */
+public class ReentrantLockSemaphore implements Semaphore {
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private final ThreadLocal<Set<String>> lockOwners = ThreadLocal.withInitial(HashSet::new);
+
+    /**
+     * the locks of the current thread kept until its transaction completes
+     */
+    private final ThreadLocal<Set<String>> locksHeldByTransaction = ThreadLocal.withInitial(HashSet::new);
+
+    private final ConcurrentMap<String, ReentrantLock> locks = new ConcurrentHashMap<>();
+
+    private final boolean fair;
+
+    private final LongAdder acquiredCount = new LongAdder();
+
+    private final LongAdder contendedCount = new LongAdder();
+
+    private final LongAdder waitTimeNanos = new LongAdder();
+
+    private final AtomicLong maxWaitTimeNanos = new AtomicLong();
+
+    public ReentrantLockSemaphore() {
+        this(false);
+    }
+
+    /**
+     * @param fair whether waiting threads get the lock in arrival order, which costs throughput under contention
+     */
+    public ReentrantLockSemaphore(boolean fair) {
+        this.fair = fair;
+    }
+
+    public boolean obtainLock(Connection conn, String lockName) throws LockException {
+        Set<String> ownedLocks = lockOwners.get();
+        if (ownedLocks.contains(lockName)) {
+            if (log.isDebugEnabled()) {
+                log.debug("Lock '{}' already owned by: {}", lockName, Thread.currentThread().getName());
+            }
+            return true;
+        }
+        ReentrantLock lock = locks.computeIfAbsent(lockName, name -> new ReentrantLock(fair));
+        // tried first only to tell the contended obtains apart
+        if (!lock.tryLock()) {
+            contendedCount.increment();
+            long start = System.nanoTime();
+            try {
+                lock.lockInterruptibly();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new LockException("Interrupted while waiting for lock '" + lockName + "'", e);
+            }
+            long waited = System.nanoTime() - start;
+            waitTimeNanos.add(waited);
+            maxWaitTimeNanos.accumulateAndGet(waited, Math::max);
+        }
+        acquiredCount.increment();
+        ownedLocks.add(lockName);
+        if (log.isDebugEnabled()) {
+            log.debug("Lock '{}' given to: {}", lockName, Thread.currentThread().getName());
+        }
+        return true;
+    }
+
+    public void releaseLock(String lockName) {
+        if (locksHeldByTransaction.get().contains(lockName)) {
+            if (log.isDebugEnabled()) {
+                log.debug("Lock '{}' kept by: {} until its transaction completes", lockName, Thread.currentThread().getName());
+            }
+        } else if (lockOwners.get().remove(lockName)) {
+            locks.get(lockName).unlock();
+            if (log.isDebugEnabled()) {
+                log.debug("Lock '{}' returned by: {}", lockName, Thread.currentThread().getName());
+            }
+        } else if (log.isDebugEnabled()) {
+            log.debug("Lock '{}' attempt to return by: {} -- but not owner!", lockName, Thread.currentThread().getName());
+        }
+    }
+
+    /**
+     * Keeps a lock owned by the current thread until the Spring transaction of the thread completes,
+     * the releases meanwhile being ignored. Does nothing outside of a transaction.
+     */
+    public void releaseOnCompletion(final String lockName) {
+        if (!lockOwners.get().contains(lockName)
+                || !TransactionSynchronizationManager.isSynchronizationActive()
+                || !TransactionSynchronizationManager.isActualTransactionActive()
+                || !locksHeldByTransaction.get().add(lockName)) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCompletion(int status) {
+                locksHeldByTransaction.get().remove(lockName);
+                releaseLock(lockName);
+            }
+        });
+    }
+
+    public boolean requiresConnection() {
+        return false;
+    }
+
+    /**
+     * @return the number of times a lock was obtained
+     */
+    public long getAcquiredCount() {
+        return acquiredCount.sum();
+    }
+
+    /**
+     * @return the number of times a lock was busy and the caller had to wait for it
+     */
+    public long getContendedCount() {
+        return contendedCount.sum();
+    }
+
+    /**
+     * @return the total time spent waiting for busy locks
+     */
+    public long getWaitTimeNanos() {
+        return waitTimeNanos.sum();
+    }
+
+    /**
+     * @return the longest time spent waiting for a busy lock
+     */
+    public long getMaxWaitTimeNanos() {
+        return maxWaitTimeNanos.get();
+    }
+
+    /**
+     * @return an estimate of the number of threads waiting for any of the locks at the moment
+     */
+    public int getQueueLength() {
+        int queueLength = 0;
+        for (ReentrantLock lock : locks.values()) {
+            queueLength += lock.getQueueLength();
+        }
+        return queueLength;
+    }
+}
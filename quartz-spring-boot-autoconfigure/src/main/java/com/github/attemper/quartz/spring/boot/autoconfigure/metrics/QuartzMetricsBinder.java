@@ -0,0 +1,424 @@
+package com.github.attemper.quartz.spring.boot.autoconfigure.metrics;
+
+import com.github.attemper.quartz.spring.boot.autoconfigure.db.PinningConnectionProvider;
+import com.github.attemper.quartz.spring.boot.autoconfigure.jobstore.AcquisitionController;
+import com.github.attemper.quartz.spring.boot.autoconfigure.jobstore.CustomJobStoreCMT;
+import com.github.attemper.quartz.spring.boot.autoconfigure.jobstore.JobDetailCache;
+import com.github.attemper.quartz.spring.boot.autoconfigure.jobstore.JobStoreHolder;
+import com.github.attemper.quartz.spring.boot.autoconfigure.jobstore.JournalJobStore;
+import com.github.attemper.quartz.spring.boot.autoconfigure.jobstore.TimeWheelJobStore;
+import com.github.attemper.quartz.spring.boot.autoconfigure.jobstore.WriteBehindJobStore;
+import com.github.attemper.quartz.spring.boot.autoconfigure.lock.MeteredSemaphore;
+import com.github.attemper.quartz.spring.boot.autoconfigure.lock.ReentrantLockSemaphore;
+import com.github.attemper.quartz.spring.boot.autoconfigure.plugin.JdbcJobHistoryPlugin;
+import com.github.attemper.quartz.spring.boot.autoconfigure.shard.ShardedScheduler;
+import com.github.attemper.quartz.spring.boot.autoconfigure.startup.DeferredSchedulerFactory;
+import com.github.attemper.quartz.spring.boot.autoconfigure.threadpool.LaneThreadPool;
+import com.github.attemper.quartz.spring.boot.autoconfigure.threadpool.ThreadPoolHolder;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.quartz.JobListener;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
+import org.quartz.SchedulerFactory;
+import org.quartz.impl.jdbcjobstore.Semaphore;
+import org.quartz.spi.JobStore;
+import org.quartz.spi.ThreadPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Metrics of the scheduler, its thread pool and job store: <br>
+ * quartz.job.execution - execution time of jobs per group <br>
+ * quartz.trigger.misfires - misfired triggers per group <br>
+ * quartz.threads.busy / quartz.threads.idle - threads of the pool executing a job or not <br>
+ * quartz.threads.lane.busy / quartz.threads.lane.queue / quartz.threads.lane.executed - jobs of each lane executing, waiting or done, LaneThreadPool only <br>
+ * quartz.trigger.acquisition / quartz.trigger.acquired - calls of acquireNextTriggers and the triggers acquired, CustomJobStoreCMT and the in-memory job stores only <br>
+ * quartz.trigger.acquisition.batch.size / window / density - the values tuned by adaptiveAcquisition and the density they follow <br>
+ * quartz.jobstore.lock.wait - time spent obtaining TRIGGER_ACCESS / STATE_ACCESS, CustomJobStoreCMT only <br>
+ * quartz.jobstore.connection.borrowed / saved, quartz.jobstore.statement.prepared / reused - with pinConnection only <br>
+ * quartz.jobstore.jobdetail.cache.hit / miss / size - with jobDetailCacheSize > 0 only <br>
+ * quartz.jobstore.completion.buffered / dropped - completions of fired triggers buffered, with batchTriggerCompletion only <br>
+ * quartz.jobstore.wakeup.published / received - wake-ups of the other nodes, with wakeUpChannelClass only <br>
+ * quartz.misfire.recovery.recovered / skipped / batch / backlog - batches of misfired triggers, with misfireRecoveryThreads only <br>
+ * quartz.bulk.import.chunk / triggers - chunks and triggers stored by the BulkJobImporter, CustomJobStoreCMT only <br>
+ * quartz.cluster.recovery.instances / fired - failed nodes and their fired triggers recovered, with clusterRecoveryBatchSize only <br>
+ * quartz.jobstore.wheel.entries / stale - entries of the timing wheel and the stale ones among them, TimeWheelJobStore, WriteBehindJobStore and JournalJobStore only <br>
+ * quartz.jobstore.journal.flush / written / coalesced / failed / dropped / pending - changes written behind to the database, WriteBehindJobStore only <br>
+ * quartz.jobstore.log.appended / bytes / failed / segments / snapshot - changes appended to the segment log and its snapshots, JournalJobStore only <br>
+ * quartz.history.written / dropped / failed / pending - events of the JdbcJobHistoryPlugin
+ */
+public class QuartzMetricsBinder implements MeterBinder {
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private final SchedulerFactory schedulerFactory;
+
+    public QuartzMetricsBinder(SchedulerFactory schedulerFactory) {
+        this.schedulerFactory = schedulerFactory;
+    }
+
+    /**
+     * the shards of a ShardedScheduler are bound one by one, tagged by their own names.
+     * A deferred scheduler is bound once it is initialized.
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        if (schedulerFactory instanceof DeferredSchedulerFactory) {
+            ((DeferredSchedulerFactory) schedulerFactory).whenInitialized(scheduler -> bindTo(registry, scheduler));
+            return;
+        }
+        try {
+            bindTo(registry, schedulerFactory.getScheduler());
+        } catch (SchedulerException e) {
+            log.warn("Could not bind quartz metrics: " + e.getMessage(), e);
+        }
+    }
+
+    private void bindTo(MeterRegistry registry, Scheduler scheduler) {
+        try {
+            if (scheduler instanceof ShardedScheduler) {
+                for (Scheduler shard : ((ShardedScheduler) scheduler).getShards()) {
+                    bindScheduler(registry, shard);
+                }
+            } else {
+                bindScheduler(registry, scheduler);
+            }
+        } catch (SchedulerException e) {
+            log.warn("Could not bind quartz metrics: " + e.getMessage(), e);
+        }
+    }
+
+    private void bindScheduler(MeterRegistry registry, Scheduler scheduler) throws SchedulerException {
+        String schedulerName = scheduler.getSchedulerName();
+        Tags tags = Tags.of("scheduler", schedulerName);
+        QuartzMetricsListener listener = new QuartzMetricsListener(registry, tags);
+        scheduler.getListenerManager().addJobListener(listener);
+        scheduler.getListenerManager().addTriggerListener(listener);
+
+        Gauge.builder("quartz.threads.busy", scheduler, QuartzMetricsBinder::busyThreadCount)
+                .description("threads of the pool executing a job")
+                .tags(tags)
+                .register(registry);
+        Gauge.builder("quartz.threads.idle", scheduler, s -> poolSize(s) - busyThreadCount(s))
+                .description("threads of the pool waiting for a job")
+                .tags(tags)
+                .register(registry);
+
+        ThreadPool threadPool = ThreadPoolHolder.get(schedulerName);
+        if (threadPool instanceof LaneThreadPool) {
+            bindLanes(registry, tags, (LaneThreadPool) threadPool);
+        }
+
+        JobStore jobStore = JobStoreHolder.get(schedulerName);
+        if (jobStore instanceof WriteBehindJobStore) {
+            bindTimeWheel(registry, tags, ((WriteBehindJobStore) jobStore).getMemoryStore());
+            bindJournal(registry, tags, (WriteBehindJobStore) jobStore);
+        } else if (jobStore instanceof CustomJobStoreCMT) {
+            bindJobStore(registry, tags, (CustomJobStoreCMT) jobStore);
+        } else if (jobStore instanceof TimeWheelJobStore) {
+            bindTimeWheel(registry, tags, (TimeWheelJobStore) jobStore);
+            if (jobStore instanceof JournalJobStore) {
+                bindSegmentLog(registry, tags, (JournalJobStore) jobStore);
+            }
+        }
+
+        for (JobListener jobListener : scheduler.getListenerManager().getJobListeners()) {
+            if (jobListener instanceof JdbcJobHistoryPlugin) {
+                bindJobHistory(registry, tags, (JdbcJobHistoryPlugin) jobListener);
+            }
+        }
+    }
+
+    private void bindLanes(MeterRegistry registry, Tags tags, LaneThreadPool threadPool) {
+        for (String laneName : threadPool.getLaneNames()) {
+            Tags laneTags = tags.and("lane", laneName);
+            Gauge.builder("quartz.threads.lane.busy", threadPool, pool -> pool.getBusyCount(laneName))
+                    .description("threads executing a job of the lane")
+                    .tags(laneTags)
+                    .register(registry);
+            Gauge.builder("quartz.threads.lane.queue", threadPool, pool -> pool.getQueueDepth(laneName))
+                    .description("fired jobs of the lane waiting for a thread")
+                    .tags(laneTags)
+                    .register(registry);
+            FunctionCounter.builder("quartz.threads.lane.executed", threadPool, pool -> pool.getExecutedCount(laneName))
+                    .description("jobs of the lane executed")
+                    .tags(laneTags)
+                    .register(registry);
+        }
+    }
+
+    private void bindJobHistory(MeterRegistry registry, Tags tags, JdbcJobHistoryPlugin plugin) {
+        FunctionCounter.builder("quartz.history.written", plugin, JdbcJobHistoryPlugin::getWrittenCount)
+                .description("job history events inserted")
+                .tags(tags)
+                .register(registry);
+        FunctionCounter.builder("quartz.history.dropped", plugin, JdbcJobHistoryPlugin::getDroppedCount)
+                .description("job history events dropped because the buffer was full")
+                .tags(tags)
+                .register(registry);
+        FunctionCounter.builder("quartz.history.failed", plugin, JdbcJobHistoryPlugin::getFailedCount)
+                .description("job history events lost because their batch could not be inserted")
+                .tags(tags)
+                .register(registry);
+        Gauge.builder("quartz.history.pending", plugin, JdbcJobHistoryPlugin::getPendingCount)
+                .description("job history events waiting to be written")
+                .tags(tags)
+                .register(registry);
+    }
+
+    private void bindConnectionProvider(MeterRegistry registry, Tags tags, PinningConnectionProvider connectionProvider) {
+        FunctionCounter.builder("quartz.jobstore.connection.borrowed", connectionProvider, PinningConnectionProvider::getBorrowedCount)
+                .description("connections borrowed from the datasource")
+                .tags(tags)
+                .register(registry);
+        FunctionCounter.builder("quartz.jobstore.connection.saved", connectionProvider, PinningConnectionProvider::getSavedBorrowCount)
+                .description("connections served by the pinned one instead of borrowing from the datasource")
+                .tags(tags)
+                .register(registry);
+        FunctionCounter.builder("quartz.jobstore.statement.prepared", connectionProvider, PinningConnectionProvider::getPreparedStatementCount)
+                .description("statements prepared on the pinned connection")
+                .tags(tags)
+                .register(registry);
+        FunctionCounter.builder("quartz.jobstore.statement.reused", connectionProvider, PinningConnectionProvider::getReusedStatementCount)
+                .description("statements of the pinned connection reused instead of prepared again")
+                .tags(tags)
+                .register(registry);
+    }
+
+    private void bindTimeWheel(MeterRegistry registry, Tags tags, TimeWheelJobStore jobStore) {
+        FunctionTimer.builder("quartz.trigger.acquisition", jobStore,
+                TimeWheelJobStore::getAcquisitionCount, TimeWheelJobStore::getAcquisitionTimeNanos, TimeUnit.NANOSECONDS)
+                .description("calls of acquireNextTriggers")
+                .tags(tags)
+                .register(registry);
+        FunctionCounter.builder("quartz.trigger.acquired", jobStore, TimeWheelJobStore::getAcquiredTriggerCount)
+                .description("triggers acquired")
+                .tags(tags)
+                .register(registry);
+        Gauge.builder("quartz.jobstore.wheel.entries", jobStore, TimeWheelJobStore::getWheelSize)
+                .description("entries of the timing wheel, the stale ones included")
+                .tags(tags)
+                .register(registry);
+        Gauge.builder("quartz.jobstore.wheel.stale", jobStore, TimeWheelJobStore::getStaleEntryCount)
+                .description("entries of the timing wheel left by triggers paused, removed or rescheduled, dropped when polled")
+                .tags(tags)
+                .register(registry);
+    }
+
+    private void bindJournal(MeterRegistry registry, Tags tags, WriteBehindJobStore jobStore) {
+        FunctionTimer.builder("quartz.jobstore.journal.flush", jobStore,
+                WriteBehindJobStore::getJournalFlushCount, WriteBehindJobStore::getJournalFlushTimeNanos, TimeUnit.NANOSECONDS)
+                .description("flushes of the changes written behind")
+                .tags(tags)
+                .register(registry);
+        FunctionCounter.builder("quartz.jobstore.journal.written", jobStore, WriteBehindJobStore::getJournalWrittenCount)
+                .description("rows stored or removed by the flushes")
+                .tags(tags)
+                .register(registry);
+        FunctionCounter.builder("quartz.jobstore.journal.coalesced", jobStore, WriteBehindJobStore::getJournalCoalescedCount)
+                .description("changes of a trigger or job already waiting for the flush, written once for all")
+                .tags(tags)
+                .register(registry);
+        FunctionCounter.builder("quartz.jobstore.journal.failed", jobStore, WriteBehindJobStore::getJournalFailedCount)
+                .description("flushes whose transaction failed, their changes written one by one")
+                .tags(tags)
+                .register(registry);
+        FunctionCounter.builder("quartz.jobstore.journal.dropped", jobStore, WriteBehindJobStore::getJournalDroppedCount)
+                .description("changes which failed on their own and were dropped")
+                .tags(tags)
+                .register(registry);
+        Gauge.builder("quartz.jobstore.journal.pending", jobStore, WriteBehindJobStore::getJournalPendingCount)
+                .description("triggers, jobs and calendars changed since the last flush")
+                .tags(tags)
+                .register(registry);
+    }
+
+    private void bindSegmentLog(MeterRegistry registry, Tags tags, JournalJobStore jobStore) {
+        FunctionCounter.builder("quartz.jobstore.log.appended", jobStore, JournalJobStore::getJournalAppendedCount)
+                .description("changes appended to the segment log")
+                .tags(tags)
+                .register(registry);
+        FunctionCounter.builder("quartz.jobstore.log.bytes", jobStore, JournalJobStore::getJournalAppendedBytes)
+                .description("bytes appended to the segment log")
+                .baseUnit("bytes")
+                .tags(tags)
+                .register(registry);
+        FunctionCounter.builder("quartz.jobstore.log.failed", jobStore, JournalJobStore::getJournalFailedCount)
+                .description("changes and snapshots that could not be written, the store kept in memory only until the next snapshot")
+                .tags(tags)
+                .register(registry);
+        Gauge.builder("quartz.jobstore.log.segments", jobStore, JournalJobStore::getJournalSegmentCount)
+                .description("segment files on disk, the one appended to included")
+                .tags(tags)
+                .register(registry);
+        FunctionTimer.builder("quartz.jobstore.log.snapshot", jobStore,
+                JournalJobStore::getSnapshotCount, JournalJobStore::getSnapshotTimeNanos, TimeUnit.NANOSECONDS)
+                .description("snapshots compacting the segment log")
+                .tags(tags)
+                .register(registry);
+    }
+
+    private void bindJobStore(MeterRegistry registry, Tags tags, CustomJobStoreCMT jobStore) {
+        FunctionTimer.builder("quartz.trigger.acquisition", jobStore,
+                CustomJobStoreCMT::getAcquisitionCount, CustomJobStoreCMT::getAcquisitionTimeNanos, TimeUnit.NANOSECONDS)
+                .description("calls of acquireNextTriggers")
+                .tags(tags)
+                .register(registry);
+        FunctionCounter.builder("quartz.trigger.acquired", jobStore, CustomJobStoreCMT::getAcquiredTriggerCount)
+                .description("triggers acquired")
+                .tags(tags)
+                .register(registry);
+
+        AcquisitionController controller = jobStore.getAcquisitionController();
+        if (controller != null) {
+            Gauge.builder("quartz.trigger.acquisition.batch.size", controller, AcquisitionController::getBatchSize)
+                    .description("the batch size of the next acquisition, before the cap of the free workers")
+                    .tags(tags)
+                    .register(registry);
+            TimeGauge.builder("quartz.trigger.acquisition.window", controller, TimeUnit.MILLISECONDS, AcquisitionController::getTimeWindow)
+                    .description("the fire-ahead time window of the next acquisition")
+                    .tags(tags)
+                    .register(registry);
+            Gauge.builder("quartz.trigger.acquisition.density", controller, AcquisitionController::getDensity)
+                    .description("triggers acquired per second, averaged")
+                    .tags(tags)
+                    .register(registry);
+        }
+
+        PinningConnectionProvider connectionProvider = jobStore.getPinningConnectionProvider();
+        if (connectionProvider != null) {
+            bindConnectionProvider(registry, tags, connectionProvider);
+        }
+
+        JobDetailCache jobDetailCache = jobStore.getJobDetailCache();
+        if (jobDetailCache != null) {
+            FunctionCounter.builder("quartz.jobstore.jobdetail.cache.hit", jobDetailCache, JobDetailCache::getHitCount)
+                    .description("job details served from the cache")
+                    .tags(tags)
+                    .register(registry);
+            FunctionCounter.builder("quartz.jobstore.jobdetail.cache.miss", jobDetailCache, JobDetailCache::getMissCount)
+                    .description("job details loaded from the database")
+                    .tags(tags)
+                    .register(registry);
+            Gauge.builder("quartz.jobstore.jobdetail.cache.size", jobDetailCache, JobDetailCache::size)
+                    .description("job details cached")
+                    .tags(tags)
+                    .register(registry);
+        }
+
+        if (jobStore.isBatchTriggerCompletion()) {
+            Gauge.builder("quartz.jobstore.completion.buffered", jobStore, CustomJobStoreCMT::getBufferedCompletionCount)
+                    .description("completions of fired triggers waiting to be written")
+                    .tags(tags)
+                    .register(registry);
+            FunctionCounter.builder("quartz.jobstore.completion.dropped", jobStore, CustomJobStoreCMT::getDroppedCompletionCount)
+                    .description("completions which failed on their own and were dropped")
+                    .tags(tags)
+                    .register(registry);
+        }
+
+        if (jobStore.getWakeUpChannel() != null) {
+            FunctionCounter.builder("quartz.jobstore.wakeup.published", jobStore, CustomJobStoreCMT::getPublishedWakeUpCount)
+                    .description("wake-ups published to the other nodes")
+                    .tags(tags)
+                    .register(registry);
+            FunctionCounter.builder("quartz.jobstore.wakeup.received", jobStore, CustomJobStoreCMT::getReceivedWakeUpCount)
+                    .description("wake-ups received from the other nodes")
+                    .tags(tags)
+                    .register(registry);
+        }
+
+        if (jobStore.getMisfireRecoveryThreads() > 0) {
+            FunctionCounter.builder("quartz.misfire.recovery.recovered", jobStore, CustomJobStoreCMT::getRecoveredMisfireCount)
+                    .description("misfired triggers stored by the batches")
+                    .tags(tags)
+                    .register(registry);
+            FunctionCounter.builder("quartz.misfire.recovery.skipped", jobStore, CustomJobStoreCMT::getSkippedMisfireCount)
+                    .description("misfired triggers left to the next batch, having changed since they were loaded")
+                    .tags(tags)
+                    .register(registry);
+            FunctionTimer.builder("quartz.misfire.recovery.batch", jobStore,
+                    CustomJobStoreCMT::getMisfireBatchCount, CustomJobStoreCMT::getMisfireBatchTimeNanos, TimeUnit.NANOSECONDS)
+                    .description("time the batches of misfired triggers held TRIGGER_ACCESS, including the lock wait")
+                    .tags(tags)
+                    .register(registry);
+            Gauge.builder("quartz.misfire.recovery.backlog", jobStore, CustomJobStoreCMT::getMisfireBacklog)
+                    .description("misfired triggers left, as counted by the last batch")
+                    .tags(tags)
+                    .register(registry);
+        }
+
+        FunctionTimer.builder("quartz.bulk.import.chunk", jobStore,
+                CustomJobStoreCMT::getBulkChunkCount, CustomJobStoreCMT::getBulkChunkTimeNanos, TimeUnit.NANOSECONDS)
+                .description("time the chunks of the bulk imports held TRIGGER_ACCESS, including the lock wait")
+                .tags(tags)
+                .register(registry);
+        FunctionCounter.builder("quartz.bulk.import.triggers", jobStore, CustomJobStoreCMT::getBulkStoredTriggerCount)
+                .description("triggers stored by the chunks of the bulk imports")
+                .tags(tags)
+                .register(registry);
+
+        if (jobStore.isClustered() && jobStore.getClusterRecoveryBatchSize() > 0) {
+            FunctionCounter.builder("quartz.cluster.recovery.instances", jobStore, CustomJobStoreCMT::getFailedInstanceCount)
+                    .description("failed or restarted nodes recovered")
+                    .tags(tags)
+                    .register(registry);
+            FunctionCounter.builder("quartz.cluster.recovery.fired", jobStore, CustomJobStoreCMT::getRecoveredFiredTriggerCount)
+                    .description("fired triggers of failed nodes recovered")
+                    .tags(tags)
+                    .register(registry);
+        }
+
+        Semaphore lockHandler = jobStore.getLockHandler();
+        if (!(lockHandler instanceof MeteredSemaphore)) {
+            return;
+        }
+        MeteredSemaphore meteredSemaphore = (MeteredSemaphore) lockHandler;
+        Tags lockTags = tags.and("lockHandler", meteredSemaphore.getDelegate().getClass().getSimpleName());
+        FunctionTimer.builder("quartz.jobstore.lock.wait", meteredSemaphore,
+                MeteredSemaphore::getObtainCount, MeteredSemaphore::getWaitTimeNanos, TimeUnit.NANOSECONDS)
+                .description("time spent obtaining the locks of the job store")
+                .tags(lockTags)
+                .register(registry);
+        TimeGauge.builder("quartz.jobstore.lock.wait.max", meteredSemaphore, TimeUnit.NANOSECONDS,
+                MeteredSemaphore::getMaxWaitTimeNanos)
+                .description("longest time spent obtaining a lock of the job store")
+                .tags(lockTags)
+                .register(registry);
+        if (meteredSemaphore.getDelegate() instanceof ReentrantLockSemaphore) {
+            ReentrantLockSemaphore lockSemaphore = (ReentrantLockSemaphore) meteredSemaphore.getDelegate();
+            FunctionCounter.builder("quartz.jobstore.lock.contended", lockSemaphore, ReentrantLockSemaphore::getContendedCount)
+                    .description("times a lock was busy and the caller had to wait for it")
+                    .tags(lockTags)
+                    .register(registry);
+            Gauge.builder("quartz.jobstore.lock.queue", lockSemaphore, ReentrantLockSemaphore::getQueueLength)
+                    .description("threads waiting for a lock")
+                    .tags(lockTags)
+                    .register(registry);
+        }
+    }
+
+    private static double busyThreadCount(Scheduler scheduler) {
+        try {
+            return scheduler.getCurrentlyExecutingJobs().size();
+        } catch (SchedulerException e) {
+            return Double.NaN;
+        }
+    }
+
+    private static double poolSize(Scheduler scheduler) {
+        try {
+            return scheduler.getMetaData().getThreadPoolSize();
+        } catch (SchedulerException e) {
+            return Double.NaN;
+        }
+    }
+}
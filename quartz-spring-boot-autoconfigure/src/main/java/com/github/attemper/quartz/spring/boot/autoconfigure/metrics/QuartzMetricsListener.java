@@ -0,0 +1,66 @@
+package com.github.attemper.quartz.spring.boot.autoconfigure.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobExecutionException;
+import org.quartz.JobListener;
+import org.quartz.Trigger;
+import org.quartz.TriggerListener;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * record the execution time of jobs per group and the misfires of triggers per group
+ */
+public class QuartzMetricsListener implements JobListener, TriggerListener {
+
+    private final MeterRegistry registry;
+
+    private final Iterable<Tag> tags;
+
+    private final String name;
+
+    public QuartzMetricsListener(MeterRegistry registry, Iterable<Tag> tags) {
+        this.registry = registry;
+        this.tags = tags;
+        this.name = getClass().getSimpleName() + "@" + Integer.toHexString(System.identityHashCode(registry));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void jobToBeExecuted(JobExecutionContext context) {
+    }
+
+    public void jobExecutionVetoed(JobExecutionContext context) {
+    }
+
+    public void jobWasExecuted(JobExecutionContext context, JobExecutionException jobException) {
+        Timer.builder("quartz.job.execution")
+                .description("execution time of jobs")
+                .tags(tags)
+                .tags("group", context.getJobDetail().getKey().getGroup(),
+                        "result", jobException == null ? "success" : "failure")
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(context.getJobRunTime(), TimeUnit.MILLISECONDS);
+    }
+
+    public void triggerFired(Trigger trigger, JobExecutionContext context) {
+    }
+
+    public boolean vetoJobExecution(Trigger trigger, JobExecutionContext context) {
+        return false;
+    }
+
+    public void triggerMisfired(Trigger trigger) {
+        registry.counter("quartz.trigger.misfires", Tags.concat(tags, "group", trigger.getKey().getGroup())).increment();
+    }
+
+    public void triggerComplete(Trigger trigger, JobExecutionContext context, Trigger.CompletedExecutionInstruction triggerInstructionCode) {
+    }
+}
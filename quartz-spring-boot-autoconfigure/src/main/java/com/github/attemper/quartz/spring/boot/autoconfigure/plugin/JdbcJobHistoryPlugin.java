@@ -0,0 +1,434 @@
+package com.github.attemper.quartz.spring.boot.autoconfigure.plugin;
+
+import com.github.attemper.quartz.spring.boot.autoconfigure.db.DataSourceHolder;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobExecutionException;
+import org.quartz.JobListener;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerConfigException;
+import org.quartz.SchedulerException;
+import org.quartz.impl.matchers.EverythingMatcher;
+import org.quartz.spi.ClassLoadHelper;
+import org.quartz.spi.SchedulerPlugin;
+import org.quartz.utils.DBConnectionManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Records every execution of a job into a table, see tables_job_history.sql in this package. <br>
+ *
+ * The worker thread only puts an event on a bounded {@link RingBuffer}, a background writer inserts them by JDBC batches
+ * of <code>flushSize</code>, at the latest every <code>flushIntervalMills</code>. When the buffer is full the event is dropped,
+ * or with the <code>BLOCK</code> overflow policy the worker thread waits up to <code>blockTimeoutMills</code> for room before dropping it.
+ */
+public class JdbcJobHistoryPlugin implements SchedulerPlugin, JobListener {
+
+    public static final String OVERFLOW_POLICY_DROP = "DROP";
+
+    public static final String OVERFLOW_POLICY_BLOCK = "BLOCK";
+
+    private static final int MAX_ERROR_MESSAGE_LENGTH = 2000;
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private String name;
+
+    private String schedulerName;
+
+    private String schedulerInstanceId;
+
+    private String dataSource;
+
+    private DataSource springDataSource;
+
+    private String tableName = "QRTZ_JOB_HISTORY";
+
+    private int bufferSize = 8192;
+
+    private int flushSize = 500;
+
+    private long flushIntervalMills = 1000L;
+
+    private String overflowPolicy = OVERFLOW_POLICY_DROP;
+
+    private long blockTimeoutMills = 1000L;
+
+    private RingBuffer<HistoryEvent> buffer;
+
+    private String insertSql;
+
+    private Thread writer;
+
+    private volatile boolean shutdown;
+
+    private final LongAdder writtenCount = new LongAdder();
+
+    private final LongAdder droppedCount = new LongAdder();
+
+    private final LongAdder failedCount = new LongAdder();
+
+    public void initialize(String name, Scheduler scheduler, ClassLoadHelper loadHelper) throws SchedulerException {
+        this.name = name;
+        this.schedulerName = scheduler.getSchedulerName();
+        this.schedulerInstanceId = scheduler.getSchedulerInstanceId();
+        if (dataSource == null) {
+            springDataSource = DataSourceHolder.get();
+            if (springDataSource == null) {
+                throw new SchedulerConfigException("No DataSource found for the job history - 'dataSource' property must be set on plugin " + name);
+            }
+        }
+        if (flushSize <= 0 || flushIntervalMills <= 0) {
+            throw new SchedulerConfigException("flushSize and flushIntervalMills of plugin " + name + " must be > 0");
+        }
+        if (!OVERFLOW_POLICY_DROP.equalsIgnoreCase(overflowPolicy) && !OVERFLOW_POLICY_BLOCK.equalsIgnoreCase(overflowPolicy)) {
+            throw new SchedulerConfigException("Unknown overflowPolicy of plugin " + name + ": " + overflowPolicy);
+        }
+        buffer = new RingBuffer<>(bufferSize);
+        insertSql = "INSERT INTO " + tableName + " (SCHED_NAME, INSTANCE_NAME, FIRE_INSTANCE_ID, JOB_NAME, JOB_GROUP, "
+                + "TRIGGER_NAME, TRIGGER_GROUP, SCHED_TIME, FIRED_TIME, RUN_TIME, REFIRE_COUNT, STATUS, ERROR_MESSAGE) "
+                + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        scheduler.getListenerManager().addJobListener(this, EverythingMatcher.allJobs());
+    }
+
+    public synchronized void start() {
+        if (writer != null) {
+            return;
+        }
+        writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                write();
+            }
+        }, schedulerName + "_JobHistoryWriter");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * the thread pool has been shut down, so the writer inserts what is left and stops
+     */
+    public void shutdown() {
+        shutdown = true;
+        Thread writer;
+        synchronized (this) {
+            writer = this.writer;
+        }
+        if (writer == null) {
+            flush(drain(new ArrayList<HistoryEvent>(), Integer.MAX_VALUE));
+            return;
+        }
+        LockSupport.unpark(writer);
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        long lost = buffer.size();
+        if (lost > 0) {
+            droppedCount.add(lost);
+            log.warn("{} job history events of {} were not written before shutdown", lost, schedulerName);
+        }
+    }
+
+    private void write() {
+        List<HistoryEvent> batch = new ArrayList<>(flushSize);
+        long intervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMills);
+        long deadline = System.nanoTime() + intervalNanos;
+        while (true) {
+            boolean stopping = shutdown;
+            drain(batch, flushSize - batch.size());
+            long now = System.nanoTime();
+            if (batch.size() >= flushSize || (!batch.isEmpty() && now - deadline >= 0) || stopping) {
+                flush(batch);
+                batch.clear();
+                deadline = System.nanoTime() + intervalNanos;
+                if (stopping && buffer.size() == 0) {
+                    return;
+                }
+            } else if (buffer.size() == 0) {
+                LockSupport.parkNanos(this, batch.isEmpty() ? intervalNanos : deadline - now);
+            }
+        }
+    }
+
+    private List<HistoryEvent> drain(List<HistoryEvent> batch, int max) {
+        HistoryEvent event;
+        for (int i = 0; i < max && (event = buffer.poll()) != null; i++) {
+            batch.add(event);
+        }
+        return batch;
+    }
+
+    private void flush(List<HistoryEvent> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        Connection con = null;
+        try {
+            con = getConnection();
+            boolean autoCommit = con.getAutoCommit();
+            if (autoCommit) {
+                con.setAutoCommit(false);
+            }
+            try (PreparedStatement ps = con.prepareStatement(insertSql)) {
+                for (HistoryEvent event : batch) {
+                    event.bind(ps);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                con.commit();
+                writtenCount.add(batch.size());
+            } catch (SQLException e) {
+                con.rollback();
+                throw e;
+            } finally {
+                if (autoCommit) {
+                    con.setAutoCommit(true);
+                }
+            }
+        } catch (SQLException e) {
+            failedCount.add(batch.size());
+            log.warn("Could not write " + batch.size() + " job history events into " + tableName + ": " + e.getMessage(), e);
+        } finally {
+            releaseConnection(con);
+        }
+    }
+
+    private Connection getConnection() throws SQLException {
+        return dataSource == null ? DataSourceUtils.getConnection(springDataSource)
+                : DBConnectionManager.getInstance().getConnection(dataSource);
+    }
+
+    private void releaseConnection(Connection con) {
+        if (con == null) {
+            return;
+        }
+        if (dataSource == null) {
+            DataSourceUtils.releaseConnection(con, springDataSource);
+        } else {
+            try {
+                con.close();
+            } catch (SQLException e) {
+                log.warn("Could not close connection: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    private void publish(HistoryEvent event) {
+        if (buffer.offer(event)) {
+            if (buffer.size() >= flushSize) {
+                wakeUpWriter();
+            }
+            return;
+        }
+        wakeUpWriter();
+        if (OVERFLOW_POLICY_BLOCK.equalsIgnoreCase(overflowPolicy) && !shutdown) {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(blockTimeoutMills);
+            while (System.nanoTime() - deadline < 0 && !shutdown) {
+                LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(100));
+                if (buffer.offer(event)) {
+                    return;
+                }
+            }
+        }
+        droppedCount.increment();
+    }
+
+    private void wakeUpWriter() {
+        Thread writer = this.writer;
+        if (writer != null) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    //---------------------------------------------------------------------------
+    // JobListener
+    //---------------------------------------------------------------------------
+
+    public String getName() {
+        return name;
+    }
+
+    public void jobToBeExecuted(JobExecutionContext context) {
+    }
+
+    public void jobExecutionVetoed(JobExecutionContext context) {
+        publish(new HistoryEvent(context, HistoryEvent.STATUS_VETOED, null));
+    }
+
+    public void jobWasExecuted(JobExecutionContext context, JobExecutionException jobException) {
+        publish(jobException == null ? new HistoryEvent(context, HistoryEvent.STATUS_SUCCESS, null)
+                : new HistoryEvent(context, HistoryEvent.STATUS_FAILED, jobException.getMessage()));
+    }
+
+    /**
+     * what is known of an execution when it completes, nothing is formatted on the worker thread
+     */
+    private class HistoryEvent {
+
+        static final String STATUS_SUCCESS = "SUCCESS";
+
+        static final String STATUS_FAILED = "FAILED";
+
+        static final String STATUS_VETOED = "VETOED";
+
+        private final String fireInstanceId;
+
+        private final String jobName;
+
+        private final String jobGroup;
+
+        private final String triggerName;
+
+        private final String triggerGroup;
+
+        private final long scheduledFireTime;
+
+        private final long fireTime;
+
+        private final long runTime;
+
+        private final int refireCount;
+
+        private final String status;
+
+        private final String errorMessage;
+
+        HistoryEvent(JobExecutionContext context, String status, String errorMessage) {
+            this.fireInstanceId = context.getFireInstanceId();
+            this.jobName = context.getJobDetail().getKey().getName();
+            this.jobGroup = context.getJobDetail().getKey().getGroup();
+            this.triggerName = context.getTrigger().getKey().getName();
+            this.triggerGroup = context.getTrigger().getKey().getGroup();
+            this.scheduledFireTime = context.getScheduledFireTime() == null ? -1 : context.getScheduledFireTime().getTime();
+            this.fireTime = context.getFireTime().getTime();
+            this.runTime = context.getJobRunTime();
+            this.refireCount = context.getRefireCount();
+            this.status = status;
+            this.errorMessage = errorMessage == null || errorMessage.length() <= MAX_ERROR_MESSAGE_LENGTH ? errorMessage
+                    : errorMessage.substring(0, MAX_ERROR_MESSAGE_LENGTH);
+        }
+
+        void bind(PreparedStatement ps) throws SQLException {
+            ps.setString(1, schedulerName);
+            ps.setString(2, schedulerInstanceId);
+            ps.setString(3, fireInstanceId);
+            ps.setString(4, jobName);
+            ps.setString(5, jobGroup);
+            ps.setString(6, triggerName);
+            ps.setString(7, triggerGroup);
+            if (scheduledFireTime < 0) {
+                ps.setNull(8, Types.BIGINT);
+            } else {
+                ps.setLong(8, scheduledFireTime);
+            }
+            ps.setLong(9, fireTime);
+            ps.setLong(10, runTime);
+            ps.setInt(11, refireCount);
+            ps.setString(12, status);
+            if (errorMessage == null) {
+                ps.setNull(13, Types.VARCHAR);
+            } else {
+                ps.setString(13, errorMessage);
+            }
+        }
+    }
+
+    //---------------------------------------------------------------------------
+    // counters
+    //---------------------------------------------------------------------------
+
+    public long getWrittenCount() {
+        return writtenCount.sum();
+    }
+
+    /**
+     * events lost because the buffer was full, or left in it at shutdown
+     */
+    public long getDroppedCount() {
+        return droppedCount.sum();
+    }
+
+    /**
+     * events lost because their batch could not be inserted
+     */
+    public long getFailedCount() {
+        return failedCount.sum();
+    }
+
+    public int getPendingCount() {
+        return buffer == null ? 0 : buffer.size();
+    }
+
+    //---------------------------------------------------------------------------
+    // properties
+    //---------------------------------------------------------------------------
+
+    public String getDataSource() {
+        return dataSource;
+    }
+
+    public void setDataSource(String dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public void setTableName(String tableName) {
+        this.tableName = tableName;
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    public void setBufferSize(int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+    public int getFlushSize() {
+        return flushSize;
+    }
+
+    public void setFlushSize(int flushSize) {
+        this.flushSize = flushSize;
+    }
+
+    public long getFlushIntervalMills() {
+        return flushIntervalMills;
+    }
+
+    public void setFlushIntervalMills(long flushIntervalMills) {
+        this.flushIntervalMills = flushIntervalMills;
+    }
+
+    public String getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    public void setOverflowPolicy(String overflowPolicy) {
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    public long getBlockTimeoutMills() {
+        return blockTimeoutMills;
+    }
+
+    public void setBlockTimeoutMills(long blockTimeoutMills) {
+        this.blockTimeoutMills = blockTimeoutMills;
+    }
+}
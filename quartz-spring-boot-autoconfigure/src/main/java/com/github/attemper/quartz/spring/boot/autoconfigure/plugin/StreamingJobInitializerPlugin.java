@@ -0,0 +1,792 @@
+package com.github.attemper.quartz.spring.boot.autoconfigure.plugin;
+
+import org.quartz.CalendarIntervalScheduleBuilder;
+import org.quartz.CalendarIntervalTrigger;
+import org.quartz.CronScheduleBuilder;
+import org.quartz.CronTrigger;
+import org.quartz.DateBuilder.IntervalUnit;
+import org.quartz.Job;
+import org.quartz.JobBuilder;
+import org.quartz.JobDetail;
+import org.quartz.JobKey;
+import org.quartz.JobPersistenceException;
+import org.quartz.ObjectAlreadyExistsException;
+import org.quartz.ScheduleBuilder;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerConfigException;
+import org.quartz.SchedulerException;
+import org.quartz.SimpleScheduleBuilder;
+import org.quartz.SimpleTrigger;
+import org.quartz.Trigger;
+import org.quartz.TriggerBuilder;
+import org.quartz.TriggerKey;
+import org.quartz.impl.matchers.GroupMatcher;
+import org.quartz.spi.ClassLoadHelper;
+import org.quartz.spi.SchedulerPlugin;
+import org.quartz.xml.XMLSchedulingDataProcessor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.xml.datatype.DatatypeConfigurationException;
+import javax.xml.datatype.DatatypeFactory;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Loads the jobs and triggers of job_scheduling_data_2_0 files, as XMLSchedulingDataProcessorPlugin, for large sets of definitions. <br>
+ *
+ * The files are read by a StAX parser, one job or trigger at a time, <code>parseThreads</code> files in parallel.
+ * Each job and trigger is compared to the one the scheduler has, by the same threads, and only the new and changed ones are stored,
+ * <code>batchSize</code> jobs with their triggers per transaction of {@link Scheduler#scheduleJobs}.
+ * A trigger without a start time is compared regardless of its start time, so it isn't rescheduled when unchanged. <br>
+ *
+ * The pre-processing commands of all the files are executed before any job is stored, a job or trigger defined by several files is taken
+ * from the last one, with the processing directives of that file. The files are not validated against the schema, nor scanned for changes.
+ */
+public class StreamingJobInitializerPlugin implements SchedulerPlugin {
+
+    private static final String FILE_NAME_DELIMITERS = ",";
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private String name;
+
+    private Scheduler scheduler;
+
+    private ClassLoadHelper classLoadHelper;
+
+    private String fileNames = XMLSchedulingDataProcessor.QUARTZ_XML_DEFAULT_FILE_NAME;
+
+    private boolean failOnFileNotFound = true;
+
+    private int parseThreads = Runtime.getRuntime().availableProcessors();
+
+    private int batchSize = 500;
+
+    private final List<String> files = new ArrayList<>();
+
+    private final Map<String, Class<? extends Job>> jobClasses = new ConcurrentHashMap<>();
+
+    private DatatypeFactory datatypeFactory;
+
+    private int loadedJobCount;
+
+    private int loadedTriggerCount;
+
+    private int storedJobCount;
+
+    private int storedTriggerCount;
+
+    private int transactionCount;
+
+    public void initialize(String name, Scheduler scheduler, ClassLoadHelper loadHelper) throws SchedulerException {
+        this.name = name;
+        this.scheduler = scheduler;
+        this.classLoadHelper = loadHelper;
+        if (parseThreads <= 0 || batchSize <= 0) {
+            throw new SchedulerConfigException("parseThreads and batchSize of plugin " + name + " must be > 0");
+        }
+        try {
+            datatypeFactory = DatatypeFactory.newInstance();
+        } catch (DatatypeConfigurationException e) {
+            throw new SchedulerConfigException("No DatatypeFactory for plugin " + name, e);
+        }
+        for (String fileName : fileNames.split(FILE_NAME_DELIMITERS)) {
+            fileName = fileName.trim();
+            if (fileName.isEmpty()) {
+                continue;
+            }
+            if (new File(fileName).exists() || loadHelper.getResource(fileName) != null) {
+                files.add(fileName);
+            } else if (failOnFileNotFound) {
+                throw new SchedulerException("File named '" + fileName + "' does not exist.");
+            } else {
+                log.warn("File named '{}' does not exist.", fileName);
+            }
+        }
+    }
+
+    public void start() {
+        long start = System.nanoTime();
+        final AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(parseThreads, r -> {
+            Thread thread = new Thread(r, name + "_Parser-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<ParsedFile> parsedFiles = parseAll(executor);
+            for (ParsedFile parsedFile : parsedFiles) {
+                executePreProcessCommands(parsedFile);
+            }
+            List<Change> changes = diff(executor, parsedFiles);
+            store(changes);
+            log.info("Loaded {} jobs and {} triggers from {} files in {} ms, {} jobs and {} triggers stored by {} transactions, the others unchanged",
+                    loadedJobCount, loadedTriggerCount, files.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+                    storedJobCount, storedTriggerCount, transactionCount);
+        } catch (Exception e) {
+            log.error("Error scheduling jobs: " + e.getMessage(), e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    public void shutdown() {
+    }
+
+    //---------------------------------------------------------------------------
+    // parse
+    //---------------------------------------------------------------------------
+
+    private List<ParsedFile> parseAll(ExecutorService executor) throws Exception {
+        List<Future<ParsedFile>> futures = new ArrayList<>(files.size());
+        for (final String fileName : files) {
+            futures.add(executor.submit(new Callable<ParsedFile>() {
+                @Override
+                public ParsedFile call() throws Exception {
+                    return parse(fileName);
+                }
+            }));
+        }
+        List<ParsedFile> parsedFiles = new ArrayList<>(files.size());
+        for (Future<ParsedFile> future : futures) {
+            parsedFiles.add(get(future));
+        }
+        return parsedFiles;
+    }
+
+    private ParsedFile parse(String fileName) throws Exception {
+        ParsedFile parsedFile = new ParsedFile();
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        try (InputStream in = open(fileName)) {
+            XMLStreamReader reader = factory.createXMLStreamReader(in);
+            try {
+                while (reader.hasNext()) {
+                    if (reader.next() != XMLStreamConstants.START_ELEMENT) {
+                        continue;
+                    }
+                    switch (reader.getLocalName()) {
+                        case "pre-processing-commands":
+                            parsePreProcessCommands(readElement(reader), parsedFile);
+                            break;
+                        case "processing-directives":
+                            Element directives = readElement(reader);
+                            Boolean overwrite = directives.bool("overwrite-existing-data");
+                            Boolean ignoreDuplicates = directives.bool("ignore-duplicates");
+                            parsedFile.overwrite = overwrite == null ? parsedFile.overwrite : overwrite;
+                            parsedFile.ignoreDuplicates = ignoreDuplicates == null ? parsedFile.ignoreDuplicates : ignoreDuplicates;
+                            break;
+                        case "job":
+                            JobDetail jobDetail = parseJob(readElement(reader));
+                            parsedFile.jobs.put(jobDetail.getKey(), jobDetail);
+                            break;
+                        case "trigger":
+                            for (Element element : readElement(reader).children) {
+                                TriggerDefinition definition = parseTrigger(element);
+                                parsedFile.triggers.put(definition.trigger.getKey(), definition);
+                            }
+                            break;
+                        default:
+                    }
+                }
+            } catch (XMLStreamException | RuntimeException e) {
+                throw new SchedulerException("Could not parse " + fileName + " at line " + reader.getLocation().getLineNumber() + ": " + e.getMessage(), e);
+            } finally {
+                reader.close();
+            }
+        }
+        log.debug("Parsed {} jobs and {} triggers from {}", parsedFile.jobs.size(), parsedFile.triggers.size(), fileName);
+        return parsedFile;
+    }
+
+    private InputStream open(String fileName) throws IOException {
+        File file = new File(fileName);
+        if (file.exists()) {
+            return new FileInputStream(file);
+        }
+        InputStream in = classLoadHelper.getResourceAsStream(fileName);
+        if (in == null) {
+            throw new IOException("File named '" + fileName + "' does not exist.");
+        }
+        return in;
+    }
+
+    /**
+     * reads the element the reader is at and what it contains, the reader left at its end
+     */
+    private static Element readElement(XMLStreamReader reader) throws XMLStreamException {
+        Element element = new Element(reader.getLocalName());
+        StringBuilder text = new StringBuilder();
+        while (true) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                element.children.add(readElement(reader));
+            } else if (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA) {
+                text.append(reader.getText());
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                String trimmed = text.toString().trim();
+                element.text = trimmed.isEmpty() ? null : trimmed;
+                return element;
+            }
+        }
+    }
+
+    private static void parsePreProcessCommands(Element commands, ParsedFile parsedFile) {
+        for (Element command : commands.children) {
+            switch (command.name) {
+                case "delete-jobs-in-group":
+                    if (command.text != null) {
+                        parsedFile.jobGroupsToDelete.add(command.text);
+                    }
+                    break;
+                case "delete-triggers-in-group":
+                    if (command.text != null) {
+                        parsedFile.triggerGroupsToDelete.add(command.text);
+                    }
+                    break;
+                case "delete-job":
+                    parsedFile.jobsToDelete.add(new JobKey(command.required("name"), command.text("group")));
+                    break;
+                case "delete-trigger":
+                    parsedFile.triggersToDelete.add(new TriggerKey(command.required("name"), command.text("group")));
+                    break;
+                default:
+            }
+        }
+    }
+
+    private JobDetail parseJob(Element element) throws ClassNotFoundException {
+        JobDetail jobDetail = JobBuilder.newJob(loadJobClass(element.required("job-class")))
+                .withIdentity(element.required("name"), element.text("group"))
+                .withDescription(element.text("description"))
+                .storeDurably("true".equals(element.text("durability")))
+                .requestRecovery("true".equals(element.text("recover")))
+                .build();
+        putJobData(element, jobDetail.getJobDataMap());
+        return jobDetail;
+    }
+
+    private TriggerDefinition parseTrigger(Element element) {
+        String misfireInstruction = element.text("misfire-instruction");
+        ScheduleBuilder<? extends Trigger> schedule;
+        switch (element.name) {
+            case "simple":
+                String repeatCount = element.text("repeat-count");
+                String repeatInterval = element.text("repeat-interval");
+                SimpleScheduleBuilder simple = SimpleScheduleBuilder.simpleSchedule()
+                        .withIntervalInMilliseconds(repeatInterval == null ? 0L : Long.parseLong(repeatInterval))
+                        .withRepeatCount(repeatCount == null ? 0 : Integer.parseInt(repeatCount));
+                if ("MISFIRE_INSTRUCTION_FIRE_NOW".equals(misfireInstruction)) {
+                    simple.withMisfireHandlingInstructionFireNow();
+                } else if ("MISFIRE_INSTRUCTION_RESCHEDULE_NEXT_WITH_EXISTING_COUNT".equals(misfireInstruction)) {
+                    simple.withMisfireHandlingInstructionNextWithExistingCount();
+                } else if ("MISFIRE_INSTRUCTION_RESCHEDULE_NEXT_WITH_REMAINING_COUNT".equals(misfireInstruction)) {
+                    simple.withMisfireHandlingInstructionNextWithRemainingCount();
+                } else if ("MISFIRE_INSTRUCTION_RESCHEDULE_NOW_WITH_EXISTING_REPEAT_COUNT".equals(misfireInstruction)) {
+                    simple.withMisfireHandlingInstructionNowWithExistingCount();
+                } else if ("MISFIRE_INSTRUCTION_RESCHEDULE_NOW_WITH_REMAINING_REPEAT_COUNT".equals(misfireInstruction)) {
+                    simple.withMisfireHandlingInstructionNowWithRemainingCount();
+                } else {
+                    checkSmartPolicy(misfireInstruction, element);
+                }
+                schedule = simple;
+                break;
+            case "cron":
+                String timeZone = element.text("time-zone");
+                CronScheduleBuilder cron = CronScheduleBuilder.cronSchedule(element.required("cron-expression"))
+                        .inTimeZone(timeZone == null ? null : TimeZone.getTimeZone(timeZone));
+                if ("MISFIRE_INSTRUCTION_DO_NOTHING".equals(misfireInstruction)) {
+                    cron.withMisfireHandlingInstructionDoNothing();
+                } else if ("MISFIRE_INSTRUCTION_FIRE_ONCE_NOW".equals(misfireInstruction)) {
+                    cron.withMisfireHandlingInstructionFireAndProceed();
+                } else {
+                    checkSmartPolicy(misfireInstruction, element);
+                }
+                schedule = cron;
+                break;
+            case "calendar-interval":
+                CalendarIntervalScheduleBuilder calendarInterval = CalendarIntervalScheduleBuilder.calendarIntervalSchedule()
+                        .withInterval(Integer.parseInt(element.required("repeat-interval")), IntervalUnit.valueOf(element.required("repeat-interval-unit")));
+                if ("MISFIRE_INSTRUCTION_DO_NOTHING".equals(misfireInstruction)) {
+                    calendarInterval.withMisfireHandlingInstructionDoNothing();
+                } else if ("MISFIRE_INSTRUCTION_FIRE_ONCE_NOW".equals(misfireInstruction)) {
+                    calendarInterval.withMisfireHandlingInstructionFireAndProceed();
+                } else {
+                    checkSmartPolicy(misfireInstruction, element);
+                }
+                schedule = calendarInterval;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown trigger type: " + element.name);
+        }
+        String startTime = element.text("start-time");
+        String startTimeSecondsInFuture = element.text("start-time-seconds-in-future");
+        String endTime = element.text("end-time");
+        String priority = element.text("priority");
+        Date triggerStartTime;
+        if (startTimeSecondsInFuture != null) {
+            triggerStartTime = new Date(System.currentTimeMillis() + Long.parseLong(startTimeSecondsInFuture) * 1000L);
+        } else {
+            triggerStartTime = startTime == null ? new Date() : parseDateTime(startTime);
+        }
+        Trigger trigger = TriggerBuilder.newTrigger()
+                .withIdentity(element.required("name"), element.text("group"))
+                .withDescription(element.text("description"))
+                .forJob(element.required("job-name"), element.text("job-group"))
+                .startAt(triggerStartTime)
+                .endAt(endTime == null ? null : parseDateTime(endTime))
+                .withPriority(priority == null ? Trigger.DEFAULT_PRIORITY : Integer.parseInt(priority))
+                .modifiedByCalendar(element.text("calendar-name"))
+                .withSchedule(schedule)
+                .build();
+        putJobData(element, trigger.getJobDataMap());
+        return new TriggerDefinition(trigger, startTime != null);
+    }
+
+    private static void checkSmartPolicy(String misfireInstruction, Element element) {
+        if (misfireInstruction != null && !"MISFIRE_INSTRUCTION_SMART_POLICY".equals(misfireInstruction)) {
+            throw new IllegalArgumentException("Unexpected/Unhandlable Misfire Instruction encountered '" + misfireInstruction
+                    + "', for trigger: " + element.text("group") + "." + element.text("name"));
+        }
+    }
+
+    private static void putJobData(Element element, Map<String, Object> jobDataMap) {
+        Element jobData = element.child("job-data-map");
+        if (jobData != null) {
+            for (Element entry : jobData.children) {
+                jobDataMap.put(entry.text("key"), entry.text("value"));
+            }
+        }
+    }
+
+    private Date parseDateTime(String dateTime) {
+        return datatypeFactory.newXMLGregorianCalendar(dateTime).toGregorianCalendar().getTime();
+    }
+
+    /**
+     * few classes for many jobs, each loaded once by a single thread, as the ClassLoadHelper may not be thread-safe
+     */
+    private Class<? extends Job> loadJobClass(String className) throws ClassNotFoundException {
+        Class<? extends Job> jobClass = jobClasses.get(className);
+        if (jobClass == null) {
+            synchronized (jobClasses) {
+                jobClass = jobClasses.get(className);
+                if (jobClass == null) {
+                    jobClass = classLoadHelper.loadClass(className, Job.class);
+                    jobClasses.put(className, jobClass);
+                }
+            }
+        }
+        return jobClass;
+    }
+
+    //---------------------------------------------------------------------------
+    // diff and store
+    //---------------------------------------------------------------------------
+
+    private void executePreProcessCommands(ParsedFile parsedFile) throws SchedulerException {
+        for (String group : parsedFile.jobGroupsToDelete) {
+            for (String groupName : "*".equals(group) ? scheduler.getJobGroupNames() : Collections.singletonList(group)) {
+                log.info("Deleting all jobs in group: {}", groupName);
+                scheduler.deleteJobs(new ArrayList<>(scheduler.getJobKeys(GroupMatcher.jobGroupEquals(groupName))));
+            }
+        }
+        for (String group : parsedFile.triggerGroupsToDelete) {
+            for (String groupName : "*".equals(group) ? scheduler.getTriggerGroupNames() : Collections.singletonList(group)) {
+                log.info("Deleting all triggers in group: {}", groupName);
+                scheduler.unscheduleJobs(new ArrayList<>(scheduler.getTriggerKeys(GroupMatcher.triggerGroupEquals(groupName))));
+            }
+        }
+        if (!parsedFile.jobsToDelete.isEmpty()) {
+            log.info("Deleting jobs: {}", parsedFile.jobsToDelete);
+            scheduler.deleteJobs(parsedFile.jobsToDelete);
+        }
+        if (!parsedFile.triggersToDelete.isEmpty()) {
+            log.info("Deleting triggers: {}", parsedFile.triggersToDelete);
+            scheduler.unscheduleJobs(parsedFile.triggersToDelete);
+        }
+    }
+
+    /**
+     * @return the jobs with their triggers to store, in the order of the files
+     */
+    private List<Change> diff(ExecutorService executor, List<ParsedFile> parsedFiles) throws Exception {
+        final Map<JobKey, Definition> definitions = new LinkedHashMap<>();
+        for (ParsedFile parsedFile : parsedFiles) {
+            for (JobDetail jobDetail : parsedFile.jobs.values()) {
+                Definition definition = definitions.get(jobDetail.getKey());
+                if (definition == null) {
+                    definition = new Definition();
+                    definitions.put(jobDetail.getKey(), definition);
+                }
+                definition.jobDetail = jobDetail;
+                definition.file = parsedFile;
+            }
+        }
+        Map<TriggerKey, JobKey> jobOfTrigger = new ConcurrentHashMap<>();
+        for (ParsedFile parsedFile : parsedFiles) {
+            for (TriggerDefinition triggerDefinition : parsedFile.triggers.values()) {
+                triggerDefinition.file = parsedFile;
+                TriggerKey triggerKey = triggerDefinition.trigger.getKey();
+                JobKey previous = jobOfTrigger.put(triggerKey, triggerDefinition.trigger.getJobKey());
+                if (previous != null) {
+                    definitions.get(previous).triggers.remove(triggerKey);
+                }
+                Definition definition = definitions.get(triggerDefinition.trigger.getJobKey());
+                if (definition == null) {
+                    definition = new Definition();
+                    definitions.put(triggerDefinition.trigger.getJobKey(), definition);
+                }
+                definition.triggers.put(triggerKey, triggerDefinition);
+            }
+        }
+        for (Definition definition : definitions.values()) {
+            loadedJobCount += definition.jobDetail == null ? 0 : 1;
+            loadedTriggerCount += definition.triggers.size();
+        }
+        final List<Map.Entry<JobKey, Definition>> entries = new ArrayList<>(definitions.entrySet());
+        final AtomicInteger next = new AtomicInteger();
+        final int chunk = 64;
+        List<Future<Map<Integer, Change>>> futures = new ArrayList<>();
+        for (int i = 0; i < parseThreads; i++) {
+            futures.add(executor.submit(new Callable<Map<Integer, Change>>() {
+                @Override
+                public Map<Integer, Change> call() throws Exception {
+                    Map<Integer, Change> changes = new LinkedHashMap<>();
+                    int from;
+                    while ((from = next.getAndAdd(chunk)) < entries.size()) {
+                        for (int j = from; j < Math.min(from + chunk, entries.size()); j++) {
+                            Change change = diff(entries.get(j).getKey(), entries.get(j).getValue());
+                            if (change != null) {
+                                changes.put(j, change);
+                            }
+                        }
+                    }
+                    return changes;
+                }
+            }));
+        }
+        Map<Integer, Change> changes = new TreeMap<>();
+        for (Future<Map<Integer, Change>> future : futures) {
+            changes.putAll(get(future));
+        }
+        return new ArrayList<>(changes.values());
+    }
+
+    /**
+     * @return what is to be stored of the job and its triggers, null if nothing
+     */
+    private Change diff(JobKey jobKey, Definition definition) throws SchedulerException {
+        JobDetail jobDetail = definition.jobDetail;
+        boolean jobChanged = false;
+        if (jobDetail != null) {
+            boolean exists;
+            JobDetail existing;
+            try {
+                existing = scheduler.getJobDetail(jobKey);
+                exists = existing != null;
+            } catch (JobPersistenceException e) {
+                if (!(e.getCause() instanceof ClassNotFoundException)) {
+                    throw e;
+                }
+                // its class is gone, replaced if overwritten
+                existing = null;
+                exists = true;
+            }
+            if (exists && !definition.file.overwrite) {
+                if (definition.file.ignoreDuplicates) {
+                    log.info("Not overwriting existing job: {}", jobKey);
+                    return null;
+                }
+                throw new ObjectAlreadyExistsException(jobDetail);
+            }
+            if (!jobDetail.isDurable() && definition.triggers.isEmpty()) {
+                if (!exists) {
+                    throw new SchedulerException("A new job defined without any triggers must be durable: " + jobKey);
+                }
+                if (existing != null && existing.isDurable() && scheduler.getTriggersOfJob(jobKey).isEmpty()) {
+                    throw new SchedulerException("Can't change existing durable job without triggers to non-durable: " + jobKey);
+                }
+            }
+            jobChanged = existing == null || !sameJob(existing, jobDetail);
+        }
+        Set<Trigger> changedTriggers = new LinkedHashSet<>();
+        for (TriggerDefinition triggerDefinition : definition.triggers.values()) {
+            Trigger trigger = triggerDefinition.trigger;
+            Trigger existing = scheduler.getTrigger(trigger.getKey());
+            if (existing != null) {
+                if (!triggerDefinition.file.overwrite) {
+                    if (triggerDefinition.file.ignoreDuplicates) {
+                        log.info("Not overwriting existing trigger: {}", trigger.getKey());
+                        continue;
+                    }
+                    throw new ObjectAlreadyExistsException(trigger);
+                }
+                if (sameTrigger(existing, trigger, triggerDefinition.startTimeSpecified)) {
+                    continue;
+                }
+                if (!existing.getJobKey().equals(trigger.getJobKey())) {
+                    log.warn("Possibly duplicately named ({}) triggers in jobs xml file! ", trigger.getKey());
+                }
+            }
+            changedTriggers.add(trigger);
+        }
+        if (!jobChanged && changedTriggers.isEmpty()) {
+            return null;
+        }
+        if (jobDetail == null) {
+            // triggers of a job defined elsewhere, stored along with it as it is
+            jobDetail = scheduler.getJobDetail(jobKey);
+            if (jobDetail == null) {
+                throw new SchedulerException("Trigger " + changedTriggers.iterator().next().getKey() + " references a non-existent job " + jobKey);
+            }
+        }
+        return new Change(jobDetail, changedTriggers, jobChanged);
+    }
+
+    private void store(List<Change> changes) throws SchedulerException {
+        Map<JobDetail, Set<? extends Trigger>> batch = new LinkedHashMap<>();
+        for (Change change : changes) {
+            batch.put(change.jobDetail, change.triggers);
+            storedJobCount += change.jobChanged ? 1 : 0;
+            storedTriggerCount += change.triggers.size();
+            if (batch.size() >= batchSize) {
+                scheduler.scheduleJobs(batch, true);
+                transactionCount++;
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            scheduler.scheduleJobs(batch, true);
+            transactionCount++;
+        }
+    }
+
+    private static boolean sameJob(JobDetail existing, JobDetail jobDetail) {
+        return existing.getJobClass().equals(jobDetail.getJobClass())
+                && Objects.equals(existing.getDescription(), jobDetail.getDescription())
+                && existing.isDurable() == jobDetail.isDurable()
+                && existing.requestsRecovery() == jobDetail.requestsRecovery()
+                && existing.getJobDataMap().getWrappedMap().equals(jobDetail.getJobDataMap().getWrappedMap());
+    }
+
+    private static boolean sameTrigger(Trigger existing, Trigger trigger, boolean startTimeSpecified) {
+        if (existing.getClass() != trigger.getClass()
+                || !existing.getJobKey().equals(trigger.getJobKey())
+                || !Objects.equals(existing.getDescription(), trigger.getDescription())
+                || existing.getPriority() != trigger.getPriority()
+                || !Objects.equals(existing.getCalendarName(), trigger.getCalendarName())
+                || !Objects.equals(existing.getEndTime(), trigger.getEndTime())
+                || existing.getMisfireInstruction() != trigger.getMisfireInstruction()
+                || !existing.getJobDataMap().getWrappedMap().equals(trigger.getJobDataMap().getWrappedMap())
+                || (startTimeSpecified && !Objects.equals(existing.getStartTime(), trigger.getStartTime()))) {
+            return false;
+        }
+        if (trigger instanceof SimpleTrigger) {
+            SimpleTrigger a = (SimpleTrigger) existing;
+            SimpleTrigger b = (SimpleTrigger) trigger;
+            return a.getRepeatCount() == b.getRepeatCount() && a.getRepeatInterval() == b.getRepeatInterval();
+        }
+        if (trigger instanceof CronTrigger) {
+            CronTrigger a = (CronTrigger) existing;
+            CronTrigger b = (CronTrigger) trigger;
+            return Objects.equals(a.getCronExpression(), b.getCronExpression()) && a.getTimeZone().getID().equals(b.getTimeZone().getID());
+        }
+        if (trigger instanceof CalendarIntervalTrigger) {
+            CalendarIntervalTrigger a = (CalendarIntervalTrigger) existing;
+            CalendarIntervalTrigger b = (CalendarIntervalTrigger) trigger;
+            return a.getRepeatInterval() == b.getRepeatInterval() && a.getRepeatIntervalUnit() == b.getRepeatIntervalUnit()
+                    && a.getTimeZone().getID().equals(b.getTimeZone().getID());
+        }
+        return false;
+    }
+
+    private static <T> T get(Future<T> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        }
+    }
+
+    public int getLoadedJobCount() {
+        return loadedJobCount;
+    }
+
+    public int getLoadedTriggerCount() {
+        return loadedTriggerCount;
+    }
+
+    public int getStoredJobCount() {
+        return storedJobCount;
+    }
+
+    public int getStoredTriggerCount() {
+        return storedTriggerCount;
+    }
+
+    public String getFileNames() {
+        return fileNames;
+    }
+
+    public void setFileNames(String fileNames) {
+        this.fileNames = fileNames;
+    }
+
+    public boolean isFailOnFileNotFound() {
+        return failOnFileNotFound;
+    }
+
+    public void setFailOnFileNotFound(boolean failOnFileNotFound) {
+        this.failOnFileNotFound = failOnFileNotFound;
+    }
+
+    public int getParseThreads() {
+        return parseThreads;
+    }
+
+    public void setParseThreads(int parseThreads) {
+        this.parseThreads = parseThreads;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * An element of the file with its text and the elements it contains, a job or a trigger at most.
+     */
+    private static class Element {
+
+        private final String name;
+
+        private String text;
+
+        private final List<Element> children = new ArrayList<>(8);
+
+        private Element(String name) {
+            this.name = name;
+        }
+
+        private Element child(String childName) {
+            for (Element child : children) {
+                if (child.name.equals(childName)) {
+                    return child;
+                }
+            }
+            return null;
+        }
+
+        private String text(String childName) {
+            Element child = child(childName);
+            return child == null ? null : child.text;
+        }
+
+        private String required(String childName) {
+            String value = text(childName);
+            if (value == null) {
+                throw new IllegalArgumentException("Encountered a '" + name + "' without a " + childName + " specified.");
+            }
+            return value;
+        }
+
+        private Boolean bool(String childName) {
+            String value = text(childName);
+            if (value == null) {
+                return null;
+            }
+            return value.equalsIgnoreCase("true") || value.equalsIgnoreCase("yes") || value.equalsIgnoreCase("y");
+        }
+    }
+
+    private static class ParsedFile {
+
+        private boolean overwrite = true;
+
+        private boolean ignoreDuplicates;
+
+        private final List<String> jobGroupsToDelete = new ArrayList<>();
+
+        private final List<String> triggerGroupsToDelete = new ArrayList<>();
+
+        private final List<JobKey> jobsToDelete = new ArrayList<>();
+
+        private final List<TriggerKey> triggersToDelete = new ArrayList<>();
+
+        private final Map<JobKey, JobDetail> jobs = new LinkedHashMap<>();
+
+        private final Map<TriggerKey, TriggerDefinition> triggers = new LinkedHashMap<>();
+    }
+
+    private static class TriggerDefinition {
+
+        private final Trigger trigger;
+
+        private final boolean startTimeSpecified;
+
+        private ParsedFile file;
+
+        private TriggerDefinition(Trigger trigger, boolean startTimeSpecified) {
+            this.trigger = trigger;
+            this.startTimeSpecified = startTimeSpecified;
+        }
+    }
+
+    /**
+     * a job of the files, or one the triggers of the files refer to, and these triggers
+     */
+    private static class Definition {
+
+        private JobDetail jobDetail;
+
+        private ParsedFile file;
+
+        private final Map<TriggerKey, TriggerDefinition> triggers = new LinkedHashMap<>();
+    }
+
+    private static class Change {
+
+        private final JobDetail jobDetail;
+
+        private final Set<Trigger> triggers;
+
+        private final boolean jobChanged;
+
+        private Change(JobDetail jobDetail, Set<Trigger> triggers, boolean jobChanged) {
+            this.jobDetail = jobDetail;
+            this.triggers = triggers;
+            this.jobChanged = jobChanged;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.github.attemper.quartz.spring.boot.autoconfigure.properties;
+
+/**
+ * Not a quartz property, the settings of the {@link com.github.attemper.quartz.spring.boot.autoconfigure.bulk.BulkJobImporter}.
+ */
+public class BulkImportProperties {
+
+    /**
+     * 1000 <br>
+     *
+     * The number of triggers stored per transaction and hold of TRIGGER_ACCESS, a job being kept with its triggers.
+     */
+    private Integer chunkSize;
+
+    /**
+     * 0 <br>
+     *
+     * The number of threads computing the first fire times of the triggers ahead of the chunk being stored,
+     * 0 for computing them on the importing thread.
+     */
+    private Integer precomputeThreads;
+
+    public Integer getChunkSize() {
+        return chunkSize;
+    }
+
+    public void setChunkSize(Integer chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    public Integer getPrecomputeThreads() {
+        return precomputeThreads;
+    }
+
+    public void setPrecomputeThreads(Integer precomputeThreads) {
+        this.precomputeThreads = precomputeThreads;
+    }
+}
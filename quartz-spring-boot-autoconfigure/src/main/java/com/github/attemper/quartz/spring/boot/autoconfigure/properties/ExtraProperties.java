@@ -46,6 +46,8 @@ public class ExtraProperties {
      * “org.quartz.impl.jdbcjobstore.UpdateLockRowSemaphore” QUARTZ-497 may be of interest to MS SQL Server users. See QUARTZ-441.
      *
      * “JTANonClusteredSemaphore” which is bundled with Quartz may give improved performance when using JobStoreCMT, though it is an experimental implementation. See QUARTZ-441 and QUARTZ-442
+     *
+     * @see com.github.attemper.quartz.spring.boot.autoconfigure.lock.RedisSemaphore
      */
     @Value("${" + StdSchedulerFactory.PROP_JOB_STORE_LOCK_HANDLER_CLASS + ":}")
     private String lockHandlerClass;
@@ -57,6 +59,8 @@ public class ExtraProperties {
      * The threadpool that ships with Quartz is “org.quartz.simpl.SimpleThreadPool”, and should meet the needs of nearly every user.
      * It has very simple behavior and is very well tested.
      * It provides a fixed-size pool of threads that ‘live’ the lifetime of the Scheduler.
+     *
+     * @see com.github.attemper.quartz.spring.boot.autoconfigure.threadpool.VirtualThreadPool
      */
     @Value("${" + StdSchedulerFactory.PROP_THREAD_POOL_CLASS + ":}")
     private String threadPoolClass;
@@ -65,12 +69,18 @@ public class ExtraProperties {
      * @see org.quartz.simpl.RAMJobStore <br>
      * @see org.quartz.impl.jdbcjobstore.JobStoreTX <br>
      * @see org.quartz.impl.jdbcjobstore.JobStoreCMT <br>
+     * @see com.github.attemper.quartz.spring.boot.autoconfigure.jobstore.RedisJobStore <br>
+     * @see com.github.attemper.quartz.spring.boot.autoconfigure.jobstore.TimeWheelJobStore <br>
+     * @see com.github.attemper.quartz.spring.boot.autoconfigure.jobstore.WriteBehindJobStore <br>
+     * @see com.github.attemper.quartz.spring.boot.autoconfigure.jobstore.JournalJobStore <br>
      */
     @Value("${" + StdSchedulerFactory.PROP_JOB_STORE_CLASS + ":}")
     private String jobStoreClass;
 
     /**
      * org.quartz.plugins.history.LoggingJobHistoryPlugin <br>
+     *
+     * @see com.github.attemper.quartz.spring.boot.autoconfigure.plugin.JdbcJobHistoryPlugin
      */
     @Value("${" + ConfigConst.PROP_PLUGIN_JOB_HISTORY_CLASS + ":}")
     private String jobHistoryClass;
@@ -83,6 +93,8 @@ public class ExtraProperties {
 
     /**
      * org.quartz.plugins.xml.XMLSchedulingDataProcessorPlugin <br>
+     *
+     * @see com.github.attemper.quartz.spring.boot.autoconfigure.plugin.StreamingJobInitializerPlugin
      */
     @Value("${" + ConfigConst.PROP_PLUGIN_JOB_INITIALIZER_CLASS + ":}")
     private String jobInitializerClass;
@@ -33,6 +33,10 @@ public class JobStoreProperties {
      * org.quartz.impl.jdbcjobstore.PointbaseDelegate
      * org.quartz.impl.jdbcjobstore.SybaseDelegate
      * Note that many databases are known to work with the StdJDBCDelegate, while others are known to work with delegates for other databases, for example Derby works well with the Cloudscape delegate (no surprise there).
+     * If not set, CustomJobStoreCMT uses com.github.attemper.quartz.spring.boot.autoconfigure.delegate.CustomPostgreSQLDelegate for PostgreSQL
+     * and com.github.attemper.quartz.spring.boot.autoconfigure.delegate.CustomMySQLDelegate for MySQL / MariaDB, which acquire triggers with SKIP LOCKED where supported,
+     * and com.github.attemper.quartz.spring.boot.autoconfigure.delegate.CustomJDBCDelegate for the other databases.
+     * They prepare their statements on each call, reused only on the connection kept by pinConnection.
      */
     private String driverDelegateClass;
 
@@ -177,11 +181,226 @@ public class JobStoreProperties {
      */
     private Long expireInMills;
 
+    /**
+     * quartz <br>
+     *
+     * The prefix of the redis keys used by RedisJobStore, followed by the scheduler name.
+     * Schedulers with the same name and key prefix share their jobs and triggers.
+     */
+    private String keyPrefix;
+
     /**
      *
      */
     private Boolean retainTriggerAfterExecutionCompleted;
 
+    /**
+     * false <br>
+     *
+     * Set to “true” to buffer the completions of fired triggers in memory and write them within one lock and one JDBC batch, instead of one transaction per finished job.
+     * The buffer is flushed when it reaches triggerCompletionBatchSize, every triggerCompletionFlushIntervalMills and on shutdown.
+     * Until then, non-concurrent jobs stay blocked and the fired trigger records are kept (so they may be recovered if the node dies).
+     */
+    private Boolean batchTriggerCompletion;
+
+    /**
+     * 100 <br>
+     *
+     * The number of buffered completions which causes an immediate flush, only used if batchTriggerCompletion is “true”.
+     */
+    private Integer triggerCompletionBatchSize;
+
+    /**
+     * 1000 <br>
+     *
+     * The maximum number of milliseconds a completion stays in the buffer, only used if batchTriggerCompletion is “true”.
+     */
+    private Long triggerCompletionFlushIntervalMills;
+
+    /**
+     * 10000 <br>
+     *
+     * The maximum number of buffered completions, only used if batchTriggerCompletion is “true”.
+     * Once reached, the threads completing a job write the buffer themselves before taking another job,
+     * and wait while the database is unavailable.
+     */
+    private Integer triggerCompletionBufferSize;
+
+    /**
+     * 16 <br>
+     *
+     * The number of locks TimeWheelJobStore, and the memory of WriteBehindJobStore, spread their jobs over.
+     */
+    private Integer lockStripes;
+
+    /**
+     * false <br>
+     *
+     * If not clustered (and no lockHandler.class is set), CustomJobStoreCMT synchronizes its data access by one in-JVM lock per lock name
+     * instead of database row locks, kept until the Spring transaction of a call completes.
+     * Set to “true” to hand the in-JVM locks over to waiting threads in arrival order, which costs throughput under contention.
+     */
+    private Boolean fairLocks;
+
+    /**
+     * false <br>
+     *
+     * Set to “true” to keep one connection on the scheduler thread from the acquisition of triggers until it finds none,
+     * instead of borrowing one from the pool for each of the acquire, fire and release transactions.
+     * The statements prepared on it are reused by the next cycles, the only way the hot trigger queries are not prepared again on each call.
+     */
+    private Boolean pinConnection;
+
+    /**
+     * 32 <br>
+     *
+     * The maximum number of statements kept by the pinned connection, only used if pinConnection is “true”.
+     */
+    private Integer statementCacheSize;
+
+    /**
+     *
+     * The class of a com.github.attemper.quartz.spring.boot.autoconfigure.serializer.JobDataSerializer writing the JobDataMaps instead of Java serialization if useProperties is “false”,
+     * like com.github.attemper.quartz.spring.boot.autoconfigure.serializer.CompactJobDataSerializer. Maps it can't write, and the rows written before, are still Java serialized.
+     * Requires a CustomJDBCDelegate, the default driverDelegateClass of CustomJobStoreCMT.
+     */
+    private String jobDataSerializerClass;
+
+    /**
+     * 0 <br>
+     *
+     * CompactJobDataSerializer deflates the JobDataMaps larger than this number of bytes, 0 never does.
+     */
+    private Integer jobDataCompressionThreshold;
+
+    /**
+     * 0 <br>
+     *
+     * the number of JobDetails kept in memory for the fires, 0 keeps none.
+     * Clustered, every node must set it and the table of tables_job_details_version.sql must exist.
+     */
+    private Integer jobDetailCacheSize;
+
+    /**
+     * 60000 <br>
+     *
+     * how long a cached JobDetail is kept after it was loaded, 0 until it is changed
+     */
+    private Long jobDetailCacheTtlMills;
+
+    /**
+     * false <br>
+     *
+     * Set to “true” to tune the batch size and the fire-ahead time window of every acquisition from the observed trigger density,
+     * the free workers and the acquisition round trip time. batchTriggerAcquisitionMaxCount and batchTriggerAcquisitionFireAheadTimeWindow
+     * of the scheduler are then the upper bounds.
+     */
+    private Boolean adaptiveAcquisition;
+
+    /**
+     * 1 <br>
+     *
+     * The smallest batch size of the acquisitions, only used if adaptiveAcquisition is “true”.
+     */
+    private Integer acquisitionMinBatchSize;
+
+    /**
+     * 0 <br>
+     *
+     * The smallest fire-ahead time window of the acquisitions, only used if adaptiveAcquisition is “true”.
+     */
+    private Long acquisitionMinTimeWindowMills;
+
+    /**
+     * The class name of a com.github.attemper.quartz.spring.boot.autoconfigure.wakeup.WakeUpChannel, through which the nodes of a cluster
+     * wake each other up when they store or resume a trigger, instead of finding it after idleWaitTime.
+     * “com.github.attemper.quartz.spring.boot.autoconfigure.wakeup.RedisWakeUpChannel” uses the redis properties of org.quartz.jobStore,
+     * “com.github.attemper.quartz.spring.boot.autoconfigure.wakeup.LoopbackWakeUpChannel” the schedulers of the same JVM.
+     */
+    private String wakeUpChannelClass;
+
+    /**
+     * 0 <br>
+     *
+     * The number of threads loading the misfired triggers and computing their misfire instructions outside the TRIGGER_ACCESS lock,
+     * the triggers then being written by JDBC batches within one short lock per batch, yielded between the batches so the other triggers keep firing.
+     * The misfires found at startup are handled the same way. 0 for the handling of maxMisfiresToHandleAtATime triggers within the lock.
+     */
+    private Integer misfireRecoveryThreads;
+
+    /**
+     * 500 <br>
+     *
+     * The number of misfired triggers per batch, only used if misfireRecoveryThreads is more than 0.
+     */
+    private Integer misfireRecoveryBatchSize;
+
+    /**
+     * 7500 <br>
+     *
+     * How long after its check-in interval a node of the cluster is considered failed and recovered by the others.
+     */
+    private Long clusterFailureGracePeriodMills;
+
+    /**
+     * 0 <br>
+     *
+     * The number of fired triggers of a failed node recovered per transaction, the other nodes acquiring and firing in between.
+     * The failed node is claimed by the recovering one until its last batch, another node going on with it if the recovering one fails too.
+     * 0 for the recovery of all the fired triggers of a failed node in one transaction.
+     */
+    private Integer clusterRecoveryBatchSize;
+
+    /**
+     * 1000 <br>
+     *
+     * The number of milliseconds between the flushes of the changes of WriteBehindJobStore to the database, the ones lost if the node dies.
+     */
+    private Long writeBehindIntervalMills;
+
+    /**
+     * 1000 <br>
+     *
+     * The number of changed triggers which causes an immediate flush of WriteBehindJobStore.
+     */
+    private Integer writeBehindBatchSize;
+
+    /**
+     * quartz-journal <br>
+     *
+     * The directory of the segments and snapshots of JournalJobStore, each scheduler in a sub-directory named after it.
+     */
+    private String journalDirectory;
+
+    /**
+     * 67108864 <br>
+     *
+     * The size in bytes of a segment file of JournalJobStore, mapped in memory as a whole.
+     */
+    private Integer journalSegmentSize;
+
+    /**
+     * interval <br>
+     *
+     * When JournalJobStore forces its segments to the device: always, after each change; interval, every journalFsyncIntervalMills;
+     * never, left to the operating system. The changes not forced are lost if the machine dies, none if only the process does.
+     */
+    private String journalFsync;
+
+    /**
+     * 1000 <br>
+     *
+     * The number of milliseconds between the forces of the segments of JournalJobStore, if journalFsync is interval.
+     */
+    private Long journalFsyncIntervalMills;
+
+    /**
+     * 4 <br>
+     *
+     * The number of segments of JournalJobStore written after its last snapshot which causes a new snapshot, the segments before it deleted.
+     */
+    private Integer journalCompactionSegments;
+
     public Integer getMisfireThreshold() {
         return misfireThreshold;
     }
@@ -222,12 +441,12 @@ public class JobStoreProperties {
         this.useProperties = useProperties;
     }
 
-    public Boolean getClustered() {
+    public Boolean getIsClustered() {
         return isClustered;
     }
 
-    public void setClustered(Boolean clustered) {
-        isClustered = clustered;
+    public void setIsClustered(Boolean isClustered) {
+        this.isClustered = isClustered;
     }
 
     public Long getClusterCheckinInterval() {
@@ -366,6 +585,14 @@ public class JobStoreProperties {
         this.expireInMills = expireInMills;
     }
 
+    public String getKeyPrefix() {
+        return keyPrefix;
+    }
+
+    public void setKeyPrefix(String keyPrefix) {
+        this.keyPrefix = keyPrefix;
+    }
+
     public Boolean getRetainTriggerAfterExecutionCompleted() {
         return retainTriggerAfterExecutionCompleted;
     }
@@ -373,4 +600,220 @@ public class JobStoreProperties {
     public void setRetainTriggerAfterExecutionCompleted(Boolean retainTriggerAfterExecutionCompleted) {
         this.retainTriggerAfterExecutionCompleted = retainTriggerAfterExecutionCompleted;
     }
+
+    public Boolean getBatchTriggerCompletion() {
+        return batchTriggerCompletion;
+    }
+
+    public void setBatchTriggerCompletion(Boolean batchTriggerCompletion) {
+        this.batchTriggerCompletion = batchTriggerCompletion;
+    }
+
+    public Integer getTriggerCompletionBatchSize() {
+        return triggerCompletionBatchSize;
+    }
+
+    public void setTriggerCompletionBatchSize(Integer triggerCompletionBatchSize) {
+        this.triggerCompletionBatchSize = triggerCompletionBatchSize;
+    }
+
+    public Long getTriggerCompletionFlushIntervalMills() {
+        return triggerCompletionFlushIntervalMills;
+    }
+
+    public void setTriggerCompletionFlushIntervalMills(Long triggerCompletionFlushIntervalMills) {
+        this.triggerCompletionFlushIntervalMills = triggerCompletionFlushIntervalMills;
+    }
+
+    public Integer getTriggerCompletionBufferSize() {
+        return triggerCompletionBufferSize;
+    }
+
+    public void setTriggerCompletionBufferSize(Integer triggerCompletionBufferSize) {
+        this.triggerCompletionBufferSize = triggerCompletionBufferSize;
+    }
+
+    public Integer getLockStripes() {
+        return lockStripes;
+    }
+
+    public void setLockStripes(Integer lockStripes) {
+        this.lockStripes = lockStripes;
+    }
+
+    public Boolean getFairLocks() {
+        return fairLocks;
+    }
+
+    public void setFairLocks(Boolean fairLocks) {
+        this.fairLocks = fairLocks;
+    }
+
+    public Boolean getPinConnection() {
+        return pinConnection;
+    }
+
+    public void setPinConnection(Boolean pinConnection) {
+        this.pinConnection = pinConnection;
+    }
+
+    public Integer getStatementCacheSize() {
+        return statementCacheSize;
+    }
+
+    public void setStatementCacheSize(Integer statementCacheSize) {
+        this.statementCacheSize = statementCacheSize;
+    }
+
+    public String getJobDataSerializerClass() {
+        return jobDataSerializerClass;
+    }
+
+    public void setJobDataSerializerClass(String jobDataSerializerClass) {
+        this.jobDataSerializerClass = jobDataSerializerClass;
+    }
+
+    public Integer getJobDataCompressionThreshold() {
+        return jobDataCompressionThreshold;
+    }
+
+    public void setJobDataCompressionThreshold(Integer jobDataCompressionThreshold) {
+        this.jobDataCompressionThreshold = jobDataCompressionThreshold;
+    }
+
+    public Integer getJobDetailCacheSize() {
+        return jobDetailCacheSize;
+    }
+
+    public void setJobDetailCacheSize(Integer jobDetailCacheSize) {
+        this.jobDetailCacheSize = jobDetailCacheSize;
+    }
+
+    public Long getJobDetailCacheTtlMills() {
+        return jobDetailCacheTtlMills;
+    }
+
+    public void setJobDetailCacheTtlMills(Long jobDetailCacheTtlMills) {
+        this.jobDetailCacheTtlMills = jobDetailCacheTtlMills;
+    }
+
+    public Boolean getAdaptiveAcquisition() {
+        return adaptiveAcquisition;
+    }
+
+    public void setAdaptiveAcquisition(Boolean adaptiveAcquisition) {
+        this.adaptiveAcquisition = adaptiveAcquisition;
+    }
+
+    public Integer getAcquisitionMinBatchSize() {
+        return acquisitionMinBatchSize;
+    }
+
+    public void setAcquisitionMinBatchSize(Integer acquisitionMinBatchSize) {
+        this.acquisitionMinBatchSize = acquisitionMinBatchSize;
+    }
+
+    public Long getAcquisitionMinTimeWindowMills() {
+        return acquisitionMinTimeWindowMills;
+    }
+
+    public void setAcquisitionMinTimeWindowMills(Long acquisitionMinTimeWindowMills) {
+        this.acquisitionMinTimeWindowMills = acquisitionMinTimeWindowMills;
+    }
+
+    public String getWakeUpChannelClass() {
+        return wakeUpChannelClass;
+    }
+
+    public void setWakeUpChannelClass(String wakeUpChannelClass) {
+        this.wakeUpChannelClass = wakeUpChannelClass;
+    }
+
+    public Integer getMisfireRecoveryThreads() {
+        return misfireRecoveryThreads;
+    }
+
+    public void setMisfireRecoveryThreads(Integer misfireRecoveryThreads) {
+        this.misfireRecoveryThreads = misfireRecoveryThreads;
+    }
+
+    public Integer getMisfireRecoveryBatchSize() {
+        return misfireRecoveryBatchSize;
+    }
+
+    public void setMisfireRecoveryBatchSize(Integer misfireRecoveryBatchSize) {
+        this.misfireRecoveryBatchSize = misfireRecoveryBatchSize;
+    }
+
+    public Long getClusterFailureGracePeriodMills() {
+        return clusterFailureGracePeriodMills;
+    }
+
+    public void setClusterFailureGracePeriodMills(Long clusterFailureGracePeriodMills) {
+        this.clusterFailureGracePeriodMills = clusterFailureGracePeriodMills;
+    }
+
+    public Integer getClusterRecoveryBatchSize() {
+        return clusterRecoveryBatchSize;
+    }
+
+    public void setClusterRecoveryBatchSize(Integer clusterRecoveryBatchSize) {
+        this.clusterRecoveryBatchSize = clusterRecoveryBatchSize;
+    }
+
+    public Long getWriteBehindIntervalMills() {
+        return writeBehindIntervalMills;
+    }
+
+    public void setWriteBehindIntervalMills(Long writeBehindIntervalMills) {
+        this.writeBehindIntervalMills = writeBehindIntervalMills;
+    }
+
+    public Integer getWriteBehindBatchSize() {
+        return writeBehindBatchSize;
+    }
+
+    public void setWriteBehindBatchSize(Integer writeBehindBatchSize) {
+        this.writeBehindBatchSize = writeBehindBatchSize;
+    }
+
+    public String getJournalDirectory() {
+        return journalDirectory;
+    }
+
+    public void setJournalDirectory(String journalDirectory) {
+        this.journalDirectory = journalDirectory;
+    }
+
+    public Integer getJournalSegmentSize() {
+        return journalSegmentSize;
+    }
+
+    public void setJournalSegmentSize(Integer journalSegmentSize) {
+        this.journalSegmentSize = journalSegmentSize;
+    }
+
+    public String getJournalFsync() {
+        return journalFsync;
+    }
+
+    public void setJournalFsync(String journalFsync) {
+        this.journalFsync = journalFsync;
+    }
+
+    public Long getJournalFsyncIntervalMills() {
+        return journalFsyncIntervalMills;
+    }
+
+    public void setJournalFsyncIntervalMills(Long journalFsyncIntervalMills) {
+        this.journalFsyncIntervalMills = journalFsyncIntervalMills;
+    }
+
+    public Integer getJournalCompactionSegments() {
+        return journalCompactionSegments;
+    }
+
+    public void setJournalCompactionSegments(Integer journalCompactionSegments) {
+        this.journalCompactionSegments = journalCompactionSegments;
+    }
 }
@@ -0,0 +1,99 @@
+package com.github.attemper.quartz.spring.boot.autoconfigure.properties;
+
+import java.util.List;
+
+/**
+ * LaneThreadPool-Specific Properties! <br>
+ *
+ * A lane of the thread pool, its jobs are those of its groups, else those whose trigger has at least its minPriority.
+ * The jobs of no lane run in the lane named <code>default</code>.
+ */
+public class LaneProperties {
+
+    /**
+     * The job groups whose jobs run in this lane.
+     */
+    private List<String> groups;
+
+    /**
+     * The lowest trigger priority of the jobs of other groups running in this lane, the lanes are checked in the order they are configured.
+     */
+    private Integer minPriority;
+
+    /**
+     * 0 <br>
+     *
+     * The number of threads kept for this lane, the other lanes never use them.
+     * The sum over the lanes can't be larger than the threadCount.
+     */
+    private Integer minThreads;
+
+    /**
+     * [threadCount] <br>
+     *
+     * The maximum number of jobs of this lane executing at the same time, the others wait in its queue.
+     */
+    private Integer maxThreads;
+
+    /**
+     * 1 <br>
+     *
+     * The share of the idle threads of this lane when several lanes have jobs waiting.
+     */
+    private Integer weight;
+
+    /**
+     * [maxThreads] <br>
+     *
+     * The maximum number of jobs waiting in the queue of this lane, the scheduler thread waits for room before handing over more.
+     */
+    private Integer maxQueued;
+
+    public List<String> getGroups() {
+        return groups;
+    }
+
+    public void setGroups(List<String> groups) {
+        this.groups = groups;
+    }
+
+    public Integer getMinPriority() {
+        return minPriority;
+    }
+
+    public void setMinPriority(Integer minPriority) {
+        this.minPriority = minPriority;
+    }
+
+    public Integer getMinThreads() {
+        return minThreads;
+    }
+
+    public void setMinThreads(Integer minThreads) {
+        this.minThreads = minThreads;
+    }
+
+    public Integer getMaxThreads() {
+        return maxThreads;
+    }
+
+    public void setMaxThreads(Integer maxThreads) {
+        this.maxThreads = maxThreads;
+    }
+
+    public Integer getWeight() {
+        return weight;
+    }
+
+    public void setWeight(Integer weight) {
+        this.weight = weight;
+    }
+
+    public Integer getMaxQueued() {
+        return maxQueued;
+    }
+
+    public void setMaxQueued(Integer maxQueued) {
+        this.maxQueued = maxQueued;
+    }
+}
@@ -0,0 +1,58 @@
+package com.github.attemper.quartz.spring.boot.autoconfigure.properties;
+
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Turns a properties object into the quartz properties it stands for, named by its fields, which are named after the quartz keys. <br>
+ *
+ * Only the fields of simple types are quartz properties, nested objects are flattened on their own.
+ * The fields of a class are looked up once and cached.
+ */
+public final class PropertiesFlattener {
+
+    private static final Map<Class<?>, Field[]> FIELDS = new ConcurrentHashMap<>();
+
+    private PropertiesFlattener() {
+    }
+
+    /**
+     * @return the non-null values by the name of their fields
+     */
+    public static Map<String, Object> flatten(Object properties) {
+        Field[] fields = FIELDS.computeIfAbsent(properties.getClass(), PropertiesFlattener::findFields);
+        Map<String, Object> map = new LinkedHashMap<>(fields.length * 2);
+        for (Field field : fields) {
+            Object value = ReflectionUtils.getField(field, properties);
+            if (value != null) {
+                map.put(field.getName(), value);
+            }
+        }
+        return map;
+    }
+
+    private static Field[] findFields(Class<?> clazz) {
+        List<Field> fields = new ArrayList<>();
+        for (Class<?> c = clazz; c != null && c != Object.class; c = c.getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+                if (!Modifier.isStatic(field.getModifiers()) && !field.isSynthetic() && isSimpleType(field.getType())) {
+                    ReflectionUtils.makeAccessible(field);
+                    fields.add(field);
+                }
+            }
+        }
+        return fields.toArray(new Field[0]);
+    }
+
+    private static boolean isSimpleType(Class<?> type) {
+        return type.isPrimitive() || type == String.class || type == Boolean.class || type == Character.class
+                || Number.class.isAssignableFrom(type) || type.isEnum();
+    }
+}
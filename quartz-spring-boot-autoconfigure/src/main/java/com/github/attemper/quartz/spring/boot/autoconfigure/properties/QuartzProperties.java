@@ -42,6 +42,12 @@ public class QuartzProperties {
 
     private final ContextProperties context = new ContextProperties();
 
+    private final ShardProperties shard = new ShardProperties();
+
+    private final StartupProperties startup = new StartupProperties();
+
+    private final BulkImportProperties bulkImport = new BulkImportProperties();
+
     public SchedulerProperties getScheduler() {
         return scheduler;
     }
@@ -73,4 +79,16 @@ public class QuartzProperties {
     public Map<String, Object> getDataSource() {
         return dataSource;
     }
+
+    public ShardProperties getShard() {
+        return shard;
+    }
+
+    public StartupProperties getStartup() {
+        return startup;
+    }
+
+    public BulkImportProperties getBulkImport() {
+        return bulkImport;
+    }
 }
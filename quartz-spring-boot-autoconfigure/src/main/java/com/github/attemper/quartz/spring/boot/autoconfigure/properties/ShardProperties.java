@@ -0,0 +1,40 @@
+package com.github.attemper.quartz.spring.boot.autoconfigure.properties;
+
+/**
+ * Not a quartz property, the jobs are partitioned over <code>count</code> schedulers by the consistent hash of their JobKey. <br>
+ * Every shard is a scheduler named <code>[Scheduler Name]_[index]</code> with its own rows and locks in the job store,
+ * so the shards of a cluster don't contend for the same TRIGGER_ACCESS lock.
+ */
+public class ShardProperties {
+
+    /**
+     * 1 <br>
+     *
+     * The number of schedulers, 1 disables sharding.
+     * Changing it moves about 1/count of the jobs to another shard, their rows are not migrated.
+     */
+    private Integer count;
+
+    /**
+     * 160 <br>
+     *
+     * The number of points of each shard on the hash ring, more points spread the jobs more evenly.
+     */
+    private Integer virtualNodes;
+
+    public Integer getCount() {
+        return count;
+    }
+
+    public void setCount(Integer count) {
+        this.count = count;
+    }
+
+    public Integer getVirtualNodes() {
+        return virtualNodes;
+    }
+
+    public void setVirtualNodes(Integer virtualNodes) {
+        this.virtualNodes = virtualNodes;
+    }
+}
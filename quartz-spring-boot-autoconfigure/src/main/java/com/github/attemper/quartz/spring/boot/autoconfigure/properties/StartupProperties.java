@@ -0,0 +1,24 @@
+package com.github.attemper.quartz.spring.boot.autoconfigure.properties;
+
+/**
+ * Not a quartz property, how the scheduler is brought up with the application context.
+ */
+public class StartupProperties {
+
+    /**
+     * false <br>
+     *
+     * Set to “true” to instantiate the scheduler in the background (the shards in parallel) instead of on the thread refreshing the context,
+     * and to start it once the application is ready. Calls on the scheduler wait for it to be initialized,
+     * and the “quartz” health indicator is OUT_OF_SERVICE until it is started.
+     */
+    private Boolean deferred;
+
+    public Boolean getDeferred() {
+        return deferred;
+    }
+
+    public void setDeferred(Boolean deferred) {
+        this.deferred = deferred;
+    }
+}
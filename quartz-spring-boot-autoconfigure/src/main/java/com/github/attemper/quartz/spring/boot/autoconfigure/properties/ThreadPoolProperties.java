@@ -1,5 +1,8 @@
 package com.github.attemper.quartz.spring.boot.autoconfigure.properties;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 /**
  * http://www.quartz-scheduler.org/documentation/quartz-2.3.0/configuration/ConfigThreadPool.html
  */
@@ -53,6 +56,37 @@ public class ThreadPoolProperties {
      */
     private String threadNamePrefix;
 
+    /**
+     * 1000 <br>
+     *
+     * VirtualThreadPool-Specific Properties!
+     * The maximum number of jobs executing at the same time. Threads are started per job, so this can be far larger than a practical threadCount.
+     */
+    private Integer concurrencyLimit;
+
+    /**
+     * true <br>
+     *
+     * VirtualThreadPool-Specific Properties!
+     * Run jobs on virtual threads if the JVM supports them, otherwise (or if set to “false”) on an elastic pool of platform threads.
+     */
+    private Boolean useVirtualThreads;
+
+    /**
+     * 60000 <br>
+     *
+     * VirtualThreadPool-Specific Properties!
+     * The number of milliseconds an idle platform thread of the elastic pool is kept before it is retired.
+     */
+    private Long keepAliveMills;
+
+    /**
+     * LaneThreadPool-Specific Properties!
+     * The lanes sharing the threadCount threads by their names, so the jobs of a lane can't starve the others.
+     * Passed to the thread pool as the single property <code>lanes</code>.
+     */
+    private Map<String, LaneProperties> lane = new LinkedHashMap<>();
+
     public Integer getThreadCount() {
         return threadCount;
     }
@@ -100,4 +134,36 @@ public class ThreadPoolProperties {
     public void setThreadNamePrefix(String threadNamePrefix) {
         this.threadNamePrefix = threadNamePrefix;
     }
+
+    public Integer getConcurrencyLimit() {
+        return concurrencyLimit;
+    }
+
+    public void setConcurrencyLimit(Integer concurrencyLimit) {
+        this.concurrencyLimit = concurrencyLimit;
+    }
+
+    public Boolean getUseVirtualThreads() {
+        return useVirtualThreads;
+    }
+
+    public void setUseVirtualThreads(Boolean useVirtualThreads) {
+        this.useVirtualThreads = useVirtualThreads;
+    }
+
+    public Long getKeepAliveMills() {
+        return keepAliveMills;
+    }
+
+    public void setKeepAliveMills(Long keepAliveMills) {
+        this.keepAliveMills = keepAliveMills;
+    }
+
+    public Map<String, LaneProperties> getLane() {
+        return lane;
+    }
+
+    public void setLane(Map<String, LaneProperties> lane) {
+        this.lane = lane;
+    }
 }
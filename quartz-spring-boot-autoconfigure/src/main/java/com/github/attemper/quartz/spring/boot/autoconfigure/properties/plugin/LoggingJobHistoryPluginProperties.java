@@ -22,6 +22,59 @@ public class LoggingJobHistoryPluginProperties {
      */
     private String jobWasVetoedMessage;
 
+    /**
+     * JdbcJobHistoryPlugin-Specific Properties!
+     * The name of a DataSource defined by org.quartz.dataSource, by default the DataSource of spring boot.
+     */
+    private String dataSource;
+
+    /**
+     * QRTZ_JOB_HISTORY <br>
+     *
+     * JdbcJobHistoryPlugin-Specific Properties!
+     */
+    private String tableName;
+
+    /**
+     * 8192 <br>
+     *
+     * JdbcJobHistoryPlugin-Specific Properties!
+     * The number of events waiting to be written, rounded up to a power of two.
+     */
+    private Integer bufferSize;
+
+    /**
+     * 500 <br>
+     *
+     * JdbcJobHistoryPlugin-Specific Properties!
+     * The maximum number of events inserted by one JDBC batch.
+     */
+    private Integer flushSize;
+
+    /**
+     * 1000 <br>
+     *
+     * JdbcJobHistoryPlugin-Specific Properties!
+     * The number of milliseconds an event waits at most for its batch to fill up.
+     */
+    private Long flushIntervalMills;
+
+    /**
+     * DROP <br>
+     *
+     * JdbcJobHistoryPlugin-Specific Properties!
+     * What to do when the buffer is full, “DROP” the event or “BLOCK” the worker thread until there is room.
+     */
+    private String overflowPolicy;
+
+    /**
+     * 1000 <br>
+     *
+     * JdbcJobHistoryPlugin-Specific Properties!
+     * The number of milliseconds a worker thread is blocked at most by the “BLOCK” policy, after which the event is dropped.
+     */
+    private Long blockTimeoutMills;
+
     public String getJobToBeFiredMessage() {
         return jobToBeFiredMessage;
     }
@@ -53,4 +106,60 @@ public class LoggingJobHistoryPluginProperties {
     public void setJobWasVetoedMessage(String jobWasVetoedMessage) {
         this.jobWasVetoedMessage = jobWasVetoedMessage;
     }
+
+    public String getDataSource() {
+        return dataSource;
+    }
+
+    public void setDataSource(String dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public void setTableName(String tableName) {
+        this.tableName = tableName;
+    }
+
+    public Integer getBufferSize() {
+        return bufferSize;
+    }
+
+    public void setBufferSize(Integer bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+    public Integer getFlushSize() {
+        return flushSize;
+    }
+
+    public void setFlushSize(Integer flushSize) {
+        this.flushSize = flushSize;
+    }
+
+    public Long getFlushIntervalMills() {
+        return flushIntervalMills;
+    }
+
+    public void setFlushIntervalMills(Long flushIntervalMills) {
+        this.flushIntervalMills = flushIntervalMills;
+    }
+
+    public String getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    public void setOverflowPolicy(String overflowPolicy) {
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    public Long getBlockTimeoutMills() {
+        return blockTimeoutMills;
+    }
+
+    public void setBlockTimeoutMills(Long blockTimeoutMills) {
+        this.blockTimeoutMills = blockTimeoutMills;
+    }
 }
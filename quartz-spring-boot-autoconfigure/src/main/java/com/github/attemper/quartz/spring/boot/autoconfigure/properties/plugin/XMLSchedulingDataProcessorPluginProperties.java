@@ -17,6 +17,22 @@ public class XMLSchedulingDataProcessorPluginProperties {
      */
     private Boolean failOnFileNotFound;
 
+    /**
+     * the number of processors <br>
+     *
+     * StreamingJobInitializerPlugin-Specific Properties!
+     * The number of files parsed, and of jobs compared to the ones of the scheduler, in parallel.
+     */
+    private Integer parseThreads;
+
+    /**
+     * 500 <br>
+     *
+     * StreamingJobInitializerPlugin-Specific Properties!
+     * The number of new or changed jobs stored with their triggers per transaction.
+     */
+    private Integer batchSize;
+
     public String getFileNames() {
         return fileNames;
     }
@@ -32,4 +48,20 @@ public class XMLSchedulingDataProcessorPluginProperties {
     public void setFailOnFileNotFound(Boolean failOnFileNotFound) {
         this.failOnFileNotFound = failOnFileNotFound;
     }
+
+    public Integer getParseThreads() {
+        return parseThreads;
+    }
+
+    public void setParseThreads(Integer parseThreads) {
+        this.parseThreads = parseThreads;
+    }
+
+    public Integer getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(Integer batchSize) {
+        this.batchSize = batchSize;
+    }
 }
@@ -53,6 +53,7 @@ public class SchedulerProperties {
      * Is the amount of time in milliseconds that the scheduler will wait before re-queries for available triggers when the scheduler is otherwise idle.
      * Normally you should not have to ‘tune’ this parameter, unless you’re using XA transactions, and are having problems with delayed firings of triggers that should fire immediately. Values less than 5000 ms are not recommended as it will cause excessive database querying.
      * Values less than 1000 are not legal.
+     * Clustered with “org.quartz.jobStore.wakeUpChannelClass”, the triggers stored by the other nodes wake the scheduler up, so it may be larger.
      */
     private Long idleWaitTime;
 
@@ -98,6 +99,7 @@ public class SchedulerProperties {
      * The maximum number of triggers that a scheduler node is allowed to acquire (for firing) at once. Default value is 1.
      * The larger the number, the more efficient firing is (in situations where there are very many triggers needing to be fired all at once) - but at the cost of possible imbalanced load between cluster nodes.
      * If the value of this property is set to > 1, and JDBC JobStore is used, then the property “org.quartz.jobStore.acquireTriggersWithinLock” must be set to “true” to avoid data corruption.
+     * With “org.quartz.jobStore.adaptiveAcquisition”, the upper bound of the tuned batch size.
      */
     private Integer batchTriggerAcquisitionMaxCount;
 
@@ -107,6 +109,7 @@ public class SchedulerProperties {
      * The amount of time in milliseconds that a trigger is allowed to be acquired and fired ahead of its scheduled fire time.
      * Defaults to 0. The larger the number, the more likely batch acquisition of triggers to fire will be able to select and fire more than 1 trigger at a time - at the cost of trigger schedule not being honored precisely (triggers may fire this amount early).
      * This may be useful (for performance’s sake) in situations where the scheduler has very large numbers of triggers that need to be fired at or near the same time.
+     * With “org.quartz.jobStore.adaptiveAcquisition”, the upper bound of the tuned window.
      */
     private Long batchTriggerAcquisitionFireAheadTimeWindow;
 
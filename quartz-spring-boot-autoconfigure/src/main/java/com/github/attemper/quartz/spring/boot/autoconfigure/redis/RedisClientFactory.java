@@ -0,0 +1,30 @@
+package com.github.attemper.quartz.spring.boot.autoconfigure.redis;
+
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisURI;
+import org.springframework.util.StringUtils;
+
+/**
+ * build a lettuce client by the redis properties of org.quartz.jobStore
+ */
+public class RedisClientFactory {
+
+    public static final String DEFAULT_HOST = "localhost";
+
+    public static final int DEFAULT_PORT = 6379;
+
+    private RedisClientFactory() {
+    }
+
+    public static RedisClient create(String host, Integer port, String password, Integer database, Boolean ssl) {
+        RedisURI.Builder builder = RedisURI.builder()
+                .withHost(StringUtils.isEmpty(host) ? DEFAULT_HOST : host)
+                .withPort(port == null ? DEFAULT_PORT : port)
+                .withDatabase(database == null ? 0 : database)
+                .withSsl(ssl != null && ssl);
+        if (!StringUtils.isEmpty(password)) {
+            builder.withPassword(password);
+        }
+        return RedisClient.create(builder.build());
+    }
+}
@@ -0,0 +1,133 @@
+package com.github.attemper.quartz.spring.boot.autoconfigure.redis;
+
+import io.lettuce.core.RedisException;
+import io.lettuce.core.ScriptOutputType;
+import io.lettuce.core.SetArgs;
+import io.lettuce.core.api.sync.RedisCommands;
+
+import java.util.UUID;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A reentrant mutex shared by all the nodes using the same redis key.
+ * Threads of the same JVM queue on a local lock first, so only one of them polls redis at a time.
+ * The redis key is set with a lease of <code>expireInMills</code>, a node which dies while holding it blocks the others no longer than that.
+ * While the lock is held the watchdog renews the lease every third of it, so a long critical section keeps it.
+ * A lease found taken over by another owner is no longer renewed, {@link #isLeaseLost()} and {@link #unlock()} tell so.
+ */
+public class RedisLock {
+
+    private static final String RELEASE_SCRIPT =
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end";
+
+    private static final String RENEW_SCRIPT =
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('pexpire', KEYS[1], ARGV[2]) else return 0 end";
+
+    private final RedisCommands<String, String> commands;
+
+    private final String key;
+
+    private final long expireInMills;
+
+    private final long retryIntervalMills;
+
+    private final String ownerPrefix = UUID.randomUUID().toString() + ":";
+
+    private final ScheduledExecutorService watchdog;
+
+    private final ReentrantLock localLock = new ReentrantLock();
+
+    private String token;
+
+    private ScheduledFuture<?> renewal;
+
+    private volatile boolean leaseLost;
+
+    public RedisLock(RedisCommands<String, String> commands, String key, long expireInMills, long retryIntervalMills,
+                     ScheduledExecutorService watchdog) {
+        this.commands = commands;
+        this.key = key;
+        this.expireInMills = expireInMills;
+        this.retryIntervalMills = retryIntervalMills;
+        this.watchdog = watchdog;
+    }
+
+    public void lock() throws InterruptedException {
+        localLock.lockInterruptibly();
+        if (localLock.getHoldCount() > 1) {
+            return;
+        }
+        String newToken = ownerPrefix + Thread.currentThread().getId();
+        try {
+            while (!"OK".equals(commands.set(key, newToken, SetArgs.Builder.nx().px(expireInMills)))) {
+                Thread.sleep(retryIntervalMills);
+            }
+        } catch (InterruptedException | RuntimeException e) {
+            localLock.unlock();
+            throw e;
+        }
+        token = newToken;
+        leaseLost = false;
+        long renewInterval = Math.max(expireInMills / 3, 1L);
+        renewal = watchdog.scheduleWithFixedDelay(() -> renew(newToken), renewInterval, renewInterval, TimeUnit.MILLISECONDS);
+    }
+
+    private void renew(String leasedToken) {
+        try {
+            Long renewed = commands.eval(RENEW_SCRIPT, ScriptOutputType.INTEGER, new String[]{key}, leasedToken, String.valueOf(expireInMills));
+            if (renewed == null || renewed == 0) {
+                leaseLost = true;
+                // suppresses the next runs of the renewal
+                throw new IllegalStateException("Lease of lock " + key + " was lost");
+            }
+        } catch (RedisException e) {
+            // tried again on the next tick, the lease may still be valid
+        }
+    }
+
+    /**
+     * @return false if the lease was lost and the key was taken over by another owner meanwhile
+     */
+    public boolean unlock() {
+        if (!localLock.isHeldByCurrentThread()) {
+            throw new IllegalMonitorStateException("Lock " + key + " is not held by " + Thread.currentThread().getName());
+        }
+        try {
+            if (localLock.getHoldCount() > 1) {
+                return true;
+            }
+            renewal.cancel(false);
+            renewal = null;
+            Long deleted = commands.eval(RELEASE_SCRIPT, ScriptOutputType.INTEGER, new String[]{key}, token);
+            token = null;
+            return !leaseLost && deleted != null && deleted > 0;
+        } finally {
+            localLock.unlock();
+        }
+    }
+
+    /**
+     * @return whether the watchdog found the lease of the current holder taken over by another owner
+     */
+    public boolean isLeaseLost() {
+        return leaseLost;
+    }
+
+    public boolean isHeldByCurrentThread() {
+        return localLock.isHeldByCurrentThread();
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * @return the value of the key while the current thread holds the lock
+     */
+    String getToken() {
+        return token;
+    }
+}
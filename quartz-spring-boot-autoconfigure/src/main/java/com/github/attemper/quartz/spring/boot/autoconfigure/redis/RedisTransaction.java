@@ -0,0 +1,234 @@
+package com.github.attemper.quartz.spring.boot.autoconfigure.redis;
+
+import io.lettuce.core.KeyValue;
+import io.lettuce.core.RedisException;
+import io.lettuce.core.ScriptOutputType;
+import io.lettuce.core.api.sync.RedisCommands;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The writes of a critical section of a {@link RedisLock}, buffered and applied by a single lua script when it ends,
+ * so the other nodes never see them half done and a failing section writes nothing. <br>
+ *
+ * The reads of the section see its own writes. The script applies the writes only if the key of the lock still holds
+ * the token of the section, a section whose lease was lost fails with <code>LOCK_LOST</code> instead.
+ */
+public class RedisTransaction {
+
+    /**
+     * KEYS: the lock, then the key of each write <br>
+     * ARGV: the token of the lock, then per write its command, its number of arguments and the arguments
+     */
+    private static final String APPLY_SCRIPT =
+            "if redis.call('get', KEYS[1]) ~= ARGV[1] then\n" +
+            "  return redis.error_reply('LOCK_LOST the lease of ' .. KEYS[1] .. ' was lost')\n" +
+            "end\n" +
+            "local a = 2\n" +
+            "for k = 2, #KEYS do\n" +
+            "  local n = tonumber(ARGV[a + 1])\n" +
+            "  redis.call(ARGV[a], KEYS[k], unpack(ARGV, a + 2, a + 1 + n))\n" +
+            "  a = a + 2 + n\n" +
+            "end\n" +
+            "return #KEYS - 1";
+
+    private static final String APPLY_SCRIPT_SHA = sha1(APPLY_SCRIPT);
+
+    private final RedisCommands<String, String> commands;
+
+    private final List<String> keys = new ArrayList<>();
+
+    private final List<String> args = new ArrayList<>();
+
+    /**
+     * the fields written per hash, null if deleted
+     */
+    private final Map<String, Map<String, String>> hashes = new HashMap<>();
+
+    /**
+     * the members written per set, false if removed
+     */
+    private final Map<String, Map<String, Boolean>> sets = new HashMap<>();
+
+    private final Set<String> deletedKeys = new HashSet<>();
+
+    public RedisTransaction(RedisCommands<String, String> commands) {
+        this.commands = commands;
+    }
+
+    public String hget(String key, String field) {
+        Map<String, String> hash = hashes.get(key);
+        if (hash != null && hash.containsKey(field)) {
+            return hash.get(field);
+        }
+        return deletedKeys.contains(key) ? null : commands.hget(key, field);
+    }
+
+    public boolean hexists(String key, String field) {
+        Map<String, String> hash = hashes.get(key);
+        if (hash != null && hash.containsKey(field)) {
+            return hash.get(field) != null;
+        }
+        return !deletedKeys.contains(key) && commands.hexists(key, field);
+    }
+
+    public List<KeyValue<String, String>> hmget(String key, String... fields) {
+        Map<String, String> hash = hashes.get(key);
+        if (hash == null && !deletedKeys.contains(key)) {
+            return commands.hmget(key, fields);
+        }
+        List<KeyValue<String, String>> values = new ArrayList<>(fields.length);
+        for (String field : fields) {
+            values.add(KeyValue.fromNullable(field, hget(key, field)));
+        }
+        return values;
+    }
+
+    public Map<String, String> hgetall(String key) {
+        Map<String, String> values = deletedKeys.contains(key) ? new LinkedHashMap<>() : new LinkedHashMap<>(commands.hgetall(key));
+        Map<String, String> hash = hashes.get(key);
+        if (hash != null) {
+            for (Map.Entry<String, String> entry : hash.entrySet()) {
+                if (entry.getValue() == null) {
+                    values.remove(entry.getKey());
+                } else {
+                    values.put(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+        return values;
+    }
+
+    public Set<String> smembers(String key) {
+        Set<String> members = deletedKeys.contains(key) ? new HashSet<>() : new HashSet<>(commands.smembers(key));
+        Map<String, Boolean> set = sets.get(key);
+        if (set != null) {
+            for (Map.Entry<String, Boolean> entry : set.entrySet()) {
+                if (entry.getValue()) {
+                    members.add(entry.getKey());
+                } else {
+                    members.remove(entry.getKey());
+                }
+            }
+        }
+        return members;
+    }
+
+    public boolean sismember(String key, String member) {
+        Map<String, Boolean> set = sets.get(key);
+        if (set != null && set.containsKey(member)) {
+            return set.get(member);
+        }
+        return !deletedKeys.contains(key) && commands.sismember(key, member);
+    }
+
+    public long scard(String key) {
+        if (!sets.containsKey(key) && !deletedKeys.contains(key)) {
+            return commands.scard(key);
+        }
+        return smembers(key).size();
+    }
+
+    public void hset(String key, String field, String value) {
+        write("hset", key, field, value);
+        hashes.computeIfAbsent(key, k -> new HashMap<>()).put(field, value);
+    }
+
+    /**
+     * @return 1 if the field existed, else 0
+     */
+    public long hdel(String key, String field) {
+        long existed = hexists(key, field) ? 1L : 0L;
+        write("hdel", key, field);
+        hashes.computeIfAbsent(key, k -> new HashMap<>()).put(field, null);
+        return existed;
+    }
+
+    public void sadd(String key, String member) {
+        write("sadd", key, member);
+        sets.computeIfAbsent(key, k -> new HashMap<>()).put(member, Boolean.TRUE);
+    }
+
+    public void srem(String key, String member) {
+        write("srem", key, member);
+        sets.computeIfAbsent(key, k -> new HashMap<>()).put(member, Boolean.FALSE);
+    }
+
+    public void zadd(String key, long score, String member) {
+        write("zadd", key, String.valueOf(score), member);
+    }
+
+    public void zrem(String key, String member) {
+        write("zrem", key, member);
+    }
+
+    public void del(String... keysToDelete) {
+        for (String key : keysToDelete) {
+            write("del", key);
+            hashes.remove(key);
+            sets.remove(key);
+            deletedKeys.add(key);
+        }
+    }
+
+    /**
+     * applies the writes if the current thread still holds the lease of the lock
+     */
+    public void commit(RedisLock lock) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        List<String> scriptKeys = new ArrayList<>(keys.size() + 1);
+        scriptKeys.add(lock.getKey());
+        scriptKeys.addAll(keys);
+        List<String> scriptArgs = new ArrayList<>(args.size() + 1);
+        scriptArgs.add(lock.getToken());
+        scriptArgs.addAll(args);
+        String[] keyArray = scriptKeys.toArray(new String[0]);
+        String[] argArray = scriptArgs.toArray(new String[0]);
+        try {
+            commands.evalsha(APPLY_SCRIPT_SHA, ScriptOutputType.INTEGER, keyArray, argArray);
+        } catch (RedisException e) {
+            if (e.getMessage() == null || !e.getMessage().startsWith("NOSCRIPT")) {
+                throw e;
+            }
+            // loads the script, gone after a restart or failover of redis
+            commands.eval(APPLY_SCRIPT, ScriptOutputType.INTEGER, keyArray, argArray);
+        }
+        keys.clear();
+        args.clear();
+        hashes.clear();
+        sets.clear();
+        deletedKeys.clear();
+    }
+
+    private void write(String command, String key, String... commandArgs) {
+        keys.add(key);
+        args.add(command);
+        args.add(String.valueOf(commandArgs.length));
+        Collections.addAll(args, commandArgs);
+    }
+
+    private static String sha1(String script) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(script.getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                sb.append(String.format("%02x", b));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
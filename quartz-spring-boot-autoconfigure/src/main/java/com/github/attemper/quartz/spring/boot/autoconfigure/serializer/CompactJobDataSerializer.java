@@ -0,0 +1,425 @@
+package com.github.attemper.quartz.spring.boot.autoconfigure.serializer;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * A tagged binary format for the JobDataMaps of strings, boxed primitives, byte[], java.util.Date and the HashMaps / LinkedHashMaps
+ * (with string keys) and ArrayLists of them. Integers are written as variable length, the strings as UTF-8, without any class descriptor. <br>
+ *
+ * Maps with any other value (or a subclass of those) are left to Java serialization, so they are read back as they were. <br>
+ *
+ * Layout: 0xC0 0xDA, version, flags (1 if deflated), then the entry count and the entries, deflated if the body is larger
+ * than <code>compressionThreshold</code> bytes (0 never deflates) and deflating makes it smaller.
+ */
+public class CompactJobDataSerializer implements JobDataSerializer {
+
+    private static final byte MAGIC_0 = (byte) 0xC0;
+
+    private static final byte MAGIC_1 = (byte) 0xDA;
+
+    private static final byte VERSION = 1;
+
+    private static final int HEADER_LENGTH = 4;
+
+    private static final byte FLAG_DEFLATED = 1;
+
+    private static final byte NULL = 0;
+    private static final byte STRING = 1;
+    private static final byte INT = 2;
+    private static final byte LONG = 3;
+    private static final byte DOUBLE = 4;
+    private static final byte FLOAT = 5;
+    private static final byte TRUE = 6;
+    private static final byte FALSE = 7;
+    private static final byte SHORT = 8;
+    private static final byte BYTE = 9;
+    private static final byte CHAR = 10;
+    private static final byte BYTES = 11;
+    private static final byte DATE = 12;
+    private static final byte MAP = 13;
+    private static final byte LIST = 14;
+
+    private int compressionThreshold = 0;
+
+    public CompactJobDataSerializer() {
+    }
+
+    public CompactJobDataSerializer(int compressionThreshold) {
+        this.compressionThreshold = compressionThreshold;
+    }
+
+    @Override
+    public boolean canSerialize(Map<?, ?> data) {
+        for (Map.Entry<?, ?> entry : data.entrySet()) {
+            if (!(entry.getKey() instanceof String) || !canWrite(entry.getValue())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean canWrite(Object value) {
+        if (value == null) {
+            return true;
+        }
+        Class<?> type = value.getClass();
+        if (type == String.class || type == Integer.class || type == Long.class || type == Double.class || type == Float.class
+                || type == Boolean.class || type == Short.class || type == Byte.class || type == Character.class
+                || type == byte[].class || type == Date.class) {
+            return true;
+        }
+        if (type == HashMap.class || type == LinkedHashMap.class) {
+            return canSerialize((Map<?, ?>) value);
+        }
+        if (type == ArrayList.class) {
+            for (Object element : (Collection<?>) value) {
+                if (!canWrite(element)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public byte[] serialize(Map<?, ?> data) throws IOException {
+        Output out = new Output(256);
+        out.writeByte(MAGIC_0);
+        out.writeByte(MAGIC_1);
+        out.writeByte(VERSION);
+        out.writeByte(0);
+        writeMap(out, data);
+        if (compressionThreshold > 0 && out.length - HEADER_LENGTH > compressionThreshold) {
+            byte[] deflated = deflate(out.buffer, out.length);
+            if (deflated != null) {
+                return deflated;
+            }
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * @return the header, the length of the body and the deflated body, null if it isn't smaller
+     */
+    private byte[] deflate(byte[] buffer, int length) {
+        int bodyLength = length - HEADER_LENGTH;
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(buffer, HEADER_LENGTH, bodyLength);
+            deflater.finish();
+            Output out = new Output(bodyLength);
+            out.writeByte(MAGIC_0);
+            out.writeByte(MAGIC_1);
+            out.writeByte(VERSION);
+            out.writeByte(FLAG_DEFLATED);
+            out.writeVarInt(bodyLength);
+            while (!deflater.finished()) {
+                out.ensureCapacity(512);
+                out.length += deflater.deflate(out.buffer, out.length, out.buffer.length - out.length);
+                if (out.length >= length) {
+                    return null;
+                }
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    @Override
+    public boolean canDeserialize(byte[] bytes) {
+        return bytes != null && bytes.length >= HEADER_LENGTH && bytes[0] == MAGIC_0 && bytes[1] == MAGIC_1;
+    }
+
+    @Override
+    public Map<String, Object> deserialize(byte[] bytes) throws IOException {
+        if (!canDeserialize(bytes)) {
+            throw new IOException("Not a compact JobDataMap");
+        }
+        if (bytes[2] != VERSION) {
+            throw new IOException("Unknown version " + bytes[2] + " of compact JobDataMap");
+        }
+        Input in = new Input(bytes, HEADER_LENGTH);
+        if ((bytes[3] & FLAG_DEFLATED) != 0) {
+            int bodyLength = in.readVarInt();
+            byte[] body = new byte[bodyLength];
+            Inflater inflater = new Inflater();
+            try {
+                inflater.setInput(bytes, in.position, bytes.length - in.position);
+                if (inflater.inflate(body) != bodyLength) {
+                    throw new IOException("Truncated compact JobDataMap");
+                }
+            } catch (DataFormatException e) {
+                throw new IOException("Corrupted compact JobDataMap", e);
+            } finally {
+                inflater.end();
+            }
+            in = new Input(body, 0);
+        }
+        return readMap(in);
+    }
+
+    private void writeMap(Output out, Map<?, ?> map) {
+        out.writeVarInt(map.size());
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            out.writeString((String) entry.getKey());
+            writeValue(out, entry.getValue());
+        }
+    }
+
+    private void writeValue(Output out, Object value) {
+        if (value == null) {
+            out.writeByte(NULL);
+        } else if (value instanceof String) {
+            out.writeByte(STRING);
+            out.writeString((String) value);
+        } else if (value instanceof Integer) {
+            out.writeByte(INT);
+            out.writeVarLong(zigZag((Integer) value));
+        } else if (value instanceof Long) {
+            out.writeByte(LONG);
+            out.writeVarLong(zigZag((Long) value));
+        } else if (value instanceof Double) {
+            out.writeByte(DOUBLE);
+            out.writeFixedLong(Double.doubleToLongBits((Double) value), 8);
+        } else if (value instanceof Float) {
+            out.writeByte(FLOAT);
+            out.writeFixedLong(Float.floatToIntBits((Float) value), 4);
+        } else if (value instanceof Boolean) {
+            out.writeByte((Boolean) value ? TRUE : FALSE);
+        } else if (value instanceof Short) {
+            out.writeByte(SHORT);
+            out.writeVarLong(zigZag((Short) value));
+        } else if (value instanceof Byte) {
+            out.writeByte(BYTE);
+            out.writeByte((Byte) value);
+        } else if (value instanceof Character) {
+            out.writeByte(CHAR);
+            out.writeVarInt((Character) value);
+        } else if (value instanceof byte[]) {
+            byte[] bytes = (byte[]) value;
+            out.writeByte(BYTES);
+            out.writeVarInt(bytes.length);
+            out.writeBytes(bytes, bytes.length);
+        } else if (value instanceof Date) {
+            out.writeByte(DATE);
+            out.writeVarLong(zigZag(((Date) value).getTime()));
+        } else if (value instanceof Map) {
+            out.writeByte(MAP);
+            writeMap(out, (Map<?, ?>) value);
+        } else {
+            List<?> list = (List<?>) value;
+            out.writeByte(LIST);
+            out.writeVarInt(list.size());
+            for (Object element : list) {
+                writeValue(out, element);
+            }
+        }
+    }
+
+    private Map<String, Object> readMap(Input in) throws IOException {
+        int size = in.readVarInt();
+        Map<String, Object> map = new LinkedHashMap<>(size * 4 / 3 + 1);
+        for (int i = 0; i < size; i++) {
+            map.put(in.readString(), readValue(in));
+        }
+        return map;
+    }
+
+    private Object readValue(Input in) throws IOException {
+        byte tag = in.readByte();
+        switch (tag) {
+            case NULL:
+                return null;
+            case STRING:
+                return in.readString();
+            case INT:
+                return (int) unZigZag(in.readVarLong());
+            case LONG:
+                return unZigZag(in.readVarLong());
+            case DOUBLE:
+                return Double.longBitsToDouble(in.readFixedLong(8));
+            case FLOAT:
+                return Float.intBitsToFloat((int) in.readFixedLong(4));
+            case TRUE:
+                return Boolean.TRUE;
+            case FALSE:
+                return Boolean.FALSE;
+            case SHORT:
+                return (short) unZigZag(in.readVarLong());
+            case BYTE:
+                return in.readByte();
+            case CHAR:
+                return (char) in.readVarInt();
+            case BYTES:
+                return in.readBytes(in.readVarInt());
+            case DATE:
+                return new Date(unZigZag(in.readVarLong()));
+            case MAP:
+                return readMap(in);
+            case LIST:
+                int size = in.readVarInt();
+                List<Object> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(readValue(in));
+                }
+                return list;
+            default:
+                throw new IOException("Unknown type " + tag + " in compact JobDataMap");
+        }
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    public int getCompressionThreshold() {
+        return compressionThreshold;
+    }
+
+    public void setCompressionThreshold(int compressionThreshold) {
+        this.compressionThreshold = compressionThreshold;
+    }
+
+    private static final class Output {
+
+        private byte[] buffer;
+
+        private int length;
+
+        Output(int capacity) {
+            this.buffer = new byte[Math.max(capacity, 16)];
+        }
+
+        void ensureCapacity(int more) {
+            if (length + more > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + more));
+            }
+        }
+
+        void writeByte(int value) {
+            ensureCapacity(1);
+            buffer[length++] = (byte) value;
+        }
+
+        void writeBytes(byte[] bytes, int count) {
+            ensureCapacity(count);
+            System.arraycopy(bytes, 0, buffer, length, count);
+            length += count;
+        }
+
+        void writeVarInt(int value) {
+            writeVarLong(value & 0xFFFFFFFFL);
+        }
+
+        void writeVarLong(long value) {
+            ensureCapacity(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[length++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[length++] = (byte) value;
+        }
+
+        void writeFixedLong(long value, int bytes) {
+            ensureCapacity(bytes);
+            for (int i = bytes - 1; i >= 0; i--) {
+                buffer[length++] = (byte) (value >>> (i * 8));
+            }
+        }
+
+        void writeString(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(bytes.length);
+            writeBytes(bytes, bytes.length);
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, length);
+        }
+    }
+
+    private static final class Input {
+
+        private final byte[] buffer;
+
+        private int position;
+
+        Input(byte[] buffer, int position) {
+            this.buffer = buffer;
+            this.position = position;
+        }
+
+        private void require(int count) throws IOException {
+            if (count < 0 || position + count > buffer.length) {
+                throw new IOException("Truncated compact JobDataMap");
+            }
+        }
+
+        byte readByte() throws IOException {
+            require(1);
+            return buffer[position++];
+        }
+
+        byte[] readBytes(int count) throws IOException {
+            require(count);
+            byte[] bytes = Arrays.copyOfRange(buffer, position, position + count);
+            position += count;
+            return bytes;
+        }
+
+        int readVarInt() throws IOException {
+            long value = readVarLong();
+            if (value > Integer.MAX_VALUE) {
+                throw new IOException("Invalid length in compact JobDataMap");
+            }
+            return (int) value;
+        }
+
+        long readVarLong() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Invalid number in compact JobDataMap");
+        }
+
+        long readFixedLong(int bytes) throws IOException {
+            require(bytes);
+            long value = 0;
+            for (int i = 0; i < bytes; i++) {
+                value = (value << 8) | (buffer[position++] & 0xFF);
+            }
+            return value;
+        }
+
+        String readString() throws IOException {
+            int count = readVarInt();
+            require(count);
+            String value = new String(buffer, position, count, StandardCharsets.UTF_8);
+            position += count;
+            return value;
+        }
+    }
+}
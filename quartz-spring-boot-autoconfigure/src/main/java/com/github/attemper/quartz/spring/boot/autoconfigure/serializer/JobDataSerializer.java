@@ -0,0 +1,27 @@
+package com.github.attemper.quartz.spring.boot.autoconfigure.serializer;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Writes the JobDataMaps into the blob columns instead of Java serialization, if useProperties is “false”. <br>
+ *
+ * The blobs it writes must be told from those of Java serialization by {@link #canDeserialize(byte[])},
+ * the rows written before it was set keep being read by Java serialization.
+ */
+public interface JobDataSerializer {
+
+    /**
+     * @return whether all the keys and values of the map can be written, otherwise it is written by Java serialization
+     */
+    boolean canSerialize(Map<?, ?> data);
+
+    byte[] serialize(Map<?, ?> data) throws IOException;
+
+    /**
+     * @return whether the blob was written by this serializer
+     */
+    boolean canDeserialize(byte[] bytes);
+
+    Map<String, Object> deserialize(byte[] bytes) throws IOException;
+}
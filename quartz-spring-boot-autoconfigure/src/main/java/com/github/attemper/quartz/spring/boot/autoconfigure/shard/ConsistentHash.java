@@ -0,0 +1,63 @@
+package com.github.attemper.quartz.spring.boot.autoconfigure.shard;
+
+import org.quartz.JobKey;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A hash ring of shards, each placed on it <code>virtualNodes</code> times. <br>
+ *
+ * A job belongs to the first shard clockwise from the hash of its key. The hash doesn't depend on the JVM,
+ * so all the nodes of a cluster route a job to the same shard. <br>
+ *
+ * Changing the shard count changes the shard of some of the jobs, about 1/(n+1) of them when adding an (n+1)th shard,
+ * but nothing moves the jobs already stored: they stay in the shard which stored them, where {@link ShardedScheduler} looks them up.
+ */
+public class ConsistentHash {
+
+    private final TreeMap<Long, Integer> ring = new TreeMap<>();
+
+    private final int shardCount;
+
+    public ConsistentHash(int shardCount, int virtualNodes) {
+        if (shardCount <= 0 || virtualNodes <= 0) {
+            throw new IllegalArgumentException("Shard count and virtual nodes must be > 0");
+        }
+        this.shardCount = shardCount;
+        for (int shard = 0; shard < shardCount; shard++) {
+            for (int node = 0; node < virtualNodes; node++) {
+                ring.put(hash("shard-" + shard + "#" + node), shard);
+            }
+        }
+    }
+
+    public int shardOf(JobKey jobKey) {
+        if (shardCount == 1) {
+            return 0;
+        }
+        Map.Entry<Long, Integer> entry = ring.ceilingEntry(hash(jobKey.getGroup() + "." + jobKey.getName()));
+        return entry != null ? entry.getValue() : ring.firstEntry().getValue();
+    }
+
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    /**
+     * FNV-1a followed by the finalizer of MurmurHash3 to spread the bits
+     */
+    static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h ^= key.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,196 @@
+package com.github.attemper.quartz.spring.boot.autoconfigure.shard;
+
+import org.quartz.JobKey;
+import org.quartz.JobListener;
+import org.quartz.ListenerManager;
+import org.quartz.Matcher;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
+import org.quartz.SchedulerListener;
+import org.quartz.TriggerKey;
+import org.quartz.TriggerListener;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Listeners are registered on every shard, so they see the jobs of all of them. The getters read the first shard.
+ */
+class ShardedListenerManager implements ListenerManager {
+
+    private final List<ListenerManager> listenerManagers = new ArrayList<>();
+
+    ShardedListenerManager(List<Scheduler> shards) {
+        for (Scheduler shard : shards) {
+            try {
+                listenerManagers.add(shard.getListenerManager());
+            } catch (SchedulerException e) {
+                throw new IllegalStateException(e.getMessage(), e);
+            }
+        }
+    }
+
+    private ListenerManager first() {
+        return listenerManagers.get(0);
+    }
+
+    public void addJobListener(JobListener jobListener) {
+        for (ListenerManager listenerManager : listenerManagers) {
+            listenerManager.addJobListener(jobListener);
+        }
+    }
+
+    public void addJobListener(JobListener jobListener, Matcher<JobKey> matcher) {
+        for (ListenerManager listenerManager : listenerManagers) {
+            listenerManager.addJobListener(jobListener, matcher);
+        }
+    }
+
+    @SafeVarargs
+    public final void addJobListener(JobListener jobListener, Matcher<JobKey>... matchers) {
+        List<Matcher<JobKey>> matcherList = new ArrayList<>(matchers.length);
+        for (Matcher<JobKey> matcher : matchers) {
+            matcherList.add(matcher);
+        }
+        addJobListener(jobListener, matcherList);
+    }
+
+    public void addJobListener(JobListener jobListener, List<Matcher<JobKey>> matchers) {
+        for (ListenerManager listenerManager : listenerManagers) {
+            listenerManager.addJobListener(jobListener, matchers);
+        }
+    }
+
+    public boolean addJobListenerMatcher(String listenerName, Matcher<JobKey> matcher) {
+        boolean result = false;
+        for (ListenerManager listenerManager : listenerManagers) {
+            result |= listenerManager.addJobListenerMatcher(listenerName, matcher);
+        }
+        return result;
+    }
+
+    public boolean removeJobListenerMatcher(String listenerName, Matcher<JobKey> matcher) {
+        boolean result = false;
+        for (ListenerManager listenerManager : listenerManagers) {
+            result |= listenerManager.removeJobListenerMatcher(listenerName, matcher);
+        }
+        return result;
+    }
+
+    public boolean setJobListenerMatchers(String listenerName, List<Matcher<JobKey>> matchers) {
+        boolean result = false;
+        for (ListenerManager listenerManager : listenerManagers) {
+            result |= listenerManager.setJobListenerMatchers(listenerName, matchers);
+        }
+        return result;
+    }
+
+    public List<Matcher<JobKey>> getJobListenerMatchers(String listenerName) {
+        return first().getJobListenerMatchers(listenerName);
+    }
+
+    public boolean removeJobListener(String name) {
+        boolean result = false;
+        for (ListenerManager listenerManager : listenerManagers) {
+            result |= listenerManager.removeJobListener(name);
+        }
+        return result;
+    }
+
+    public List<JobListener> getJobListeners() {
+        return first().getJobListeners();
+    }
+
+    public JobListener getJobListener(String name) {
+        return first().getJobListener(name);
+    }
+
+    public void addTriggerListener(TriggerListener triggerListener) {
+        for (ListenerManager listenerManager : listenerManagers) {
+            listenerManager.addTriggerListener(triggerListener);
+        }
+    }
+
+    public void addTriggerListener(TriggerListener triggerListener, Matcher<TriggerKey> matcher) {
+        for (ListenerManager listenerManager : listenerManagers) {
+            listenerManager.addTriggerListener(triggerListener, matcher);
+        }
+    }
+
+    @SafeVarargs
+    public final void addTriggerListener(TriggerListener triggerListener, Matcher<TriggerKey>... matchers) {
+        List<Matcher<TriggerKey>> matcherList = new ArrayList<>(matchers.length);
+        for (Matcher<TriggerKey> matcher : matchers) {
+            matcherList.add(matcher);
+        }
+        addTriggerListener(triggerListener, matcherList);
+    }
+
+    public void addTriggerListener(TriggerListener triggerListener, List<Matcher<TriggerKey>> matchers) {
+        for (ListenerManager listenerManager : listenerManagers) {
+            listenerManager.addTriggerListener(triggerListener, matchers);
+        }
+    }
+
+    public boolean addTriggerListenerMatcher(String listenerName, Matcher<TriggerKey> matcher) {
+        boolean result = false;
+        for (ListenerManager listenerManager : listenerManagers) {
+            result |= listenerManager.addTriggerListenerMatcher(listenerName, matcher);
+        }
+        return result;
+    }
+
+    public boolean removeTriggerListenerMatcher(String listenerName, Matcher<TriggerKey> matcher) {
+        boolean result = false;
+        for (ListenerManager listenerManager : listenerManagers) {
+            result |= listenerManager.removeTriggerListenerMatcher(listenerName, matcher);
+        }
+        return result;
+    }
+
+    public boolean setTriggerListenerMatchers(String listenerName, List<Matcher<TriggerKey>> matchers) {
+        boolean result = false;
+        for (ListenerManager listenerManager : listenerManagers) {
+            result |= listenerManager.setTriggerListenerMatchers(listenerName, matchers);
+        }
+        return result;
+    }
+
+    public List<Matcher<TriggerKey>> getTriggerListenerMatchers(String listenerName) {
+        return first().getTriggerListenerMatchers(listenerName);
+    }
+
+    public boolean removeTriggerListener(String name) {
+        boolean result = false;
+        for (ListenerManager listenerManager : listenerManagers) {
+            result |= listenerManager.removeTriggerListener(name);
+        }
+        return result;
+    }
+
+    public List<TriggerListener> getTriggerListeners() {
+        return first().getTriggerListeners();
+    }
+
+    public TriggerListener getTriggerListener(String name) {
+        return first().getTriggerListener(name);
+    }
+
+    public void addSchedulerListener(SchedulerListener schedulerListener) {
+        for (ListenerManager listenerManager : listenerManagers) {
+            listenerManager.addSchedulerListener(schedulerListener);
+        }
+    }
+
+    public boolean removeSchedulerListener(SchedulerListener schedulerListener) {
+        boolean result = false;
+        for (ListenerManager listenerManager : listenerManagers) {
+            result |= listenerManager.removeSchedulerListener(schedulerListener);
+        }
+        return result;
+    }
+
+    public List<SchedulerListener> getSchedulerListeners() {
+        return first().getSchedulerListeners();
+    }
+}
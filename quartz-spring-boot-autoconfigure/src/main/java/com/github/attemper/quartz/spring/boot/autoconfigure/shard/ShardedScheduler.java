@@ -0,0 +1,566 @@
+package com.github.attemper.quartz.spring.boot.autoconfigure.shard;
+
+import org.quartz.Calendar;
+import org.quartz.JobDataMap;
+import org.quartz.JobDetail;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobKey;
+import org.quartz.ListenerManager;
+import org.quartz.ObjectAlreadyExistsException;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerContext;
+import org.quartz.SchedulerException;
+import org.quartz.SchedulerMetaData;
+import org.quartz.Trigger;
+import org.quartz.TriggerKey;
+import org.quartz.UnableToInterruptJobException;
+import org.quartz.impl.matchers.GroupMatcher;
+import org.quartz.spi.JobFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A facade over the schedulers of all shards. <br>
+ *
+ * Calls naming a job go to the shard holding it, found first in the shard of its JobKey then in the others,
+ * since a job stays in the shard which stored it when the shard count changes; a new job goes to the shard of its JobKey.
+ * Calls naming a trigger go to the shard holding it, and a trigger is only stored if no other shard holds its key.
+ * Queries and group operations are sent to every shard and their results merged.
+ * Calendars are stored in every shard, since the triggers of any shard may refer to them. <br>
+ *
+ * {@link #getContext()} is the context of the first shard, use {@link #getShards()} to change the context of all of them.
+ */
+public class ShardedScheduler implements Scheduler {
+
+    private final String schedulerName;
+
+    private final List<Scheduler> shards;
+
+    private final ConsistentHash consistentHash;
+
+    private final ListenerManager listenerManager;
+
+    public ShardedScheduler(String schedulerName, List<Scheduler> shards, ConsistentHash consistentHash) {
+        this.schedulerName = schedulerName;
+        this.shards = Collections.unmodifiableList(new ArrayList<>(shards));
+        this.consistentHash = consistentHash;
+        this.listenerManager = new ShardedListenerManager(this.shards);
+    }
+
+    public List<Scheduler> getShards() {
+        return shards;
+    }
+
+    /**
+     * @return the shard holding the job, or the shard of its JobKey if no shard does
+     */
+    public Scheduler getShard(JobKey jobKey) throws SchedulerException {
+        Scheduler home = getHomeShard(jobKey);
+        if (shards.size() == 1 || home.checkExists(jobKey)) {
+            return home;
+        }
+        for (Scheduler shard : shards) {
+            if (shard != home && shard.checkExists(jobKey)) {
+                return shard;
+            }
+        }
+        return home;
+    }
+
+    /**
+     * the shards of many jobs at once, as {@link #getShard(JobKey)} but reading the job keys of each shard once
+     */
+    public Map<JobKey, Scheduler> getShards(Collection<JobKey> jobKeys) throws SchedulerException {
+        Map<JobKey, Scheduler> located = new HashMap<>();
+        for (JobKey jobKey : jobKeys) {
+            located.put(jobKey, getHomeShard(jobKey));
+        }
+        if (shards.size() == 1) {
+            return located;
+        }
+        Set<JobKey> foundAtHome = new HashSet<>();
+        for (Scheduler shard : shards) {
+            for (JobKey jobKey : shard.getJobKeys(GroupMatcher.anyJobGroup())) {
+                if (!located.containsKey(jobKey) || foundAtHome.contains(jobKey)) {
+                    continue;
+                }
+                if (shard == getHomeShard(jobKey)) {
+                    foundAtHome.add(jobKey);
+                }
+                located.put(jobKey, shard);
+            }
+        }
+        return located;
+    }
+
+    /**
+     * @return the shard a new job goes to
+     */
+    public Scheduler getHomeShard(JobKey jobKey) {
+        return shards.get(consistentHash.shardOf(jobKey));
+    }
+
+    /**
+     * @return the shard holding the trigger, or null if no shard does
+     */
+    public Scheduler getShard(TriggerKey triggerKey) throws SchedulerException {
+        for (Scheduler shard : shards) {
+            if (shard.checkExists(triggerKey)) {
+                return shard;
+            }
+        }
+        return null;
+    }
+
+    private Scheduler getShard(Trigger trigger) throws SchedulerException {
+        if (trigger.getJobKey() == null) {
+            throw new SchedulerException("Trigger's related Job's name cannot be null");
+        }
+        return getShard(trigger.getJobKey());
+    }
+
+    /**
+     * the shards only check the keys of their own triggers
+     *
+     * @throws ObjectAlreadyExistsException if a shard other than <code>target</code> holds the key of the trigger
+     */
+    private void checkTriggerNotInOtherShards(Trigger trigger, Scheduler target) throws SchedulerException {
+        for (Scheduler shard : shards) {
+            if (shard != target && shard.checkExists(trigger.getKey())) {
+                throw new ObjectAlreadyExistsException(trigger);
+            }
+        }
+    }
+
+    /**
+     * once <code>target</code> stored the trigger replacing those of the same key, the triggers of the same key in the other shards are replaced too
+     */
+    private void unscheduleFromOtherShards(Trigger trigger, Scheduler target) throws SchedulerException {
+        for (Scheduler shard : shards) {
+            if (shard != target && shard.checkExists(trigger.getKey())) {
+                shard.unscheduleJob(trigger.getKey());
+            }
+        }
+    }
+
+    private void checkTriggersNotInOtherShards(Collection<? extends Trigger> triggers, Scheduler target, boolean replace)
+            throws SchedulerException {
+        if (!replace && triggers != null && shards.size() > 1) {
+            for (Trigger trigger : triggers) {
+                checkTriggerNotInOtherShards(trigger, target);
+            }
+        }
+    }
+
+    private void unscheduleFromOtherShards(Collection<? extends Trigger> triggers, Scheduler target, boolean replace)
+            throws SchedulerException {
+        if (replace && triggers != null && shards.size() > 1) {
+            for (Trigger trigger : triggers) {
+                unscheduleFromOtherShards(trigger, target);
+            }
+        }
+    }
+
+    //---------------------------------------------------------------------------
+    // lifecycle
+    //---------------------------------------------------------------------------
+
+    public String getSchedulerName() {
+        return schedulerName;
+    }
+
+    public String getSchedulerInstanceId() throws SchedulerException {
+        return shards.get(0).getSchedulerInstanceId();
+    }
+
+    public SchedulerContext getContext() throws SchedulerException {
+        return shards.get(0).getContext();
+    }
+
+    public void start() throws SchedulerException {
+        for (Scheduler shard : shards) {
+            shard.start();
+        }
+    }
+
+    public void startDelayed(int seconds) throws SchedulerException {
+        for (Scheduler shard : shards) {
+            shard.startDelayed(seconds);
+        }
+    }
+
+    public boolean isStarted() throws SchedulerException {
+        for (Scheduler shard : shards) {
+            if (!shard.isStarted()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public void standby() throws SchedulerException {
+        for (Scheduler shard : shards) {
+            shard.standby();
+        }
+    }
+
+    public boolean isInStandbyMode() throws SchedulerException {
+        for (Scheduler shard : shards) {
+            if (shard.isInStandbyMode()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void shutdown() throws SchedulerException {
+        shutdown(false);
+    }
+
+    public void shutdown(boolean waitForJobsToComplete) throws SchedulerException {
+        SchedulerException exception = null;
+        for (Scheduler shard : shards) {
+            try {
+                shard.shutdown(waitForJobsToComplete);
+            } catch (SchedulerException e) {
+                exception = e;
+            }
+        }
+        if (exception != null) {
+            throw exception;
+        }
+    }
+
+    public boolean isShutdown() throws SchedulerException {
+        for (Scheduler shard : shards) {
+            if (!shard.isShutdown()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public SchedulerMetaData getMetaData() throws SchedulerException {
+        SchedulerMetaData first = shards.get(0).getMetaData();
+        int numberOfJobsExecuted = 0;
+        int threadPoolSize = 0;
+        for (Scheduler shard : shards) {
+            SchedulerMetaData metaData = shard.getMetaData();
+            numberOfJobsExecuted += metaData.getNumberOfJobsExecuted();
+            threadPoolSize += metaData.getThreadPoolSize();
+        }
+        return new SchedulerMetaData(schedulerName, first.getSchedulerInstanceId(), getClass(), first.isSchedulerRemote(),
+                isStarted(), isInStandbyMode(), isShutdown(), first.getRunningSince(), numberOfJobsExecuted,
+                first.getJobStoreClass(), first.isJobStoreSupportsPersistence(), first.isJobStoreClustered(),
+                first.getThreadPoolClass(), threadPoolSize, first.getVersion());
+    }
+
+    public List<JobExecutionContext> getCurrentlyExecutingJobs() throws SchedulerException {
+        List<JobExecutionContext> jobs = new ArrayList<>();
+        for (Scheduler shard : shards) {
+            jobs.addAll(shard.getCurrentlyExecutingJobs());
+        }
+        return jobs;
+    }
+
+    public void setJobFactory(JobFactory factory) throws SchedulerException {
+        for (Scheduler shard : shards) {
+            shard.setJobFactory(factory);
+        }
+    }
+
+    public ListenerManager getListenerManager() {
+        return listenerManager;
+    }
+
+    public void clear() throws SchedulerException {
+        for (Scheduler shard : shards) {
+            shard.clear();
+        }
+    }
+
+    //---------------------------------------------------------------------------
+    // jobs & triggers
+    //---------------------------------------------------------------------------
+
+    public Date scheduleJob(JobDetail jobDetail, Trigger trigger) throws SchedulerException {
+        Scheduler shard = getShard(jobDetail.getKey());
+        checkTriggersNotInOtherShards(Collections.singleton(trigger), shard, false);
+        return shard.scheduleJob(jobDetail, trigger);
+    }
+
+    public Date scheduleJob(Trigger trigger) throws SchedulerException {
+        Scheduler shard = getShard(trigger);
+        checkTriggersNotInOtherShards(Collections.singleton(trigger), shard, false);
+        return shard.scheduleJob(trigger);
+    }
+
+    public void scheduleJobs(Map<JobDetail, Set<? extends Trigger>> triggersAndJobs, boolean replace) throws SchedulerException {
+        List<JobKey> jobKeys = new ArrayList<>(triggersAndJobs.size());
+        for (JobDetail jobDetail : triggersAndJobs.keySet()) {
+            jobKeys.add(jobDetail.getKey());
+        }
+        Map<JobKey, Scheduler> located = getShards(jobKeys);
+        Map<Scheduler, Map<JobDetail, Set<? extends Trigger>>> byShard = new HashMap<>();
+        for (Map.Entry<JobDetail, Set<? extends Trigger>> entry : triggersAndJobs.entrySet()) {
+            Scheduler shard = located.get(entry.getKey().getKey());
+            checkTriggersNotInOtherShards(entry.getValue(), shard, replace);
+            byShard.computeIfAbsent(shard, key -> new HashMap<>()).put(entry.getKey(), entry.getValue());
+        }
+        for (Map.Entry<Scheduler, Map<JobDetail, Set<? extends Trigger>>> entry : byShard.entrySet()) {
+            entry.getKey().scheduleJobs(entry.getValue(), replace);
+            for (Set<? extends Trigger> triggers : entry.getValue().values()) {
+                unscheduleFromOtherShards(triggers, entry.getKey(), replace);
+            }
+        }
+    }
+
+    public void scheduleJob(JobDetail jobDetail, Set<? extends Trigger> triggersForJob, boolean replace) throws SchedulerException {
+        Scheduler shard = getShard(jobDetail.getKey());
+        checkTriggersNotInOtherShards(triggersForJob, shard, replace);
+        shard.scheduleJob(jobDetail, triggersForJob, replace);
+        unscheduleFromOtherShards(triggersForJob, shard, replace);
+    }
+
+    public boolean unscheduleJob(TriggerKey triggerKey) throws SchedulerException {
+        Scheduler shard = getShard(triggerKey);
+        return shard != null && shard.unscheduleJob(triggerKey);
+    }
+
+    public boolean unscheduleJobs(List<TriggerKey> triggerKeys) throws SchedulerException {
+        boolean result = true;
+        for (TriggerKey triggerKey : triggerKeys) {
+            result &= unscheduleJob(triggerKey);
+        }
+        return result;
+    }
+
+    public Date rescheduleJob(TriggerKey triggerKey, Trigger newTrigger) throws SchedulerException {
+        Scheduler shard = getShard(triggerKey);
+        if (shard == null) {
+            return null;
+        }
+        if (!triggerKey.equals(newTrigger.getKey())) {
+            checkTriggersNotInOtherShards(Collections.singleton(newTrigger), shard, false);
+        }
+        return shard.rescheduleJob(triggerKey, newTrigger);
+    }
+
+    public void addJob(JobDetail jobDetail, boolean replace) throws SchedulerException {
+        getShard(jobDetail.getKey()).addJob(jobDetail, replace);
+    }
+
+    public void addJob(JobDetail jobDetail, boolean replace, boolean storeNonDurableWhileAwaitingScheduling) throws SchedulerException {
+        getShard(jobDetail.getKey()).addJob(jobDetail, replace, storeNonDurableWhileAwaitingScheduling);
+    }
+
+    public boolean deleteJob(JobKey jobKey) throws SchedulerException {
+        return getShard(jobKey).deleteJob(jobKey);
+    }
+
+    public boolean deleteJobs(List<JobKey> jobKeys) throws SchedulerException {
+        boolean result = true;
+        for (JobKey jobKey : jobKeys) {
+            result &= deleteJob(jobKey);
+        }
+        return result;
+    }
+
+    public void triggerJob(JobKey jobKey) throws SchedulerException {
+        getShard(jobKey).triggerJob(jobKey);
+    }
+
+    public void triggerJob(JobKey jobKey, JobDataMap data) throws SchedulerException {
+        getShard(jobKey).triggerJob(jobKey, data);
+    }
+
+    public void pauseJob(JobKey jobKey) throws SchedulerException {
+        getShard(jobKey).pauseJob(jobKey);
+    }
+
+    public void pauseJobs(GroupMatcher<JobKey> matcher) throws SchedulerException {
+        for (Scheduler shard : shards) {
+            shard.pauseJobs(matcher);
+        }
+    }
+
+    public void pauseTrigger(TriggerKey triggerKey) throws SchedulerException {
+        Scheduler shard = getShard(triggerKey);
+        if (shard != null) {
+            shard.pauseTrigger(triggerKey);
+        }
+    }
+
+    public void pauseTriggers(GroupMatcher<TriggerKey> matcher) throws SchedulerException {
+        for (Scheduler shard : shards) {
+            shard.pauseTriggers(matcher);
+        }
+    }
+
+    public void resumeJob(JobKey jobKey) throws SchedulerException {
+        getShard(jobKey).resumeJob(jobKey);
+    }
+
+    public void resumeJobs(GroupMatcher<JobKey> matcher) throws SchedulerException {
+        for (Scheduler shard : shards) {
+            shard.resumeJobs(matcher);
+        }
+    }
+
+    public void resumeTrigger(TriggerKey triggerKey) throws SchedulerException {
+        Scheduler shard = getShard(triggerKey);
+        if (shard != null) {
+            shard.resumeTrigger(triggerKey);
+        }
+    }
+
+    public void resumeTriggers(GroupMatcher<TriggerKey> matcher) throws SchedulerException {
+        for (Scheduler shard : shards) {
+            shard.resumeTriggers(matcher);
+        }
+    }
+
+    public void pauseAll() throws SchedulerException {
+        for (Scheduler shard : shards) {
+            shard.pauseAll();
+        }
+    }
+
+    public void resumeAll() throws SchedulerException {
+        for (Scheduler shard : shards) {
+            shard.resumeAll();
+        }
+    }
+
+    public List<String> getJobGroupNames() throws SchedulerException {
+        Set<String> groupNames = new LinkedHashSet<>();
+        for (Scheduler shard : shards) {
+            groupNames.addAll(shard.getJobGroupNames());
+        }
+        return new ArrayList<>(groupNames);
+    }
+
+    public Set<JobKey> getJobKeys(GroupMatcher<JobKey> matcher) throws SchedulerException {
+        Set<JobKey> jobKeys = new HashSet<>();
+        for (Scheduler shard : shards) {
+            jobKeys.addAll(shard.getJobKeys(matcher));
+        }
+        return jobKeys;
+    }
+
+    public List<? extends Trigger> getTriggersOfJob(JobKey jobKey) throws SchedulerException {
+        return getShard(jobKey).getTriggersOfJob(jobKey);
+    }
+
+    public List<String> getTriggerGroupNames() throws SchedulerException {
+        Set<String> groupNames = new LinkedHashSet<>();
+        for (Scheduler shard : shards) {
+            groupNames.addAll(shard.getTriggerGroupNames());
+        }
+        return new ArrayList<>(groupNames);
+    }
+
+    public Set<TriggerKey> getTriggerKeys(GroupMatcher<TriggerKey> matcher) throws SchedulerException {
+        Set<TriggerKey> triggerKeys = new HashSet<>();
+        for (Scheduler shard : shards) {
+            triggerKeys.addAll(shard.getTriggerKeys(matcher));
+        }
+        return triggerKeys;
+    }
+
+    public Set<String> getPausedTriggerGroups() throws SchedulerException {
+        Set<String> groupNames = new HashSet<>();
+        for (Scheduler shard : shards) {
+            groupNames.addAll(shard.getPausedTriggerGroups());
+        }
+        return groupNames;
+    }
+
+    public JobDetail getJobDetail(JobKey jobKey) throws SchedulerException {
+        return getShard(jobKey).getJobDetail(jobKey);
+    }
+
+    public Trigger getTrigger(TriggerKey triggerKey) throws SchedulerException {
+        for (Scheduler shard : shards) {
+            Trigger trigger = shard.getTrigger(triggerKey);
+            if (trigger != null) {
+                return trigger;
+            }
+        }
+        return null;
+    }
+
+    public Trigger.TriggerState getTriggerState(TriggerKey triggerKey) throws SchedulerException {
+        Scheduler shard = getShard(triggerKey);
+        return shard == null ? Trigger.TriggerState.NONE : shard.getTriggerState(triggerKey);
+    }
+
+    public void resetTriggerFromErrorState(TriggerKey triggerKey) throws SchedulerException {
+        Scheduler shard = getShard(triggerKey);
+        if (shard != null) {
+            shard.resetTriggerFromErrorState(triggerKey);
+        }
+    }
+
+    public boolean interrupt(JobKey jobKey) throws UnableToInterruptJobException {
+        Scheduler shard;
+        try {
+            shard = getShard(jobKey);
+        } catch (SchedulerException e) {
+            throw new UnableToInterruptJobException(e);
+        }
+        return shard.interrupt(jobKey);
+    }
+
+    public boolean interrupt(String fireInstanceId) throws UnableToInterruptJobException {
+        for (Scheduler shard : shards) {
+            if (shard.interrupt(fireInstanceId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean checkExists(JobKey jobKey) throws SchedulerException {
+        return getShard(jobKey).checkExists(jobKey);
+    }
+
+    public boolean checkExists(TriggerKey triggerKey) throws SchedulerException {
+        return getShard(triggerKey) != null;
+    }
+
+    //---------------------------------------------------------------------------
+    // calendars
+    //---------------------------------------------------------------------------
+
+    public void addCalendar(String calName, Calendar calendar, boolean replace, boolean updateTriggers) throws SchedulerException {
+        for (Scheduler shard : shards) {
+            shard.addCalendar(calName, calendar, replace, updateTriggers);
+        }
+    }
+
+    public boolean deleteCalendar(String calName) throws SchedulerException {
+        boolean deleted = false;
+        for (Scheduler shard : shards) {
+            deleted |= shard.deleteCalendar(calName);
+        }
+        return deleted;
+    }
+
+    public Calendar getCalendar(String calName) throws SchedulerException {
+        return shards.get(0).getCalendar(calName);
+    }
+
+    public List<String> getCalendarNames() throws SchedulerException {
+        return shards.get(0).getCalendarNames();
+    }
+}
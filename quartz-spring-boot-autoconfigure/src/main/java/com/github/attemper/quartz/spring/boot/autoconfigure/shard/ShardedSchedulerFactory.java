@@ -0,0 +1,117 @@
+package com.github.attemper.quartz.spring.boot.autoconfigure.shard;
+
+import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
+import org.quartz.SchedulerFactory;
+import org.quartz.impl.StdSchedulerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Creates one scheduler per shard from the same properties, named <code>[Scheduler Name]_[index]</code>,
+ * and hands out a {@link ShardedScheduler} over them.
+ */
+public class ShardedSchedulerFactory implements SchedulerFactory {
+
+    private final List<StdSchedulerFactory> factories = new ArrayList<>();
+
+    private final String schedulerName;
+
+    private final ConsistentHash consistentHash;
+
+    private ShardedScheduler scheduler;
+
+    public ShardedSchedulerFactory(Properties properties, int shardCount, int virtualNodes) throws SchedulerException {
+        this.schedulerName = properties.getProperty(StdSchedulerFactory.PROP_SCHED_INSTANCE_NAME, "QuartzScheduler");
+        this.consistentHash = new ConsistentHash(shardCount, virtualNodes);
+        String threadName = properties.getProperty(StdSchedulerFactory.PROP_SCHED_THREAD_NAME);
+        for (int i = 0; i < shardCount; i++) {
+            Properties shardProperties = new Properties();
+            shardProperties.putAll(properties);
+            shardProperties.setProperty(StdSchedulerFactory.PROP_SCHED_INSTANCE_NAME, getShardName(i));
+            if (threadName != null) {
+                shardProperties.setProperty(StdSchedulerFactory.PROP_SCHED_THREAD_NAME, threadName + "_" + i);
+            }
+            factories.add(new StdSchedulerFactory(shardProperties));
+        }
+    }
+
+    public String getShardName(int index) {
+        return schedulerName + "_" + index;
+    }
+
+    public int getShardCount() {
+        return factories.size();
+    }
+
+    public synchronized Scheduler getScheduler() throws SchedulerException {
+        if (scheduler == null || scheduler.isShutdown()) {
+            List<Scheduler> shards = new ArrayList<>(factories.size());
+            for (StdSchedulerFactory factory : factories) {
+                shards.add(factory.getScheduler());
+            }
+            scheduler = new ShardedScheduler(schedulerName, shards, consistentHash);
+        }
+        return scheduler;
+    }
+
+    /**
+     * instantiates the schedulers of the shards in parallel on the executor
+     */
+    public synchronized Scheduler getScheduler(Executor executor) throws SchedulerException {
+        if (scheduler == null || scheduler.isShutdown()) {
+            List<CompletableFuture<Scheduler>> futures = new ArrayList<>(factories.size());
+            for (final StdSchedulerFactory factory : factories) {
+                futures.add(CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return factory.getScheduler();
+                    } catch (SchedulerException e) {
+                        throw new CompletionException(e);
+                    }
+                }, executor));
+            }
+            List<Scheduler> shards = new ArrayList<>(factories.size());
+            for (CompletableFuture<Scheduler> future : futures) {
+                try {
+                    shards.add(future.get());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new SchedulerException("Interrupted while instantiating the shards", e);
+                } catch (ExecutionException e) {
+                    throw e.getCause() instanceof SchedulerException ? (SchedulerException) e.getCause()
+                            : new SchedulerException("Could not instantiate a shard", e.getCause());
+                }
+            }
+            scheduler = new ShardedScheduler(schedulerName, shards, consistentHash);
+        }
+        return scheduler;
+    }
+
+    /**
+     * @return the sharded scheduler by the configured name, or a single shard by its own name
+     */
+    public Scheduler getScheduler(String schedName) throws SchedulerException {
+        Scheduler sharded = getScheduler();
+        if (schedulerName.equals(schedName)) {
+            return sharded;
+        }
+        for (Scheduler shard : ((ShardedScheduler) sharded).getShards()) {
+            if (shard.getSchedulerName().equals(schedName)) {
+                return shard;
+            }
+        }
+        return null;
+    }
+
+    public Collection<Scheduler> getAllSchedulers() throws SchedulerException {
+        return Collections.singletonList(getScheduler());
+    }
+}
@@ -0,0 +1,252 @@
+package com.github.attemper.quartz.spring.boot.autoconfigure.startup;
+
+import com.github.attemper.quartz.spring.boot.autoconfigure.db.DataSourceHolder;
+import com.github.attemper.quartz.spring.boot.autoconfigure.shard.ShardedScheduler;
+import com.github.attemper.quartz.spring.boot.autoconfigure.shard.ShardedSchedulerFactory;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
+import org.quartz.SchedulerFactory;
+import org.quartz.UnableToInterruptJobException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Instantiates the scheduler of the delegate in the background as soon as it is created, the shards of a
+ * {@link ShardedSchedulerFactory} in parallel, and starts it once the application is ready. <br>
+ *
+ * {@link #getScheduler()} returns at once a scheduler whose calls wait for the initialization to complete,
+ * so the context refresh doesn't wait for the JDBC metadata lookups and plugins of the scheduler, nor for the recovery of its triggers.
+ */
+public class DeferredSchedulerFactory implements SchedulerFactory, ApplicationListener<ApplicationReadyEvent>, DisposableBean {
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private final SchedulerFactory delegate;
+
+    private final ThreadPoolExecutor executor;
+
+    private final CompletableFuture<Scheduler> initialization;
+
+    private final Scheduler scheduler;
+
+    private volatile CompletableFuture<Void> startup;
+
+    public DeferredSchedulerFactory(SchedulerFactory delegate) {
+        this.delegate = delegate;
+        int threads = delegate instanceof ShardedSchedulerFactory ? ((ShardedSchedulerFactory) delegate).getShardCount() + 1 : 1;
+        this.executor = new ThreadPoolExecutor(threads, threads, 1, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                new ThreadFactory() {
+                    private final AtomicInteger count = new AtomicInteger();
+
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        Thread thread = new Thread(r, "QuartzSchedulerInitializer-" + count.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        this.executor.allowCoreThreadTimeOut(true);
+        // the job stores and plugins look up the spring datasource on the thread instantiating them
+        final DataSource dataSource = DataSourceHolder.get();
+        final Executor initializer = new Executor() {
+            @Override
+            public void execute(final Runnable command) {
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        DataSourceHolder.set(dataSource);
+                        try {
+                            command.run();
+                        } finally {
+                            DataSourceHolder.clear();
+                        }
+                    }
+                });
+            }
+        };
+        this.initialization = CompletableFuture.supplyAsync(() -> {
+            long start = System.currentTimeMillis();
+            try {
+                Scheduler scheduler = delegate instanceof ShardedSchedulerFactory
+                        ? ((ShardedSchedulerFactory) delegate).getScheduler(initializer) : delegate.getScheduler();
+                log.info("Scheduler {} initialized in {} ms", scheduler.getSchedulerName(), System.currentTimeMillis() - start);
+                return scheduler;
+            } catch (SchedulerException e) {
+                log.error("Could not initialize the scheduler: " + e.getMessage(), e);
+                throw new IllegalStateException(e);
+            }
+        }, initializer);
+        this.scheduler = (Scheduler) Proxy.newProxyInstance(Scheduler.class.getClassLoader(), new Class<?>[]{Scheduler.class},
+                new DeferredInvocationHandler());
+    }
+
+    /**
+     * starts the scheduler in the background once it is initialized, the shards in parallel since each recovers its own triggers
+     */
+    @Override
+    public synchronized void onApplicationEvent(ApplicationReadyEvent event) {
+        if (startup != null) {
+            return;
+        }
+        startup = initialization.thenCompose(scheduler -> {
+            List<Scheduler> schedulers = scheduler instanceof ShardedScheduler
+                    ? ((ShardedScheduler) scheduler).getShards() : Collections.singletonList(scheduler);
+            CompletableFuture<?>[] futures = new CompletableFuture<?>[schedulers.size()];
+            for (int i = 0; i < futures.length; i++) {
+                final Scheduler toStart = schedulers.get(i);
+                futures[i] = CompletableFuture.runAsync(() -> {
+                    try {
+                        toStart.start();
+                    } catch (SchedulerException e) {
+                        log.error("Could not start the scheduler: " + e.getMessage(), e);
+                        throw new IllegalStateException(e);
+                    }
+                }, executor);
+            }
+            return CompletableFuture.allOf(futures);
+        });
+    }
+
+    /**
+     * shuts the scheduler down once initialized, whether or not it was started or its start failed,
+     * so that the threads and connections of an initialized scheduler are always released
+     */
+    @Override
+    public void destroy() throws SchedulerException {
+        executor.shutdownNow();
+        if (!initialization.isDone()) {
+            initialization.thenAccept(scheduler -> {
+                try {
+                    scheduler.shutdown(false);
+                } catch (SchedulerException e) {
+                    log.error("Could not shutdown the scheduler initialized after the context was closed: " + e.getMessage(), e);
+                }
+            });
+        } else if (isInitialized()) {
+            initialization.join().shutdown(true);
+        }
+    }
+
+    public Scheduler getScheduler() {
+        return scheduler;
+    }
+
+    public Scheduler getScheduler(String schedName) throws SchedulerException {
+        awaitInitialization();
+        return delegate.getScheduler(schedName);
+    }
+
+    public Collection<Scheduler> getAllSchedulers() throws SchedulerException {
+        awaitInitialization();
+        return delegate.getAllSchedulers();
+    }
+
+    /**
+     * runs the action with the initialized scheduler, on the initializing thread or at once if it is initialized
+     */
+    public void whenInitialized(Consumer<Scheduler> action) {
+        initialization.thenAccept(action);
+    }
+
+    public boolean isInitialized() {
+        return initialization.isDone() && !initialization.isCompletedExceptionally();
+    }
+
+    public boolean isStarted() {
+        CompletableFuture<Void> startup = this.startup;
+        return startup != null && startup.isDone() && !startup.isCompletedExceptionally();
+    }
+
+    /**
+     * @return why the scheduler could not be initialized or started, null if it could or is still on its way
+     */
+    public Throwable getFailure() {
+        CompletableFuture<?> future = initialization.isCompletedExceptionally() ? initialization : startup;
+        if (future == null || !future.isCompletedExceptionally()) {
+            return null;
+        }
+        try {
+            future.join();
+            return null;
+        } catch (RuntimeException e) {
+            return unwrap(e);
+        }
+    }
+
+    private Scheduler awaitInitialization() throws SchedulerException {
+        try {
+            return initialization.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SchedulerException("Interrupted while waiting for the scheduler to be initialized", e);
+        } catch (ExecutionException e) {
+            Throwable cause = unwrap(e);
+            throw cause instanceof SchedulerException ? (SchedulerException) cause
+                    : new SchedulerException("Could not initialize the scheduler", cause);
+        }
+    }
+
+    private static Throwable unwrap(Throwable throwable) {
+        while ((throwable instanceof ExecutionException || throwable instanceof CompletionException
+                || throwable instanceof IllegalStateException) && throwable.getCause() != null) {
+            throwable = throwable.getCause();
+        }
+        return throwable;
+    }
+
+    private class DeferredInvocationHandler implements InvocationHandler {
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (method.getDeclaringClass() == Object.class) {
+                switch (method.getName()) {
+                    case "equals":
+                        return proxy == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    default:
+                        return "DeferredScheduler of " + delegate;
+                }
+            }
+            Scheduler target;
+            try {
+                target = awaitInitialization();
+            } catch (SchedulerException e) {
+                for (Class<?> exceptionType : method.getExceptionTypes()) {
+                    if (exceptionType.isInstance(e)) {
+                        throw e;
+                    }
+                }
+                // only the interrupt methods don't declare SchedulerException
+                throw new UnableToInterruptJobException(e);
+            }
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+            }
+        }
+    }
+}
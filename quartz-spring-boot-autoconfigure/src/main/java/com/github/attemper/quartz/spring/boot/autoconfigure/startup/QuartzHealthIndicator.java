@@ -0,0 +1,48 @@
+package com.github.attemper.quartz.spring.boot.autoconfigure.startup;
+
+import org.quartz.Scheduler;
+import org.quartz.SchedulerFactory;
+import org.springframework.boot.actuate.health.AbstractHealthIndicator;
+import org.springframework.boot.actuate.health.Health;
+
+/**
+ * OUT_OF_SERVICE until the scheduler is initialized and started, so a readiness probe on the health endpoint
+ * holds the traffic back until then. DOWN if it could not be initialized or started.
+ */
+public class QuartzHealthIndicator extends AbstractHealthIndicator {
+
+    private final SchedulerFactory schedulerFactory;
+
+    public QuartzHealthIndicator(SchedulerFactory schedulerFactory) {
+        this.schedulerFactory = schedulerFactory;
+    }
+
+    @Override
+    protected void doHealthCheck(Health.Builder builder) throws Exception {
+        if (schedulerFactory instanceof DeferredSchedulerFactory) {
+            DeferredSchedulerFactory deferredSchedulerFactory = (DeferredSchedulerFactory) schedulerFactory;
+            Throwable failure = deferredSchedulerFactory.getFailure();
+            if (failure != null) {
+                builder.down(failure);
+            } else if (!deferredSchedulerFactory.isInitialized()) {
+                builder.outOfService().withDetail("state", "initializing");
+            } else if (!deferredSchedulerFactory.isStarted()) {
+                builder.outOfService().withDetail("state", "initialized");
+            } else {
+                health(builder, deferredSchedulerFactory.getScheduler());
+            }
+        } else {
+            health(builder, schedulerFactory.getScheduler());
+        }
+    }
+
+    private void health(Health.Builder builder, Scheduler scheduler) throws Exception {
+        if (scheduler.isShutdown()) {
+            builder.down().withDetail("state", "shutdown");
+        } else if (!scheduler.isStarted() || scheduler.isInStandbyMode()) {
+            builder.outOfService().withDetail("state", "standby");
+        } else {
+            builder.up().withDetail("state", "started");
+        }
+    }
+}
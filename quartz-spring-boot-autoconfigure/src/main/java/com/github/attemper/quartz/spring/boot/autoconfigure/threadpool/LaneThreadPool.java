@@ -0,0 +1,503 @@
+package com.github.attemper.quartz.spring.boot.autoconfigure.threadpool;
+
+import org.quartz.JobExecutionContext;
+import org.quartz.SchedulerConfigException;
+import org.quartz.core.JobRunShell;
+import org.quartz.spi.ThreadPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.util.StringUtils;
+
+import java.lang.reflect.Field;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A fixed pool of <code>threadCount</code> workers shared by named lanes, so a burst of slow jobs in one lane
+ * can't starve the others. <br>
+ *
+ * A job goes to the lane of its group, or else to the first lane whose <code>minPriority</code> its trigger reaches,
+ * or else to the <code>default</code> lane. The <code>minThreads</code> of a lane are kept for it, it never runs more than
+ * <code>maxThreads</code> jobs, and in between it borrows the workers the other lanes leave idle. Jobs a lane can't run yet wait
+ * in its queue, idle workers pick the lane with the least busy threads per <code>weight</code>. A lane queues at most
+ * <code>maxQueued</code> jobs (its <code>maxThreads</code> by default), handing over one more blocks the scheduler thread
+ * until a job of the lane starts. <br>
+ *
+ * Lanes are set by <code>lanes</code>, separated by <code>;</code>, like <br>
+ * <code>critical:groups=alerts|billing,minThreads=4,weight=3;reports:groups=reports,maxThreads=2;urgent:minPriority=8</code>
+ */
+public class LaneThreadPool implements ThreadPool {
+
+    public static final String DEFAULT_LANE = "default";
+
+    private static final Field JOB_EXECUTION_CONTEXT_FIELD = ReflectionUtils.findField(JobRunShell.class, "jec");
+
+    static {
+        if (JOB_EXECUTION_CONTEXT_FIELD != null) {
+            ReflectionUtils.makeAccessible(JOB_EXECUTION_CONTEXT_FIELD);
+        }
+    }
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition workAvailable = lock.newCondition();
+
+    private final Condition capacityAvailable = lock.newCondition();
+
+    private int threadCount = 10;
+
+    private int threadPriority = Thread.NORM_PRIORITY;
+
+    private boolean makeThreadsDaemons;
+
+    private boolean threadsInheritContextClassLoaderOfInitializingThread;
+
+    private String threadNamePrefix;
+
+    private String schedulerInstanceName;
+
+    private String lanes;
+
+    private final Map<String, Lane> lanesByName = new LinkedHashMap<>();
+
+    private final Map<String, Lane> lanesByGroup = new HashMap<>();
+
+    private final List<Lane> lanesByPriority = new ArrayList<>();
+
+    private final List<Thread> workers = new ArrayList<>();
+
+    private int busyCount;
+
+    private boolean isShutdown;
+
+    public LaneThreadPool() {
+    }
+
+    public void initialize() throws SchedulerConfigException {
+        if (!workers.isEmpty()) {
+            return;
+        }
+        if (threadCount <= 0) {
+            throw new SchedulerConfigException("Thread count must be > 0");
+        }
+        if (threadNamePrefix == null) {
+            threadNamePrefix = schedulerInstanceName + "_Worker";
+        }
+        parseLanes();
+        ClassLoader initializingClassLoader = threadsInheritContextClassLoaderOfInitializingThread
+                ? Thread.currentThread().getContextClassLoader() : null;
+        for (int i = 0; i < threadCount; i++) {
+            Thread worker = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    work();
+                }
+            }, threadNamePrefix + "-" + i);
+            worker.setDaemon(makeThreadsDaemons);
+            worker.setPriority(threadPriority);
+            if (initializingClassLoader != null) {
+                worker.setContextClassLoader(initializingClassLoader);
+            }
+            workers.add(worker);
+            worker.start();
+        }
+        ThreadPoolHolder.set(schedulerInstanceName, this);
+        log.info("Jobs will run on {} threads shared by the lanes {}", threadCount, lanesByName.values());
+    }
+
+    private void parseLanes() throws SchedulerConfigException {
+        Lane defaultLane = new Lane(DEFAULT_LANE);
+        lanesByName.put(DEFAULT_LANE, defaultLane);
+        if (StringUtils.hasText(lanes)) {
+            for (String spec : lanes.split(";")) {
+                if (!StringUtils.hasText(spec)) {
+                    continue;
+                }
+                int colon = spec.indexOf(':');
+                String name = (colon < 0 ? spec : spec.substring(0, colon)).trim();
+                Lane lane = lanesByName.get(name);
+                if (lane == null) {
+                    lane = new Lane(name);
+                    lanesByName.put(name, lane);
+                }
+                if (colon >= 0) {
+                    for (String setting : StringUtils.commaDelimitedListToStringArray(spec.substring(colon + 1))) {
+                        String[] keyValue = setting.split("=", 2);
+                        if (keyValue.length != 2) {
+                            throw new SchedulerConfigException("Invalid setting '" + setting + "' of lane " + name);
+                        }
+                        lane.set(keyValue[0].trim(), keyValue[1].trim());
+                    }
+                }
+            }
+        }
+        int reserved = 0;
+        for (Lane lane : lanesByName.values()) {
+            if (lane.maxThreads <= 0 || lane.maxThreads > threadCount) {
+                lane.maxThreads = threadCount;
+            }
+            if (lane.maxQueued == null) {
+                lane.maxQueued = lane.maxThreads;
+            }
+            if (lane.minThreads < 0 || lane.minThreads > lane.maxThreads || lane.weight <= 0 || lane.maxQueued <= 0) {
+                throw new SchedulerConfigException("Invalid lane " + lane);
+            }
+            reserved += lane.minThreads;
+            for (String group : lane.groups) {
+                lanesByGroup.put(group, lane);
+            }
+            if (lane.minPriority != null) {
+                lanesByPriority.add(lane);
+            }
+        }
+        if (reserved > threadCount) {
+            throw new SchedulerConfigException("The lanes reserve " + reserved + " threads, more than the threadCount " + threadCount);
+        }
+    }
+
+    public boolean runInThread(Runnable runnable) {
+        if (runnable == null) {
+            return false;
+        }
+        Lane lane = laneOf(runnable);
+        lock.lock();
+        try {
+            // a full lane holds back the scheduler rather than piling up jobs whose triggers are already fired
+            while (lane.queue.size() >= lane.maxQueued && !isShutdown) {
+                capacityAvailable.awaitUninterruptibly();
+            }
+            if (isShutdown) {
+                // keep the contract of SimpleThreadPool, jobs handed over during shutdown are still executed
+                Thread thread = new Thread(runnable, threadNamePrefix + "-" + lane.name + "-shutdown");
+                thread.setDaemon(makeThreadsDaemons);
+                thread.start();
+                return true;
+            }
+            lane.queue.add(runnable);
+            workAvailable.signal();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Lane laneOf(Runnable runnable) {
+        if (JOB_EXECUTION_CONTEXT_FIELD == null || !(runnable instanceof JobRunShell)) {
+            return lanesByName.get(DEFAULT_LANE);
+        }
+        JobExecutionContext context = (JobExecutionContext) ReflectionUtils.getField(JOB_EXECUTION_CONTEXT_FIELD, runnable);
+        if (context == null) {
+            return lanesByName.get(DEFAULT_LANE);
+        }
+        Lane lane = lanesByGroup.get(context.getJobDetail().getKey().getGroup());
+        if (lane != null) {
+            return lane;
+        }
+        int priority = context.getTrigger().getPriority();
+        for (Lane priorityLane : lanesByPriority) {
+            if (priority >= priorityLane.minPriority) {
+                return priorityLane;
+            }
+        }
+        return lanesByName.get(DEFAULT_LANE);
+    }
+
+    private void work() {
+        while (true) {
+            Lane lane;
+            Runnable runnable;
+            lock.lock();
+            try {
+                while ((lane = nextLane()) == null) {
+                    if (isShutdown && queuedCount() == 0) {
+                        return;
+                    }
+                    workAvailable.awaitUninterruptibly();
+                }
+                runnable = lane.queue.poll();
+                lane.busyCount++;
+                busyCount++;
+                capacityAvailable.signalAll();
+            } finally {
+                lock.unlock();
+            }
+            try {
+                runnable.run();
+            } catch (RuntimeException e) {
+                log.error("Error while executing the Runnable: " + e.getMessage(), e);
+            } finally {
+                lock.lock();
+                try {
+                    lane.busyCount--;
+                    busyCount--;
+                    lane.executedCount++;
+                    // a lane at its max or the reservations may have held back queued jobs of any lane
+                    workAvailable.signalAll();
+                    capacityAvailable.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the lane with queued jobs allowed to run one more, least busy for its weight first
+     */
+    private Lane nextLane() {
+        Lane next = null;
+        for (Lane lane : lanesByName.values()) {
+            if (!lane.queue.isEmpty() && canRunOneMore(lane)
+                    && (next == null || (long) lane.busyCount * next.weight < (long) next.busyCount * lane.weight)) {
+                next = lane;
+            }
+        }
+        return next;
+    }
+
+    private boolean canRunOneMore(Lane lane) {
+        if (busyCount >= threadCount || lane.busyCount >= lane.maxThreads) {
+            return false;
+        }
+        if (lane.busyCount < lane.minThreads) {
+            return true;
+        }
+        return busyCount + 1 + reservedForOthers(lane) <= threadCount;
+    }
+
+    /**
+     * @return the threads the other lanes are still owed to reach their minThreads
+     */
+    private int reservedForOthers(Lane lane) {
+        int reserved = 0;
+        for (Lane other : lanesByName.values()) {
+            if (other != lane && other.busyCount < other.minThreads) {
+                reserved += other.minThreads - other.busyCount;
+            }
+        }
+        return reserved;
+    }
+
+    private int queuedCount() {
+        int queued = 0;
+        for (Lane lane : lanesByName.values()) {
+            queued += lane.queue.size();
+        }
+        return queued;
+    }
+
+    /**
+     * the free workers, less the queued jobs they can start at once. Jobs held back by the maxThreads of their lane or
+     * the minThreads of the others don't count, so a full lane doesn't stop the scheduler from firing the triggers of the others.
+     */
+    private int availableCount() {
+        int shared = threadCount;
+        int startableReserved = 0;
+        int startableShared = 0;
+        for (Lane lane : lanesByName.values()) {
+            shared -= Math.max(lane.busyCount, lane.minThreads);
+            int reserved = Math.min(lane.queue.size(), Math.max(0, lane.minThreads - lane.busyCount));
+            startableReserved += reserved;
+            startableShared += Math.min(lane.queue.size() - reserved,
+                    lane.maxThreads - Math.max(lane.busyCount, lane.minThreads));
+        }
+        return threadCount - busyCount - startableReserved - Math.min(Math.max(shared, 0), startableShared);
+    }
+
+    public int blockForAvailableThreads() {
+        lock.lock();
+        try {
+            while (availableCount() <= 0 && !isShutdown) {
+                try {
+                    capacityAvailable.await(500, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException ignore) {
+                }
+            }
+            return Math.max(availableCount(), 0);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void shutdown(boolean waitForJobsToComplete) {
+        lock.lock();
+        try {
+            log.debug("Shutting down threadpool...");
+            isShutdown = true;
+            workAvailable.signalAll();
+            capacityAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        if (waitForJobsToComplete) {
+            for (Thread worker : workers) {
+                try {
+                    worker.join();
+                } catch (InterruptedException ignore) {
+                }
+            }
+        }
+        ThreadPoolHolder.remove(schedulerInstanceName, this);
+        log.debug("Shutdown of threadpool complete.");
+    }
+
+    public int getPoolSize() {
+        return threadCount;
+    }
+
+    public List<String> getLaneNames() {
+        return Collections.unmodifiableList(new ArrayList<>(lanesByName.keySet()));
+    }
+
+    /**
+     * @return the jobs of the lane waiting for a worker
+     */
+    public int getQueueDepth(String laneName) {
+        lock.lock();
+        try {
+            Lane lane = lanesByName.get(laneName);
+            return lane == null ? 0 : lane.queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getBusyCount(String laneName) {
+        lock.lock();
+        try {
+            Lane lane = lanesByName.get(laneName);
+            return lane == null ? 0 : lane.busyCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getExecutedCount(String laneName) {
+        lock.lock();
+        try {
+            Lane lane = lanesByName.get(laneName);
+            return lane == null ? 0 : lane.executedCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void setInstanceId(String schedInstId) {
+    }
+
+    public void setInstanceName(String schedName) {
+        this.schedulerInstanceName = schedName;
+    }
+
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+    public void setThreadCount(int threadCount) {
+        this.threadCount = threadCount;
+    }
+
+    public String getLanes() {
+        return lanes;
+    }
+
+    public void setLanes(String lanes) {
+        this.lanes = lanes;
+    }
+
+    public void setThreadPriority(int threadPriority) {
+        this.threadPriority = threadPriority;
+    }
+
+    public void setMakeThreadsDaemons(boolean makeThreadsDaemons) {
+        this.makeThreadsDaemons = makeThreadsDaemons;
+    }
+
+    public void setThreadsInheritGroupOfInitializingThread(boolean threadsInheritGroupOfInitializingThread) {
+    }
+
+    public void setThreadsInheritContextClassLoaderOfInitializingThread(boolean threadsInheritContextClassLoaderOfInitializingThread) {
+        this.threadsInheritContextClassLoaderOfInitializingThread = threadsInheritContextClassLoaderOfInitializingThread;
+    }
+
+    public void setThreadNamePrefix(String threadNamePrefix) {
+        this.threadNamePrefix = threadNamePrefix;
+    }
+
+    private static class Lane {
+
+        private final String name;
+
+        private final List<String> groups = new ArrayList<>();
+
+        private Integer minPriority;
+
+        private int minThreads;
+
+        private int maxThreads;
+
+        private int weight = 1;
+
+        private Integer maxQueued;
+
+        private final Queue<Runnable> queue = new ArrayDeque<>();
+
+        private int busyCount;
+
+        private long executedCount;
+
+        Lane(String name) {
+            this.name = name;
+        }
+
+        void set(String key, String value) throws SchedulerConfigException {
+            try {
+                switch (key) {
+                    case "groups":
+                        for (String group : value.split("\\|")) {
+                            if (StringUtils.hasText(group)) {
+                                groups.add(group.trim());
+                            }
+                        }
+                        break;
+                    case "minPriority":
+                        minPriority = Integer.valueOf(value);
+                        break;
+                    case "minThreads":
+                        minThreads = Integer.parseInt(value);
+                        break;
+                    case "maxThreads":
+                        maxThreads = Integer.parseInt(value);
+                        break;
+                    case "weight":
+                        weight = Integer.parseInt(value);
+                        break;
+                    case "maxQueued":
+                        maxQueued = Integer.valueOf(value);
+                        break;
+                    default:
+                        throw new SchedulerConfigException("Unknown setting '" + key + "' of lane " + name);
+                }
+            } catch (NumberFormatException e) {
+                throw new SchedulerConfigException("Invalid value '" + value + "' of " + key + " of lane " + name, e);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return name + "[min=" + minThreads + ", max=" + maxThreads + ", weight=" + weight + ", maxQueued=" + maxQueued + "]";
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.github.attemper.quartz.spring.boot.autoconfigure.threadpool;
+
+import org.quartz.spi.ThreadPool;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The scheduler doesn't expose its thread pool, so the thread pools of this package register themselves by scheduler name
+ */
+public class ThreadPoolHolder {
+
+    private static final Map<String, ThreadPool> threadPools = new ConcurrentHashMap<>();
+
+    public static void set(String schedName, ThreadPool threadPool) {
+        threadPools.put(schedName, threadPool);
+    }
+
+    public static ThreadPool get(String schedName) {
+        return threadPools.get(schedName);
+    }
+
+    public static void remove(String schedName, ThreadPool threadPool) {
+        threadPools.remove(schedName, threadPool);
+    }
+}
@@ -0,0 +1,280 @@
+package com.github.attemper.quartz.spring.boot.autoconfigure.threadpool;
+
+import org.quartz.SchedulerConfigException;
+import org.quartz.spi.ThreadPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A ThreadPool which starts one thread per job instead of handing jobs to a fixed set of workers.
+ * Jobs run on virtual threads when the JVM supports them (Java 21+), otherwise on an elastic executor
+ * whose platform threads are created on demand and retired after <code>keepAliveMills</code>.
+ * The number of jobs running at the same time is bounded by <code>concurrencyLimit</code> only.
+ */
+public class VirtualThreadPool implements ThreadPool {
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private final Object lock = new Object();
+
+    private int concurrencyLimit = 1000;
+
+    private boolean useVirtualThreads = true;
+
+    private long keepAliveMills = 60000L;
+
+    private int threadPriority = Thread.NORM_PRIORITY;
+
+    private boolean makeThreadsDaemons;
+
+    private boolean threadsInheritContextClassLoaderOfInitializingThread;
+
+    private String threadNamePrefix;
+
+    private String schedulerInstanceName;
+
+    private ThreadFactory virtualThreadFactory;
+
+    private ExecutorService elasticExecutor;
+
+    private ClassLoader initializingClassLoader;
+
+    private int busyCount;
+
+    private boolean isShutdown;
+
+    public VirtualThreadPool() {
+    }
+
+    public void initialize() throws SchedulerConfigException {
+        if (virtualThreadFactory != null || elasticExecutor != null) {
+            return;
+        }
+        if (concurrencyLimit <= 0) {
+            throw new SchedulerConfigException("Concurrency limit must be > 0");
+        }
+        if (threadNamePrefix == null) {
+            threadNamePrefix = schedulerInstanceName + "_Worker";
+        }
+        if (threadsInheritContextClassLoaderOfInitializingThread) {
+            initializingClassLoader = Thread.currentThread().getContextClassLoader();
+        }
+        if (useVirtualThreads) {
+            virtualThreadFactory = createVirtualThreadFactory(threadNamePrefix + "-");
+        }
+        if (virtualThreadFactory != null) {
+            log.info("Jobs will run on virtual threads, concurrency limit is {}", concurrencyLimit);
+        } else {
+            elasticExecutor = new ThreadPoolExecutor(0, Integer.MAX_VALUE, keepAliveMills, TimeUnit.MILLISECONDS,
+                    new SynchronousQueue<Runnable>(), new PlatformThreadFactory());
+            log.info("Jobs will run on an elastic thread pool, concurrency limit is {}", concurrencyLimit);
+        }
+    }
+
+    /**
+     * <code>Thread.ofVirtual()</code> is looked up reflectively because the module is still compiled for Java 8
+     *
+     * @param prefix
+     * @return the factory, or null if the running JVM has no virtual threads
+     */
+    private ThreadFactory createVirtualThreadFactory(String prefix) {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Method name = builderClass.getMethod("name", String.class, long.class);
+            builder = name.invoke(builder, prefix, 0L);
+            return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+        } catch (Exception e) {
+            log.info("Virtual threads are not available in this JVM, fall back to an elastic thread pool");
+            return null;
+        }
+    }
+
+    public boolean runInThread(final Runnable runnable) {
+        if (runnable == null) {
+            return false;
+        }
+        synchronized (lock) {
+            // Wait until a slot is free, jobs handed over during shutdown are still executed
+            while (busyCount >= concurrencyLimit && !isShutdown) {
+                try {
+                    lock.wait(500);
+                } catch (InterruptedException ignore) {
+                }
+            }
+            busyCount++;
+        }
+        Runnable task = new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    runnable.run();
+                } finally {
+                    release();
+                }
+            }
+        };
+        try {
+            if (virtualThreadFactory != null) {
+                Thread thread = virtualThreadFactory.newThread(task);
+                if (initializingClassLoader != null) {
+                    thread.setContextClassLoader(initializingClassLoader);
+                }
+                thread.start();
+            } else {
+                elasticExecutor.execute(task);
+            }
+        } catch (RejectedExecutionException e) {
+            // executor has been shut down, keep the contract of SimpleThreadPool and run it anyway
+            new PlatformThreadFactory().newThread(task).start();
+        }
+        return true;
+    }
+
+    private void release() {
+        synchronized (lock) {
+            busyCount--;
+            lock.notifyAll();
+        }
+    }
+
+    public int blockForAvailableThreads() {
+        synchronized (lock) {
+            while (busyCount >= concurrencyLimit && !isShutdown) {
+                try {
+                    lock.wait(500);
+                } catch (InterruptedException ignore) {
+                }
+            }
+            return concurrencyLimit - busyCount;
+        }
+    }
+
+    public void shutdown(boolean waitForJobsToComplete) {
+        synchronized (lock) {
+            log.debug("Shutting down threadpool...");
+            isShutdown = true;
+            lock.notifyAll();
+            if (waitForJobsToComplete) {
+                while (busyCount > 0) {
+                    log.debug("Waiting for {} jobs to complete.", busyCount);
+                    try {
+                        lock.wait(100);
+                    } catch (InterruptedException ignore) {
+                    }
+                }
+            }
+        }
+        if (elasticExecutor != null) {
+            elasticExecutor.shutdown();
+        }
+        log.debug("Shutdown of threadpool complete.");
+    }
+
+    public int getPoolSize() {
+        return concurrencyLimit;
+    }
+
+    /**
+     * @return the number of jobs running at the moment
+     */
+    public int getBusyCount() {
+        synchronized (lock) {
+            return busyCount;
+        }
+    }
+
+    public void setInstanceId(String schedInstId) {
+    }
+
+    public void setInstanceName(String schedName) {
+        this.schedulerInstanceName = schedName;
+    }
+
+    public int getConcurrencyLimit() {
+        return concurrencyLimit;
+    }
+
+    public void setConcurrencyLimit(int concurrencyLimit) {
+        this.concurrencyLimit = concurrencyLimit;
+    }
+
+    public boolean isUseVirtualThreads() {
+        return useVirtualThreads;
+    }
+
+    public void setUseVirtualThreads(boolean useVirtualThreads) {
+        this.useVirtualThreads = useVirtualThreads;
+    }
+
+    public long getKeepAliveMills() {
+        return keepAliveMills;
+    }
+
+    public void setKeepAliveMills(long keepAliveMills) {
+        this.keepAliveMills = keepAliveMills;
+    }
+
+    /**
+     * The default <code>org.quartz.threadPool.threadCount</code> is always passed in,
+     * it has no meaning here because the capacity is controlled by concurrencyLimit
+     *
+     * @param threadCount
+     */
+    public void setThreadCount(int threadCount) {
+    }
+
+    /**
+     * only applied to the platform threads of the elastic executor
+     *
+     * @param threadPriority
+     */
+    public void setThreadPriority(int threadPriority) {
+        this.threadPriority = threadPriority;
+    }
+
+    /**
+     * only applied to the platform threads of the elastic executor, virtual threads are always daemons
+     *
+     * @param makeThreadsDaemons
+     */
+    public void setMakeThreadsDaemons(boolean makeThreadsDaemons) {
+        this.makeThreadsDaemons = makeThreadsDaemons;
+    }
+
+    public void setThreadsInheritGroupOfInitializingThread(boolean threadsInheritGroupOfInitializingThread) {
+    }
+
+    public void setThreadsInheritContextClassLoaderOfInitializingThread(boolean threadsInheritContextClassLoaderOfInitializingThread) {
+        this.threadsInheritContextClassLoaderOfInitializingThread = threadsInheritContextClassLoaderOfInitializingThread;
+    }
+
+    public void setThreadNamePrefix(String threadNamePrefix) {
+        this.threadNamePrefix = threadNamePrefix;
+    }
+
+    private class PlatformThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger threadNumber = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, threadNamePrefix + "-" + threadNumber.getAndIncrement());
+            thread.setDaemon(makeThreadsDaemons);
+            thread.setPriority(threadPriority);
+            if (initializingClassLoader != null) {
+                thread.setContextClassLoader(initializingClassLoader);
+            }
+            return thread;
+        }
+    }
+}
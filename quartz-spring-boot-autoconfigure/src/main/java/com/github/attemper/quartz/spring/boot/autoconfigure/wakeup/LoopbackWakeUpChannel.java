@@ -0,0 +1,49 @@
+package com.github.attemper.quartz.spring.boot.autoconfigure.wakeup;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+/**
+ * A {@link WakeUpChannel} within the JVM, for the nodes of a cluster started side by side by tests.
+ */
+public class LoopbackWakeUpChannel implements WakeUpChannel {
+
+    private static final Map<String, Set<LoopbackWakeUpChannel>> CHANNELS = new ConcurrentHashMap<>();
+
+    private String name;
+
+    private String instanceId;
+
+    private Listener listener;
+
+    @Override
+    public void start(String name, String instanceId, Listener listener) {
+        this.name = name;
+        this.instanceId = instanceId;
+        this.listener = listener;
+        CHANNELS.computeIfAbsent(name, key -> new CopyOnWriteArraySet<>()).add(this);
+    }
+
+    @Override
+    public void publish(long candidateNewNextFireTime) {
+        Set<LoopbackWakeUpChannel> channels = CHANNELS.get(name);
+        if (channels == null) {
+            return;
+        }
+        for (LoopbackWakeUpChannel channel : channels) {
+            if (!channel.instanceId.equals(instanceId)) {
+                channel.listener.wakeUp(candidateNewNextFireTime);
+            }
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        Set<LoopbackWakeUpChannel> channels = CHANNELS.get(name);
+        if (channels != null) {
+            channels.remove(this);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.github.attemper.quartz.spring.boot.autoconfigure.wakeup;
+
+import com.github.attemper.quartz.spring.boot.autoconfigure.redis.RedisClientFactory;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisException;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.pubsub.RedisPubSubAdapter;
+import io.lettuce.core.pubsub.StatefulRedisPubSubConnection;
+import org.quartz.SchedulerConfigException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link WakeUpChannel} on redis pub/sub, configured by the redis properties of org.quartz.jobStore. <br>
+ *
+ * A message is <code>{candidateNewNextFireTime}:{instanceId}</code>, published without waiting for redis.
+ * The subscription is renewed by lettuce after a reconnection, the wake-ups published meanwhile are lost.
+ */
+public class RedisWakeUpChannel implements WakeUpChannel {
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private String host;
+
+    private Integer port;
+
+    private String password;
+
+    private Integer database;
+
+    private Boolean ssl;
+
+    private String name;
+
+    private String instanceId;
+
+    private RedisClient redisClient;
+
+    private StatefulRedisPubSubConnection<String, String> subscription;
+
+    private StatefulRedisConnection<String, String> connection;
+
+    @Override
+    public synchronized void start(final String name, final String instanceId, final Listener listener) throws SchedulerConfigException {
+        this.name = name;
+        this.instanceId = instanceId;
+        try {
+            redisClient = RedisClientFactory.create(host, port, password, database, ssl);
+            connection = redisClient.connect();
+            subscription = redisClient.connectPubSub();
+            subscription.addListener(new RedisPubSubAdapter<String, String>() {
+                @Override
+                public void message(String channel, String message) {
+                    int separator = message.indexOf(':');
+                    if (separator < 0 || instanceId.equals(message.substring(separator + 1))) {
+                        return;
+                    }
+                    try {
+                        listener.wakeUp(Long.parseLong(message.substring(0, separator)));
+                    } catch (NumberFormatException e) {
+                        log.warn("Ignoring the wake-up '{}' of channel {}", message, channel);
+                    }
+                }
+            });
+            subscription.sync().subscribe(name);
+        } catch (RedisException e) {
+            shutdown();
+            throw new SchedulerConfigException("Could not subscribe to the redis channel " + name + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void publish(long candidateNewNextFireTime) {
+        StatefulRedisConnection<String, String> connection = this.connection;
+        if (connection == null) {
+            return;
+        }
+        connection.async().publish(name, candidateNewNextFireTime + ":" + instanceId).whenComplete((receivers, e) -> {
+            if (e != null) {
+                log.warn("Could not publish the wake-up to channel {}: {}", name, e.getMessage());
+            }
+        });
+    }
+
+    @Override
+    public synchronized void shutdown() {
+        if (subscription != null) {
+            subscription.close();
+            subscription = null;
+        }
+        if (connection != null) {
+            connection.close();
+            connection = null;
+        }
+        if (redisClient != null) {
+            redisClient.shutdown();
+            redisClient = null;
+        }
+    }
+
+    public void setHost(String host) {
+        this.host = host;
+    }
+
+    public void setPort(Integer port) {
+        this.port = port;
+    }
+
+    public void setPassword(String password) {
+        this.password = password;
+    }
+
+    public void setDatabase(Integer database) {
+        this.database = database;
+    }
+
+    public void setSsl(Boolean ssl) {
+        this.ssl = ssl;
+    }
+}
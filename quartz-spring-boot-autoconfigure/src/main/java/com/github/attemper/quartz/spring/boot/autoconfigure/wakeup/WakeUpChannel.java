@@ -0,0 +1,31 @@
+package com.github.attemper.quartz.spring.boot.autoconfigure.wakeup;
+
+import org.quartz.SchedulerConfigException;
+
+/**
+ * Tells the other nodes of a cluster that a trigger was stored or resumed, so the scheduler thread of an idle node
+ * acquires it instead of finding it after idleWaitTime. <br>
+ *
+ * The wake-ups are a hint: a node missing one still finds the trigger by its next acquisition.
+ */
+public interface WakeUpChannel {
+
+    /**
+     * @param name       the channel shared by the nodes of a scheduler
+     * @param instanceId the node, its own wake-ups are not handed to its listener
+     * @param listener   called with the wake-ups of the other nodes
+     */
+    void start(String name, String instanceId, Listener listener) throws SchedulerConfigException;
+
+    /**
+     * @param candidateNewNextFireTime the earliest next fire time of the triggers stored, 0 if unknown
+     */
+    void publish(long candidateNewNextFireTime);
+
+    void shutdown();
+
+    interface Listener {
+
+        void wakeUp(long candidateNewNextFireTime);
+    }
+}
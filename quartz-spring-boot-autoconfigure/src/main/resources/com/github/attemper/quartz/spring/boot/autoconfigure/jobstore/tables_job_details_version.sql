@@ -0,0 +1,8 @@
+-- table of com.github.attemper.quartz.spring.boot.autoconfigure.jobstore.CustomJobStoreCMT, with jobDetailCacheSize > 0 and clustered
+-- VERSION_NO is moved on by every change of the job details of a scheduler, the nodes drop their cached ones when it moves
+
+CREATE TABLE QRTZ_JOB_DETAILS_VERSION (
+  SCHED_NAME VARCHAR(120) NOT NULL,
+  VERSION_NO BIGINT NOT NULL,
+  PRIMARY KEY (SCHED_NAME)
+);
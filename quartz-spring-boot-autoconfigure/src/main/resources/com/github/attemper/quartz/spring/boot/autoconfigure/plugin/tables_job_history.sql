@@ -0,0 +1,21 @@
+-- table of com.github.attemper.quartz.spring.boot.autoconfigure.plugin.JdbcJobHistoryPlugin
+-- times are in milliseconds, RUN_TIME is -1 for vetoed executions
+
+CREATE TABLE QRTZ_JOB_HISTORY (
+  SCHED_NAME VARCHAR(120) NOT NULL,
+  INSTANCE_NAME VARCHAR(200) NOT NULL,
+  FIRE_INSTANCE_ID VARCHAR(95) NOT NULL,
+  JOB_NAME VARCHAR(200) NOT NULL,
+  JOB_GROUP VARCHAR(200) NOT NULL,
+  TRIGGER_NAME VARCHAR(200) NOT NULL,
+  TRIGGER_GROUP VARCHAR(200) NOT NULL,
+  SCHED_TIME BIGINT NULL,
+  FIRED_TIME BIGINT NOT NULL,
+  RUN_TIME BIGINT NOT NULL,
+  REFIRE_COUNT INTEGER NOT NULL,
+  STATUS VARCHAR(16) NOT NULL,
+  ERROR_MESSAGE VARCHAR(2000) NULL
+);
+
+CREATE INDEX IDX_QRTZ_JH_J ON QRTZ_JOB_HISTORY(SCHED_NAME, JOB_GROUP, JOB_NAME, FIRED_TIME);
+CREATE INDEX IDX_QRTZ_JH_FT ON QRTZ_JOB_HISTORY(SCHED_NAME, FIRED_TIME);
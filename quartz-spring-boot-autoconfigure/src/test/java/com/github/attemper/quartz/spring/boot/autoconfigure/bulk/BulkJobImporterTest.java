@@ -0,0 +1,85 @@
+package com.github.attemper.quartz.spring.boot.autoconfigure.bulk;
+
+import com.github.attemper.quartz.spring.boot.autoconfigure.jobstore.AbstractJdbcJobStoreTest;
+import com.github.attemper.quartz.spring.boot.autoconfigure.jobstore.WriteBehindJobStore;
+import org.junit.Test;
+import org.quartz.Job;
+import org.quartz.JobBuilder;
+import org.quartz.JobDetail;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobKey;
+import org.quartz.Scheduler;
+import org.quartz.Trigger;
+import org.quartz.TriggerBuilder;
+import org.quartz.impl.StdSchedulerFactory;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BulkJobImporterTest extends AbstractJdbcJobStoreTest {
+
+    private static final int JOB_COUNT = 5;
+
+    private static volatile CountDownLatch fired;
+
+    @Test
+    public void importsByBatchesIntoTheTables() throws Exception {
+        Scheduler scheduler = createScheduler(new Properties());
+
+        BulkImportReport report = new BulkJobImporter(schedulerFactory, 2, 0).importJobs(jobs(new Date(System.currentTimeMillis() + 3600000L)), false);
+
+        assertEquals(JOB_COUNT, report.getJobCount());
+        assertEquals(JOB_COUNT, report.getTriggerCount());
+        assertEquals(3, report.getChunkCount());
+        assertEquals(0, report.getStoredOneByOneCount());
+        assertEquals(JOB_COUNT, count("SELECT COUNT(*) FROM QRTZ_TRIGGERS"));
+        assertTrue(scheduler.checkExists(new JobKey("job0")));
+    }
+
+    @Test
+    public void importsIntoTheMemoryOfTheWriteBehindStore() throws Exception {
+        Properties properties = new Properties();
+        properties.put(StdSchedulerFactory.PROP_JOB_STORE_CLASS, WriteBehindJobStore.class.getName());
+        properties.put("org.quartz.jobStore.writeBehindIntervalMills", "100");
+        Scheduler scheduler = createScheduler(properties);
+        fired = new CountDownLatch(JOB_COUNT);
+
+        BulkImportReport report = new BulkJobImporter(schedulerFactory, 2, 0).importJobs(jobs(new Date()), false);
+
+        assertEquals(JOB_COUNT, report.getTriggerCount());
+        assertEquals(0, report.getStoredOneByOneCount());
+        assertEquals(JOB_COUNT, ((WriteBehindJobStore) getJobStore()).getMemoryStore().getNumberOfTriggers());
+        scheduler.start();
+        assertTrue("the imported triggers fire without a restart", fired.await(10, TimeUnit.SECONDS));
+        scheduler.shutdown(true);
+        // written behind, the jobs being durable
+        assertEquals(JOB_COUNT, count("SELECT COUNT(*) FROM QRTZ_JOB_DETAILS"));
+    }
+
+    private static Map<JobDetail, Set<? extends Trigger>> jobs(Date startTime) {
+        Map<JobDetail, Set<? extends Trigger>> triggersAndJobs = new LinkedHashMap<>();
+        for (int i = 0; i < JOB_COUNT; i++) {
+            JobDetail job = JobBuilder.newJob(CountDownJob.class).withIdentity("job" + i).storeDurably().build();
+            triggersAndJobs.put(job, Collections.singleton(TriggerBuilder.newTrigger().withIdentity("trigger" + i).forJob(job).startAt(startTime).build()));
+        }
+        return triggersAndJobs;
+    }
+
+    public static class CountDownJob implements Job {
+        public void execute(JobExecutionContext context) {
+            CountDownLatch latch = fired;
+            if (latch != null) {
+                latch.countDown();
+            }
+        }
+    }
+}
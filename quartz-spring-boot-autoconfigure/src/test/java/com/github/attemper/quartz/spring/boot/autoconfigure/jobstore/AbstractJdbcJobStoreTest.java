@@ -0,0 +1,78 @@
+package com.github.attemper.quartz.spring.boot.autoconfigure.jobstore;
+
+import com.github.attemper.quartz.spring.boot.autoconfigure.db.DataSourceHolder;
+import org.junit.After;
+import org.junit.Before;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
+import org.quartz.impl.StdSchedulerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.util.Properties;
+
+/**
+ * a scheduler on CustomJobStoreCMT over a fresh in-memory H2 database with the quartz tables
+ */
+public abstract class AbstractJdbcJobStoreTest {
+
+    protected static final String SCHEDULER_NAME = "test";
+
+    protected EmbeddedDatabase database;
+
+    protected JdbcTemplate jdbcTemplate;
+
+    protected StdSchedulerFactory schedulerFactory;
+
+    private Scheduler scheduler;
+
+    @Before
+    public void createDatabase() {
+        database = new EmbeddedDatabaseBuilder()
+                .generateUniqueName(true)
+                .setType(EmbeddedDatabaseType.H2)
+                .addScript("classpath:org/quartz/impl/jdbcjobstore/tables_h2.sql")
+                .build();
+        jdbcTemplate = new JdbcTemplate(database);
+    }
+
+    @After
+    public void shutdown() throws SchedulerException {
+        if (scheduler != null) {
+            scheduler.shutdown(true);
+        }
+        database.shutdown();
+    }
+
+    /**
+     * @param quartzProperties org.quartz.* properties, on top of the defaults of the tests
+     * @return the scheduler, not started
+     */
+    protected Scheduler createScheduler(Properties quartzProperties) throws SchedulerException {
+        Properties properties = new Properties();
+        properties.put(StdSchedulerFactory.PROP_SCHED_INSTANCE_NAME, SCHEDULER_NAME);
+        properties.put(StdSchedulerFactory.PROP_SCHED_INSTANCE_ID, "node");
+        properties.put("org.quartz.scheduler.skipUpdateCheck", "true");
+        properties.put(StdSchedulerFactory.PROP_JOB_STORE_CLASS, CustomJobStoreCMT.class.getName());
+        properties.put("org.quartz.threadPool.threadCount", "2");
+        properties.putAll(quartzProperties);
+        DataSourceHolder.set(database);
+        try {
+            schedulerFactory = new StdSchedulerFactory(properties);
+            scheduler = schedulerFactory.getScheduler();
+        } finally {
+            DataSourceHolder.clear();
+        }
+        return scheduler;
+    }
+
+    protected CustomJobStoreCMT getJobStore() {
+        return (CustomJobStoreCMT) JobStoreHolder.get(SCHEDULER_NAME);
+    }
+
+    protected long count(String sql, Object... args) {
+        return jdbcTemplate.queryForObject(sql, Long.class, args);
+    }
+}
@@ -0,0 +1,75 @@
+package com.github.attemper.quartz.spring.boot.autoconfigure.jobstore;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class AcquisitionControllerTest {
+
+    @Test
+    public void doublesTheBatchWhileTheAcquisitionsComeBackFull() {
+        AcquisitionController controller = new AcquisitionController(1, 0L);
+        assertEquals(1, controller.getBatchSize(50));
+
+        int[] expected = {2, 4, 8, 16, 32, 50, 50};
+        for (int size : expected) {
+            int requested = controller.getBatchSize(50);
+            controller.acquired(requested, requested, 0L);
+            assertEquals(size, controller.getBatchSize());
+        }
+        // capped by the free workers
+        assertEquals(10, controller.getBatchSize(10));
+    }
+
+    @Test
+    public void shrinksTheBatchWhileTheAcquisitionsComeBackLessThanHalfFull() {
+        AcquisitionController controller = grown(4, 16);
+
+        controller.acquired(16, 6, 0L);
+        assertEquals(12, controller.getBatchSize());
+        // half full, kept
+        controller.acquired(12, 6, 0L);
+        assertEquals(12, controller.getBatchSize());
+
+        int[] expected = {9, 7, 6, 5, 4, 4};
+        for (int size : expected) {
+            controller.acquired(controller.getBatchSize(), 0, 0L);
+            assertEquals(size, controller.getBatchSize());
+        }
+    }
+
+    @Test
+    public void keepsTheWindowWithinItsBounds() {
+        AcquisitionController controller = new AcquisitionController(1, 0L);
+        controller.getBatchSize(10);
+        controller.getTimeWindow(1000L);
+        // no trigger acquired, the window is one round trip
+        controller.acquired(1, 0, 5000000L);
+        assertEquals(5L, controller.getTimeWindow());
+        assertEquals(5L, controller.getTimeWindow(1000L));
+
+        controller.getTimeWindow(3L);
+        controller.acquired(1, 0, 5000000L);
+        assertEquals(3L, controller.getTimeWindow());
+
+        AcquisitionController withMinWindow = new AcquisitionController(1, 10L);
+        withMinWindow.getTimeWindow(1000L);
+        withMinWindow.acquired(1, 0, 5000000L);
+        assertEquals(10L, withMinWindow.getTimeWindow());
+        // the window of the scheduler wins over the smallest window
+        assertEquals(7L, withMinWindow.getTimeWindow(7L));
+    }
+
+    /**
+     * @return a controller whose batch has grown to the size
+     */
+    private static AcquisitionController grown(int minBatchSize, int size) {
+        AcquisitionController controller = new AcquisitionController(minBatchSize, 0L);
+        while (controller.getBatchSize() < size) {
+            int requested = controller.getBatchSize(size);
+            controller.acquired(requested, requested, 0L);
+        }
+        assertEquals(size, controller.getBatchSize());
+        return controller;
+    }
+}
@@ -0,0 +1,163 @@
+package com.github.attemper.quartz.spring.boot.autoconfigure.jobstore;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.quartz.CronScheduleBuilder;
+import org.quartz.CronTrigger;
+import org.quartz.Job;
+import org.quartz.JobBuilder;
+import org.quartz.JobDetail;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobKey;
+import org.quartz.ObjectAlreadyExistsException;
+import org.quartz.Scheduler;
+import org.quartz.Trigger.TriggerState;
+import org.quartz.TriggerBuilder;
+import org.quartz.TriggerKey;
+import org.quartz.impl.matchers.GroupMatcher;
+import org.quartz.spi.OperableTrigger;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class BatchStoreTest extends AbstractJdbcJobStoreTest {
+
+    private static final Date LATER = new Date(System.currentTimeMillis() + 3600000L);
+
+    private Scheduler scheduler;
+
+    private CustomJobStoreCMT jobStore;
+
+    @Before
+    public void setUp() throws Exception {
+        scheduler = createScheduler(new Properties());
+        jobStore = getJobStore();
+    }
+
+    @Test
+    public void insertsNewJobsAndTriggersByBatches() throws Exception {
+        Map<JobDetail, List<OperableTrigger>> triggersAndJobs = new LinkedHashMap<>();
+        for (int i = 0; i < 3; i++) {
+            JobDetail job = job("job" + i, "value" + i);
+            triggersAndJobs.put(job, Arrays.asList(simpleTrigger("simple" + i, job), cronTrigger("cron" + i, job, "0 0 3 * * ?")));
+        }
+
+        assertEquals(0, jobStore.storeJobsAndTriggersInBatch(triggersAndJobs, false));
+
+        assertEquals(3, count("SELECT COUNT(*) FROM QRTZ_JOB_DETAILS"));
+        assertEquals(6, count("SELECT COUNT(*) FROM QRTZ_TRIGGERS WHERE TRIGGER_STATE = 'WAITING'"));
+        assertEquals(3, count("SELECT COUNT(*) FROM QRTZ_SIMPLE_TRIGGERS"));
+        assertEquals(3, count("SELECT COUNT(*) FROM QRTZ_CRON_TRIGGERS"));
+        assertEquals("value1", scheduler.getJobDetail(new JobKey("job1")).getJobDataMap().getString("key"));
+        assertEquals("0 0 3 * * ?", ((CronTrigger) scheduler.getTrigger(new TriggerKey("cron2"))).getCronExpression());
+        assertEquals(LATER, scheduler.getTrigger(new TriggerKey("simple0")).getNextFireTime());
+    }
+
+    @Test
+    public void failsWithoutReplaceWhenAJobExists() throws Exception {
+        scheduler.addJob(job("existing", "old"), false);
+        JobDetail newJob = job("new", "value");
+        JobDetail existingJob = job("existing", "new");
+        Map<JobDetail, List<OperableTrigger>> triggersAndJobs = new LinkedHashMap<>();
+        triggersAndJobs.put(newJob, Collections.singletonList(simpleTrigger("trigger0", newJob)));
+        triggersAndJobs.put(existingJob, Collections.singletonList(simpleTrigger("trigger1", existingJob)));
+
+        try {
+            jobStore.storeJobsAndTriggersInBatch(triggersAndJobs, false);
+            fail("the job already exists");
+        } catch (ObjectAlreadyExistsException e) {
+            assertTrue(e.getMessage().contains("existing"));
+        }
+        // the chunk was rolled back, the rows inserted before the failure included
+        assertEquals(1, count("SELECT COUNT(*) FROM QRTZ_JOB_DETAILS"));
+        assertEquals(0, count("SELECT COUNT(*) FROM QRTZ_TRIGGERS"));
+        assertEquals("old", scheduler.getJobDetail(new JobKey("existing")).getJobDataMap().getString("key"));
+    }
+
+    @Test
+    public void failsWithoutReplaceWhenATriggerExists() throws Exception {
+        JobDetail other = job("other", "value");
+        scheduler.scheduleJob(other, simpleTrigger("existing", other));
+        JobDetail newJob = job("new", "value");
+        Map<JobDetail, List<OperableTrigger>> triggersAndJobs = new LinkedHashMap<>();
+        triggersAndJobs.put(newJob, Arrays.asList(simpleTrigger("trigger0", newJob), simpleTrigger("existing", newJob)));
+
+        try {
+            jobStore.storeJobsAndTriggersInBatch(triggersAndJobs, false);
+            fail("the trigger already exists");
+        } catch (ObjectAlreadyExistsException e) {
+            assertTrue(e.getMessage().contains("existing"));
+        }
+        assertEquals(1, count("SELECT COUNT(*) FROM QRTZ_JOB_DETAILS"));
+        assertEquals(1, count("SELECT COUNT(*) FROM QRTZ_TRIGGERS"));
+        assertEquals(new JobKey("other"), scheduler.getTrigger(new TriggerKey("existing")).getJobKey());
+    }
+
+    @Test
+    public void replacesExistingJobsAndTriggersOneByOne() throws Exception {
+        JobDetail oldJob = job("existing", "old");
+        scheduler.scheduleJob(oldJob, cronTrigger("existingTrigger", oldJob, "0 0 3 * * ?"));
+        JobDetail existingJob = job("existing", "new");
+        JobDetail newJob = job("new", "value");
+        Map<JobDetail, List<OperableTrigger>> triggersAndJobs = new LinkedHashMap<>();
+        triggersAndJobs.put(existingJob, Arrays.asList(cronTrigger("existingTrigger", existingJob, "0 0 4 * * ?"),
+                simpleTrigger("addedTrigger", existingJob)));
+        triggersAndJobs.put(newJob, Collections.singletonList(simpleTrigger("newTrigger", newJob)));
+
+        // the existing job and both of its triggers, the new job and its trigger go by batches
+        assertEquals(3, jobStore.storeJobsAndTriggersInBatch(triggersAndJobs, true));
+
+        assertEquals(2, count("SELECT COUNT(*) FROM QRTZ_JOB_DETAILS"));
+        assertEquals(3, count("SELECT COUNT(*) FROM QRTZ_TRIGGERS WHERE TRIGGER_STATE = 'WAITING'"));
+        assertEquals("new", scheduler.getJobDetail(new JobKey("existing")).getJobDataMap().getString("key"));
+        assertEquals("0 0 4 * * ?", ((CronTrigger) scheduler.getTrigger(new TriggerKey("existingTrigger"))).getCronExpression());
+        assertEquals(2, scheduler.getTriggersOfJob(new JobKey("existing")).size());
+        assertEquals(1, scheduler.getTriggersOfJob(new JobKey("new")).size());
+    }
+
+    @Test
+    public void pausesTheTriggersOfPausedGroups() throws Exception {
+        scheduler.pauseTriggers(GroupMatcher.triggerGroupEquals("paused"));
+        JobDetail job = job("job", "value");
+        OperableTrigger paused = (OperableTrigger) TriggerBuilder.newTrigger().withIdentity("trigger", "paused").forJob(job).startAt(LATER).build();
+        paused.computeFirstFireTime(null);
+        Map<JobDetail, List<OperableTrigger>> triggersAndJobs = new LinkedHashMap<>();
+        triggersAndJobs.put(job, Arrays.asList(paused, simpleTrigger("trigger", job)));
+
+        assertEquals(0, jobStore.storeJobsAndTriggersInBatch(triggersAndJobs, false));
+
+        assertEquals(TriggerState.PAUSED, scheduler.getTriggerState(new TriggerKey("trigger", "paused")));
+        assertEquals(TriggerState.NORMAL, scheduler.getTriggerState(new TriggerKey("trigger")));
+    }
+
+    private static JobDetail job(String name, String value) {
+        return JobBuilder.newJob(NoOpJob.class).withIdentity(name).usingJobData("key", value).storeDurably().build();
+    }
+
+    private static OperableTrigger simpleTrigger(String name, JobDetail job) {
+        OperableTrigger trigger = (OperableTrigger) TriggerBuilder.newTrigger().withIdentity(name).forJob(job).startAt(LATER).build();
+        trigger.computeFirstFireTime(null);
+        return trigger;
+    }
+
+    private static OperableTrigger cronTrigger(String name, JobDetail job, String cronExpression) {
+        OperableTrigger trigger = (OperableTrigger) TriggerBuilder.newTrigger().withIdentity(name).forJob(job)
+                .withSchedule(CronScheduleBuilder.cronSchedule(cronExpression)).build();
+        trigger.computeFirstFireTime(null);
+        return trigger;
+    }
+
+    public static class NoOpJob implements Job {
+        public void execute(JobExecutionContext context) {
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.github.attemper.quartz.spring.boot.autoconfigure.jobstore;
+
+import org.junit.Test;
+import org.quartz.DisallowConcurrentExecution;
+import org.quartz.Job;
+import org.quartz.JobBuilder;
+import org.quartz.JobDetail;
+import org.quartz.JobExecutionContext;
+import org.quartz.Scheduler;
+import org.quartz.TriggerBuilder;
+
+import java.util.Date;
+import java.util.Properties;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ClusterRecoveryTest extends AbstractJdbcJobStoreTest {
+
+    private static final int JOB_COUNT = 10;
+
+    @Test
+    public void recoversAFailedInstanceInBatches() throws Exception {
+        CustomJobStoreCMT jobStore = leaveFailedInstance(3);
+
+        assertTrue(jobStore.doCheckin());
+
+        assertRecovered();
+        assertEquals(JOB_COUNT + 1, jobStore.getRecoveredFiredTriggerCount());
+        assertEquals(1, jobStore.getFailedInstanceCount());
+    }
+
+    @Test
+    public void recoversAFailedInstanceAtOnceWithoutBatchSize() throws Exception {
+        CustomJobStoreCMT jobStore = leaveFailedInstance(0);
+
+        assertTrue(jobStore.doCheckin());
+
+        assertRecovered();
+        assertEquals(0, jobStore.getRecoveredFiredTriggerCount());
+        assertEquals(0, jobStore.getFailedInstanceCount());
+    }
+
+    @Test
+    public void keepsTheFailedInstanceWhenInterruptedBetweenBatches() throws Exception {
+        CustomJobStoreCMT jobStore = leaveFailedInstance(3);
+
+        // as by the shutdown, the first batch is recovered and the wait before the next one is interrupted
+        Thread.currentThread().interrupt();
+        try {
+            assertTrue(jobStore.doCheckin());
+        } finally {
+            Thread.interrupted();
+        }
+
+        assertEquals(3, jobStore.getRecoveredFiredTriggerCount());
+        assertEquals(0, jobStore.getFailedInstanceCount());
+        assertEquals(JOB_COUNT + 1 - 3, count("SELECT COUNT(*) FROM QRTZ_FIRED_TRIGGERS WHERE INSTANCE_NAME = 'dead'"));
+        assertEquals(1, count("SELECT COUNT(*) FROM QRTZ_SCHEDULER_STATE WHERE INSTANCE_NAME = 'dead'"));
+
+        // the claim expires after clusterCheckinInterval and clusterFailureGracePeriodMills, past a check-in of this node
+        long timeout = System.currentTimeMillis() + 5000L;
+        boolean recovered = false;
+        while (!recovered && System.currentTimeMillis() < timeout) {
+            Thread.sleep(200L);
+            recovered = jobStore.doCheckin();
+        }
+        assertTrue(recovered);
+
+        assertRecovered();
+        assertEquals(JOB_COUNT + 1, jobStore.getRecoveredFiredTriggerCount());
+        assertEquals(1, jobStore.getFailedInstanceCount());
+    }
+
+    /**
+     * Leaves a failed node behind with the jobs of even index executing, those of odd index acquired,
+     * and a non-concurrent job executing while its other trigger is blocked.
+     */
+    private CustomJobStoreCMT leaveFailedInstance(int clusterRecoveryBatchSize) throws Exception {
+        Properties properties = new Properties();
+        properties.put("org.quartz.jobStore.isClustered", "true");
+        properties.put("org.quartz.jobStore.clusterCheckinInterval", "1000");
+        properties.put("org.quartz.jobStore.clusterFailureGracePeriodMills", "500");
+        properties.put("org.quartz.jobStore.clusterRecoveryBatchSize", String.valueOf(clusterRecoveryBatchSize));
+        Scheduler scheduler = createScheduler(properties);
+        Date later = new Date(System.currentTimeMillis() + 3600000L);
+        for (int i = 0; i < JOB_COUNT; i++) {
+            JobDetail job = JobBuilder.newJob(NoOpJob.class).withIdentity("job" + i).requestRecovery(i % 4 == 0).build();
+            scheduler.scheduleJob(job, TriggerBuilder.newTrigger().withIdentity("trigger" + i).startAt(later).build());
+        }
+        JobDetail nonConcurrentJob = JobBuilder.newJob(NonConcurrentJob.class).withIdentity("nonConcurrent").storeDurably().build();
+        scheduler.addJob(nonConcurrentJob, false);
+        scheduler.scheduleJob(TriggerBuilder.newTrigger().withIdentity("executing").forJob(nonConcurrentJob).startAt(later).build());
+        scheduler.scheduleJob(TriggerBuilder.newTrigger().withIdentity("blocked").forJob(nonConcurrentJob).startAt(later).build());
+
+        long failedAt = System.currentTimeMillis() - 60000L;
+        jdbcTemplate.update("INSERT INTO QRTZ_SCHEDULER_STATE VALUES (?, 'dead', ?, 1000)", SCHEDULER_NAME, failedAt);
+        for (int i = 0; i < JOB_COUNT; i++) {
+            boolean executing = i % 2 == 0;
+            insertFiredTrigger("fired" + i, "trigger" + i, "job" + i, executing ? "EXECUTING" : "ACQUIRED",
+                    false, i % 4 == 0, failedAt);
+            if (!executing) {
+                jdbcTemplate.update("UPDATE QRTZ_TRIGGERS SET TRIGGER_STATE = 'ACQUIRED' WHERE TRIGGER_NAME = ?", "trigger" + i);
+            }
+        }
+        insertFiredTrigger("firedNonConcurrent", "executing", "nonConcurrent", "EXECUTING", true, false, failedAt);
+        jdbcTemplate.update("UPDATE QRTZ_TRIGGERS SET TRIGGER_STATE = 'BLOCKED' WHERE TRIGGER_NAME = 'blocked'");
+
+        return getJobStore();
+    }
+
+    private void assertRecovered() {
+        assertEquals(0, count("SELECT COUNT(*) FROM QRTZ_FIRED_TRIGGERS WHERE INSTANCE_NAME = 'dead'"));
+        assertEquals(0, count("SELECT COUNT(*) FROM QRTZ_SCHEDULER_STATE WHERE INSTANCE_NAME = 'dead'"));
+        assertEquals(0, count("SELECT COUNT(*) FROM QRTZ_TRIGGERS WHERE TRIGGER_STATE = 'ACQUIRED'"));
+        assertEquals(0, count("SELECT COUNT(*) FROM QRTZ_TRIGGERS WHERE TRIGGER_STATE = 'BLOCKED'"));
+        // job0, job4 and job8 were executing and request recovery
+        assertEquals(3, count("SELECT COUNT(*) FROM QRTZ_TRIGGERS WHERE TRIGGER_GROUP = ?", Scheduler.DEFAULT_RECOVERY_GROUP));
+        assertEquals(JOB_COUNT + 2 + 3, count("SELECT COUNT(*) FROM QRTZ_TRIGGERS WHERE TRIGGER_STATE = 'WAITING'"));
+    }
+
+    private void insertFiredTrigger(String entryId, String triggerName, String jobName, String state,
+                                    boolean nonConcurrent, boolean requestsRecovery, long firedTime) {
+        jdbcTemplate.update("INSERT INTO QRTZ_FIRED_TRIGGERS (SCHED_NAME, ENTRY_ID, TRIGGER_NAME, TRIGGER_GROUP, INSTANCE_NAME,"
+                        + " FIRED_TIME, SCHED_TIME, PRIORITY, STATE, JOB_NAME, JOB_GROUP, IS_NONCONCURRENT, REQUESTS_RECOVERY)"
+                        + " VALUES (?, ?, ?, 'DEFAULT', 'dead', ?, ?, 5, ?, ?, 'DEFAULT', ?, ?)",
+                SCHEDULER_NAME, entryId, triggerName, firedTime, firedTime, state, jobName, nonConcurrent, requestsRecovery);
+    }
+
+    public static class NoOpJob implements Job {
+        public void execute(JobExecutionContext context) {
+        }
+    }
+
+    @DisallowConcurrentExecution
+    public static class NonConcurrentJob implements Job {
+        public void execute(JobExecutionContext context) {
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.github.attemper.quartz.spring.boot.autoconfigure.jobstore;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.quartz.Job;
+import org.quartz.JobBuilder;
+import org.quartz.JobDetail;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobKey;
+import org.quartz.SchedulerException;
+import org.quartz.Trigger;
+import org.quartz.Trigger.TriggerState;
+import org.quartz.TriggerBuilder;
+import org.quartz.TriggerKey;
+import org.quartz.simpl.CascadingClassLoadHelper;
+import org.quartz.spi.OperableTrigger;
+import org.quartz.spi.SchedulerSignaler;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Date;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class JournalJobStoreTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private final Date later = new Date(System.currentTimeMillis() + 3600000L);
+
+    @Test
+    public void restoresTheStoreFromTheSnapshotOfTheShutdown() throws Exception {
+        File journalDirectory = folder.newFolder();
+        JournalJobStore store = newStore(journalDirectory);
+        storeJobAndTrigger(store, "trigger");
+        store.pauseTrigger(new TriggerKey("trigger"));
+        store.shutdown();
+
+        JournalJobStore restored = newStore(journalDirectory);
+        try {
+            assertNotNull(restored.retrieveJob(new JobKey("job")));
+            assertEquals(TriggerState.PAUSED, restored.getTriggerState(new TriggerKey("trigger")));
+        } finally {
+            restored.shutdown();
+        }
+    }
+
+    @Test
+    public void replaysTheChangesAppendedAfterTheLastSnapshot() throws Exception {
+        File journalDirectory = folder.newFolder();
+        JournalJobStore store = newStore(journalDirectory);
+        try {
+            storeJobAndTrigger(store, "trigger");
+            store.compact();
+            store.pauseTrigger(new TriggerKey("trigger"));
+            OperableTrigger second = (OperableTrigger) TriggerBuilder.newTrigger().withIdentity("second").forJob("job").startAt(later).build();
+            second.computeFirstFireTime(null);
+            store.storeTrigger(second, false);
+
+            // the files as they are when the process dies, no snapshot of the shutdown
+            File crashed = folder.newFolder();
+            copy(new File(journalDirectory, "default"), new File(crashed, "default"));
+
+            JournalJobStore restored = newStore(crashed);
+            try {
+                assertEquals(2, restored.getNumberOfTriggers());
+                assertEquals(TriggerState.PAUSED, restored.getTriggerState(new TriggerKey("trigger")));
+                assertEquals(TriggerState.NORMAL, restored.getTriggerState(new TriggerKey("second")));
+            } finally {
+                restored.shutdown();
+            }
+        } finally {
+            store.shutdown();
+        }
+    }
+
+    private static JournalJobStore newStore(File journalDirectory) throws Exception {
+        JournalJobStore journalJobStore = new JournalJobStore();
+        journalJobStore.setJournalDirectory(journalDirectory.getPath());
+        journalJobStore.setJournalSegmentSize(65536);
+        journalJobStore.setJournalFsync(JournalJobStore.FSYNC_NEVER);
+        CascadingClassLoadHelper loadHelper = new CascadingClassLoadHelper();
+        loadHelper.initialize();
+        journalJobStore.initialize(loadHelper, new NoOpSignaler());
+        return journalJobStore;
+    }
+
+    private void storeJobAndTrigger(JournalJobStore store, String triggerName) throws Exception {
+        JobDetail job = JobBuilder.newJob(NoOpJob.class).withIdentity("job").build();
+        OperableTrigger trigger = (OperableTrigger) TriggerBuilder.newTrigger().withIdentity(triggerName).forJob(job).startAt(later).build();
+        trigger.computeFirstFireTime(null);
+        store.storeJobAndTrigger(job, trigger);
+    }
+
+    private static void copy(File from, File to) throws Exception {
+        assertTrue(to.mkdirs());
+        File[] files = from.listFiles();
+        assertNotNull(files);
+        for (File file : files) {
+            Files.copy(file.toPath(), new File(to, file.getName()).toPath());
+        }
+    }
+
+    public static class NoOpJob implements Job {
+        public void execute(JobExecutionContext context) {
+        }
+    }
+
+    private static class NoOpSignaler implements SchedulerSignaler {
+
+        public void notifyTriggerListenersMisfired(Trigger trigger) {
+        }
+
+        public void notifySchedulerListenersFinalized(Trigger trigger) {
+        }
+
+        public void notifySchedulerListenersJobDeleted(JobKey jobKey) {
+        }
+
+        public void signalSchedulingChange(long candidateNewNextFireTime) {
+        }
+
+        public void notifySchedulerListenersError(String string, SchedulerException jpe) {
+            throw new AssertionError(string, jpe);
+        }
+    }
+}
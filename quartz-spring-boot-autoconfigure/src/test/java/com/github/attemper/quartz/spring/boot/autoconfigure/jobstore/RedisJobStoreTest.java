@@ -0,0 +1,333 @@
+package com.github.attemper.quartz.spring.boot.autoconfigure.jobstore;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.quartz.DisallowConcurrentExecution;
+import org.quartz.Job;
+import org.quartz.JobDataMap;
+import org.quartz.JobBuilder;
+import org.quartz.JobDetail;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobKey;
+import org.quartz.JobPersistenceException;
+import org.quartz.ObjectAlreadyExistsException;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
+import org.quartz.SimpleScheduleBuilder;
+import org.quartz.Trigger;
+import org.quartz.Trigger.CompletedExecutionInstruction;
+import org.quartz.Trigger.TriggerState;
+import org.quartz.TriggerBuilder;
+import org.quartz.TriggerKey;
+import org.quartz.impl.matchers.GroupMatcher;
+import org.quartz.simpl.CascadingClassLoadHelper;
+import org.quartz.spi.OperableTrigger;
+import org.quartz.spi.SchedulerSignaler;
+import org.quartz.spi.TriggerFiredBundle;
+import org.quartz.spi.TriggerFiredResult;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class RedisJobStoreTest {
+
+    private static RedisServer redisServer;
+
+    private static int port;
+
+    private final RecordingSignaler signaler = new RecordingSignaler();
+
+    private RedisJobStore store;
+
+    @BeforeClass
+    public static void startRedis() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        redisServer = new RedisServer(port);
+        redisServer.start();
+    }
+
+    @AfterClass
+    public static void stopRedis() {
+        if (redisServer != null) {
+            redisServer.stop();
+        }
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        store = newStore("node1");
+        store.clearAllSchedulingData();
+    }
+
+    @After
+    public void tearDown() {
+        store.shutdown();
+    }
+
+    @Test
+    public void storesAndRetrievesJobsAndTriggers() throws Exception {
+        JobDetail job = job("job", NoOpJob.class, false);
+        OperableTrigger trigger = trigger("trigger", job, new Date());
+        store.storeJobAndTrigger(job, trigger);
+
+        assertEquals(job.getKey(), store.retrieveJob(job.getKey()).getKey());
+        assertEquals(job.getKey(), store.retrieveTrigger(trigger.getKey()).getJobKey());
+        assertEquals(TriggerState.NORMAL, store.getTriggerState(trigger.getKey()));
+        assertEquals(1, store.getNumberOfJobs());
+        assertEquals(1, store.getNumberOfTriggers());
+        try {
+            store.storeJobAndTrigger(job, trigger);
+            fail("the job already exists");
+        } catch (ObjectAlreadyExistsException expected) {
+        }
+        assertTrue(store.removeJob(job.getKey()));
+        assertEquals(TriggerState.NONE, store.getTriggerState(trigger.getKey()));
+    }
+
+    @Test
+    public void failedStoreWritesNothing() throws Exception {
+        JobDetail job = job("job", NoOpJob.class, false);
+        OperableTrigger trigger = (OperableTrigger) TriggerBuilder.newTrigger().withIdentity("trigger").forJob("missing").startNow().build();
+        trigger.computeFirstFireTime(null);
+        try {
+            store.storeJobAndTrigger(job, trigger);
+            fail("the trigger refers to a missing job");
+        } catch (JobPersistenceException expected) {
+        }
+        assertFalse(store.checkExists(job.getKey()));
+        assertTrue(store.getJobGroupNames().isEmpty());
+    }
+
+    @Test
+    public void acquiresFiresAndCompletesTriggers() throws Exception {
+        JobDetail job = job("job", NoOpJob.class, false);
+        OperableTrigger trigger = trigger("trigger", job, new Date());
+        store.storeJobAndTrigger(job, trigger);
+
+        List<OperableTrigger> acquired = acquire(store, 10);
+        assertEquals(1, acquired.size());
+        assertTrue(acquire(store, 10).isEmpty());
+
+        List<TriggerFiredResult> results = store.triggersFired(acquired);
+        assertEquals(1, results.size());
+        assertEquals(job.getKey(), results.get(0).getTriggerFiredBundle().getJobDetail().getKey());
+
+        store.triggeredJobComplete(acquired.get(0), job, CompletedExecutionInstruction.DELETE_TRIGGER);
+        assertEquals(TriggerState.COMPLETE, store.getTriggerState(trigger.getKey()));
+        assertTrue(acquire(store, 10).isEmpty());
+    }
+
+    @Test
+    public void blocksTheAcquiredSiblingsOfANonConcurrentJob() throws Exception {
+        JobDetail job = job("job", NonConcurrentJob.class, false);
+        OperableTrigger first = trigger("first", job, new Date(System.currentTimeMillis() - 1000L));
+        OperableTrigger second = trigger("second", job, new Date());
+        store.storeJobAndTrigger(job, first);
+        store.storeTrigger(second, false);
+
+        // a batch holds one trigger per non-concurrent job, the sibling is acquired by the next one
+        List<OperableTrigger> firstBatch = acquire(store, 10);
+        List<OperableTrigger> secondBatch = acquire(store, 10);
+        assertEquals(Collections.singletonList(first.getKey()), keys(firstBatch));
+        assertEquals(Collections.singletonList(second.getKey()), keys(secondBatch));
+
+        assertEquals(1, store.triggersFired(firstBatch).size());
+        assertEquals(TriggerState.BLOCKED, store.getTriggerState(second.getKey()));
+        assertTrue(store.triggersFired(secondBatch).isEmpty());
+
+        store.triggeredJobComplete(firstBatch.get(0), job, CompletedExecutionInstruction.NOOP);
+        assertEquals(TriggerState.NORMAL, store.getTriggerState(second.getKey()));
+        assertEquals(Collections.singletonList(second.getKey()), keys(acquire(store, 10)));
+    }
+
+    @Test
+    public void appliesTheMisfireInstructionOfMisfiredTriggers() throws Exception {
+        JobDetail job = job("job", NoOpJob.class, false);
+        OperableTrigger trigger = (OperableTrigger) TriggerBuilder.newTrigger().withIdentity("trigger").forJob(job)
+                .startAt(new Date(System.currentTimeMillis() - 2 * 60 * 1000L))
+                .withSchedule(SimpleScheduleBuilder.repeatHourlyForever()
+                        .withMisfireHandlingInstructionNextWithRemainingCount())
+                .build();
+        trigger.computeFirstFireTime(null);
+        store.storeJobAndTrigger(job, trigger);
+
+        assertTrue(acquire(store, 10).isEmpty());
+        assertEquals(Collections.singletonList(trigger.getKey()), signaler.misfired);
+        assertEquals(TriggerState.NORMAL, store.getTriggerState(trigger.getKey()));
+        assertTrue(store.retrieveTrigger(trigger.getKey()).getNextFireTime().after(new Date()));
+    }
+
+    @Test
+    public void recoversTheTriggersOfAnInstanceThatDidNotShutDown() throws Exception {
+        JobDetail recoverable = job("recoverable", NoOpJob.class, true);
+        JobDetail other = job("other", NoOpJob.class, false);
+        Date scheduledFireTime = new Date(System.currentTimeMillis() - 1000L);
+        OperableTrigger fired = trigger("fired", recoverable, scheduledFireTime);
+        fired.setPriority(7);
+        OperableTrigger acquiredOnly = trigger("acquired", other, new Date());
+        store.storeJobAndTrigger(recoverable, fired);
+        store.storeJobAndTrigger(other, acquiredOnly);
+
+        List<OperableTrigger> acquired = acquire(store, 10);
+        assertEquals(2, acquired.size());
+        List<OperableTrigger> toFire = new ArrayList<>();
+        for (OperableTrigger trigger : acquired) {
+            if (trigger.getKey().equals(fired.getKey())) {
+                toFire.add(trigger);
+            }
+        }
+        assertEquals(1, store.triggersFired(toFire).size());
+        // the instance dies while the job is executing
+        store.shutdown();
+
+        store = newStore("node1");
+        int schedulingChanges = signaler.schedulingChanges;
+        store.schedulerStarted();
+
+        Set<TriggerKey> recoveryTriggers = store.getTriggerKeys(GroupMatcher.triggerGroupEquals(Scheduler.DEFAULT_RECOVERY_GROUP));
+        assertEquals(1, recoveryTriggers.size());
+        OperableTrigger recoveryTrigger = store.retrieveTrigger(recoveryTriggers.iterator().next());
+        assertEquals(recoverable.getKey(), recoveryTrigger.getJobKey());
+        assertEquals(scheduledFireTime, recoveryTrigger.getStartTime());
+        assertEquals(7, recoveryTrigger.getPriority());
+        JobDataMap jobDataMap = recoveryTrigger.getJobDataMap();
+        assertEquals(fired.getKey().getName(), jobDataMap.getString(Scheduler.FAILED_JOB_ORIGINAL_TRIGGER_NAME));
+        assertEquals(fired.getKey().getGroup(), jobDataMap.getString(Scheduler.FAILED_JOB_ORIGINAL_TRIGGER_GROUP));
+        assertEquals(String.valueOf(scheduledFireTime.getTime()),
+                jobDataMap.getString(Scheduler.FAILED_JOB_ORIGINAL_TRIGGER_SCHEDULED_FIRETIME_IN_MILLISECONDS));
+        assertNotNull(jobDataMap.getString(Scheduler.FAILED_JOB_ORIGINAL_TRIGGER_FIRETIME_IN_MILLISECONDS));
+        assertEquals(TriggerState.NORMAL, store.getTriggerState(acquiredOnly.getKey()));
+        assertTrue(signaler.schedulingChanges > schedulingChanges);
+
+        List<OperableTrigger> reacquired = acquire(store, 10);
+        assertEquals(2, reacquired.size());
+        assertTrue(keys(reacquired).contains(acquiredOnly.getKey()));
+        assertTrue(keys(reacquired).containsAll(recoveryTriggers));
+        for (TriggerFiredResult result : store.triggersFired(reacquired)) {
+            TriggerFiredBundle bundle = result.getTriggerFiredBundle();
+            assertEquals(recoveryTriggers.contains(bundle.getTrigger().getKey()), bundle.isRecovering());
+        }
+    }
+
+    @Test
+    public void recoversAFailedNodeOfTheClusterAfterTheGracePeriod() throws Exception {
+        store.shutdown();
+        store = newStore("node1", 60000L);
+        store.schedulerStarted();
+        JobDetail recoverable = job("recoverable", NoOpJob.class, true);
+        store.storeJobAndTrigger(recoverable, trigger("fired", recoverable, new Date()));
+        assertEquals(1, store.triggersFired(acquire(store, 10)).size());
+        // node1 dies while the job is executing, node2 checks in every 100 ms
+        store.shutdown();
+
+        store = newStore("node2", 100L);
+        store.setClusterFailureGracePeriodMills(100L);
+        store.schedulerStarted();
+
+        long timeout = System.currentTimeMillis() + 5000L;
+        Set<TriggerKey> recoveryTriggers = Collections.emptySet();
+        while (recoveryTriggers.isEmpty() && System.currentTimeMillis() < timeout) {
+            Thread.sleep(50L);
+            recoveryTriggers = store.getTriggerKeys(GroupMatcher.triggerGroupEquals(Scheduler.DEFAULT_RECOVERY_GROUP));
+        }
+        assertEquals(1, recoveryTriggers.size());
+        assertEquals(recoverable.getKey(), store.retrieveTrigger(recoveryTriggers.iterator().next()).getJobKey());
+    }
+
+    private RedisJobStore newStore(String instanceId) throws Exception {
+        return newStore(instanceId, 0L);
+    }
+
+    /**
+     * @param clusterCheckinInterval clustered if positive
+     */
+    private RedisJobStore newStore(String instanceId, long clusterCheckinInterval) throws Exception {
+        RedisJobStore redisJobStore = new RedisJobStore();
+        redisJobStore.setPort(port);
+        if (clusterCheckinInterval > 0) {
+            redisJobStore.setIsClustered(true);
+            redisJobStore.setClusterCheckinInterval(clusterCheckinInterval);
+        }
+        redisJobStore.setInstanceName("test");
+        redisJobStore.setInstanceId(instanceId);
+        CascadingClassLoadHelper loadHelper = new CascadingClassLoadHelper();
+        loadHelper.initialize();
+        redisJobStore.initialize(loadHelper, signaler);
+        return redisJobStore;
+    }
+
+    private static List<OperableTrigger> acquire(RedisJobStore redisJobStore, int maxCount) throws JobPersistenceException {
+        return redisJobStore.acquireNextTriggers(System.currentTimeMillis() + 1000L, maxCount, 0L);
+    }
+
+    private static JobDetail job(String name, Class<? extends Job> jobClass, boolean requestsRecovery) {
+        return JobBuilder.newJob(jobClass).withIdentity(name).storeDurably().requestRecovery(requestsRecovery).build();
+    }
+
+    private static OperableTrigger trigger(String name, JobDetail job, Date startTime) {
+        OperableTrigger trigger = (OperableTrigger) TriggerBuilder.newTrigger().withIdentity(name).forJob(job).startAt(startTime).build();
+        trigger.computeFirstFireTime(null);
+        return trigger;
+    }
+
+    private static List<TriggerKey> keys(List<OperableTrigger> triggers) {
+        List<TriggerKey> keys = new ArrayList<>(triggers.size());
+        for (OperableTrigger trigger : triggers) {
+            keys.add(trigger.getKey());
+        }
+        return keys;
+    }
+
+    public static class NoOpJob implements Job {
+        public void execute(JobExecutionContext context) {
+        }
+    }
+
+    @DisallowConcurrentExecution
+    public static class NonConcurrentJob implements Job {
+        public void execute(JobExecutionContext context) {
+        }
+    }
+
+    private static class RecordingSignaler implements SchedulerSignaler {
+
+        private final List<TriggerKey> misfired = new ArrayList<>();
+
+        private volatile int schedulingChanges;
+
+        public void notifyTriggerListenersMisfired(Trigger trigger) {
+            misfired.add(trigger.getKey());
+        }
+
+        public void notifySchedulerListenersFinalized(Trigger trigger) {
+        }
+
+        public void notifySchedulerListenersJobDeleted(JobKey jobKey) {
+        }
+
+        public void signalSchedulingChange(long candidateNewNextFireTime) {
+            schedulingChanges++;
+        }
+
+        public void notifySchedulerListenersError(String string, SchedulerException jpe) {
+            throw new AssertionError(string, jpe);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.github.attemper.quartz.spring.boot.autoconfigure.jobstore;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SegmentLogTest {
+
+    private static final int SEGMENT_SIZE = 65536;
+
+    /**
+     * length, type and checksum around a payload of 3 bytes
+     */
+    private static final int RECORD_SIZE = 4 + 1 + 3 + 4;
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void replaysUpToATornRecordAndAppendsOverIt() throws Exception {
+        File directory = folder.newFolder();
+        SegmentLog log = new SegmentLog(directory, SEGMENT_SIZE);
+        log.open(new Replayed());
+        log.append((byte) 1, bytes("aaa"));
+        log.append((byte) 1, bytes("bbb"));
+        log.append((byte) 1, bytes("ccc"));
+        log.close();
+
+        // the payload of the third record no longer matches its checksum, as if the process died while writing it
+        try (RandomAccessFile segment = new RandomAccessFile(onlySegment(directory), "rw")) {
+            segment.seek(2 * RECORD_SIZE + 5);
+            segment.write('x');
+        }
+
+        Replayed replayed = new Replayed();
+        log = new SegmentLog(directory, SEGMENT_SIZE);
+        log.open(replayed);
+        assertEquals(Arrays.asList("aaa", "bbb"), replayed.records);
+        log.append((byte) 1, bytes("ddd"));
+        log.close();
+
+        replayed = new Replayed();
+        log = new SegmentLog(directory, SEGMENT_SIZE);
+        log.open(replayed);
+        assertEquals(Arrays.asList("aaa", "bbb", "ddd"), replayed.records);
+        log.close();
+    }
+
+    @Test
+    public void replaysTheSnapshotThenTheSegmentsFollowingIt() throws Exception {
+        File directory = folder.newFolder();
+        SegmentLog log = new SegmentLog(directory, SEGMENT_SIZE);
+        log.open(new Replayed());
+        log.append((byte) 1, bytes("aaa"));
+        log.append((byte) 1, bytes("bbb"));
+        long seq = log.roll();
+        log.append((byte) 1, bytes("ccc"));
+        log.snapshot(seq, out -> out.handle((byte) 2, bytes("aaa+bbb")));
+        assertEquals(seq, log.getSnapshotSeq());
+        assertEquals(1, log.getSegmentCount());
+        log.close();
+
+        Replayed replayed = new Replayed();
+        log = new SegmentLog(directory, SEGMENT_SIZE);
+        log.open(replayed);
+        assertEquals(Arrays.asList("aaa+bbb", "ccc"), replayed.records);
+        assertEquals(Arrays.asList((byte) 2, (byte) 1), replayed.types);
+        log.append((byte) 1, bytes("ddd"));
+        log.close();
+
+        replayed = new Replayed();
+        log = new SegmentLog(directory, SEGMENT_SIZE);
+        log.open(replayed);
+        assertEquals(Arrays.asList("aaa+bbb", "ccc", "ddd"), replayed.records);
+        log.close();
+    }
+
+    @Test
+    public void rollsOverToANewSegmentWhenFull() throws Exception {
+        File directory = folder.newFolder();
+        SegmentLog log = new SegmentLog(directory, SEGMENT_SIZE);
+        log.open(new Replayed());
+        byte[] payload = new byte[SEGMENT_SIZE / 2];
+        log.append((byte) 1, payload);
+        log.append((byte) 1, payload);
+        assertEquals(1L, log.getSegmentSeq());
+        assertEquals(2, log.getSegmentCount());
+        log.close();
+
+        Replayed replayed = new Replayed();
+        log = new SegmentLog(directory, SEGMENT_SIZE);
+        log.open(replayed);
+        assertEquals(2, replayed.records.size());
+        log.close();
+    }
+
+    private static File onlySegment(File directory) {
+        File[] segments = directory.listFiles((dir, name) -> name.startsWith("segment-"));
+        assertTrue(segments != null && segments.length == 1);
+        return segments[0];
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static class Replayed implements SegmentLog.RecordHandler {
+
+        private final List<Byte> types = new ArrayList<>();
+
+        private final List<String> records = new ArrayList<>();
+
+        public void handle(byte type, byte[] payload) throws IOException {
+            types.add(type);
+            records.add(new String(payload, StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.github.attemper.quartz.spring.boot.autoconfigure.jobstore;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.quartz.Job;
+import org.quartz.JobBuilder;
+import org.quartz.JobDetail;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobKey;
+import org.quartz.SchedulerException;
+import org.quartz.Trigger;
+import org.quartz.TriggerBuilder;
+import org.quartz.simpl.CascadingClassLoadHelper;
+import org.quartz.spi.OperableTrigger;
+import org.quartz.spi.SchedulerSignaler;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TimeWheelJobStoreTest {
+
+    private TimeWheelJobStore store;
+
+    @Before
+    public void setUp() throws Exception {
+        store = new TimeWheelJobStore();
+        CascadingClassLoadHelper loadHelper = new CascadingClassLoadHelper();
+        loadHelper.initialize();
+        store.initialize(loadHelper, new NoOpSignaler());
+    }
+
+    @After
+    public void tearDown() {
+        store.shutdown();
+    }
+
+    @Test
+    public void skipsTheStaleEntriesOfATrigger() throws Exception {
+        OperableTrigger trigger = storeJobAndTrigger(new Date());
+
+        // the entry of the pause is left behind in the wheel, the resume adds the one of the new version
+        store.pauseTrigger(trigger.getKey());
+        store.resumeTrigger(trigger.getKey());
+        assertEquals(2, store.getWheelSize());
+        assertEquals(1, store.getStaleEntryCount());
+
+        List<OperableTrigger> acquired = store.acquireNextTriggers(System.currentTimeMillis() + 1000L, 10, 0L);
+        assertEquals(1, acquired.size());
+        assertEquals(trigger.getKey(), acquired.get(0).getKey());
+        assertEquals(0, store.getStaleEntryCount());
+        assertEquals(0, store.getWheelSize());
+        assertTrue(store.acquireNextTriggers(System.currentTimeMillis() + 1000L, 10, 0L).isEmpty());
+    }
+
+    @Test
+    public void purgesTheStaleEntriesWhenTheyOutnumberTheLiveOnes() throws Exception {
+        OperableTrigger trigger = storeJobAndTrigger(new Date(System.currentTimeMillis() + 3600000L));
+        for (int i = 0; i < 1100; i++) {
+            store.pauseTrigger(trigger.getKey());
+            store.resumeTrigger(trigger.getKey());
+        }
+        assertEquals(1101, store.getWheelSize());
+        assertEquals(1100, store.getStaleEntryCount());
+
+        // nothing is due, the stale entries are dropped all at once before polling
+        assertTrue(store.acquireNextTriggers(System.currentTimeMillis(), 10, 0L).isEmpty());
+        assertEquals(1, store.getWheelSize());
+        assertEquals(0, store.getStaleEntryCount());
+    }
+
+    private OperableTrigger storeJobAndTrigger(Date startTime) throws Exception {
+        JobDetail job = JobBuilder.newJob(NoOpJob.class).withIdentity("job").build();
+        OperableTrigger trigger = (OperableTrigger) TriggerBuilder.newTrigger().withIdentity("trigger").forJob(job).startAt(startTime).build();
+        trigger.computeFirstFireTime(null);
+        store.storeJobAndTrigger(job, trigger);
+        return trigger;
+    }
+
+    public static class NoOpJob implements Job {
+        public void execute(JobExecutionContext context) {
+        }
+    }
+
+    private static class NoOpSignaler implements SchedulerSignaler {
+
+        public void notifyTriggerListenersMisfired(Trigger trigger) {
+        }
+
+        public void notifySchedulerListenersFinalized(Trigger trigger) {
+        }
+
+        public void notifySchedulerListenersJobDeleted(JobKey jobKey) {
+        }
+
+        public void signalSchedulingChange(long candidateNewNextFireTime) {
+        }
+
+        public void notifySchedulerListenersError(String string, SchedulerException jpe) {
+            throw new AssertionError(string, jpe);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.github.attemper.quartz.spring.boot.autoconfigure.jobstore;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TimingWheelTest {
+
+    private final TimingWheel<String> wheel = new TimingWheel<>(0L);
+
+    private final TimingWheel.Bucket<String> due = new TimingWheel.Bucket<>();
+
+    @Test
+    public void cascadesTheEntriesDownTheLevels() {
+        // levels 3, 2, 1 and 0 from a cursor at 0
+        wheel.add("level3", 300000L, 0L);
+        wheel.add("level2", 5000L, 0L);
+        wheel.add("level1", 70L, 0L);
+        wheel.add("level0", 5L, 0L);
+
+        assertEquals(singletonPolled("level0", 5L), poll(Long.MAX_VALUE));
+        assertEquals(5L, wheel.getCursor());
+
+        // the slot of level 1 starting at 64 is spread over level 0, the entry at 70 is not due yet
+        assertFalse(wheel.poll(69L, due));
+        assertEquals(64L, wheel.getCursor());
+        assertEquals(3, wheel.size());
+
+        assertEquals(singletonPolled("level1", 70L), poll(70L));
+        assertEquals(singletonPolled("level2", 5000L), poll(Long.MAX_VALUE));
+        assertEquals(singletonPolled("level3", 300000L), poll(Long.MAX_VALUE));
+        assertEquals(300000L, wheel.getCursor());
+        assertEquals(0, wheel.size());
+        assertFalse(wheel.poll(Long.MAX_VALUE, due));
+    }
+
+    @Test
+    public void handsOverTheEntriesOfATickTogether() {
+        wheel.add("a", 4096L, 0L);
+        wheel.add("b", 4097L, 0L);
+        wheel.add("c", 4096L, 0L);
+
+        assertEquals(2, poll(Long.MAX_VALUE).size());
+        assertEquals(singletonPolled("b", 4097L), poll(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void pollsTheOverdueEntriesFirst() {
+        wheel.add("later", 200L, 0L);
+        assertEquals(singletonPolled("later", 200L), poll(Long.MAX_VALUE));
+
+        wheel.add("overdue", 100L, 0L);
+        wheel.add("next", 201L, 0L);
+
+        assertEquals(singletonPolled("overdue", 100L), poll(0L));
+        assertEquals(200L, wheel.getCursor());
+        assertFalse(wheel.poll(200L, due));
+    }
+
+    @Test
+    public void purgesTheEntriesOfAStaleStamp() {
+        wheel.add("a", 10L, 1L);
+        wheel.add("a", 1000L, 2L);
+        wheel.add("b", 100000L, 1L);
+
+        // "a" was put back at 1000 with the stamp 2, its entry at 10 is stale
+        assertEquals(1, wheel.purge((element, stamp) -> !"a".equals(element) || stamp == 2L));
+        assertEquals(2, wheel.size());
+
+        List<String> polled = poll(Long.MAX_VALUE);
+        assertEquals(singletonPolled("a", 1000L), polled);
+        assertEquals(1000L, wheel.getCursor());
+    }
+
+    @Test
+    public void keepsTheStampsOfTheEntriesThroughTheCascade() {
+        wheel.add("a", 300000L, 7L);
+
+        assertTrue(wheel.poll(Long.MAX_VALUE, due));
+        assertEquals(1, due.size());
+        assertEquals(300000L, due.time(0));
+        assertEquals(7L, due.stamp(0));
+    }
+
+    private List<String> poll(long noLaterThan) {
+        due.clear();
+        List<String> polled = new ArrayList<>();
+        if (wheel.poll(noLaterThan, due)) {
+            for (int i = 0; i < due.size(); i++) {
+                polled.add(due.element(i) + "@" + due.time(i));
+            }
+        }
+        return polled;
+    }
+
+    private static List<String> singletonPolled(String element, long time) {
+        List<String> polled = new ArrayList<>();
+        polled.add(element + "@" + time);
+        return polled;
+    }
+}
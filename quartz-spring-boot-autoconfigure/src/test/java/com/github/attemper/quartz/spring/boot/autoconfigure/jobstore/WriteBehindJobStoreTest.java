@@ -0,0 +1,131 @@
+package com.github.attemper.quartz.spring.boot.autoconfigure.jobstore;
+
+import org.junit.Test;
+import org.quartz.Job;
+import org.quartz.JobBuilder;
+import org.quartz.JobDetail;
+import org.quartz.JobExecutionContext;
+import org.quartz.Scheduler;
+import org.quartz.Trigger.TriggerState;
+import org.quartz.TriggerBuilder;
+import org.quartz.TriggerKey;
+import org.quartz.impl.StdSchedulerFactory;
+import org.quartz.impl.matchers.GroupMatcher;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.Properties;
+
+import static org.junit.Assert.assertEquals;
+
+public class WriteBehindJobStoreTest extends AbstractJdbcJobStoreTest {
+
+    private final Date later = new Date(System.currentTimeMillis() + 3600000L);
+
+    @Test
+    public void retriesTheChangesOfAFlushWritingNone() throws Exception {
+        Scheduler scheduler = createWriteBehindScheduler();
+        WriteBehindJobStore store = (WriteBehindJobStore) getJobStore();
+        JobDetail job = JobBuilder.newJob(NoOpJob.class).withIdentity("job").build();
+        scheduler.scheduleJob(job, TriggerBuilder.newTrigger().withIdentity("trigger").startAt(later).build());
+        store.flushJournal();
+        assertEquals(0, store.getJournalPendingCount());
+
+        jdbcTemplate.execute("ALTER TABLE QRTZ_TRIGGERS RENAME TO QRTZ_TRIGGERS_AWAY");
+        scheduler.pauseTrigger(new TriggerKey("trigger"));
+        store.flushJournal();
+
+        assertEquals(1, store.getJournalFailedCount());
+        assertEquals(0, store.getJournalDroppedCount());
+        assertEquals(1, store.getJournalPendingCount());
+
+        jdbcTemplate.execute("ALTER TABLE QRTZ_TRIGGERS_AWAY RENAME TO QRTZ_TRIGGERS");
+        store.flushJournal();
+
+        assertEquals(0, store.getJournalPendingCount());
+        assertEquals("PAUSED", triggerState("trigger"));
+    }
+
+    @Test
+    public void dropsTheChangesFailingOnTheirOwn() throws Exception {
+        Scheduler scheduler = createWriteBehindScheduler();
+        WriteBehindJobStore store = (WriteBehindJobStore) getJobStore();
+
+        jdbcTemplate.execute("ALTER TABLE QRTZ_TRIGGERS RENAME TO QRTZ_TRIGGERS_AWAY");
+        JobDetail job = JobBuilder.newJob(NoOpJob.class).withIdentity("job").build();
+        scheduler.scheduleJob(job, TriggerBuilder.newTrigger().withIdentity("trigger").startAt(later).build());
+        store.flushJournal();
+
+        // the job is written on its own, the trigger is not
+        assertEquals(1, store.getJournalFailedCount());
+        assertEquals(1, store.getJournalDroppedCount());
+        assertEquals(0, store.getJournalPendingCount());
+        assertEquals(1, count("SELECT COUNT(*) FROM QRTZ_JOB_DETAILS"));
+
+        jdbcTemplate.execute("ALTER TABLE QRTZ_TRIGGERS_AWAY RENAME TO QRTZ_TRIGGERS");
+        store.flushJournal();
+        assertEquals(0, count("SELECT COUNT(*) FROM QRTZ_TRIGGERS"));
+
+        // written again once changed again
+        scheduler.pauseTrigger(new TriggerKey("trigger"));
+        store.flushJournal();
+        assertEquals("PAUSED", triggerState("trigger"));
+    }
+
+    @Test
+    public void rebuildsTheStatesOfTheTriggersFromTheTables() throws Exception {
+        Scheduler jdbcScheduler = createScheduler(new Properties());
+        JobDetail job = JobBuilder.newJob(NoOpJob.class).withIdentity("job").storeDurably().build();
+        jdbcScheduler.addJob(job, false);
+        String[] names = {"waiting", "acquired", "blocked", "paused", "pausedBlocked", "complete", "error"};
+        for (String name : names) {
+            jdbcScheduler.scheduleJob(TriggerBuilder.newTrigger().withIdentity(name).forJob(job).startAt(later).build());
+        }
+        jdbcScheduler.scheduleJob(TriggerBuilder.newTrigger().withIdentity("inPausedGroup", "reports").forJob(job).startAt(later).build());
+        jdbcScheduler.pauseTriggers(GroupMatcher.triggerGroupEquals("reports"));
+        jdbcTemplate.update("UPDATE QRTZ_TRIGGERS SET TRIGGER_STATE = 'ACQUIRED' WHERE TRIGGER_NAME = 'acquired'");
+        jdbcTemplate.update("UPDATE QRTZ_TRIGGERS SET TRIGGER_STATE = 'BLOCKED' WHERE TRIGGER_NAME = 'blocked'");
+        jdbcTemplate.update("UPDATE QRTZ_TRIGGERS SET TRIGGER_STATE = 'PAUSED' WHERE TRIGGER_NAME = 'paused'");
+        jdbcTemplate.update("UPDATE QRTZ_TRIGGERS SET TRIGGER_STATE = 'PAUSED_BLOCKED' WHERE TRIGGER_NAME = 'pausedBlocked'");
+        jdbcTemplate.update("UPDATE QRTZ_TRIGGERS SET TRIGGER_STATE = 'COMPLETE' WHERE TRIGGER_NAME = 'complete'");
+        jdbcTemplate.update("UPDATE QRTZ_TRIGGERS SET TRIGGER_STATE = 'ERROR' WHERE TRIGGER_NAME = 'error'");
+        jdbcScheduler.shutdown(true);
+
+        createWriteBehindScheduler();
+        WriteBehindJobStore store = (WriteBehindJobStore) getJobStore();
+        TimeWheelJobStore memoryStore = store.getMemoryStore();
+
+        assertEquals(names.length + 1, memoryStore.getNumberOfTriggers());
+        assertEquals(TriggerState.NORMAL, memoryStore.getTriggerState(new TriggerKey("waiting")));
+        // acquired or blocked by a node which is gone, acquired again
+        assertEquals(TriggerState.NORMAL, memoryStore.getTriggerState(new TriggerKey("acquired")));
+        assertEquals(TriggerState.NORMAL, memoryStore.getTriggerState(new TriggerKey("blocked")));
+        assertEquals(TriggerState.PAUSED, memoryStore.getTriggerState(new TriggerKey("paused")));
+        assertEquals(TriggerState.PAUSED, memoryStore.getTriggerState(new TriggerKey("pausedBlocked")));
+        assertEquals(TriggerState.COMPLETE, memoryStore.getTriggerState(new TriggerKey("complete")));
+        assertEquals(TriggerState.ERROR, memoryStore.getTriggerState(new TriggerKey("error")));
+        assertEquals(TriggerState.PAUSED, memoryStore.getTriggerState(new TriggerKey("inPausedGroup", "reports")));
+        assertEquals(Collections.singleton("reports"), memoryStore.getPausedTriggerGroups());
+        // what was loaded needs no writing
+        assertEquals(0, store.getJournalPendingCount());
+    }
+
+    /**
+     * flushed only when the test says so
+     */
+    private Scheduler createWriteBehindScheduler() throws Exception {
+        Properties properties = new Properties();
+        properties.put(StdSchedulerFactory.PROP_JOB_STORE_CLASS, WriteBehindJobStore.class.getName());
+        properties.put("org.quartz.jobStore.writeBehindIntervalMills", "3600000");
+        return createScheduler(properties);
+    }
+
+    private String triggerState(String triggerName) {
+        return jdbcTemplate.queryForObject("SELECT TRIGGER_STATE FROM QRTZ_TRIGGERS WHERE TRIGGER_NAME = ?", String.class, triggerName);
+    }
+
+    public static class NoOpJob implements Job {
+        public void execute(JobExecutionContext context) {
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.github.attemper.quartz.spring.boot.autoconfigure.lock;
+
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ReentrantLockSemaphoreTest {
+
+    private static final String TRIGGER_ACCESS = "TRIGGER_ACCESS";
+
+    private final ReentrantLockSemaphore semaphore = new ReentrantLockSemaphore();
+
+    private final ExecutorService otherThread = Executors.newSingleThreadExecutor();
+
+    @After
+    public void tearDown() {
+        otherThread.shutdownNow();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+    }
+
+    @Test
+    public void locksPerLockName() throws Exception {
+        assertTrue(semaphore.obtainLock(null, TRIGGER_ACCESS));
+        // reentrant, released once
+        assertTrue(semaphore.obtainLock(null, TRIGGER_ACCESS));
+        assertTrue(otherThread.submit(() -> obtainAndRelease("STATE_ACCESS")).get(1, TimeUnit.SECONDS));
+        Future<Boolean> waiting = otherThread.submit(() -> obtainAndRelease(TRIGGER_ACCESS));
+        assertBlocked(waiting);
+
+        semaphore.releaseLock(TRIGGER_ACCESS);
+
+        assertTrue(waiting.get(1, TimeUnit.SECONDS));
+        assertEquals(1, semaphore.getContendedCount());
+        assertEquals(3, semaphore.getAcquiredCount());
+    }
+
+    @Test
+    public void keepsTheLockUntilTheTransactionCompletes() throws Exception {
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        assertTrue(semaphore.obtainLock(null, TRIGGER_ACCESS));
+        semaphore.releaseOnCompletion(TRIGGER_ACCESS);
+        semaphore.releaseLock(TRIGGER_ACCESS);
+        // obtained and released again by a later call within the transaction
+        assertTrue(semaphore.obtainLock(null, TRIGGER_ACCESS));
+        semaphore.releaseOnCompletion(TRIGGER_ACCESS);
+        semaphore.releaseLock(TRIGGER_ACCESS);
+
+        Future<Boolean> waiting = otherThread.submit(() -> obtainAndRelease(TRIGGER_ACCESS));
+        assertBlocked(waiting);
+
+        TransactionSynchronizationUtils.invokeAfterCompletion(TransactionSynchronizationManager.getSynchronizations(),
+                TransactionSynchronization.STATUS_COMMITTED);
+
+        assertTrue(waiting.get(1, TimeUnit.SECONDS));
+        assertEquals(1, TransactionSynchronizationManager.getSynchronizations().size());
+    }
+
+    @Test
+    public void releasesAtOnceOutsideOfATransaction() throws Exception {
+        assertTrue(semaphore.obtainLock(null, TRIGGER_ACCESS));
+        semaphore.releaseOnCompletion(TRIGGER_ACCESS);
+        semaphore.releaseLock(TRIGGER_ACCESS);
+
+        assertTrue(otherThread.submit(() -> obtainAndRelease(TRIGGER_ACCESS)).get(1, TimeUnit.SECONDS));
+    }
+
+    private boolean obtainAndRelease(String lockName) throws Exception {
+        boolean obtained = semaphore.obtainLock(null, lockName);
+        semaphore.releaseLock(lockName);
+        return obtained;
+    }
+
+    private static void assertBlocked(Future<Boolean> waiting) throws Exception {
+        try {
+            waiting.get(200, TimeUnit.MILLISECONDS);
+            fail("the lock is held");
+        } catch (TimeoutException expected) {
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.github.attemper.quartz.spring.boot.autoconfigure.plugin;
+
+import com.github.attemper.quartz.spring.boot.autoconfigure.jobstore.AbstractJdbcJobStoreTest;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.quartz.CronTrigger;
+import org.quartz.Job;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobKey;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
+import org.quartz.TriggerKey;
+import org.quartz.impl.matchers.GroupMatcher;
+import org.quartz.simpl.CascadingClassLoadHelper;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Properties;
+
+import static org.junit.Assert.assertEquals;
+
+public class StreamingJobInitializerPluginTest extends AbstractJdbcJobStoreTest {
+
+    private static final int FILE_COUNT = 2;
+
+    private static final int JOBS_PER_FILE = 4;
+
+    private static final String CRON_EXPRESSION = "0 0 3 * * ?";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Scheduler scheduler;
+
+    private String fileNames;
+
+    @Before
+    public void setUp() throws Exception {
+        scheduler = createScheduler(new Properties());
+        StringBuilder names = new StringBuilder();
+        for (int i = 0; i < FILE_COUNT; i++) {
+            names.append(i == 0 ? "" : ",").append(writeFile(i, CRON_EXPRESSION).getAbsolutePath());
+        }
+        fileNames = names.toString();
+    }
+
+    @Test
+    public void loadsTheJobsAndTriggersOfTheFiles() throws Exception {
+        StreamingJobInitializerPlugin plugin = load();
+
+        assertEquals(FILE_COUNT * JOBS_PER_FILE, plugin.getLoadedJobCount());
+        assertEquals(FILE_COUNT * JOBS_PER_FILE, plugin.getLoadedTriggerCount());
+        assertEquals(FILE_COUNT * JOBS_PER_FILE, plugin.getStoredJobCount());
+        assertEquals(FILE_COUNT * JOBS_PER_FILE, plugin.getStoredTriggerCount());
+        assertEquals(FILE_COUNT * JOBS_PER_FILE, scheduler.getJobKeys(GroupMatcher.anyJobGroup()).size());
+        assertEquals(FILE_COUNT * JOBS_PER_FILE, scheduler.getTriggerKeys(GroupMatcher.anyTriggerGroup()).size());
+        assertEquals("value3", scheduler.getJobDetail(new JobKey("job3", "group1")).getJobDataMap().getString("key"));
+    }
+
+    @Test
+    public void storesNothingWhenTheFilesAreUnchanged() throws Exception {
+        load();
+        StreamingJobInitializerPlugin plugin = load();
+
+        assertEquals(FILE_COUNT * JOBS_PER_FILE, plugin.getLoadedJobCount());
+        assertEquals(FILE_COUNT * JOBS_PER_FILE, plugin.getLoadedTriggerCount());
+        assertEquals(0, plugin.getStoredJobCount());
+        assertEquals(0, plugin.getStoredTriggerCount());
+    }
+
+    @Test
+    public void storesTheChangedTriggers() throws Exception {
+        load();
+        writeFile(0, "0 0 4 * * ?");
+        StreamingJobInitializerPlugin plugin = load();
+
+        assertEquals(1, plugin.getStoredTriggerCount());
+        CronTrigger trigger = (CronTrigger) scheduler.getTrigger(new TriggerKey("trigger0", "group0"));
+        assertEquals("0 0 4 * * ?", trigger.getCronExpression());
+        assertEquals(CRON_EXPRESSION, ((CronTrigger) scheduler.getTrigger(new TriggerKey("trigger0", "group1"))).getCronExpression());
+    }
+
+    private StreamingJobInitializerPlugin load() throws SchedulerException {
+        StreamingJobInitializerPlugin plugin = new StreamingJobInitializerPlugin();
+        plugin.setFileNames(fileNames);
+        plugin.setParseThreads(2);
+        CascadingClassLoadHelper loadHelper = new CascadingClassLoadHelper();
+        loadHelper.initialize();
+        plugin.initialize("jobInitializer", scheduler, loadHelper);
+        plugin.start();
+        return plugin;
+    }
+
+    /**
+     * The jobs of even index have a cron trigger without start time, the others a simple trigger.
+     */
+    private File writeFile(int index, String cronExpressionOfFirstJob) throws IOException {
+        String group = "group" + index;
+        StringBuilder xml = new StringBuilder()
+                .append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n")
+                .append("<job-scheduling-data xmlns=\"http://www.quartz-scheduler.org/xml/JobSchedulingData\" version=\"2.0\">\n")
+                .append("<processing-directives><overwrite-existing-data>true</overwrite-existing-data>")
+                .append("<ignore-duplicates>false</ignore-duplicates></processing-directives>\n")
+                .append("<schedule>\n");
+        for (int i = 0; i < JOBS_PER_FILE; i++) {
+            xml.append("<job><name>job").append(i).append("</name><group>").append(group).append("</group>")
+                    .append("<job-class>").append(NoOpJob.class.getName()).append("</job-class>")
+                    .append("<durability>false</durability><recover>false</recover>")
+                    .append("<job-data-map><entry><key>key</key><value>value").append(i).append("</value></entry></job-data-map></job>\n");
+            xml.append("<trigger>");
+            if (i % 2 == 0) {
+                xml.append("<cron><name>trigger").append(i).append("</name><group>").append(group).append("</group>")
+                        .append("<job-name>job").append(i).append("</job-name><job-group>").append(group).append("</job-group>")
+                        .append("<cron-expression>").append(i == 0 ? cronExpressionOfFirstJob : CRON_EXPRESSION).append("</cron-expression>")
+                        .append("<time-zone>UTC</time-zone></cron>");
+            } else {
+                xml.append("<simple><name>trigger").append(i).append("</name><group>").append(group).append("</group>")
+                        .append("<job-name>job").append(i).append("</job-name><job-group>").append(group).append("</job-group>")
+                        .append("<start-time>2099-01-01T00:00:00Z</start-time>")
+                        .append("<repeat-count>-1</repeat-count><repeat-interval>60000</repeat-interval></simple>");
+            }
+            xml.append("</trigger>\n");
+        }
+        xml.append("</schedule>\n</job-scheduling-data>\n");
+        File file = new File(folder.getRoot(), "jobs" + index + ".xml");
+        Files.write(file.toPath(), xml.toString().getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    public static class NoOpJob implements Job {
+        public void execute(JobExecutionContext context) {
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.github.attemper.quartz.spring.boot.autoconfigure.serializer;
+
+import com.github.attemper.quartz.spring.boot.autoconfigure.jobstore.AbstractJdbcJobStoreTest;
+import org.junit.Test;
+import org.quartz.Job;
+import org.quartz.JobBuilder;
+import org.quartz.JobDataMap;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobKey;
+import org.quartz.Scheduler;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class CompactJobDataSerializerTest extends AbstractJdbcJobStoreTest {
+
+    private final CompactJobDataSerializer serializer = new CompactJobDataSerializer();
+
+    @Test
+    public void roundTripsTheValuesItCanWrite() throws IOException {
+        Map<String, Object> data = allTypes();
+        assertTrue(serializer.canSerialize(data));
+
+        byte[] bytes = serializer.serialize(data);
+
+        assertTrue(serializer.canDeserialize(bytes));
+        Map<String, Object> read = serializer.deserialize(bytes);
+        assertArrayEquals((byte[]) data.remove("bytes"), (byte[]) read.remove("bytes"));
+        assertEquals(data, read);
+        assertEquals(new ArrayList<>(data.keySet()), new ArrayList<>(read.keySet()));
+    }
+
+    @Test
+    public void leavesTheOtherValuesToJavaSerialization() {
+        assertFalse(serializer.canSerialize(Collections.singletonMap("sorted", new TreeMap<String, Object>())));
+        assertFalse(serializer.canSerialize(Collections.singletonMap("list", Arrays.asList("a", "b"))));
+        assertFalse(serializer.canSerialize(Collections.singletonMap("nested", Collections.singletonMap(1, "a"))));
+        assertFalse(serializer.canSerialize(Collections.singletonMap(1, "a")));
+    }
+
+    @Test
+    public void deflatesTheBodiesLargerThanTheThreshold() throws IOException {
+        Map<String, Object> data = new LinkedHashMap<>();
+        for (int i = 0; i < 64; i++) {
+            data.put("tenant" + i, "tenant-" + i + "-of-the-test");
+        }
+        CompactJobDataSerializer deflating = new CompactJobDataSerializer(256);
+
+        byte[] compact = serializer.serialize(data);
+        byte[] deflated = deflating.serialize(data);
+
+        assertEquals(0, compact[3]);
+        assertEquals(1, deflated[3]);
+        assertTrue(deflated.length < compact.length);
+        assertTrue(compact.length < javaSerialize(data).length);
+        assertEquals(data, deflating.deserialize(deflated));
+        // either one reads both
+        assertEquals(data, serializer.deserialize(deflated));
+        assertEquals(data, deflating.deserialize(compact));
+    }
+
+    @Test
+    public void keepsTheBodiesNotLargerThanTheThreshold() throws IOException {
+        Map<String, Object> data = Collections.singletonMap("key", "value");
+
+        assertArrayEquals(serializer.serialize(data), new CompactJobDataSerializer(256).serialize(data));
+    }
+
+    @Test
+    public void rejectsTruncatedBlobs() throws IOException {
+        byte[] bytes = serializer.serialize(allTypes());
+        try {
+            serializer.deserialize(Arrays.copyOf(bytes, bytes.length - 3));
+            fail("the blob is truncated");
+        } catch (IOException expected) {
+        }
+    }
+
+    @Test
+    public void tellsTheBlobsOfJavaSerializationApart() throws IOException {
+        byte[] bytes = javaSerialize(allTypes());
+
+        assertEquals((byte) 0xAC, bytes[0]);
+        assertEquals((byte) 0xED, bytes[1]);
+        assertFalse(serializer.canDeserialize(bytes));
+    }
+
+    @Test
+    public void readsTheRowsWrittenByJavaSerializationBeforeIt() throws Exception {
+        Scheduler scheduler = createScheduler(new Properties());
+        scheduler.addJob(JobBuilder.newJob(NoOpJob.class).withIdentity("old").usingJobData(new JobDataMap(allTypes())).storeDurably().build(), false);
+        scheduler.shutdown(true);
+        Properties properties = new Properties();
+        properties.put("org.quartz.jobStore.jobDataSerializerClass", CompactJobDataSerializer.class.getName());
+        scheduler = createScheduler(properties);
+        scheduler.addJob(JobBuilder.newJob(NoOpJob.class).withIdentity("new").usingJobData(new JobDataMap(allTypes())).storeDurably().build(), false);
+
+        assertEquals((byte) 0xAC, jobData("old")[0]);
+        assertTrue(serializer.canDeserialize(jobData("new")));
+        for (String name : Arrays.asList("old", "new")) {
+            JobDataMap jobDataMap = scheduler.getJobDetail(new JobKey(name)).getJobDataMap();
+            assertEquals("value", jobDataMap.getString("string"));
+            assertEquals(new Date(1546300800000L), jobDataMap.get("date"));
+            assertEquals(Arrays.asList("a", null, 1L), jobDataMap.get("list"));
+        }
+    }
+
+    private byte[] jobData(String jobName) {
+        return jdbcTemplate.queryForObject("SELECT JOB_DATA FROM QRTZ_JOB_DETAILS WHERE JOB_NAME = ?", byte[].class, jobName);
+    }
+
+    private static Map<String, Object> allTypes() {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("null", null);
+        data.put("string", "value");
+        data.put("unicode", "Zürich 東京");
+        data.put("int", -42);
+        data.put("long", Long.MAX_VALUE);
+        data.put("double", 3.25d);
+        data.put("float", -1.5f);
+        data.put("true", Boolean.TRUE);
+        data.put("false", Boolean.FALSE);
+        data.put("short", (short) -7);
+        data.put("byte", (byte) 0x7F);
+        data.put("char", 'é');
+        data.put("bytes", new byte[]{0, 1, (byte) 0xFF});
+        data.put("date", new Date(1546300800000L));
+        List<Object> list = new ArrayList<>();
+        list.add("a");
+        list.add(null);
+        list.add(1L);
+        data.put("list", list);
+        Map<String, Object> nested = new HashMap<>();
+        nested.put("enabled", Boolean.TRUE);
+        nested.put("recipients", new ArrayList<>(Collections.singletonList("ops@example.com")));
+        data.put("nested", nested);
+        return data;
+    }
+
+    private static byte[] javaSerialize(Map<String, Object> data) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(baos)) {
+            out.writeObject(new HashMap<>(data));
+        }
+        return baos.toByteArray();
+    }
+
+    public static class NoOpJob implements Job {
+        public void execute(JobExecutionContext context) {
+        }
+    }
+}
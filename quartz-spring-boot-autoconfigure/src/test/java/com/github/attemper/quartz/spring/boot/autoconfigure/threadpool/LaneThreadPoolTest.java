@@ -0,0 +1,151 @@
+package com.github.attemper.quartz.spring.boot.autoconfigure.threadpool;
+
+import org.junit.After;
+import org.junit.Test;
+import org.quartz.Job;
+import org.quartz.JobBuilder;
+import org.quartz.JobDetail;
+import org.quartz.JobExecutionContext;
+import org.quartz.SchedulerConfigException;
+import org.quartz.TriggerBuilder;
+import org.quartz.core.JobRunShell;
+import org.quartz.impl.JobExecutionContextImpl;
+import org.quartz.spi.OperableTrigger;
+import org.quartz.spi.TriggerFiredBundle;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Field;
+import java.util.Date;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class LaneThreadPoolTest {
+
+    private static final Field JOB_EXECUTION_CONTEXT_FIELD = ReflectionUtils.findField(JobRunShell.class, "jec");
+
+    static {
+        ReflectionUtils.makeAccessible(JOB_EXECUTION_CONTEXT_FIELD);
+    }
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private LaneThreadPool pool;
+
+    @After
+    public void tearDown() {
+        release.countDown();
+        if (pool != null) {
+            pool.shutdown(true);
+        }
+    }
+
+    @Test
+    public void keepsTheMinThreadsOfALaneForIt() throws Exception {
+        pool = pool(3, "critical:groups=alerts,minThreads=1;reports:groups=reports,maxThreads=1");
+        for (int i = 0; i < 3; i++) {
+            assertTrue(pool.runInThread(job("DEFAULT")));
+        }
+        // the third thread is kept for the critical lane
+        waitFor(() -> pool.getBusyCount(LaneThreadPool.DEFAULT_LANE) == 2 && pool.getQueueDepth(LaneThreadPool.DEFAULT_LANE) == 1);
+
+        // nor does a lane without reservation borrow it
+        assertTrue(pool.runInThread(job("reports")));
+        Thread.sleep(200L);
+        assertEquals(0, pool.getBusyCount("reports"));
+        assertEquals(1, pool.getQueueDepth("reports"));
+
+        assertTrue(pool.runInThread(job("alerts")));
+        waitFor(() -> pool.getBusyCount("critical") == 1);
+        assertEquals(2, pool.getBusyCount(LaneThreadPool.DEFAULT_LANE));
+
+        release.countDown();
+        waitFor(() -> pool.getExecutedCount(LaneThreadPool.DEFAULT_LANE) == 3
+                && pool.getExecutedCount("reports") == 1 && pool.getExecutedCount("critical") == 1);
+    }
+
+    @Test
+    public void blocksTheSchedulerThreadOnAFullLane() throws Exception {
+        pool = pool(1, "default:maxQueued=1");
+        assertTrue(pool.runInThread(job("DEFAULT")));
+        waitFor(() -> pool.getBusyCount(LaneThreadPool.DEFAULT_LANE) == 1);
+        assertTrue(pool.runInThread(job("DEFAULT")));
+        assertEquals(1, pool.getQueueDepth(LaneThreadPool.DEFAULT_LANE));
+
+        Thread schedulerThread = new Thread(() -> pool.runInThread(job("DEFAULT")));
+        schedulerThread.start();
+        schedulerThread.join(200L);
+        assertTrue("the third job waits for room in the queue", schedulerThread.isAlive());
+        assertEquals(1, pool.getQueueDepth(LaneThreadPool.DEFAULT_LANE));
+
+        release.countDown();
+        schedulerThread.join(5000L);
+        assertFalse(schedulerThread.isAlive());
+        waitFor(() -> pool.getExecutedCount(LaneThreadPool.DEFAULT_LANE) == 3);
+    }
+
+    @Test
+    public void rejectsReservationsBeyondTheThreadCount() throws Exception {
+        LaneThreadPool invalid = new LaneThreadPool();
+        invalid.setInstanceName("test");
+        invalid.setThreadCount(2);
+        invalid.setLanes("critical:minThreads=2;reports:minThreads=1");
+        try {
+            invalid.initialize();
+            fail("3 threads are reserved out of 2");
+        } catch (SchedulerConfigException expected) {
+        }
+    }
+
+    private static LaneThreadPool pool(int threadCount, String lanes) throws SchedulerConfigException {
+        LaneThreadPool laneThreadPool = new LaneThreadPool();
+        laneThreadPool.setInstanceName("test");
+        laneThreadPool.setThreadCount(threadCount);
+        laneThreadPool.setLanes(lanes);
+        laneThreadPool.setMakeThreadsDaemons(true);
+        laneThreadPool.initialize();
+        return laneThreadPool;
+    }
+
+    /**
+     * @return a shell of a job of the group, running until released
+     */
+    private JobRunShell job(String group) {
+        JobDetail jobDetail = JobBuilder.newJob(NoOpJob.class).withIdentity("job", group).build();
+        OperableTrigger trigger = (OperableTrigger) TriggerBuilder.newTrigger().forJob(jobDetail).build();
+        Date now = new Date();
+        TriggerFiredBundle bundle = new TriggerFiredBundle(jobDetail, trigger, null, false, now, now, null, null);
+        JobRunShell shell = new JobRunShell(null, bundle) {
+            @Override
+            public void run() {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        ReflectionUtils.setField(JOB_EXECUTION_CONTEXT_FIELD, shell, new JobExecutionContextImpl(null, bundle, null));
+        return shell;
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long timeout = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > timeout) {
+                fail("timed out");
+            }
+            Thread.sleep(20L);
+        }
+    }
+
+    public static class NoOpJob implements Job {
+        public void execute(JobExecutionContext context) {
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.github.attemper.quartz.spring.boot.benchmarks;
+
+import com.github.attemper.quartz.spring.boot.autoconfigure.CustomQuartzAutoConfiguration;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
+import org.quartz.SchedulerFactory;
+import org.springframework.boot.Banner;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * build a scheduler the way an application does, by CustomQuartzAutoConfiguration on top of a spring-boot datasource,
+ * here an in-memory H2 database with the quartz tables
+ */
+public class BenchmarkSchedulers {
+
+    private BenchmarkSchedulers() {
+    }
+
+    /**
+     * @param quartzProperties org.quartz.* properties, on top of the defaults of the benchmarks
+     * @return the context, to be closed after the benchmark
+     */
+    public static ConfigurableApplicationContext start(Map<String, Object> quartzProperties) {
+        Map<String, Object> properties = new HashMap<>();
+        // a fresh database per trial, the results of one trial must not depend on the rows left by another
+        properties.put("spring.datasource.url", "jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        properties.put("spring.datasource.schema", "classpath:org/quartz/impl/jdbcjobstore/tables_h2.sql");
+        properties.put("spring.datasource.initialization-mode", "always");
+        properties.put("spring.datasource.hikari.maximum-pool-size", "50");
+        properties.put("org.quartz.scheduler.skipUpdateCheck", "true");
+        properties.put("org.quartz.scheduler.idleWaitTime", "1000");
+        properties.putAll(quartzProperties);
+        return new SpringApplicationBuilder(BenchmarkConfiguration.class)
+                .web(WebApplicationType.NONE)
+                .bannerMode(Banner.Mode.OFF)
+                .logStartupInfo(false)
+                .properties(properties)
+                .run();
+    }
+
+    public static Scheduler getScheduler(ConfigurableApplicationContext context) throws SchedulerException {
+        return context.getBean(SchedulerFactory.class).getScheduler();
+    }
+
+    public static void stop(ConfigurableApplicationContext context) throws SchedulerException {
+        if (context != null) {
+            getScheduler(context).shutdown(true);
+            context.close();
+        }
+    }
+
+    @Configuration
+    @ImportAutoConfiguration({DataSourceAutoConfiguration.class, CustomQuartzAutoConfiguration.class})
+    static class BenchmarkConfiguration {
+    }
+}
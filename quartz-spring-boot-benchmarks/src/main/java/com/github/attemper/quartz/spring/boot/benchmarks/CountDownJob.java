@@ -0,0 +1,24 @@
+package com.github.attemper.quartz.spring.boot.benchmarks;
+
+import org.quartz.Job;
+import org.quartz.JobExecutionContext;
+
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * does nothing but count down the latch of the running benchmark, so only the cost of the scheduler is measured
+ */
+public class CountDownJob implements Job {
+
+    private static volatile CountDownLatch latch = new CountDownLatch(0);
+
+    public static CountDownLatch reset(int count) {
+        latch = new CountDownLatch(count);
+        return latch;
+    }
+
+    @Override
+    public void execute(JobExecutionContext context) {
+        latch.countDown();
+    }
+}
@@ -0,0 +1,34 @@
+package com.github.attemper.quartz.spring.boot.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end fire latency: the time from scheduling a trigger due now on a running scheduler until its job is executed,
+ * which includes storing the trigger, waking up the scheduler thread, acquiring and firing the trigger.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class FireLatencyBenchmark {
+
+    @Benchmark
+    public long scheduleAndFire(SchedulerState state) throws Exception {
+        CountDownLatch latch = CountDownJob.reset(1);
+        state.getScheduler().scheduleJob(state.newTrigger());
+        if (!latch.await(1, TimeUnit.MINUTES)) {
+            throw new IllegalStateException("Trigger was not fired within a minute");
+        }
+        return latch.getCount();
+    }
+}
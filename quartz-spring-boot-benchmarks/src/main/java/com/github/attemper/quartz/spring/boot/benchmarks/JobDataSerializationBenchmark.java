@@ -0,0 +1,126 @@
+package com.github.attemper.quartz.spring.boot.benchmarks;
+
+import com.github.attemper.quartz.spring.boot.autoconfigure.serializer.CompactJobDataSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.quartz.JobDataMap;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writing and reading a JobDataMap of strings, numbers, a date and a nested map, as the JDBC delegates do for every
+ * job detail stored and every trigger fired: the Java serialization of StdJDBCDelegate against {@link CompactJobDataSerializer}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JobDataSerializationBenchmark {
+
+    /**
+     * the number of entries of the map
+     */
+    @Param({"8", "64"})
+    public int entries;
+
+    private JobDataMap jobDataMap;
+
+    private CompactJobDataSerializer compact;
+
+    private CompactJobDataSerializer deflated;
+
+    private byte[] javaBytes;
+
+    private byte[] compactBytes;
+
+    private byte[] deflatedBytes;
+
+    @Setup
+    public void setUp() throws IOException {
+        jobDataMap = new JobDataMap();
+        for (int i = 0; i < entries; i++) {
+            switch (i % 4) {
+                case 0:
+                    jobDataMap.put("tenant" + i, "tenant-" + i + "-of-the-benchmark");
+                    break;
+                case 1:
+                    jobDataMap.put("retries" + i, i);
+                    break;
+                case 2:
+                    jobDataMap.put("timeoutMills" + i, 30000L + i);
+                    break;
+                default:
+                    Map<String, Object> nested = new HashMap<>();
+                    List<Object> recipients = new ArrayList<>();
+                    recipients.add("ops@example.com");
+                    recipients.add("dev@example.com");
+                    nested.put("recipients", recipients);
+                    nested.put("since", new Date(1546300800000L));
+                    nested.put("enabled", Boolean.TRUE);
+                    jobDataMap.put("notification" + i, nested);
+            }
+        }
+        compact = new CompactJobDataSerializer();
+        deflated = new CompactJobDataSerializer(256);
+        javaBytes = javaSerialize();
+        compactBytes = compactSerialize();
+        deflatedBytes = deflatedSerialize();
+    }
+
+    @Benchmark
+    public byte[] javaSerialize() throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(baos);
+        out.writeObject(jobDataMap);
+        out.flush();
+        return baos.toByteArray();
+    }
+
+    @Benchmark
+    public Object javaDeserialize() throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(javaBytes))) {
+            return in.readObject();
+        }
+    }
+
+    @Benchmark
+    public byte[] compactSerialize() throws IOException {
+        return compact.serialize(jobDataMap.getWrappedMap());
+    }
+
+    @Benchmark
+    public Object compactDeserialize() throws IOException {
+        return compact.deserialize(compactBytes);
+    }
+
+    @Benchmark
+    public byte[] deflatedSerialize() throws IOException {
+        return deflated.serialize(jobDataMap.getWrappedMap());
+    }
+
+    @Benchmark
+    public Object deflatedDeserialize() throws IOException {
+        return deflated.deserialize(deflatedBytes);
+    }
+}
@@ -0,0 +1,147 @@
+package com.github.attemper.quartz.spring.boot.benchmarks;
+
+import com.github.attemper.quartz.spring.boot.autoconfigure.jobstore.TimeWheelJobStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.quartz.JobBuilder;
+import org.quartz.JobDetail;
+import org.quartz.JobKey;
+import org.quartz.JobPersistenceException;
+import org.quartz.SchedulerException;
+import org.quartz.SimpleScheduleBuilder;
+import org.quartz.Trigger;
+import org.quartz.Trigger.CompletedExecutionInstruction;
+import org.quartz.TriggerBuilder;
+import org.quartz.TriggerKey;
+import org.quartz.simpl.CascadingClassLoadHelper;
+import org.quartz.simpl.RAMJobStore;
+import org.quartz.spi.JobStore;
+import org.quartz.spi.OperableTrigger;
+import org.quartz.spi.SchedulerSignaler;
+import org.quartz.spi.TriggerFiredResult;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The in-memory job stores without a scheduler around them: RAMJobStore against {@link TimeWheelJobStore},
+ * holding <code>triggers</code> repeating triggers spread over a minute. <br>
+ *
+ * cycle - a batch acquired, fired and completed, as QuartzSchedulerThread and the workers do <br>
+ * reschedule - a trigger replaced by one firing at another time, as by rescheduleJob
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JobStoreAcquisitionBenchmark {
+
+    public static final int BATCH = 16;
+
+    private static final long SPREAD_MILLS = 60000L;
+
+    @Param({"ram", "wheel"})
+    public String store;
+
+    @Param({"10000", "100000"})
+    public int triggers;
+
+    private JobStore jobStore;
+
+    private JobDetail jobDetail;
+
+    private long startTime;
+
+    @Setup
+    public void setUp() throws SchedulerException {
+        if ("ram".equals(store)) {
+            RAMJobStore ramJobStore = new RAMJobStore();
+            ramJobStore.setMisfireThreshold(TimeUnit.DAYS.toMillis(1));
+            jobStore = ramJobStore;
+        } else {
+            TimeWheelJobStore timeWheelJobStore = new TimeWheelJobStore();
+            timeWheelJobStore.setMisfireThreshold(TimeUnit.DAYS.toMillis(1));
+            jobStore = timeWheelJobStore;
+        }
+        jobStore.setInstanceName("benchmark");
+        jobStore.initialize(new CascadingClassLoadHelper(), new NoOpSignaler());
+        jobDetail = JobBuilder.newJob(CountDownJob.class).withIdentity("benchmark").storeDurably().build();
+        jobStore.storeJob(jobDetail, false);
+        startTime = System.currentTimeMillis();
+        for (int i = 0; i < triggers; i++) {
+            jobStore.storeTrigger(newTrigger(i, startTime + i * SPREAD_MILLS / triggers), false);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        jobStore.shutdown();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public int cycle() throws JobPersistenceException {
+        List<OperableTrigger> acquired = jobStore.acquireNextTriggers(Long.MAX_VALUE / 2, BATCH, SPREAD_MILLS);
+        List<TriggerFiredResult> results = jobStore.triggersFired(acquired);
+        for (TriggerFiredResult result : results) {
+            jobStore.triggeredJobComplete(result.getTriggerFiredBundle().getTrigger(), jobDetail, CompletedExecutionInstruction.NOOP);
+        }
+        return results.size();
+    }
+
+    @Benchmark
+    public boolean reschedule() throws JobPersistenceException {
+        int i = ThreadLocalRandom.current().nextInt(triggers);
+        OperableTrigger trigger = newTrigger(i, startTime + ThreadLocalRandom.current().nextLong(SPREAD_MILLS));
+        return jobStore.replaceTrigger(trigger.getKey(), trigger);
+    }
+
+    private OperableTrigger newTrigger(int i, long fireTime) {
+        OperableTrigger trigger = (OperableTrigger) TriggerBuilder.newTrigger()
+                .withIdentity(new TriggerKey("trigger" + i, "benchmark"))
+                .forJob(new JobKey("benchmark"))
+                .startAt(new Date(fireTime))
+                .withSchedule(SimpleScheduleBuilder.simpleSchedule().withIntervalInMilliseconds(SPREAD_MILLS).repeatForever())
+                .build();
+        trigger.computeFirstFireTime(null);
+        return trigger;
+    }
+
+    private static class NoOpSignaler implements SchedulerSignaler {
+
+        @Override
+        public void notifyTriggerListenersMisfired(Trigger trigger) {
+        }
+
+        @Override
+        public void notifySchedulerListenersFinalized(Trigger trigger) {
+        }
+
+        @Override
+        public void notifySchedulerListenersJobDeleted(JobKey jobKey) {
+        }
+
+        @Override
+        public void signalSchedulingChange(long candidateNewNextFireTime) {
+        }
+
+        @Override
+        public void notifySchedulerListenersError(String string, SchedulerException jpe) {
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.github.attemper.quartz.spring.boot.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.attemper.quartz.spring.boot.autoconfigure.properties.PropertiesFlattener;
+import com.github.attemper.quartz.spring.boot.autoconfigure.properties.QuartzProperties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Turning the properties objects into quartz properties: the JSON round-trip CustomQuartzAutoConfiguration used to do
+ * with the ObjectMapper of the context, a new one for every context, against {@link PropertiesFlattener}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PropertyBindingBenchmark {
+
+    private Object[] propertiesObjects;
+
+    private ObjectMapper objectMapper;
+
+    @Setup
+    public void setUp() {
+        QuartzProperties quartzProperties = new QuartzProperties();
+        quartzProperties.getScheduler().setInstanceName("benchmark");
+        quartzProperties.getScheduler().setSkipUpdateCheck(true);
+        quartzProperties.getJobStore().setIsClustered(true);
+        quartzProperties.getJobStore().setTablePrefix("QRTZ_");
+        quartzProperties.getThreadPool().setThreadCount(10);
+        propertiesObjects = new Object[]{quartzProperties.getScheduler(), quartzProperties.getJobStore(), quartzProperties.getThreadPool(),
+                quartzProperties.getPlugin().getJobHistory(), quartzProperties.getPlugin().getTriggerHistory(),
+                quartzProperties.getPlugin().getJobInitializer(), quartzProperties.getPlugin().getShutdownhook(),
+                quartzProperties.getPlugin().getJobInterruptMonitor()};
+        objectMapper = new ObjectMapper();
+    }
+
+    @Benchmark
+    public void jacksonRoundTrip(Blackhole blackhole) throws IOException {
+        for (Object propertiesObject : propertiesObjects) {
+            blackhole.consume(objectMapper.readValue(objectMapper.writeValueAsString(propertiesObject), Map.class));
+        }
+    }
+
+    @Benchmark
+    public void jacksonRoundTripNewObjectMapper(Blackhole blackhole) throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        for (Object propertiesObject : propertiesObjects) {
+            blackhole.consume(objectMapper.readValue(objectMapper.writeValueAsString(propertiesObject), Map.class));
+        }
+    }
+
+    @Benchmark
+    public void flatten(Blackhole blackhole) {
+        for (Object propertiesObject : propertiesObjects) {
+            blackhole.consume(PropertiesFlattener.flatten(propertiesObject));
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.github.attemper.quartz.spring.boot.benchmarks;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.quartz.JobBuilder;
+import org.quartz.JobDetail;
+import org.quartz.JobKey;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
+import org.quartz.Trigger;
+import org.quartz.TriggerBuilder;
+import org.quartz.TriggerKey;
+import org.quartz.impl.matchers.GroupMatcher;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * one scheduler per trial, configured by the parameters of the benchmark
+ */
+@State(Scope.Benchmark)
+public class SchedulerState {
+
+    public static final String GROUP = "benchmark";
+
+    public static final JobKey JOB_KEY = new JobKey("countDown", GROUP);
+
+    @Param({"10", "50"})
+    public int threadCount;
+
+    @Param({"1", "20"})
+    public int batchTriggerAcquisitionMaxCount;
+
+    @Param({"false", "true"})
+    public boolean acquireTriggersWithinLock;
+
+    @Param({"true", "false"})
+    public boolean retainTriggerAfterExecutionCompleted;
+
+    private final AtomicLong triggerSequence = new AtomicLong();
+
+    private ConfigurableApplicationContext context;
+
+    private Scheduler scheduler;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SchedulerException {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("org.quartz.threadPool.threadCount", threadCount);
+        properties.put("org.quartz.scheduler.batchTriggerAcquisitionMaxCount", batchTriggerAcquisitionMaxCount);
+        properties.put("org.quartz.jobStore.acquireTriggersWithinLock", acquireTriggersWithinLock);
+        properties.put("org.quartz.jobStore.retainTriggerAfterExecutionCompleted", retainTriggerAfterExecutionCompleted);
+        context = BenchmarkSchedulers.start(properties);
+        scheduler = BenchmarkSchedulers.getScheduler(context);
+        JobDetail job = JobBuilder.newJob(CountDownJob.class).withIdentity(JOB_KEY).storeDurably().build();
+        scheduler.addJob(job, true);
+        scheduler.start();
+    }
+
+    @Setup(Level.Iteration)
+    public void removeRetainedTriggers() throws SchedulerException {
+        removeTriggers();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SchedulerException {
+        BenchmarkSchedulers.stop(context);
+    }
+
+    public Scheduler getScheduler() {
+        return scheduler;
+    }
+
+    public Trigger newTrigger() {
+        return TriggerBuilder.newTrigger()
+                .withIdentity("trigger-" + triggerSequence.incrementAndGet(), GROUP)
+                .forJob(JOB_KEY)
+                .startNow()
+                .build();
+    }
+
+    /**
+     * retained triggers would pile up from one invocation to the next
+     */
+    public void removeTriggers() throws SchedulerException {
+        scheduler.unscheduleJobs(new ArrayList<TriggerKey>(scheduler.getTriggerKeys(GroupMatcher.triggerGroupEquals(GROUP))));
+    }
+}
@@ -0,0 +1,53 @@
+package com.github.attemper.quartz.spring.boot.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.quartz.SchedulerException;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to refresh a context up to its scheduler, as a test suite does for every context it builds.
+ * The context is closed outside of the measured time.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 10, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class StartupBenchmark {
+
+    @Param({"org.quartz.simpl.RAMJobStore", "com.github.attemper.quartz.spring.boot.autoconfigure.jobstore.CustomJobStoreCMT"})
+    public String jobStoreClass;
+
+    private ConfigurableApplicationContext context;
+
+    @Benchmark
+    public Object start() throws SchedulerException {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("org.quartz.jobStore.class", jobStoreClass);
+        properties.put("org.quartz.threadPool.threadCount", 1);
+        context = BenchmarkSchedulers.start(properties);
+        return BenchmarkSchedulers.getScheduler(context);
+    }
+
+    @TearDown(Level.Invocation)
+    public void stop() throws SchedulerException {
+        BenchmarkSchedulers.stop(context);
+        context = null;
+    }
+}
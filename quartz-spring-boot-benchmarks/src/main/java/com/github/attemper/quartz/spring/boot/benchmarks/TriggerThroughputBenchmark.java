@@ -0,0 +1,60 @@
+package com.github.attemper.quartz.spring.boot.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jobs fired per second: a batch of triggers due now is stored while the scheduler is in standby,
+ * then the time to acquire, fire and complete all of them is measured.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class TriggerThroughputBenchmark {
+
+    public static final int TRIGGERS = 500;
+
+    @State(Scope.Thread)
+    public static class PendingTriggers {
+
+        CountDownLatch latch;
+
+        @Setup(Level.Invocation)
+        public void setUp(SchedulerState state) throws SchedulerException {
+            Scheduler scheduler = state.getScheduler();
+            scheduler.standby();
+            state.removeTriggers();
+            latch = CountDownJob.reset(TRIGGERS);
+            for (int i = 0; i < TRIGGERS; i++) {
+                scheduler.scheduleJob(state.newTrigger());
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TRIGGERS)
+    public long fire(SchedulerState state, PendingTriggers pendingTriggers) throws Exception {
+        state.getScheduler().start();
+        if (!pendingTriggers.latch.await(1, TimeUnit.MINUTES)) {
+            throw new IllegalStateException(pendingTriggers.latch.getCount() + " of " + TRIGGERS + " triggers were not fired within a minute");
+        }
+        return pendingTriggers.latch.getCount();
+    }
+}